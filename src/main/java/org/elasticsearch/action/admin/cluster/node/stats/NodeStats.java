@@ -19,13 +19,17 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.support.nodes.NodeOperationResponse;
+import org.elasticsearch.cache.recycler.PageCacheRecyclerStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.NodeIndicesStats;
+import org.elasticsearch.indices.fielddata.breaker.FieldDataBreakerStats;
+import org.elasticsearch.indices.memory.IndexingPressureStats;
 import org.elasticsearch.monitor.fs.FsStats;
 import org.elasticsearch.monitor.jvm.JvmStats;
 import org.elasticsearch.monitor.network.NetworkStats;
@@ -73,12 +77,22 @@ public class NodeStats extends NodeOperationResponse {
     @Nullable
     private HttpStats http;
 
+    @Nullable
+    private IndexingPressureStats indexingPressure;
+
+    @Nullable
+    private FieldDataBreakerStats fieldDataBreaker;
+
+    @Nullable
+    private PageCacheRecyclerStats pageRecycler;
+
     NodeStats() {
     }
 
     public NodeStats(DiscoveryNode node, long timestamp, @Nullable String hostname, @Nullable NodeIndicesStats indices,
                      @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool, @Nullable NetworkStats network,
-                     @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http) {
+                     @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http, @Nullable IndexingPressureStats indexingPressure,
+                     @Nullable FieldDataBreakerStats fieldDataBreaker, @Nullable PageCacheRecyclerStats pageRecycler) {
         super(node);
         this.timestamp = timestamp;
         this.hostname = hostname;
@@ -91,6 +105,9 @@ public class NodeStats extends NodeOperationResponse {
         this.fs = fs;
         this.transport = transport;
         this.http = http;
+        this.indexingPressure = indexingPressure;
+        this.fieldDataBreaker = fieldDataBreaker;
+        this.pageRecycler = pageRecycler;
     }
 
     public long getTimestamp() {
@@ -168,6 +185,30 @@ public class NodeStats extends NodeOperationResponse {
         return this.http;
     }
 
+    /**
+     * Indexing back pressure statistics.
+     */
+    @Nullable
+    public IndexingPressureStats getIndexingPressure() {
+        return this.indexingPressure;
+    }
+
+    /**
+     * Field data circuit breaker statistics.
+     */
+    @Nullable
+    public FieldDataBreakerStats getFieldDataBreaker() {
+        return this.fieldDataBreaker;
+    }
+
+    /**
+     * Page recycler statistics.
+     */
+    @Nullable
+    public PageCacheRecyclerStats getPageRecycler() {
+        return this.pageRecycler;
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -208,6 +249,15 @@ public class NodeStats extends NodeOperationResponse {
         if (in.readBoolean()) {
             http = HttpStats.readHttpStats(in);
         }
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1) && in.readBoolean()) {
+            indexingPressure = IndexingPressureStats.readIndexingPressureStats(in);
+        }
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1) && in.readBoolean()) {
+            fieldDataBreaker = FieldDataBreakerStats.readFieldDataBreakerStats(in);
+        }
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1) && in.readBoolean()) {
+            pageRecycler = PageCacheRecyclerStats.readPageCacheRecyclerStats(in);
+        }
     }
 
     @Override
@@ -274,5 +324,25 @@ public class NodeStats extends NodeOperationResponse {
             out.writeBoolean(true);
             http.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            if (indexingPressure == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                indexingPressure.writeTo(out);
+            }
+            if (fieldDataBreaker == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                fieldDataBreaker.writeTo(out);
+            }
+            if (pageRecycler == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                pageRecycler.writeTo(out);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
 import org.elasticsearch.action.support.nodes.NodesOperationRequest;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -40,6 +41,9 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
     private boolean fs;
     private boolean transport;
     private boolean http;
+    private boolean indexingPressure;
+    private boolean fieldDataBreaker;
+    private boolean pageRecycler;
 
     protected NodesStatsRequest() {
     }
@@ -65,6 +69,9 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         this.fs = true;
         this.transport = true;
         this.http = true;
+        this.indexingPressure = true;
+        this.fieldDataBreaker = true;
+        this.pageRecycler = true;
         return this;
     }
 
@@ -81,6 +88,9 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         this.fs = false;
         this.transport = false;
         this.http = false;
+        this.indexingPressure = false;
+        this.fieldDataBreaker = false;
+        this.pageRecycler = false;
         return this;
     }
 
@@ -225,6 +235,51 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         return this;
     }
 
+    /**
+     * Should the node indexing back pressure stats be returned.
+     */
+    public boolean indexingPressure() {
+        return this.indexingPressure;
+    }
+
+    /**
+     * Should the node indexing back pressure stats be returned.
+     */
+    public NodesStatsRequest indexingPressure(boolean indexingPressure) {
+        this.indexingPressure = indexingPressure;
+        return this;
+    }
+
+    /**
+     * Should the node field data circuit breaker stats be returned.
+     */
+    public boolean fieldDataBreaker() {
+        return this.fieldDataBreaker;
+    }
+
+    /**
+     * Should the node field data circuit breaker stats be returned.
+     */
+    public NodesStatsRequest fieldDataBreaker(boolean fieldDataBreaker) {
+        this.fieldDataBreaker = fieldDataBreaker;
+        return this;
+    }
+
+    /**
+     * Should the node page recycler stats be returned.
+     */
+    public boolean pageRecycler() {
+        return this.pageRecycler;
+    }
+
+    /**
+     * Should the node page recycler stats be returned.
+     */
+    public NodesStatsRequest pageRecycler(boolean pageRecycler) {
+        this.pageRecycler = pageRecycler;
+        return this;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -237,6 +292,11 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         fs = in.readBoolean();
         transport = in.readBoolean();
         http = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            indexingPressure = in.readBoolean();
+            fieldDataBreaker = in.readBoolean();
+            pageRecycler = in.readBoolean();
+        }
     }
 
     @Override
@@ -251,6 +311,11 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         out.writeBoolean(fs);
         out.writeBoolean(transport);
         out.writeBoolean(http);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeBoolean(indexingPressure);
+            out.writeBoolean(fieldDataBreaker);
+            out.writeBoolean(pageRecycler);
+        }
     }
 
 }
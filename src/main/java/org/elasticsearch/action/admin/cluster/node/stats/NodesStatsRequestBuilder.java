@@ -130,6 +130,30 @@ public class NodesStatsRequestBuilder extends NodesOperationRequestBuilder<Nodes
         return this;
     }
 
+    /**
+     * Should the node indexing back pressure stats be returned.
+     */
+    public NodesStatsRequestBuilder setIndexingPressure(boolean indexingPressure) {
+        request.indexingPressure(indexingPressure);
+        return this;
+    }
+
+    /**
+     * Should the node field data circuit breaker stats be returned.
+     */
+    public NodesStatsRequestBuilder setFieldDataBreaker(boolean fieldDataBreaker) {
+        request.fieldDataBreaker(fieldDataBreaker);
+        return this;
+    }
+
+    /**
+     * Should the node page recycler stats be returned.
+     */
+    public NodesStatsRequestBuilder setPageRecycler(boolean pageRecycler) {
+        request.pageRecycler(pageRecycler);
+        return this;
+    }
+
     @Override
     protected void doExecute(ActionListener<NodesStatsResponse> listener) {
         ((ClusterAdminClient) client).nodesStats(request, listener);
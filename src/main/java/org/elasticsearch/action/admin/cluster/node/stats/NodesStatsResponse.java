@@ -112,6 +112,15 @@ public class NodesStatsResponse extends NodesOperationResponse<NodeStats> implem
             if (nodeStats.getHttp() != null) {
                 nodeStats.getHttp().toXContent(builder, params);
             }
+            if (nodeStats.getIndexingPressure() != null) {
+                nodeStats.getIndexingPressure().toXContent(builder, params);
+            }
+            if (nodeStats.getFieldDataBreaker() != null) {
+                nodeStats.getFieldDataBreaker().toXContent(builder, params);
+            }
+            if (nodeStats.getPageRecycler() != null) {
+                nodeStats.getPageRecycler().toXContent(builder, params);
+            }
 
             builder.endObject();
         }
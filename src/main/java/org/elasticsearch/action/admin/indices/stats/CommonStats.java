@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.indices.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -36,6 +37,7 @@ import org.elasticsearch.index.refresh.RefreshStats;
 import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.store.StoreStats;
+import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.WarmerStats;
 
 import java.io.IOException;
@@ -80,6 +82,9 @@ public class CommonStats implements Streamable, ToXContent {
     @Nullable
     public FieldDataStats fieldData;
 
+    @Nullable
+    public TranslogStats translog;
+
     public void add(CommonStats stats) {
         if (docs == null) {
             if (stats.getDocs() != null) {
@@ -179,6 +184,14 @@ public class CommonStats implements Streamable, ToXContent {
         } else {
             fieldData.add(stats.getFieldData());
         }
+        if (translog == null) {
+            if (stats.getTranslog() != null) {
+                translog = new TranslogStats();
+                translog.add(stats.getTranslog());
+            }
+        } else {
+            translog.add(stats.getTranslog());
+        }
     }
 
     @Nullable
@@ -241,6 +254,11 @@ public class CommonStats implements Streamable, ToXContent {
         return this.fieldData;
     }
 
+    @Nullable
+    public TranslogStats getTranslog() {
+        return this.translog;
+    }
+
     public static CommonStats readCommonStats(StreamInput in) throws IOException {
         CommonStats stats = new CommonStats();
         stats.readFrom(in);
@@ -285,6 +303,11 @@ public class CommonStats implements Streamable, ToXContent {
         if (in.readBoolean()) {
             fieldData = FieldDataStats.readFieldDataStats(in);
         }
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            if (in.readBoolean()) {
+                translog = TranslogStats.readTranslogStats(in);
+            }
+        }
     }
 
     @Override
@@ -361,6 +384,14 @@ public class CommonStats implements Streamable, ToXContent {
             out.writeBoolean(true);
             fieldData.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            if (translog == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                translog.writeTo(out);
+            }
+        }
     }
 
     // note, requires a wrapping object
@@ -402,6 +433,9 @@ public class CommonStats implements Streamable, ToXContent {
         if (fieldData != null) {
             fieldData.toXContent(builder, params);
         }
+        if (translog != null) {
+            translog.toXContent(builder, params);
+        }
         return builder;
     }
 }
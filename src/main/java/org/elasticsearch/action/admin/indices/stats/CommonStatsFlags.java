@@ -187,7 +187,8 @@ public class CommonStatsFlags implements Streamable, Cloneable {
         IdCache("id_cache"),
         FieldData("fielddata"),
         Docs("docs"),
-        Warmer("warmer");
+        Warmer("warmer"),
+        Translog("translog");
 
         private final String restName;
 
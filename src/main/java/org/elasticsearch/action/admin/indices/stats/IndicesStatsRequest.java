@@ -167,6 +167,15 @@ public class IndicesStatsRequest extends BroadcastOperationRequest<IndicesStatsR
         return flags.isSet(Flag.Warmer);
     }
 
+    public IndicesStatsRequest translog(boolean translog) {
+        flags.set(Flag.Translog, translog);
+        return this;
+    }
+
+    public boolean translog() {
+        return flags.isSet(Flag.Translog);
+    }
+
     public IndicesStatsRequest filterCache(boolean filterCache) {
         flags.set(Flag.FilterCache, filterCache);
         return this;
@@ -114,6 +114,11 @@ public class IndicesStatsRequestBuilder extends BroadcastOperationRequestBuilder
         return this;
     }
 
+    public IndicesStatsRequestBuilder setTranslog(boolean translog) {
+        request.translog(translog);
+        return this;
+    }
+
     public IndicesStatsRequestBuilder setFilterCache(boolean filterCache) {
         request.filterCache(filterCache);
         return this;
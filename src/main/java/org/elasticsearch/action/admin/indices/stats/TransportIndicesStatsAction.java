@@ -181,6 +181,9 @@ public class TransportIndicesStatsAction extends TransportBroadcastOperationActi
         if (request.request.fieldData()) {
             stats.stats.fieldData = indexShard.fieldDataStats(request.request.fieldDataFields());
         }
+        if (request.request.translog()) {
+            stats.stats.translog = indexShard.translogStats();
+        }
 
         return stats;
     }
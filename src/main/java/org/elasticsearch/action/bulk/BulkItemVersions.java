@@ -0,0 +1,83 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+
+/**
+ * The versions the index and delete items of a bulk shard request had before executing on the primary. Executing
+ * them sets the versions of the engine on the requests, for the replicas, so when the request is retried on the
+ * primary they are restored. The engine executes a whole batch of items at once, so any item may have been updated,
+ * not only the ones before the item that failed.
+ */
+public class BulkItemVersions {
+
+    private final long[] versions;
+
+    private final boolean[] recorded;
+
+    /**
+     * Records the versions of all the index and delete items.
+     */
+    public BulkItemVersions(BulkItemRequest[] items) {
+        this.versions = new long[items.length];
+        this.recorded = new boolean[items.length];
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == null) {
+                continue;
+            }
+            if (items[i].request() instanceof IndexRequest) {
+                record(i, ((IndexRequest) items[i].request()).version());
+            } else if (items[i].request() instanceof DeleteRequest) {
+                record(i, ((DeleteRequest) items[i].request()).version());
+            }
+        }
+    }
+
+    /**
+     * Records the version of an item, used for update items, which are replaced by the index or delete request
+     * they translate to.
+     */
+    public void record(int location, long version) {
+        versions[location] = version;
+        recorded[location] = true;
+    }
+
+    /**
+     * Restores the recorded versions on the items.
+     */
+    public void restore(BulkItemRequest[] items) {
+        for (int i = 0; i < items.length; i++) {
+            if (recorded[i] && items[i] != null) {
+                applyVersion(items[i], versions[i]);
+            }
+        }
+    }
+
+    private static void applyVersion(BulkItemRequest item, long version) {
+        if (item.request() instanceof IndexRequest) {
+            ((IndexRequest) item.request()).version(version);
+        } else if (item.request() instanceof DeleteRequest) {
+            ((DeleteRequest) item.request()).version(version);
+        }
+    }
+}
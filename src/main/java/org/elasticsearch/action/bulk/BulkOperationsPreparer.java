@@ -0,0 +1,108 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prepares (parses) the items of a bulk shard request before they are executed in order by the engine. Large enough
+ * ranges of items are split across {@link ThreadPool.Names#BULK_PARSE} threads, which claim the next item to prepare,
+ * along with the calling thread, so that the call never waits on workers that did not get to run yet.
+ */
+public class BulkOperationsPreparer {
+
+    /**
+     * Prepares a single item, recording its result (or failure) itself, it should not throw.
+     */
+    public static interface ItemPreparer {
+        void prepare(int location);
+    }
+
+    private final ThreadPool threadPool;
+
+    private final int parallelism;
+
+    private final int batchSize;
+
+    /**
+     * @param parallelism the number of threads (including the calling one) preparing the items
+     * @param batchSize   the minimum number of items each of these threads gets to prepare
+     */
+    public BulkOperationsPreparer(ThreadPool threadPool, int parallelism, int batchSize) {
+        this.threadPool = threadPool;
+        this.parallelism = parallelism;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Prepares the items in <tt>[from, to)</tt>, returning once all of them are prepared.
+     */
+    public void prepare(int from, final int to, final ItemPreparer preparer) {
+        int workers = Math.min(parallelism, (to - from) / batchSize) - 1;
+        if (workers <= 0) {
+            for (int i = from; i < to; i++) {
+                preparer.prepare(i);
+            }
+            return;
+        }
+        final AtomicInteger next = new AtomicInteger(from);
+        final CountDownLatch prepared = new CountDownLatch(to - from);
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int i;
+                while ((i = next.getAndIncrement()) < to) {
+                    try {
+                        preparer.prepare(i);
+                    } finally {
+                        prepared.countDown();
+                    }
+                }
+            }
+        };
+        for (int i = 0; i < workers; i++) {
+            try {
+                threadPool.executor(ThreadPool.Names.BULK_PARSE).execute(worker);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread will prepare more items
+                break;
+            }
+        }
+        worker.run();
+        // the items claimed by other threads might still be prepared
+        boolean interrupted = false;
+        while (true) {
+            try {
+                prepared.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -60,6 +60,7 @@ import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.memory.IndexingPressureController;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportRequestOptions;
@@ -77,14 +78,23 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
     private final MappingUpdatedAction mappingUpdatedAction;
     private final UpdateHelper updateHelper;
     private final boolean allowIdGeneration;
+    private final IndexingPressureController indexingPressureController;
+    private final BulkOperationsPreparer operationsPreparer;
+
+    private static final int REQUEST_OVERHEAD = 50;
 
     @Inject
     public TransportShardBulkAction(Settings settings, TransportService transportService, ClusterService clusterService,
                                     IndicesService indicesService, ThreadPool threadPool, ShardStateAction shardStateAction,
-                                    MappingUpdatedAction mappingUpdatedAction, UpdateHelper updateHelper) {
+                                    MappingUpdatedAction mappingUpdatedAction, UpdateHelper updateHelper, IndexingPressureController indexingPressureController) {
         super(settings, transportService, clusterService, indicesService, threadPool, shardStateAction);
         this.mappingUpdatedAction = mappingUpdatedAction;
         this.updateHelper = updateHelper;
+        this.indexingPressureController = indexingPressureController;
+        // the number of threads (including the one executing the request) parsing the documents of a bulk shard request,
+        // and the minimum number of documents each of these threads gets to parse
+        this.operationsPreparer = new BulkOperationsPreparer(threadPool, settings.getAsInt("action.bulk.parse_parallelism", Runtime.getRuntime().availableProcessors()),
+                settings.getAsInt("action.bulk.parse_batch_size", 8));
         this.allowIdGeneration = settings.getAsBoolean("action.allow_id_generation", true);
     }
 
@@ -140,23 +150,35 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
 
     @Override
     protected PrimaryResponse<BulkShardResponse, BulkShardRequest> shardOperationOnPrimary(ClusterState clusterState, PrimaryOperationRequest shardRequest) {
+        // throttles or rejects the request before it reaches the engine when indexing on this node is behind
+        final long sizeInBytes = sizeInBytes(shardRequest.request);
+        indexingPressureController.acquirePrimary(sizeInBytes);
+        try {
+            return executeOnPrimary(clusterState, shardRequest);
+        } finally {
+            indexingPressureController.release(sizeInBytes);
+        }
+    }
+
+    private PrimaryResponse<BulkShardResponse, BulkShardRequest> executeOnPrimary(ClusterState clusterState, PrimaryOperationRequest shardRequest) {
         final BulkShardRequest request = shardRequest.request;
         IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.request.index()).shardSafe(shardRequest.shardId);
         Engine.IndexingOperation[] ops = null;
         Set<Tuple<String, String>> mappingsToUpdate = null;
 
         BulkItemResponse[] responses = new BulkItemResponse[request.items().length];
-        long[] preVersions = new long[request.items().length];
+        BulkItemVersions preVersions = new BulkItemVersions(request.items());
+        // the results (or failures) of index and delete items that were executed as part of an engine bulk
+        Object[] bulkResults = new Object[request.items().length];
         for (int i = 0; i < request.items().length; i++) {
             BulkItemRequest item = request.items()[i];
             if (item.request() instanceof IndexRequest) {
                 IndexRequest indexRequest = (IndexRequest) item.request();
                 try {
-                    WriteResult result = shardIndexOperation(request, indexRequest, clusterState, indexShard, true);
+                    WriteResult result = bulkWriteResult(request, clusterState, indexShard, i, bulkResults);
                     // add the response
                     IndexResponse indexResponse = result.response();
                     responses[i] = new BulkItemResponse(item.id(), indexRequest.opType().lowercase(), indexResponse);
-                    preVersions[i] = result.preVersion;
                     if (result.mappingToUpdate != null) {
                         if (mappingsToUpdate == null) {
                             mappingsToUpdate = Sets.newHashSet();
@@ -172,10 +194,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 } catch (Exception e) {
                     // rethrow the failure if we are going to retry on primary and let parent failure to handle it
                     if (retryPrimaryException(e)) {
-                        // restore updated versions...
-                        for (int j = 0; j < i; j++) {
-                            applyVersion(request.items()[j], preVersions[j]);
-                        }
+                        // restore the versions of all the items, the engine might have executed items after this one
+                        preVersions.restore(request.items());
                         throw (ElasticSearchException) e;
                     }
                     if (e instanceof ElasticSearchException && ((ElasticSearchException) e).status() == RestStatus.CONFLICT) {
@@ -192,15 +212,13 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 DeleteRequest deleteRequest = (DeleteRequest) item.request();
                 try {
                     // add the response
-                    DeleteResponse deleteResponse = shardDeleteOperation(deleteRequest, indexShard).response();
+                    DeleteResponse deleteResponse = bulkWriteResult(request, clusterState, indexShard, i, bulkResults).response();
                     responses[i] = new BulkItemResponse(item.id(), "delete", deleteResponse);
                 } catch (Exception e) {
                     // rethrow the failure if we are going to retry on primary and let parent failure to handle it
                     if (retryPrimaryException(e)) {
-                        // restore updated versions...
-                        for (int j = 0; j < i; j++) {
-                            applyVersion(request.items()[j], preVersions[j]);
-                        }
+                        // restore the versions of all the items, the engine might have executed items after this one
+                        preVersions.restore(request.items());
                         throw (ElasticSearchException) e;
                     }
                     if (e instanceof ElasticSearchException && ((ElasticSearchException) e).status() == RestStatus.CONFLICT) {
@@ -239,7 +257,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                                     updateResponse.setGetResult(updateHelper.extractGetResult(updateRequest, indexResponse.getVersion(), sourceAndContent.v2(), sourceAndContent.v1(), indexSourceAsBytes));
                                 }
                                 responses[i] = new BulkItemResponse(item.id(), "update", updateResponse);
-                                preVersions[i] = result.preVersion;
+                                preVersions.record(i, result.preVersion);
                                 if (result.mappingToUpdate != null) {
                                     if (mappingsToUpdate == null) {
                                         mappingsToUpdate = Sets.newHashSet();
@@ -261,6 +279,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                                 updateResponse = new UpdateResponse(response.getIndex(), response.getType(), response.getId(), response.getVersion());
                                 updateResponse.setGetResult(updateHelper.extractGetResult(updateRequest, response.getVersion(), updateResult.result.updatedSourceAsMap(), updateResult.result.updateSourceContentType(), null));
                                 responses[i] = new BulkItemResponse(item.id(), "update", updateResponse);
+                                preVersions.record(i, updateResult.writeResult.preVersion);
                                 // Replace the update request to the translated delete request to execute on the replica.
                                 request.items()[i] = new BulkItemRequest(request.items()[i].id(), deleteRequest);
                                 break;
@@ -276,10 +295,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                         if (!updateResult.retry) {
                             // rethrow the failure if we are going to retry on primary and let parent failure to handle it
                             if (retryPrimaryException(t)) {
-                                // restore updated versions...
-                                for (int j = 0; j < i; j++) {
-                                    applyVersion(request.items()[j], preVersions[j]);
-                                }
+                                // restore the versions of all the items, the engine might have executed items after this one
+                                preVersions.restore(request.items());
                                 throw (ElasticSearchException) t;
                             }
                             if (updateResult.result == null) {
@@ -357,8 +374,87 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
 
     }
 
+    /**
+     * Returns the result of the index or delete item at the provided location. If not executed yet, the item is
+     * executed along with the index and delete items directly following it as a single engine bulk.
+     */
+    private WriteResult bulkWriteResult(BulkShardRequest request, ClusterState clusterState, IndexShard indexShard,
+                                        int location, Object[] bulkResults) throws Exception {
+        if (bulkResults[location] == null) {
+            executeBulk(request, clusterState, indexShard, location, bulkResults);
+        }
+        Object result = bulkResults[location];
+        if (result instanceof Exception) {
+            throw (Exception) result;
+        }
+        return (WriteResult) result;
+    }
+
+    private void executeBulk(final BulkShardRequest request, final ClusterState clusterState, final IndexShard indexShard, final int from, final Object[] bulkResults) {
+        final BulkItemRequest[] items = request.items();
+        int to = from;
+        while (to < items.length && items[to] != null &&
+                (items[to].request() instanceof IndexRequest || items[to].request() instanceof DeleteRequest)) {
+            to++;
+        }
+
+        // parse the documents up front, possibly in parallel, the engine then only executes them in order
+        final Engine.Operation[] ops = new Engine.Operation[to - from];
+        operationsPreparer.prepare(from, to, new BulkOperationsPreparer.ItemPreparer() {
+            @Override
+            public void prepare(int i) {
+                try {
+                    if (items[i].request() instanceof IndexRequest) {
+                        ops[i - from] = prepareIndexOperation(request, (IndexRequest) items[i].request(), clusterState, indexShard, true);
+                    } else {
+                        ops[i - from] = prepareDeleteOperation((DeleteRequest) items[i].request(), indexShard);
+                    }
+                } catch (Exception e) {
+                    bulkResults[i] = e;
+                }
+            }
+        });
+
+        Engine.Bulk bulk = new Engine.Bulk(ops);
+        try {
+            indexShard.bulk(bulk);
+        } catch (Exception e) {
+            for (int i = from; i < to; i++) {
+                if (bulkResults[i] == null) {
+                    bulkResults[i] = e;
+                }
+            }
+            return;
+        }
+
+        for (int i = from; i < to; i++) {
+            Engine.Operation op = ops[i - from];
+            if (op == null) {
+                continue; // failed to prepare
+            }
+            if (bulk.failure(i - from) != null) {
+                bulkResults[i] = bulk.failure(i - from);
+            } else if (op instanceof Engine.Delete) {
+                bulkResults[i] = deleteWriteResult((DeleteRequest) items[i].request(), (Engine.Delete) op);
+            } else {
+                bulkResults[i] = indexWriteResult((IndexRequest) items[i].request(), (Engine.IndexingOperation) op);
+            }
+        }
+    }
+
     private WriteResult shardIndexOperation(BulkShardRequest request, IndexRequest indexRequest, ClusterState clusterState,
                                             IndexShard indexShard, boolean processed) {
+        Engine.IndexingOperation op = prepareIndexOperation(request, indexRequest, clusterState, indexShard, processed);
+        if (op instanceof Engine.Index) {
+            indexShard.index((Engine.Index) op);
+        } else {
+            indexShard.create((Engine.Create) op);
+        }
+        return indexWriteResult(indexRequest, op);
+    }
+
+    private Engine.IndexingOperation prepareIndexOperation(BulkShardRequest request, IndexRequest indexRequest, ClusterState clusterState,
+                                                           IndexShard indexShard, boolean processed) {
 
         // validate, if routing is required, that we got routing
         MappingMetaData mappingMd = clusterState.metaData().index(request.index()).mappingOrDefault(indexRequest.type());
@@ -375,18 +471,20 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         SourceToParse sourceToParse = SourceToParse.source(indexRequest.source()).type(indexRequest.type()).id(indexRequest.id())
                 .routing(indexRequest.routing()).parent(indexRequest.parent()).timestamp(indexRequest.timestamp()).ttl(indexRequest.ttl());
 
-        long version;
-        Engine.IndexingOperation op;
         if (indexRequest.opType() == IndexRequest.OpType.INDEX) {
-            Engine.Index index = indexShard.prepareIndex(sourceToParse).version(indexRequest.version()).versionType(indexRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
-            indexShard.index(index);
-            version = index.version();
-            op = index;
+            return indexShard.prepareIndex(sourceToParse).version(indexRequest.version()).versionType(indexRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
         } else {
-            Engine.Create create = indexShard.prepareCreate(sourceToParse).version(indexRequest.version()).versionType(indexRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
-            indexShard.create(create);
-            version = create.version();
-            op = create;
+            return indexShard.prepareCreate(sourceToParse).version(indexRequest.version()).versionType(indexRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY)
+                    .autoGeneratedId(indexRequest.autoGeneratedId()).canHaveDuplicates(request.canHaveDuplicates());
+        }
+    }
+
+    private WriteResult indexWriteResult(IndexRequest indexRequest, Engine.IndexingOperation op) {
+        long version;
+        if (op instanceof Engine.Index) {
+            version = ((Engine.Index) op).version();
+        } else {
+            version = ((Engine.Create) op).version();
         }
         long preVersion = indexRequest.version();
         // update the version on request so it will happen on the replicas
@@ -408,12 +506,21 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
     }
 
     private WriteResult shardDeleteOperation(DeleteRequest deleteRequest, IndexShard indexShard) {
-        Engine.Delete delete = indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version()).versionType(deleteRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
+        Engine.Delete delete = prepareDeleteOperation(deleteRequest, indexShard);
         indexShard.delete(delete);
+        return deleteWriteResult(deleteRequest, delete);
+    }
+
+    private Engine.Delete prepareDeleteOperation(DeleteRequest deleteRequest, IndexShard indexShard) {
+        return indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version()).versionType(deleteRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
+    }
+
+    private WriteResult deleteWriteResult(DeleteRequest deleteRequest, Engine.Delete delete) {
+        long preVersion = deleteRequest.version();
         // update the request with the version so it will go to the replicas
         deleteRequest.version(delete.version());
         DeleteResponse deleteResponse = new DeleteResponse(deleteRequest.index(), deleteRequest.type(), deleteRequest.id(), delete.version(), delete.notFound());
-        return new WriteResult(deleteResponse, deleteRequest.version(), null, null);
+        return new WriteResult(deleteResponse, preVersion, null, null);
     }
 
     static class UpdateResult {
@@ -542,38 +649,80 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
 
     @Override
     protected void shardOperationOnReplica(ReplicaOperationRequest shardRequest) {
-        IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.request.index()).shardSafe(shardRequest.shardId);
-        final BulkShardRequest request = shardRequest.request;
-        for (int i = 0; i < request.items().length; i++) {
-            BulkItemRequest item = request.items()[i];
+        final long sizeInBytes = sizeInBytes(shardRequest.request);
+        indexingPressureController.acquireReplica(sizeInBytes);
+        try {
+            executeOnReplica(shardRequest);
+        } finally {
+            indexingPressureController.release(sizeInBytes);
+        }
+    }
+
+    /**
+     * The estimated size of the items of the request, the same way {@link BulkRequest#estimatedSizeInBytes()} does.
+     */
+    private static long sizeInBytes(BulkShardRequest request) {
+        long sizeInBytes = 0;
+        for (BulkItemRequest item : request.items()) {
             if (item == null) {
                 continue;
             }
+            sizeInBytes += REQUEST_OVERHEAD;
             if (item.request() instanceof IndexRequest) {
-                IndexRequest indexRequest = (IndexRequest) item.request();
-                try {
-                    SourceToParse sourceToParse = SourceToParse.source(indexRequest.source()).type(indexRequest.type()).id(indexRequest.id())
-                            .routing(indexRequest.routing()).parent(indexRequest.parent()).timestamp(indexRequest.timestamp()).ttl(indexRequest.ttl());
+                sizeInBytes += ((IndexRequest) item.request()).source().length();
+            } else if (item.request() instanceof UpdateRequest) {
+                UpdateRequest updateRequest = (UpdateRequest) item.request();
+                if (updateRequest.doc() != null) {
+                    sizeInBytes += updateRequest.doc().source().length();
+                }
+                if (updateRequest.upsertRequest() != null) {
+                    sizeInBytes += updateRequest.upsertRequest().source().length();
+                }
+            }
+        }
+        return sizeInBytes;
+    }
 
-                    if (indexRequest.opType() == IndexRequest.OpType.INDEX) {
-                        Engine.Index index = indexShard.prepareIndex(sourceToParse).version(indexRequest.version()).origin(Engine.Operation.Origin.REPLICA);
-                        indexShard.index(index);
-                    } else {
-                        Engine.Create create = indexShard.prepareCreate(sourceToParse).version(indexRequest.version()).origin(Engine.Operation.Origin.REPLICA);
-                        indexShard.create(create);
-                    }
-                } catch (Exception e) {
-                    // ignore, we are on backup
+    private void executeOnReplica(ReplicaOperationRequest shardRequest) {
+        final IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.request.index()).shardSafe(shardRequest.shardId);
+        final BulkShardRequest request = shardRequest.request;
+        final Engine.Operation[] ops = new Engine.Operation[request.items().length];
+        operationsPreparer.prepare(0, request.items().length, new BulkOperationsPreparer.ItemPreparer() {
+            @Override
+            public void prepare(int i) {
+                BulkItemRequest item = request.items()[i];
+                if (item == null) {
+                    return;
                 }
-            } else if (item.request() instanceof DeleteRequest) {
-                DeleteRequest deleteRequest = (DeleteRequest) item.request();
-                try {
-                    Engine.Delete delete = indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version()).origin(Engine.Operation.Origin.REPLICA);
-                    indexShard.delete(delete);
-                } catch (Exception e) {
-                    // ignore, we are on backup
+                if (item.request() instanceof IndexRequest) {
+                    IndexRequest indexRequest = (IndexRequest) item.request();
+                    try {
+                        SourceToParse sourceToParse = SourceToParse.source(indexRequest.source()).type(indexRequest.type()).id(indexRequest.id())
+                                .routing(indexRequest.routing()).parent(indexRequest.parent()).timestamp(indexRequest.timestamp()).ttl(indexRequest.ttl());
+
+                        if (indexRequest.opType() == IndexRequest.OpType.INDEX) {
+                            ops[i] = indexShard.prepareIndex(sourceToParse).version(indexRequest.version()).origin(Engine.Operation.Origin.REPLICA);
+                        } else {
+                            ops[i] = indexShard.prepareCreate(sourceToParse).version(indexRequest.version()).origin(Engine.Operation.Origin.REPLICA);
+                        }
+                    } catch (Exception e) {
+                        // ignore, we are on backup
+                    }
+                } else if (item.request() instanceof DeleteRequest) {
+                    DeleteRequest deleteRequest = (DeleteRequest) item.request();
+                    try {
+                        ops[i] = indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version()).origin(Engine.Operation.Origin.REPLICA);
+                    } catch (Exception e) {
+                        // ignore, we are on backup
+                    }
                 }
             }
+        });
+        try {
+            // failures of single operations are recorded on the bulk, and ignored since we are on backup
+            indexShard.bulk(new Engine.Bulk(ops));
+        } catch (Exception e) {
+            // ignore, we are on backup
         }
 
         if (request.refresh()) {
@@ -613,14 +762,4 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             logger.warn("failed to update master on updated mapping for index [{}], type [{}]", e, index, type);
         }
     }
-
-    private void applyVersion(BulkItemRequest item, long version) {
-        if (item.request() instanceof IndexRequest) {
-            ((IndexRequest) item.request()).version(version);
-        } else if (item.request() instanceof DeleteRequest) {
-            ((DeleteRequest) item.request()).version(version);
-        } else {
-            // log?
-        }
-    }
 }
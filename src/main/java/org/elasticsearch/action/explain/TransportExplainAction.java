@@ -30,6 +30,7 @@ import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
@@ -61,13 +62,16 @@ public class TransportExplainAction extends TransportShardSingleOperationAction<
 
     private final ScriptService scriptService;
 
+    private final BigArrays bigArrays;
+
     @Inject
     public TransportExplainAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
                                   TransportService transportService, IndicesService indicesService,
-                                  ScriptService scriptService) {
+                                  ScriptService scriptService, BigArrays bigArrays) {
         super(settings, threadPool, clusterService, transportService);
         this.indicesService = indicesService;
         this.scriptService = scriptService;
+        this.bigArrays = bigArrays;
     }
 
     protected String transportAction() {
@@ -99,7 +103,7 @@ public class TransportExplainAction extends TransportShardSingleOperationAction<
                 new ShardSearchRequest().types(new String[]{request.type()})
                         .filteringAliases(request.filteringAlias()),
                 null, result.searcher(), indexService, indexShard,
-                scriptService
+                scriptService, bigArrays
         );
         SearchContext.setCurrent(context);
 
@@ -24,6 +24,7 @@ import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.ElasticSearchGenerationException;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.ElasticSearchParseException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.RoutingMissingException;
 import org.elasticsearch.action.support.replication.ShardReplicationOperationRequest;
@@ -133,6 +134,7 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
     private long version = 0;
     private VersionType versionType = VersionType.INTERNAL;
     private String percolate;
+    private boolean autoGeneratedId = false;
 
     private XContentType contentType = Requests.INDEX_CONTENT_TYPE;
 
@@ -533,6 +535,14 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         return this.versionType;
     }
 
+    /**
+     * Returns <tt>true</tt> if the id was generated by {@link #process}, in which case no other document can
+     * have the same id.
+     */
+    public boolean autoGeneratedId() {
+        return this.autoGeneratedId;
+    }
+
     /**
      * Causes the index request document to be percolated. The parameter is the percolate query
      * to use to reduce the percolated queries that are going to run against this doc. Can be
@@ -593,6 +603,7 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         if (allowIdGeneration) {
             if (id == null) {
                 id(UUID.randomBase64UUID());
+                autoGeneratedId = true;
                 // since we generate the id, change it to CREATE
                 opType(IndexRequest.OpType.CREATE);
             }
@@ -621,6 +632,9 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         version = in.readLong();
         percolate = in.readOptionalString();
         versionType = VersionType.fromValue(in.readByte());
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            autoGeneratedId = in.readBoolean();
+        }
     }
 
     @Override
@@ -638,6 +652,9 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         out.writeLong(version);
         out.writeOptionalString(percolate);
         out.writeByte(versionType.getValue());
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeBoolean(autoGeneratedId);
+        }
     }
 
     @Override
@@ -211,7 +211,9 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
             Engine.Create create = indexShard.prepareCreate(sourceToParse)
                     .version(request.version())
                     .versionType(request.versionType())
-                    .origin(Engine.Operation.Origin.PRIMARY);
+                    .origin(Engine.Operation.Origin.PRIMARY)
+                    .autoGeneratedId(request.autoGeneratedId())
+                    .canHaveDuplicates(request.canHaveDuplicates());
             indexShard.create(create);
             version = create.version();
             op = create;
@@ -20,6 +20,7 @@
 package org.elasticsearch.action.search;
 
 import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.unit.TimeValue;
@@ -110,6 +111,15 @@ public class SearchResponse extends ActionResponse implements ToXContent {
         return internalResponse.timedOut();
     }
 
+    /**
+     * Has the search operation terminated early on any of the shards, once it got terminate_after docs.
+     * <tt>null</tt> if terminate_after was not set.
+     */
+    @Nullable
+    public Boolean isTerminatedEarly() {
+        return internalResponse.terminatedEarly();
+    }
+
     /**
      * How long the search took.
      */
@@ -173,6 +183,7 @@ public class SearchResponse extends ActionResponse implements ToXContent {
         static final XContentBuilderString REASON = new XContentBuilderString("reason");
         static final XContentBuilderString TOOK = new XContentBuilderString("took");
         static final XContentBuilderString TIMED_OUT = new XContentBuilderString("timed_out");
+        static final XContentBuilderString TERMINATED_EARLY = new XContentBuilderString("terminated_early");
     }
 
     @Override
@@ -182,6 +193,9 @@ public class SearchResponse extends ActionResponse implements ToXContent {
         }
         builder.field(Fields.TOOK, tookInMillis);
         builder.field(Fields.TIMED_OUT, isTimedOut());
+        if (isTerminatedEarly() != null) {
+            builder.field(Fields.TERMINATED_EARLY, isTerminatedEarly());
+        }
         builder.startObject(Fields._SHARDS);
         builder.field(Fields.TOTAL, getTotalShards());
         builder.field(Fields.SUCCESSFUL, getSuccessfulShards());
@@ -26,11 +26,13 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.BatchedFacetsReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
 import org.elasticsearch.search.controller.ShardDoc;
 import org.elasticsearch.search.fetch.FetchSearchResultProvider;
@@ -51,8 +53,9 @@ public class TransportSearchCountAction extends TransportSearchTypeAction {
 
     @Inject
     public TransportSearchCountAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
-                                      TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController) {
-        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController);
+                                      TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController,
+                                      ResponseCollectorService responseCollectorService) {
+        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController, responseCollectorService);
     }
 
     @Override
@@ -64,6 +67,8 @@ public class TransportSearchCountAction extends TransportSearchTypeAction {
 
         private final Map<SearchShardTarget, QuerySearchResultProvider> queryFetchResults = searchCache.obtainQueryResults();
 
+        private final BatchedFacetsReducer facetsReducer = searchPhaseController.newFacetsReducer();
+
         private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             super(request, listener);
         }
@@ -81,12 +86,13 @@ public class TransportSearchCountAction extends TransportSearchTypeAction {
         @Override
         protected void processFirstPhaseResult(ShardRouting shard, QuerySearchResult result) {
             queryFetchResults.put(result.shardTarget(), result);
+            facetsReducer.add(result.queryResult());
         }
 
         @Override
         protected void moveToSecondPhase() throws Exception {
             // no need to sort, since we know we have no hits back
-            final InternalSearchResponse internalResponse = searchPhaseController.merge(EMPTY_DOCS, queryFetchResults, ImmutableMap.<SearchShardTarget, FetchSearchResultProvider>of());
+            final InternalSearchResponse internalResponse = searchPhaseController.merge(EMPTY_DOCS, queryFetchResults, ImmutableMap.<SearchShardTarget, FetchSearchResultProvider>of(), facetsReducer);
             String scrollId = null;
             if (request.scroll() != null) {
                 scrollId = buildScrollId(request.searchType(), queryFetchResults.values(), null);
@@ -24,11 +24,13 @@ import org.elasticsearch.action.search.*;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.BatchedFacetsReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.dfs.DfsSearchResult;
@@ -51,8 +53,9 @@ public class TransportSearchDfsQueryAndFetchAction extends TransportSearchTypeAc
 
     @Inject
     public TransportSearchDfsQueryAndFetchAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
-                                                 TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController) {
-        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController);
+                                                 TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController,
+                                                 ResponseCollectorService responseCollectorService) {
+        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController, responseCollectorService);
     }
 
     @Override
@@ -66,6 +69,8 @@ public class TransportSearchDfsQueryAndFetchAction extends TransportSearchTypeAc
 
         private final Map<SearchShardTarget, QueryFetchSearchResult> queryFetchResults = searchCache.obtainQueryFetchResults();
 
+        private final BatchedFacetsReducer facetsReducer = searchPhaseController.newFacetsReducer();
+
 
         private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             super(request, listener);
@@ -143,6 +148,7 @@ public class TransportSearchDfsQueryAndFetchAction extends TransportSearchTypeAc
                 public void onResult(QueryFetchSearchResult result) {
                     result.shardTarget(dfsResult.shardTarget());
                     queryFetchResults.put(result.shardTarget(), result);
+                    facetsReducer.add(result.queryResult());
                     if (counter.decrementAndGet() == 0) {
                         finishHim();
                     }
@@ -179,7 +185,7 @@ public class TransportSearchDfsQueryAndFetchAction extends TransportSearchTypeAc
 
         void innerFinishHim() throws Exception {
             sortedShardList = searchPhaseController.sortDocs(queryFetchResults.values());
-            final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryFetchResults, queryFetchResults);
+            final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryFetchResults, queryFetchResults, facetsReducer);
             String scrollId = null;
             if (request.scroll() != null) {
                 scrollId = buildScrollId(request.searchType(), dfsResults, null);
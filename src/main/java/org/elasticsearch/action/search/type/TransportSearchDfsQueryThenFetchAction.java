@@ -24,12 +24,14 @@ import org.elasticsearch.action.search.*;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.trove.ExtTIntArrayList;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.BatchedFacetsReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.dfs.DfsSearchResult;
@@ -53,8 +55,9 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
 
     @Inject
     public TransportSearchDfsQueryThenFetchAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
-                                                  TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController) {
-        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController);
+                                                  TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController,
+                                                  ResponseCollectorService responseCollectorService) {
+        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController, responseCollectorService);
     }
 
     @Override
@@ -68,6 +71,8 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
 
         private final Map<SearchShardTarget, QuerySearchResultProvider> queryResults = searchCache.obtainQueryResults();
 
+        private final BatchedFacetsReducer facetsReducer = searchPhaseController.newFacetsReducer();
+
         private final Map<SearchShardTarget, FetchSearchResult> fetchResults = searchCache.obtainFetchResults();
 
         private volatile Map<SearchShardTarget, ExtTIntArrayList> docIdsToLoad;
@@ -150,6 +155,7 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
                 public void onResult(QuerySearchResult result) {
                     result.shardTarget(dfsResult.shardTarget());
                     queryResults.put(result.shardTarget(), result);
+                    facetsReducer.add(result.queryResult());
                     if (counter.decrementAndGet() == 0) {
                         executeFetchPhase();
                     }
@@ -278,7 +284,7 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
         }
 
         void innerFinishHim() throws Exception {
-            final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryResults, fetchResults);
+            final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryResults, fetchResults, facetsReducer);
             String scrollId = null;
             if (request.scroll() != null) {
                 scrollId = TransportSearchHelper.buildScrollId(request.searchType(), dfsResults, null);
@@ -25,11 +25,13 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.BatchedFacetsReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
 import org.elasticsearch.search.fetch.QueryFetchSearchResult;
 import org.elasticsearch.search.internal.InternalSearchResponse;
@@ -47,8 +49,9 @@ public class TransportSearchQueryAndFetchAction extends TransportSearchTypeActio
 
     @Inject
     public TransportSearchQueryAndFetchAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
-                                              TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController) {
-        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController);
+                                              TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController,
+                                              ResponseCollectorService responseCollectorService) {
+        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController, responseCollectorService);
     }
 
     @Override
@@ -60,6 +63,8 @@ public class TransportSearchQueryAndFetchAction extends TransportSearchTypeActio
 
         private final Map<SearchShardTarget, QueryFetchSearchResult> queryFetchResults = searchCache.obtainQueryFetchResults();
 
+        private final BatchedFacetsReducer facetsReducer = searchPhaseController.newFacetsReducer();
+
 
         private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             super(request, listener);
@@ -78,12 +83,13 @@ public class TransportSearchQueryAndFetchAction extends TransportSearchTypeActio
         @Override
         protected void processFirstPhaseResult(ShardRouting shard, QueryFetchSearchResult result) {
             queryFetchResults.put(result.shardTarget(), result);
+            facetsReducer.add(result.queryResult());
         }
 
         @Override
         protected void moveToSecondPhase() throws Exception {
             sortedShardList = searchPhaseController.sortDocs(queryFetchResults.values());
-            final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryFetchResults, queryFetchResults);
+            final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryFetchResults, queryFetchResults, facetsReducer);
             String scrollId = null;
             if (request.scroll() != null) {
                 scrollId = buildScrollId(request.searchType(), queryFetchResults.values(), null);
@@ -24,12 +24,14 @@ import org.elasticsearch.action.search.*;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.trove.ExtTIntArrayList;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.BatchedFacetsReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
 import org.elasticsearch.search.fetch.FetchSearchRequest;
 import org.elasticsearch.search.fetch.FetchSearchResult;
@@ -49,8 +51,9 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
 
     @Inject
     public TransportSearchQueryThenFetchAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
-                                               TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController) {
-        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController);
+                                               TransportSearchCache transportSearchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController,
+                                               ResponseCollectorService responseCollectorService) {
+        super(settings, threadPool, clusterService, transportSearchCache, searchService, searchPhaseController, responseCollectorService);
     }
 
     @Override
@@ -62,6 +65,8 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
 
         private final Map<SearchShardTarget, QuerySearchResultProvider> queryResults = searchCache.obtainQueryResults();
 
+        private final BatchedFacetsReducer facetsReducer = searchPhaseController.newFacetsReducer();
+
         private final Map<SearchShardTarget, FetchSearchResult> fetchResults = searchCache.obtainFetchResults();
 
         private volatile Map<SearchShardTarget, ExtTIntArrayList> docIdsToLoad;
@@ -83,6 +88,7 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
         @Override
         protected void processFirstPhaseResult(ShardRouting shard, QuerySearchResult result) {
             queryResults.put(result.shardTarget(), result);
+            facetsReducer.add(result.queryResult());
         }
 
         @Override
@@ -187,7 +193,7 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
         }
 
         void innerFinishHim() throws Exception {
-            InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryResults, fetchResults);
+            InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryResults, fetchResults, facetsReducer);
             String scrollId = null;
             if (request.scroll() != null) {
                 scrollId = TransportSearchHelper.buildScrollId(request.searchType(), queryResults.values(), null);
@@ -30,6 +30,7 @@ import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.trove.ExtTIntArrayList;
@@ -66,13 +67,17 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
 
     protected final TransportSearchCache searchCache;
 
+    protected final ResponseCollectorService responseCollectorService;
+
     public TransportSearchTypeAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
-                                     TransportSearchCache searchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController) {
+                                     TransportSearchCache searchCache, SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController,
+                                     ResponseCollectorService responseCollectorService) {
         super(settings, threadPool);
         this.clusterService = clusterService;
         this.searchCache = searchCache;
         this.searchService = searchService;
         this.searchPhaseController = searchPhaseController;
+        this.responseCollectorService = responseCollectorService;
     }
 
     protected abstract class BaseAsyncAction<FirstResult extends SearchPhaseResult> {
@@ -203,14 +208,19 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
                     onFirstPhaseResult(shard, shardIt, null);
                 } else {
                     String[] filteringAliases = clusterState.metaData().filteringAliases(shard.index(), request.indices());
+                    final String nodeId = node.id();
+                    final long sentTime = System.nanoTime();
+                    responseCollectorService.onRequestSent(nodeId);
                     sendExecuteFirstPhase(node, internalSearchRequest(shard, shardsIts.size(), request, filteringAliases, startTime), new SearchServiceListener<FirstResult>() {
                         @Override
                         public void onResult(FirstResult result) {
+                            responseCollectorService.onResponseReceived(nodeId, System.nanoTime() - sentTime);
                             onFirstPhaseResult(shard, result, shardIt);
                         }
 
                         @Override
                         public void onFailure(Throwable t) {
+                            responseCollectorService.onRequestFailed(nodeId);
                             onFirstPhaseResult(shard, shardIt, t);
                         }
                     });
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.support.replication;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.WriteConsistencyLevel;
@@ -45,6 +46,7 @@ public abstract class ShardReplicationOperationRequest<T extends ShardReplicatio
     private boolean threadedOperation = true;
     private ReplicationType replicationType = ReplicationType.DEFAULT;
     private WriteConsistencyLevel consistencyLevel = WriteConsistencyLevel.DEFAULT;
+    private volatile boolean canHaveDuplicates = false;
 
     protected ShardReplicationOperationRequest() {
 
@@ -61,6 +63,7 @@ public abstract class ShardReplicationOperationRequest<T extends ShardReplicatio
         this.threadedOperation = request.operationThreaded();
         this.replicationType = request.replicationType();
         this.consistencyLevel = request.consistencyLevel();
+        this.canHaveDuplicates = request.canHaveDuplicates();
     }
 
     /**
@@ -146,6 +149,21 @@ public abstract class ShardReplicationOperationRequest<T extends ShardReplicatio
         return (T) this;
     }
 
+    /**
+     * Marks the request as possibly already executed, for example when it is retried after the primary
+     * failed or got disconnected, so operations can't take shortcuts that assume they run only once.
+     */
+    public void setCanHaveDuplicates() {
+        this.canHaveDuplicates = true;
+    }
+
+    /**
+     * Is this request possibly executed more than once on the shard.
+     */
+    public boolean canHaveDuplicates() {
+        return this.canHaveDuplicates;
+    }
+
     @Override
     public ActionRequestValidationException validate() {
         ActionRequestValidationException validationException = null;
@@ -162,6 +180,9 @@ public abstract class ShardReplicationOperationRequest<T extends ShardReplicatio
         consistencyLevel = WriteConsistencyLevel.fromId(in.readByte());
         timeout = TimeValue.readTimeValue(in);
         index = in.readString();
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            canHaveDuplicates = in.readBoolean();
+        }
         // no need to serialize threaded* parameters, since they only matter locally
     }
 
@@ -172,6 +193,9 @@ public abstract class ShardReplicationOperationRequest<T extends ShardReplicatio
         out.writeByte(consistencyLevel.id());
         timeout.writeTo(out);
         out.writeString(index);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeBoolean(canHaveDuplicates);
+        }
     }
 
     /**
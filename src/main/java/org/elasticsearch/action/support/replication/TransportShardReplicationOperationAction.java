@@ -458,6 +458,8 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
                             if (exp.unwrapCause() instanceof ConnectTransportException || exp.unwrapCause() instanceof NodeClosedException ||
                                     retryPrimaryException(exp)) {
                                 primaryOperationStarted.set(false);
+                                // the primary might have executed the operation before failing
+                                request.setCanHaveDuplicates();
                                 // we already marked it as started when we executed it (removed the listener) so pass false
                                 // to re-add to the cluster listener
                                 retry(false, null);
@@ -535,6 +537,8 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
                 // shard has not been allocated yet, retry it here
                 if (retryPrimaryException(e)) {
                     primaryOperationStarted.set(false);
+                    // the operation might have been partially executed (a bulk) before failing
+                    request.setCanHaveDuplicates();
                     retry(fromDiscoveryListener, null);
                     return;
                 }
@@ -20,8 +20,10 @@
 package org.elasticsearch.cache;
 
 import org.elasticsearch.cache.memory.ByteBufferCache;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
 
 /**
  *
@@ -38,5 +40,7 @@ public class NodeCacheModule extends AbstractModule {
     protected void configure() {
         bind(NodeCache.class).asEagerSingleton();
         bind(ByteBufferCache.class).asEagerSingleton();
+        bind(PageCacheRecycler.class).asEagerSingleton();
+        bind(BigArrays.class).asEagerSingleton();
     }
 }
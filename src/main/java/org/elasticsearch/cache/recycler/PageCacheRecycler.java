@@ -0,0 +1,213 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.cache.recycler;
+
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.newQueue;
+
+/**
+ * A node level, thread safe pool of fixed size pages of <tt>int</tt>, <tt>long</tt>, <tt>double</tt> and <tt>Object</tt>,
+ * which big arrays (see {@link org.elasticsearch.common.util.BigArrays}) are made of. Unlike {@link org.elasticsearch.common.CacheRecycler},
+ * pages are shared by all threads, and the memory held by the pool is bounded by <tt>cache.recycler.page.limit.heap</tt>
+ * (10% of the heap by default), split evenly between the page types unless <tt>cache.recycler.page.limit.[int|long|double|object]</tt>
+ * is set.
+ */
+public class PageCacheRecycler extends AbstractComponent {
+
+    public static final int PAGE_SIZE_IN_BYTES = 1 << 14;
+    public static final int INT_PAGE_SIZE = PAGE_SIZE_IN_BYTES / RamUsage.NUM_BYTES_INT;
+    public static final int LONG_PAGE_SIZE = PAGE_SIZE_IN_BYTES / RamUsage.NUM_BYTES_LONG;
+    public static final int DOUBLE_PAGE_SIZE = PAGE_SIZE_IN_BYTES / RamUsage.NUM_BYTES_DOUBLE;
+    public static final int OBJECT_PAGE_SIZE = PAGE_SIZE_IN_BYTES / RamUsage.NUM_BYTES_OBJECT_REF;
+
+    private final Pool<int[]> intPages;
+    private final Pool<long[]> longPages;
+    private final Pool<double[]> doublePages;
+    private final Pool<Object[]> objectPages;
+
+    @Inject
+    public PageCacheRecycler(Settings settings) {
+        super(settings);
+        String limit = componentSettings.get("page.limit.heap", "10%");
+        long limitInBytes;
+        if (limit.endsWith("%")) {
+            double percent = Double.parseDouble(limit.substring(0, limit.length() - 1));
+            limitInBytes = (long) ((percent / 100) * JvmInfo.jvmInfo().getMem().getHeapMax().bytes());
+        } else {
+            limitInBytes = ByteSizeValue.parseBytesSizeValue(limit).bytes();
+        }
+        final long defaultLimitInBytes = limitInBytes / 4;
+        intPages = new Pool<int[]>(maxPages("int", defaultLimitInBytes));
+        longPages = new Pool<long[]>(maxPages("long", defaultLimitInBytes));
+        doublePages = new Pool<double[]>(maxPages("double", defaultLimitInBytes));
+        objectPages = new Pool<Object[]>(maxPages("object", defaultLimitInBytes));
+        logger.debug("using limit [{}] [{}], [{}] pages of [{}] per type", limit, new ByteSizeValue(limitInBytes),
+                intPages.maxSize, new ByteSizeValue(PAGE_SIZE_IN_BYTES));
+    }
+
+    private int maxPages(String type, long defaultLimitInBytes) {
+        long limitInBytes = componentSettings.getAsBytesSize("page.limit." + type, new ByteSizeValue(defaultLimitInBytes)).bytes();
+        return (int) Math.min(Integer.MAX_VALUE, limitInBytes / PAGE_SIZE_IN_BYTES);
+    }
+
+    /**
+     * Returns a page of {@link #INT_PAGE_SIZE} ints, filled with zeros if <tt>clear</tt> is set, otherwise with arbitrary values.
+     */
+    public int[] intPage(boolean clear) {
+        int[] page = intPages.poll();
+        if (page == null) {
+            return new int[INT_PAGE_SIZE];
+        }
+        if (clear) {
+            Arrays.fill(page, 0);
+        }
+        return page;
+    }
+
+    public void release(int[] page) {
+        assert page.length == INT_PAGE_SIZE;
+        intPages.offer(page);
+    }
+
+    /**
+     * Returns a page of {@link #LONG_PAGE_SIZE} longs, filled with zeros if <tt>clear</tt> is set, otherwise with arbitrary values.
+     */
+    public long[] longPage(boolean clear) {
+        long[] page = longPages.poll();
+        if (page == null) {
+            return new long[LONG_PAGE_SIZE];
+        }
+        if (clear) {
+            Arrays.fill(page, 0);
+        }
+        return page;
+    }
+
+    public void release(long[] page) {
+        assert page.length == LONG_PAGE_SIZE;
+        longPages.offer(page);
+    }
+
+    /**
+     * Returns a page of {@link #DOUBLE_PAGE_SIZE} doubles, filled with zeros if <tt>clear</tt> is set, otherwise with arbitrary values.
+     */
+    public double[] doublePage(boolean clear) {
+        double[] page = doublePages.poll();
+        if (page == null) {
+            return new double[DOUBLE_PAGE_SIZE];
+        }
+        if (clear) {
+            Arrays.fill(page, 0);
+        }
+        return page;
+    }
+
+    public void release(double[] page) {
+        assert page.length == DOUBLE_PAGE_SIZE;
+        doublePages.offer(page);
+    }
+
+    /**
+     * Returns a page of {@link #OBJECT_PAGE_SIZE} nulls.
+     */
+    public Object[] objectPage() {
+        Object[] page = objectPages.poll();
+        if (page == null) {
+            return new Object[OBJECT_PAGE_SIZE];
+        }
+        return page;
+    }
+
+    public void release(Object[] page) {
+        assert page.length == OBJECT_PAGE_SIZE;
+        // pooled pages must not keep their objects alive
+        Arrays.fill(page, null);
+        objectPages.offer(page);
+    }
+
+    public PageCacheRecyclerStats stats() {
+        return new PageCacheRecyclerStats(PAGE_SIZE_IN_BYTES,
+                intPages.size.get() + longPages.size.get() + doublePages.size.get() + objectPages.size.get(),
+                intPages.recycled.get() + longPages.recycled.get() + doublePages.recycled.get() + objectPages.recycled.get(),
+                intPages.allocated.get() + longPages.allocated.get() + doublePages.allocated.get() + objectPages.allocated.get(),
+                intPages.discarded.get() + longPages.discarded.get() + doublePages.discarded.get() + objectPages.discarded.get());
+    }
+
+    public void close() {
+        intPages.clear();
+        longPages.clear();
+        doublePages.clear();
+        objectPages.clear();
+    }
+
+    static final class Pool<T> {
+
+        final int maxSize;
+        final Queue<T> queue = newQueue();
+        // the size of a concurrent queue is not constant time, so it is tracked separately
+        final AtomicInteger size = new AtomicInteger();
+
+        final AtomicLong recycled = new AtomicLong();
+        final AtomicLong allocated = new AtomicLong();
+        final AtomicLong discarded = new AtomicLong();
+
+        Pool(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        T poll() {
+            T page = queue.poll();
+            if (page == null) {
+                allocated.incrementAndGet();
+            } else {
+                size.decrementAndGet();
+                recycled.incrementAndGet();
+            }
+            return page;
+        }
+
+        void offer(T page) {
+            if (size.incrementAndGet() > maxSize) {
+                size.decrementAndGet();
+                discarded.incrementAndGet();
+                return;
+            }
+            queue.offer(page);
+        }
+
+        void clear() {
+            while (queue.poll() != null) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
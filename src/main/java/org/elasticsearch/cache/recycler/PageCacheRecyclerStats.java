@@ -0,0 +1,136 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.cache.recycler;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Node level stats of the {@link PageCacheRecycler}.
+ */
+public class PageCacheRecyclerStats implements Streamable, ToXContent {
+
+    private long pageSizeInBytes;
+    private long pooled;
+    private long recycled;
+    private long allocated;
+    private long discarded;
+
+    PageCacheRecyclerStats() {
+    }
+
+    public PageCacheRecyclerStats(long pageSizeInBytes, long pooled, long recycled, long allocated, long discarded) {
+        this.pageSizeInBytes = pageSizeInBytes;
+        this.pooled = pooled;
+        this.recycled = recycled;
+        this.allocated = allocated;
+        this.discarded = discarded;
+    }
+
+    /**
+     * The number of pages currently held by the pool.
+     */
+    public long getPooled() {
+        return this.pooled;
+    }
+
+    /**
+     * The memory held by the pooled pages.
+     */
+    public ByteSizeValue getPooledSize() {
+        return new ByteSizeValue(pooled * pageSizeInBytes);
+    }
+
+    /**
+     * The number of pages served from the pool.
+     */
+    public long getRecycled() {
+        return this.recycled;
+    }
+
+    /**
+     * The number of pages allocated because the pool was empty.
+     */
+    public long getAllocated() {
+        return this.allocated;
+    }
+
+    /**
+     * The number of released pages dropped because the pool was full.
+     */
+    public long getDiscarded() {
+        return this.discarded;
+    }
+
+    public static PageCacheRecyclerStats readPageCacheRecyclerStats(StreamInput in) throws IOException {
+        PageCacheRecyclerStats stats = new PageCacheRecyclerStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        pageSizeInBytes = in.readVLong();
+        pooled = in.readVLong();
+        recycled = in.readVLong();
+        allocated = in.readVLong();
+        discarded = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(pageSizeInBytes);
+        out.writeVLong(pooled);
+        out.writeVLong(recycled);
+        out.writeVLong(allocated);
+        out.writeVLong(discarded);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.PAGE_RECYCLER);
+        builder.field(Fields.POOLED, pooled);
+        builder.field(Fields.POOLED_SIZE, getPooledSize().toString());
+        builder.field(Fields.POOLED_SIZE_IN_BYTES, pooled * pageSizeInBytes);
+        builder.field(Fields.RECYCLED, recycled);
+        builder.field(Fields.ALLOCATED, allocated);
+        builder.field(Fields.DISCARDED, discarded);
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString PAGE_RECYCLER = new XContentBuilderString("page_recycler");
+        static final XContentBuilderString POOLED = new XContentBuilderString("pooled");
+        static final XContentBuilderString POOLED_SIZE = new XContentBuilderString("pooled_size");
+        static final XContentBuilderString POOLED_SIZE_IN_BYTES = new XContentBuilderString("pooled_size_in_bytes");
+        static final XContentBuilderString RECYCLED = new XContentBuilderString("recycled");
+        static final XContentBuilderString ALLOCATED = new XContentBuilderString("allocated");
+        static final XContentBuilderString DISCARDED = new XContentBuilderString("discarded");
+    }
+}
@@ -48,6 +48,7 @@ public class OperationRoutingModule extends AbstractModule implements SpawnModul
 
     @Override
     protected void configure() {
+        bind(ResponseCollectorService.class).asEagerSingleton();
         bind(HashFunction.class).to(settings.getAsClass("cluster.routing.operation.hash.type", DjbHashFunction.class, "org.elasticsearch.cluster.routing.operation.hash.", "HashFunction")).asEagerSingleton();
     }
 }
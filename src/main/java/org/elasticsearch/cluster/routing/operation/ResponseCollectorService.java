@@ -0,0 +1,177 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.cluster.routing.operation;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects, for every node this node sends search requests to, an exponentially weighted moving average of the
+ * response time and the number of outstanding requests, used to rank the copies of a shard when searching.
+ * <p/>
+ * The response time is measured on this node, so it includes the time the request waited in the search queue of
+ * the remote node, a node in a long GC or with a full search queue ranks badly until it catches up.
+ */
+public class ResponseCollectorService extends AbstractComponent {
+
+    private final double alpha;
+
+    private final double skipAdjustment;
+
+    private final ConcurrentMap<String, NodeStatistics> nodes = ConcurrentCollections.newConcurrentMap();
+
+    @Inject
+    public ResponseCollectorService(Settings settings) {
+        super(settings);
+        this.alpha = componentSettings.getAsDouble("ewma_alpha", 0.3);
+        this.skipAdjustment = componentSettings.getAsDouble("skip_adjustment", 0.01);
+    }
+
+    public void onRequestSent(String nodeId) {
+        statistics(nodeId).onRequestSent();
+    }
+
+    public void onResponseReceived(String nodeId, long responseTimeNanos) {
+        statistics(nodeId).onResponseReceived(responseTimeNanos);
+    }
+
+    public void onRequestFailed(String nodeId) {
+        statistics(nodeId).onRequestFailed();
+    }
+
+    /**
+     * A copy of a shard on the node was not selected in favor of the one on the selected node. The response time
+     * of the node is moved a bit towards the one of the selected node, otherwise a node that was slow once would
+     * never get requests again, and never show that it recovered.
+     */
+    public void onNodeSkipped(String nodeId, String selectedNodeId) {
+        NodeStatistics selected = nodes.get(selectedNodeId);
+        NodeStatistics skipped = nodes.get(nodeId);
+        if (selected == null || skipped == null || selected == skipped) {
+            return;
+        }
+        skipped.adjustTowards(selected.responseTime(), skipAdjustment);
+    }
+
+    /**
+     * The rank of the node, the lower the better. The outstanding requests weigh more than the response time, so
+     * that a node getting slower is backed off from before its average catches up. Nodes without responses yet
+     * rank first when they have no outstanding requests, so that they get requests and statistics. Once they have
+     * outstanding requests, they are assumed to be as slow as the slowest known node, so that a node hanging on its
+     * first requests isn't sent more.
+     */
+    public double rank(String nodeId) {
+        NodeStatistics statistics = nodes.get(nodeId);
+        if (statistics == null) {
+            return 0;
+        }
+        return statistics.rank(this);
+    }
+
+    /**
+     * The highest average response time of the nodes, <tt>-1</tt> when no node responded yet.
+     */
+    double slowestResponseTime() {
+        double slowest = -1;
+        for (NodeStatistics statistics : nodes.values()) {
+            slowest = Math.max(slowest, statistics.responseTime());
+        }
+        return slowest;
+    }
+
+    private NodeStatistics statistics(String nodeId) {
+        NodeStatistics statistics = nodes.get(nodeId);
+        if (statistics == null) {
+            statistics = new NodeStatistics(alpha);
+            NodeStatistics existing = nodes.putIfAbsent(nodeId, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+        return statistics;
+    }
+
+    static class NodeStatistics {
+
+        private final double alpha;
+
+        private double responseTime = -1;
+
+        private int outstanding;
+
+        NodeStatistics(double alpha) {
+            this.alpha = alpha;
+        }
+
+        synchronized void onRequestSent() {
+            outstanding++;
+        }
+
+        synchronized void onResponseReceived(long responseTimeNanos) {
+            if (outstanding > 0) {
+                outstanding--;
+            }
+            if (responseTime < 0) {
+                responseTime = responseTimeNanos;
+            } else {
+                responseTime = alpha * responseTimeNanos + (1 - alpha) * responseTime;
+            }
+        }
+
+        synchronized void onRequestFailed() {
+            if (outstanding > 0) {
+                outstanding--;
+            }
+        }
+
+        synchronized double responseTime() {
+            return responseTime;
+        }
+
+        synchronized void adjustTowards(double selectedResponseTime, double adjustment) {
+            if (responseTime > selectedResponseTime && selectedResponseTime >= 0) {
+                responseTime -= (responseTime - selectedResponseTime) * adjustment;
+            }
+        }
+
+        double rank(ResponseCollectorService service) {
+            double responseTime;
+            int outstanding;
+            synchronized (this) {
+                responseTime = this.responseTime;
+                outstanding = this.outstanding;
+            }
+            if (responseTime < 0) {
+                if (outstanding == 0) {
+                    return 0;
+                }
+                // outside of the lock, slowestResponseTime takes the lock of every node
+                responseTime = service.slowestResponseTime();
+            }
+            double queue = 1 + outstanding;
+            return Math.max(responseTime, 1) * queue * queue * queue;
+        }
+    }
+}
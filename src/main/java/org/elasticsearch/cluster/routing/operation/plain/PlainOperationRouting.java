@@ -26,9 +26,12 @@ import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.PlainShardIterator;
 import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.AwarenessAllocationDecider;
 import org.elasticsearch.cluster.routing.operation.OperationRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.cluster.routing.operation.hash.HashFunction;
 import org.elasticsearch.cluster.routing.operation.hash.djb.DjbHashFunction;
 import org.elasticsearch.common.Nullable;
@@ -40,10 +43,14 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexShardMissingException;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndexMissingException;
+import org.elasticsearch.node.settings.NodeSettingsService;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -52,18 +59,48 @@ import java.util.Set;
  */
 public class PlainOperationRouting extends AbstractComponent implements OperationRouting {
 
+    /**
+     * Searches without preference go to the copies of the shards on the nodes that responded the fastest lately,
+     * and have the least requests outstanding, rather than round robin over them. Ignored with awareness attributes.
+     */
+    public static final String CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION = "cluster.routing.use_adaptive_replica_selection";
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            boolean useAdaptiveReplicaSelection = settings.getAsBoolean(CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION, PlainOperationRouting.this.useAdaptiveReplicaSelection);
+            if (useAdaptiveReplicaSelection != PlainOperationRouting.this.useAdaptiveReplicaSelection) {
+                logger.info("updating [{}] from [{}] to [{}]", CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION, PlainOperationRouting.this.useAdaptiveReplicaSelection, useAdaptiveReplicaSelection);
+                PlainOperationRouting.this.useAdaptiveReplicaSelection = useAdaptiveReplicaSelection;
+            }
+        }
+    }
+
     private final HashFunction hashFunction;
 
     private final boolean useType;
 
     private final AwarenessAllocationDecider awarenessAllocationDecider;
 
-    @Inject
+    private final ResponseCollectorService responseCollectorService;
+
+    private volatile boolean useAdaptiveReplicaSelection;
+
     public PlainOperationRouting(Settings indexSettings, HashFunction hashFunction, AwarenessAllocationDecider awarenessAllocationDecider) {
+        this(indexSettings, hashFunction, awarenessAllocationDecider, new NodeSettingsService(indexSettings), new ResponseCollectorService(indexSettings));
+    }
+
+    @Inject
+    public PlainOperationRouting(Settings indexSettings, HashFunction hashFunction, AwarenessAllocationDecider awarenessAllocationDecider,
+                                 NodeSettingsService nodeSettingsService, ResponseCollectorService responseCollectorService) {
         super(indexSettings);
         this.hashFunction = hashFunction;
         this.useType = indexSettings.getAsBoolean("cluster.routing.operation.use_type", false);
         this.awarenessAllocationDecider = awarenessAllocationDecider;
+        this.responseCollectorService = responseCollectorService;
+        this.useAdaptiveReplicaSelection = indexSettings.getAsBoolean(CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION, false);
+
+        nodeSettingsService.addListener(new ApplySettings());
     }
 
     @Override
@@ -78,12 +115,12 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
 
     @Override
     public ShardIterator getShards(ClusterState clusterState, String index, String type, String id, @Nullable String routing, @Nullable String preference) throws IndexMissingException, IndexShardMissingException {
-        return preferenceActiveShardIterator(shards(clusterState, index, type, id, routing), clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+        return preferenceActiveShardIterator(shards(clusterState, index, type, id, routing), clusterState.nodes().localNodeId(), clusterState.nodes(), preference, false);
     }
 
     @Override
     public ShardIterator getShards(ClusterState clusterState, String index, int shardId, @Nullable String preference) throws IndexMissingException, IndexShardMissingException {
-        return preferenceActiveShardIterator(shards(clusterState, index, shardId), clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+        return preferenceActiveShardIterator(shards(clusterState, index, shardId), clusterState.nodes().localNodeId(), clusterState.nodes(), preference, false);
     }
 
     @Override
@@ -166,14 +203,14 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
                             throw new IndexShardMissingException(new ShardId(index, shardId));
                         }
                         // we might get duplicates, but that's ok, they will override one another
-                        ShardIterator iterator = preferenceActiveShardIterator(indexShard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+                        ShardIterator iterator = preferenceActiveShardIterator(indexShard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference, useAdaptiveReplicaSelection);
                         if (iterator != null) {
                             set.add(iterator);
                         }
                     }
                 } else {
                     for (IndexShardRoutingTable indexShard : indexRouting) {
-                        ShardIterator iterator = preferenceActiveShardIterator(indexShard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+                        ShardIterator iterator = preferenceActiveShardIterator(indexShard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference, useAdaptiveReplicaSelection);
                         if (iterator != null) {
                             set.add(iterator);
                         }
@@ -183,10 +220,46 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
         return new GroupShardsIterator(set);
     }
 
-    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference) {
+    /**
+     * The active copies of the shard, ordered by the rank of their node. The copies are rotated first like
+     * round robin does, so that copies of equal rank, typically on nodes without statistics yet, share the load.
+     */
+    private ShardIterator rankedActiveShardsIt(IndexShardRoutingTable indexShard) {
+        ShardIterator it = indexShard.activeShardsRandomIt();
+        List<ShardRouting> shards = new ArrayList<ShardRouting>(it.size());
+        // the ranks are computed once, they change as responses come in and the sort needs a consistent order
+        final Map<String, Double> ranks = new HashMap<String, Double>();
+        for (ShardRouting shard = it.nextOrNull(); shard != null; shard = it.nextOrNull()) {
+            shards.add(shard);
+            if (!ranks.containsKey(shard.currentNodeId())) {
+                ranks.put(shard.currentNodeId(), responseCollectorService.rank(shard.currentNodeId()));
+            }
+        }
+        // a stable sort, to keep the rotation among copies of equal rank
+        Collections.sort(shards, new Comparator<ShardRouting>() {
+            @Override
+            public int compare(ShardRouting o1, ShardRouting o2) {
+                return Double.compare(ranks.get(o1.currentNodeId()), ranks.get(o2.currentNodeId()));
+            }
+        });
+        for (int i = 1; i < shards.size(); i++) {
+            responseCollectorService.onNodeSkipped(shards.get(i).currentNodeId(), shards.get(0).currentNodeId());
+        }
+        return new PlainShardIterator(indexShard.shardId(), shards);
+    }
+
+    /**
+     * @param rankNodes whether to order the copies by the rank of their node when there is no preference, only done
+     *                  for searches, as only their response times are collected
+     */
+    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference,
+                                                        boolean rankNodes) {
         if (preference == null) {
             String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
             if (awarenessAttributes.length == 0) {
+                if (rankNodes) {
+                    return rankedActiveShardsIt(indexShard);
+                }
                 return indexShard.activeShardsRandomIt();
             } else {
                 return indexShard.preferAttributesActiveShardsIt(awarenessAttributes, nodes);
@@ -217,6 +290,9 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
                 if (index == -1 || index == preference.length() - 1) {
                     String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
                     if (awarenessAttributes.length == 0) {
+                        if (rankNodes) {
+                            return rankedActiveShardsIt(indexShard);
+                        }
                         return indexShard.activeShardsRandomIt();
                     } else {
                         return indexShard.preferAttributesActiveShardsIt(awarenessAttributes, nodes);
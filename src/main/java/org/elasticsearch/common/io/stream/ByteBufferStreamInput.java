@@ -1,5 +1,9 @@
 package org.elasticsearch.common.io.stream;
 
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.ByteBufferBytesReference;
+import org.elasticsearch.common.bytes.BytesReference;
+
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -54,12 +58,27 @@ public class ByteBufferStreamInput extends StreamInput {
 
     @Override
     public void readBytes(byte[] b, int offset, int len) throws IOException {
-        if (buffer.remaining() > len) {
+        if (buffer.remaining() < len) {
             throw new EOFException();
         }
         buffer.get(b, offset, len);
     }
 
+    @Override
+    public BytesReference readBytesReference(int length) throws IOException {
+        if (length == 0) {
+            return BytesArray.EMPTY;
+        }
+        if (buffer.remaining() < length) {
+            throw new EOFException();
+        }
+        // no copy, the reference shares the underlying buffer
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return new ByteBufferBytesReference(slice);
+    }
+
     @Override
     public void reset() throws IOException {
         buffer.reset();
@@ -0,0 +1,86 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.common.lucene;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.Scorer;
+
+import java.io.IOException;
+
+/**
+ * A collector that passes at most the provided number of docs to the wrapped collector, and terminates the
+ * collection when reaching a doc past them, by throwing an {@link EarlyTerminationException}. Reaching exactly the
+ * provided number of docs doesn't terminate the collection early.
+ */
+public class EarlyTerminatingCollector extends Collector {
+
+    /**
+     * Thrown to stop the collection once enough docs were collected.
+     */
+    public static class EarlyTerminationException extends RuntimeException {
+
+        public EarlyTerminationException(String msg) {
+            super(msg);
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            // thrown to control the flow, no need for the stack trace
+            return this;
+        }
+    }
+
+    private final Collector collector;
+
+    private final int maxCountHits;
+
+    private int count;
+
+    public EarlyTerminatingCollector(Collector collector, int maxCountHits) {
+        this.collector = collector;
+        this.maxCountHits = maxCountHits;
+    }
+
+    @Override
+    public void setScorer(Scorer scorer) throws IOException {
+        collector.setScorer(scorer);
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        if (count >= maxCountHits) {
+            throw new EarlyTerminationException("early termination [CountBased]");
+        }
+        collector.collect(doc);
+        count++;
+    }
+
+    @Override
+    public void setNextReader(AtomicReaderContext context) throws IOException {
+        collector.setNextReader(context);
+    }
+
+    @Override
+    public boolean acceptsDocsOutOfOrder() {
+        return collector.acceptsDocsOutOfOrder();
+    }
+}
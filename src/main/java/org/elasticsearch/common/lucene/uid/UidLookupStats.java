@@ -0,0 +1,132 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.uid;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ */
+public class UidLookupStats implements Streamable, ToXContent {
+
+    private long lookups;
+
+    private long filtered;
+
+    private long falsePositives;
+
+    private long found;
+
+    public UidLookupStats() {
+
+    }
+
+    public UidLookupStats(long lookups, long filtered, long falsePositives, long found) {
+        this.lookups = lookups;
+        this.filtered = filtered;
+        this.falsePositives = falsePositives;
+        this.found = found;
+    }
+
+    public void add(UidLookupStats uidLookupStats) {
+        if (uidLookupStats == null) {
+            return;
+        }
+        this.lookups += uidLookupStats.lookups;
+        this.filtered += uidLookupStats.filtered;
+        this.falsePositives += uidLookupStats.falsePositives;
+        this.found += uidLookupStats.found;
+    }
+
+    /**
+     * The number of per segment uid lookups.
+     */
+    public long lookups() {
+        return this.lookups;
+    }
+
+    /**
+     * The number of lookups answered by the bloom filter of the segment, without seeking its terms dictionary.
+     */
+    public long filtered() {
+        return this.filtered;
+    }
+
+    /**
+     * The number of lookups the bloom filter let through, but the uid was not in the segment.
+     */
+    public long falsePositives() {
+        return this.falsePositives;
+    }
+
+    /**
+     * The number of lookups that found the uid in the segment.
+     */
+    public long found() {
+        return this.found;
+    }
+
+    public static UidLookupStats readUidLookupStats(StreamInput in) throws IOException {
+        UidLookupStats uidLookupStats = new UidLookupStats();
+        uidLookupStats.readFrom(in);
+        return uidLookupStats;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.UID_LOOKUP);
+        builder.field(Fields.LOOKUPS, lookups);
+        builder.field(Fields.FOUND, found);
+        builder.field(Fields.BLOOM_FILTERED, filtered);
+        builder.field(Fields.BLOOM_FALSE_POSITIVES, falsePositives);
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString UID_LOOKUP = new XContentBuilderString("uid_lookup");
+        static final XContentBuilderString LOOKUPS = new XContentBuilderString("lookups");
+        static final XContentBuilderString FOUND = new XContentBuilderString("found");
+        static final XContentBuilderString BLOOM_FILTERED = new XContentBuilderString("bloom_filtered");
+        static final XContentBuilderString BLOOM_FALSE_POSITIVES = new XContentBuilderString("bloom_false_positives");
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        lookups = in.readVLong();
+        filtered = in.readVLong();
+        falsePositives = in.readVLong();
+        found = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(lookups);
+        out.writeVLong(filtered);
+        out.writeVLong(falsePositives);
+        out.writeVLong(found);
+    }
+}
@@ -23,11 +23,17 @@ import org.apache.lucene.util.Bits;
 
 import org.apache.lucene.index.*;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.CloseableThreadLocal;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.codec.postingsformat.BloomFilter;
+import org.elasticsearch.index.codec.postingsformat.BloomFilterPostingsFormat;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 /** Utility class to resolve the Lucene doc ID and version for a given uid. */
 public class Versions {
@@ -37,6 +43,64 @@ public class Versions {
 
     private Versions() {}
 
+    // per segment core, the terms and docs enums each thread reuses across lookups
+    private static final ConcurrentMap<Object, CloseableThreadLocal<LookupState>> lookupStates = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+
+    private static final SegmentReader.CoreClosedListener removeLookupStates = new SegmentReader.CoreClosedListener() {
+        @Override
+        public void onClose(Object ownerCoreCacheKey) {
+            CloseableThreadLocal<LookupState> states = lookupStates.remove(ownerCoreCacheKey);
+            if (states != null) {
+                states.close();
+            }
+        }
+    };
+
+    /** The enums a thread reuses to look up uids in a segment. */
+    private static final class LookupState {
+        final Terms terms;
+        @Nullable
+        final BloomFilter filter;
+        final TermsEnum termsEnum;
+        DocsEnum docsEnum;
+
+        LookupState(Terms terms) throws IOException {
+            if (terms instanceof BloomFilterPostingsFormat.BloomFilteredTerms) {
+                // we check the filter ourselves, to count its negatives and false positives
+                this.filter = ((BloomFilterPostingsFormat.BloomFilteredTerms) terms).getFilter();
+                this.terms = ((BloomFilterPostingsFormat.BloomFilteredTerms) terms).getDelegate();
+            } else {
+                this.filter = null;
+                this.terms = terms;
+            }
+            this.termsEnum = this.terms.iterator(null);
+        }
+    }
+
+    private static LookupState lookupState(AtomicReader reader) throws IOException {
+        if (!(reader instanceof SegmentReader)) {
+            // we can't tell when other readers go away, don't cache anything for them
+            return new LookupState(reader.terms(UidFieldMapper.NAME));
+        }
+        Object coreKey = reader.getCoreCacheKey();
+        CloseableThreadLocal<LookupState> states = lookupStates.get(coreKey);
+        if (states == null) {
+            states = new CloseableThreadLocal<LookupState>();
+            CloseableThreadLocal<LookupState> existing = lookupStates.putIfAbsent(coreKey, states);
+            if (existing == null) {
+                ((SegmentReader) reader).addCoreClosedListener(removeLookupStates);
+            } else {
+                states = existing;
+            }
+        }
+        LookupState state = states.get();
+        if (state == null) {
+            state = new LookupState(reader.terms(UidFieldMapper.NAME));
+            states.set(state);
+        }
+        return state;
+    }
+
     /** Wraps an {@link AtomicReaderContext}, a doc ID <b>relative to the context doc base</b> and a version. */
     public static class DocIdAndVersion {
         public final int docId;
@@ -57,11 +121,16 @@ public class Versions {
      * </ul>
      */
     public static DocIdAndVersion loadDocIdAndVersion(IndexReader reader, Term term) throws IOException {
+        return loadDocIdAndVersion(reader, term, null);
+    }
+
+    /** Same as {@link #loadDocIdAndVersion(IndexReader, Term)}, counting the per segment lookups in the provided metrics. */
+    public static DocIdAndVersion loadDocIdAndVersion(IndexReader reader, Term term, @Nullable UidLookupMetrics metrics) throws IOException {
         // iterate backwards to optimize for the frequently updated documents
         // which are likely to be in the last segments
         final List<AtomicReaderContext> leaves = reader.leaves();
         for (int i = leaves.size() - 1; i >= 0; --i) {
-            final DocIdAndVersion docIdAndVersion = loadDocIdAndVersion(leaves.get(i), term);
+            final DocIdAndVersion docIdAndVersion = loadDocIdAndVersion(leaves.get(i), term, metrics);
             if (docIdAndVersion != null) {
                 assert docIdAndVersion.version != NOT_FOUND;
                 return docIdAndVersion;
@@ -78,29 +147,58 @@ public class Versions {
      * </ul>
      */
     public static long loadVersion(IndexReader reader, Term term) throws IOException {
-        final DocIdAndVersion docIdAndVersion = loadDocIdAndVersion(reader, term);
+        return loadVersion(reader, term, null);
+    }
+
+    /** Same as {@link #loadVersion(IndexReader, Term)}, counting the per segment lookups in the provided metrics. */
+    public static long loadVersion(IndexReader reader, Term term, @Nullable UidLookupMetrics metrics) throws IOException {
+        final DocIdAndVersion docIdAndVersion = loadDocIdAndVersion(reader, term, metrics);
         return docIdAndVersion == null ? NOT_FOUND : docIdAndVersion.version;
     }
 
     /** Same as {@link #loadDocIdAndVersion(IndexReader, Term)} but operates directly on a reader context. */
     public static DocIdAndVersion loadDocIdAndVersion(AtomicReaderContext readerContext, Term term) throws IOException {
+        return loadDocIdAndVersion(readerContext, term, null);
+    }
+
+    /**
+     * Same as {@link #loadDocIdAndVersion(AtomicReaderContext, Term)}. The bloom filter of the segment, if any, is checked
+     * before seeking the terms dictionary, using enums cached per thread and segment.
+     */
+    public static DocIdAndVersion loadDocIdAndVersion(AtomicReaderContext readerContext, Term term, @Nullable UidLookupMetrics metrics) throws IOException {
         assert term.field().equals(UidFieldMapper.NAME);
         final AtomicReader reader = readerContext.reader();
         final Bits liveDocs = reader.getLiveDocs();
-        final Terms terms = reader.terms(UidFieldMapper.NAME);
-        assert terms != null : "All segments must have a _uid field, but " + reader + " doesn't";
-        final TermsEnum termsEnum = terms.iterator(null);
+        assert reader.terms(UidFieldMapper.NAME) != null : "All segments must have a _uid field, but " + reader + " doesn't";
+        final LookupState state = lookupState(reader);
+        if (metrics != null) {
+            metrics.lookups.inc();
+        }
+        if (state.filter != null && !state.filter.mightContain(term.bytes())) {
+            if (metrics != null) {
+                metrics.filtered.inc();
+            }
+            return null;
+        }
+        final Terms terms = state.terms;
+        final TermsEnum termsEnum = state.termsEnum;
         final boolean useCache = false; // avoid high cache churn
         if (!termsEnum.seekExact(term.bytes(), useCache)) {
+            if (metrics != null && state.filter != null) {
+                metrics.falsePositives.inc();
+            }
             return null;
         }
+        if (metrics != null) {
+            metrics.found.inc();
+        }
 
         // Versions are stored as doc values...
         final NumericDocValues versions = reader.getNumericDocValues(UidFieldMapper.VERSION);
         if (versions != null || !terms.hasPayloads()) {
             // only the last doc that matches the _uid is interesting here: if it is deleted, then there is
             // no match otherwise previous docs are necessarily either deleted or nested docs
-            final DocsEnum docs = termsEnum.docs(null, null);
+            final DocsEnum docs = state.docsEnum = termsEnum.docs(null, state.docsEnum, DocsEnum.FLAG_NONE);
             int docID = DocsEnum.NO_MORE_DOCS;
             for (int d = docs.nextDoc(); d != DocsEnum.NO_MORE_DOCS; d = docs.nextDoc()) {
                 docID = d;
@@ -0,0 +1,76 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.metrics;
+
+import jsr166e.LongAdder;
+
+/**
+ * A histogram with power of two buckets. Bucket <tt>0</tt> counts the values lower than <tt>1</tt>, bucket
+ * <tt>i</tt> counts the values in <tt>[2^(i-1), 2^i)</tt>, and the last bucket counts all the larger values.
+ */
+public class HistogramMetric implements Metric {
+
+    private final LongAdder[] buckets;
+
+    public HistogramMetric(int numberOfBuckets) {
+        buckets = new LongAdder[numberOfBuckets];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void inc(long value) {
+        buckets[bucket(value, buckets.length)].increment();
+    }
+
+    /**
+     * The number of values counted in each bucket.
+     */
+    public long[] counts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    public void clear() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+    }
+
+    /**
+     * The bucket the value falls into.
+     */
+    public static int bucket(long value, int numberOfBuckets) {
+        if (value < 1) {
+            return 0;
+        }
+        return Math.min(64 - Long.numberOfLeadingZeros(value), numberOfBuckets - 1);
+    }
+
+    /**
+     * The lowest value counted by the bucket.
+     */
+    public static long lowerBound(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.lease.Releasable;
+
+/**
+ * An array of up to {@link Long#MAX_VALUE} elements, see {@link BigArrays}. Releasing it gives its pages back to the recycler
+ * it was built with, so it must not be used afterwards.
+ */
+public interface BigArray extends Releasable {
+
+    /**
+     * Returns the length of this array.
+     */
+    long size();
+
+    /**
+     * The estimated memory used by this array.
+     */
+    long sizeInBytes();
+}
@@ -0,0 +1,759 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.common.inject.Inject;
+
+import java.util.Arrays;
+
+/**
+ * Utility class to work with arrays. Arrays of up to a page are plain java arrays, larger ones are made of
+ * fixed size pages taken from (and given back on release to) the node's {@link PageCacheRecycler}, so that big
+ * arrays neither require large contiguous allocations nor get allocated again on each request.
+ */
+public class BigArrays {
+
+    /**
+     * Big arrays which pages are allocated on the heap and never recycled, for long lived arrays.
+     */
+    public static final BigArrays NON_RECYCLING_INSTANCE = new BigArrays(null);
+
+    @Nullable
+    private final PageCacheRecycler recycler;
+
+    @Inject
+    public BigArrays(@Nullable PageCacheRecycler recycler) {
+        this.recycler = recycler;
+    }
+
+    static int numPages(long size, int pageSize) {
+        final long numPages = (size + pageSize - 1) / pageSize;
+        if (numPages > Integer.MAX_VALUE) {
+            throw new ElasticSearchIllegalArgumentException("pageSize=" + pageSize + " is too small for size=" + size);
+        }
+        return (int) numPages;
+    }
+
+    /**
+     * Returns a size larger than <tt>minTargetSize</tt> to grow arrays to, rounded up to a multiple of the page size.
+     */
+    static long overSize(long minTargetSize, int pageSize) {
+        long newSize = minTargetSize + (minTargetSize >>> 3);
+        if (newSize > pageSize) {
+            newSize = ((newSize + pageSize - 1) / pageSize) * pageSize;
+        }
+        return newSize;
+    }
+
+    /**
+     * Allocates a new {@link IntArray} of the provided size, filled with zeros.
+     */
+    public IntArray newIntArray(long size) {
+        if (size <= PageCacheRecycler.INT_PAGE_SIZE) {
+            return new IntArrayWrapper(new int[(int) size]);
+        }
+        return new BigIntArray(size, recycler);
+    }
+
+    /**
+     * Resizes the array, new elements are zeros. The returned array might be a new instance, in which case
+     * the provided one is released.
+     */
+    public IntArray resize(IntArray array, long size) {
+        if (array instanceof BigIntArray && size > PageCacheRecycler.INT_PAGE_SIZE) {
+            ((BigIntArray) array).resize(size);
+            return array;
+        }
+        final IntArray newArray = newIntArray(size);
+        final long copy = Math.min(size, array.size());
+        for (long i = 0; i < copy; ++i) {
+            newArray.set(i, array.get(i));
+        }
+        array.release();
+        return newArray;
+    }
+
+    /**
+     * Grows the array to at least <tt>minSize</tt> elements, over-allocating to amortize growth.
+     */
+    public IntArray grow(IntArray array, long minSize) {
+        if (minSize <= array.size()) {
+            return array;
+        }
+        return resize(array, overSize(minSize, PageCacheRecycler.INT_PAGE_SIZE));
+    }
+
+    /**
+     * Allocates a new {@link LongArray} of the provided size, filled with zeros.
+     */
+    public LongArray newLongArray(long size) {
+        if (size <= PageCacheRecycler.LONG_PAGE_SIZE) {
+            return new LongArrayWrapper(new long[(int) size]);
+        }
+        return new BigLongArray(size, recycler);
+    }
+
+    /**
+     * Resizes the array, new elements are zeros. The returned array might be a new instance, in which case
+     * the provided one is released.
+     */
+    public LongArray resize(LongArray array, long size) {
+        if (array instanceof BigLongArray && size > PageCacheRecycler.LONG_PAGE_SIZE) {
+            ((BigLongArray) array).resize(size);
+            return array;
+        }
+        final LongArray newArray = newLongArray(size);
+        final long copy = Math.min(size, array.size());
+        for (long i = 0; i < copy; ++i) {
+            newArray.set(i, array.get(i));
+        }
+        array.release();
+        return newArray;
+    }
+
+    /**
+     * Grows the array to at least <tt>minSize</tt> elements, over-allocating to amortize growth.
+     */
+    public LongArray grow(LongArray array, long minSize) {
+        if (minSize <= array.size()) {
+            return array;
+        }
+        return resize(array, overSize(minSize, PageCacheRecycler.LONG_PAGE_SIZE));
+    }
+
+    /**
+     * Allocates a new {@link DoubleArray} of the provided size, filled with zeros.
+     */
+    public DoubleArray newDoubleArray(long size) {
+        if (size <= PageCacheRecycler.DOUBLE_PAGE_SIZE) {
+            return new DoubleArrayWrapper(new double[(int) size]);
+        }
+        return new BigDoubleArray(size, recycler);
+    }
+
+    /**
+     * Resizes the array, new elements are zeros. The returned array might be a new instance, in which case
+     * the provided one is released.
+     */
+    public DoubleArray resize(DoubleArray array, long size) {
+        if (array instanceof BigDoubleArray && size > PageCacheRecycler.DOUBLE_PAGE_SIZE) {
+            ((BigDoubleArray) array).resize(size);
+            return array;
+        }
+        final DoubleArray newArray = newDoubleArray(size);
+        final long copy = Math.min(size, array.size());
+        for (long i = 0; i < copy; ++i) {
+            newArray.set(i, array.get(i));
+        }
+        array.release();
+        return newArray;
+    }
+
+    /**
+     * Grows the array to at least <tt>minSize</tt> elements, over-allocating to amortize growth.
+     */
+    public DoubleArray grow(DoubleArray array, long minSize) {
+        if (minSize <= array.size()) {
+            return array;
+        }
+        return resize(array, overSize(minSize, PageCacheRecycler.DOUBLE_PAGE_SIZE));
+    }
+
+    /**
+     * Allocates a new {@link ObjectArray} of the provided size, filled with nulls.
+     */
+    public <T> ObjectArray<T> newObjectArray(long size) {
+        if (size <= PageCacheRecycler.OBJECT_PAGE_SIZE) {
+            return new ObjectArrayWrapper<T>(new Object[(int) size]);
+        }
+        return new BigObjectArray<T>(size, recycler);
+    }
+
+    /**
+     * Resizes the array, new elements are nulls. The returned array might be a new instance, in which case
+     * the provided one is released.
+     */
+    public <T> ObjectArray<T> resize(ObjectArray<T> array, long size) {
+        if (array instanceof BigObjectArray && size > PageCacheRecycler.OBJECT_PAGE_SIZE) {
+            ((BigObjectArray<T>) array).resize(size);
+            return array;
+        }
+        final ObjectArray<T> newArray = newObjectArray(size);
+        final long copy = Math.min(size, array.size());
+        for (long i = 0; i < copy; ++i) {
+            newArray.set(i, array.get(i));
+        }
+        array.release();
+        return newArray;
+    }
+
+    /**
+     * Grows the array to at least <tt>minSize</tt> elements, over-allocating to amortize growth.
+     */
+    public <T> ObjectArray<T> grow(ObjectArray<T> array, long minSize) {
+        if (minSize <= array.size()) {
+            return array;
+        }
+        return resize(array, overSize(minSize, PageCacheRecycler.OBJECT_PAGE_SIZE));
+    }
+
+    static abstract class AbstractArray implements BigArray {
+
+        protected long size;
+        private boolean released;
+
+        AbstractArray(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public final long size() {
+            return size;
+        }
+
+        @Override
+        public final boolean release() {
+            if (!released) {
+                released = true;
+                doRelease();
+            }
+            return true;
+        }
+
+        protected abstract void doRelease();
+    }
+
+    static final class IntArrayWrapper extends AbstractArray implements IntArray {
+
+        private final int[] array;
+
+        IntArrayWrapper(int[] array) {
+            super(array.length);
+            this.array = array;
+        }
+
+        @Override
+        public int get(long index) {
+            assert index >= 0 && index < size;
+            return array[(int) index];
+        }
+
+        @Override
+        public int set(long index, int value) {
+            assert index >= 0 && index < size;
+            final int ret = array[(int) index];
+            array[(int) index] = value;
+            return ret;
+        }
+
+        @Override
+        public int increment(long index, int inc) {
+            assert index >= 0 && index < size;
+            return array[(int) index] += inc;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return RamUsage.NUM_BYTES_ARRAY_HEADER + (long) array.length * RamUsage.NUM_BYTES_INT;
+        }
+
+        @Override
+        protected void doRelease() {
+        }
+    }
+
+    static final class BigIntArray extends AbstractArray implements IntArray {
+
+        private static final int PAGE_SHIFT = Integer.numberOfTrailingZeros(PageCacheRecycler.INT_PAGE_SIZE);
+        private static final int PAGE_MASK = PageCacheRecycler.INT_PAGE_SIZE - 1;
+
+        @Nullable
+        private final PageCacheRecycler recycler;
+        private int[][] pages;
+
+        BigIntArray(long size, @Nullable PageCacheRecycler recycler) {
+            super(size);
+            this.recycler = recycler;
+            this.pages = new int[numPages(size, PageCacheRecycler.INT_PAGE_SIZE)][];
+            for (int i = 0; i < pages.length; ++i) {
+                pages[i] = newPage();
+            }
+        }
+
+        private int[] newPage() {
+            return recycler == null ? new int[PageCacheRecycler.INT_PAGE_SIZE] : recycler.intPage(true);
+        }
+
+        private void releasePage(int[] page) {
+            if (recycler != null) {
+                recycler.release(page);
+            }
+        }
+
+        @Override
+        public int get(long index) {
+            assert index >= 0 && index < size;
+            return pages[(int) (index >>> PAGE_SHIFT)][(int) (index & PAGE_MASK)];
+        }
+
+        @Override
+        public int set(long index, int value) {
+            assert index >= 0 && index < size;
+            final int[] page = pages[(int) (index >>> PAGE_SHIFT)];
+            final int indexInPage = (int) (index & PAGE_MASK);
+            final int ret = page[indexInPage];
+            page[indexInPage] = value;
+            return ret;
+        }
+
+        @Override
+        public int increment(long index, int inc) {
+            assert index >= 0 && index < size;
+            return pages[(int) (index >>> PAGE_SHIFT)][(int) (index & PAGE_MASK)] += inc;
+        }
+
+        void resize(long newSize) {
+            final int numPages = numPages(newSize, PageCacheRecycler.INT_PAGE_SIZE);
+            if (numPages > pages.length) {
+                pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsage.NUM_BYTES_OBJECT_REF));
+            }
+            for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+                pages[i] = newPage();
+            }
+            for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+                releasePage(pages[i]);
+                pages[i] = null;
+            }
+            if (newSize < size && (newSize & PAGE_MASK) != 0) {
+                // growing again must expose zeros, not the values that were cut off
+                Arrays.fill(pages[numPages - 1], (int) (newSize & PAGE_MASK), PageCacheRecycler.INT_PAGE_SIZE, (int) 0);
+            }
+            size = newSize;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            long sizeInBytes = RamUsage.NUM_BYTES_ARRAY_HEADER + (long) pages.length * RamUsage.NUM_BYTES_OBJECT_REF;
+            for (int[] page : pages) {
+                if (page != null) {
+                    sizeInBytes += RamUsage.NUM_BYTES_ARRAY_HEADER + (long) page.length * RamUsage.NUM_BYTES_INT;
+                }
+            }
+            return sizeInBytes;
+        }
+
+        @Override
+        protected void doRelease() {
+            for (int[] page : pages) {
+                if (page != null) {
+                    releasePage(page);
+                }
+            }
+            pages = null;
+        }
+    }
+
+    static final class LongArrayWrapper extends AbstractArray implements LongArray {
+
+        private final long[] array;
+
+        LongArrayWrapper(long[] array) {
+            super(array.length);
+            this.array = array;
+        }
+
+        @Override
+        public long get(long index) {
+            assert index >= 0 && index < size;
+            return array[(int) index];
+        }
+
+        @Override
+        public long set(long index, long value) {
+            assert index >= 0 && index < size;
+            final long ret = array[(int) index];
+            array[(int) index] = value;
+            return ret;
+        }
+
+        @Override
+        public long increment(long index, long inc) {
+            assert index >= 0 && index < size;
+            return array[(int) index] += inc;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return RamUsage.NUM_BYTES_ARRAY_HEADER + (long) array.length * RamUsage.NUM_BYTES_LONG;
+        }
+
+        @Override
+        protected void doRelease() {
+        }
+    }
+
+    static final class BigLongArray extends AbstractArray implements LongArray {
+
+        private static final int PAGE_SHIFT = Integer.numberOfTrailingZeros(PageCacheRecycler.LONG_PAGE_SIZE);
+        private static final int PAGE_MASK = PageCacheRecycler.LONG_PAGE_SIZE - 1;
+
+        @Nullable
+        private final PageCacheRecycler recycler;
+        private long[][] pages;
+
+        BigLongArray(long size, @Nullable PageCacheRecycler recycler) {
+            super(size);
+            this.recycler = recycler;
+            this.pages = new long[numPages(size, PageCacheRecycler.LONG_PAGE_SIZE)][];
+            for (int i = 0; i < pages.length; ++i) {
+                pages[i] = newPage();
+            }
+        }
+
+        private long[] newPage() {
+            return recycler == null ? new long[PageCacheRecycler.LONG_PAGE_SIZE] : recycler.longPage(true);
+        }
+
+        private void releasePage(long[] page) {
+            if (recycler != null) {
+                recycler.release(page);
+            }
+        }
+
+        @Override
+        public long get(long index) {
+            assert index >= 0 && index < size;
+            return pages[(int) (index >>> PAGE_SHIFT)][(int) (index & PAGE_MASK)];
+        }
+
+        @Override
+        public long set(long index, long value) {
+            assert index >= 0 && index < size;
+            final long[] page = pages[(int) (index >>> PAGE_SHIFT)];
+            final int indexInPage = (int) (index & PAGE_MASK);
+            final long ret = page[indexInPage];
+            page[indexInPage] = value;
+            return ret;
+        }
+
+        @Override
+        public long increment(long index, long inc) {
+            assert index >= 0 && index < size;
+            return pages[(int) (index >>> PAGE_SHIFT)][(int) (index & PAGE_MASK)] += inc;
+        }
+
+        void resize(long newSize) {
+            final int numPages = numPages(newSize, PageCacheRecycler.LONG_PAGE_SIZE);
+            if (numPages > pages.length) {
+                pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsage.NUM_BYTES_OBJECT_REF));
+            }
+            for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+                pages[i] = newPage();
+            }
+            for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+                releasePage(pages[i]);
+                pages[i] = null;
+            }
+            if (newSize < size && (newSize & PAGE_MASK) != 0) {
+                // growing again must expose zeros, not the values that were cut off
+                Arrays.fill(pages[numPages - 1], (int) (newSize & PAGE_MASK), PageCacheRecycler.LONG_PAGE_SIZE, (long) 0);
+            }
+            size = newSize;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            long sizeInBytes = RamUsage.NUM_BYTES_ARRAY_HEADER + (long) pages.length * RamUsage.NUM_BYTES_OBJECT_REF;
+            for (long[] page : pages) {
+                if (page != null) {
+                    sizeInBytes += RamUsage.NUM_BYTES_ARRAY_HEADER + (long) page.length * RamUsage.NUM_BYTES_LONG;
+                }
+            }
+            return sizeInBytes;
+        }
+
+        @Override
+        protected void doRelease() {
+            for (long[] page : pages) {
+                if (page != null) {
+                    releasePage(page);
+                }
+            }
+            pages = null;
+        }
+    }
+
+    static final class DoubleArrayWrapper extends AbstractArray implements DoubleArray {
+
+        private final double[] array;
+
+        DoubleArrayWrapper(double[] array) {
+            super(array.length);
+            this.array = array;
+        }
+
+        @Override
+        public double get(long index) {
+            assert index >= 0 && index < size;
+            return array[(int) index];
+        }
+
+        @Override
+        public double set(long index, double value) {
+            assert index >= 0 && index < size;
+            final double ret = array[(int) index];
+            array[(int) index] = value;
+            return ret;
+        }
+
+        @Override
+        public double increment(long index, double inc) {
+            assert index >= 0 && index < size;
+            return array[(int) index] += inc;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return RamUsage.NUM_BYTES_ARRAY_HEADER + (long) array.length * RamUsage.NUM_BYTES_DOUBLE;
+        }
+
+        @Override
+        protected void doRelease() {
+        }
+    }
+
+    static final class BigDoubleArray extends AbstractArray implements DoubleArray {
+
+        private static final int PAGE_SHIFT = Integer.numberOfTrailingZeros(PageCacheRecycler.DOUBLE_PAGE_SIZE);
+        private static final int PAGE_MASK = PageCacheRecycler.DOUBLE_PAGE_SIZE - 1;
+
+        @Nullable
+        private final PageCacheRecycler recycler;
+        private double[][] pages;
+
+        BigDoubleArray(long size, @Nullable PageCacheRecycler recycler) {
+            super(size);
+            this.recycler = recycler;
+            this.pages = new double[numPages(size, PageCacheRecycler.DOUBLE_PAGE_SIZE)][];
+            for (int i = 0; i < pages.length; ++i) {
+                pages[i] = newPage();
+            }
+        }
+
+        private double[] newPage() {
+            return recycler == null ? new double[PageCacheRecycler.DOUBLE_PAGE_SIZE] : recycler.doublePage(true);
+        }
+
+        private void releasePage(double[] page) {
+            if (recycler != null) {
+                recycler.release(page);
+            }
+        }
+
+        @Override
+        public double get(long index) {
+            assert index >= 0 && index < size;
+            return pages[(int) (index >>> PAGE_SHIFT)][(int) (index & PAGE_MASK)];
+        }
+
+        @Override
+        public double set(long index, double value) {
+            assert index >= 0 && index < size;
+            final double[] page = pages[(int) (index >>> PAGE_SHIFT)];
+            final int indexInPage = (int) (index & PAGE_MASK);
+            final double ret = page[indexInPage];
+            page[indexInPage] = value;
+            return ret;
+        }
+
+        @Override
+        public double increment(long index, double inc) {
+            assert index >= 0 && index < size;
+            return pages[(int) (index >>> PAGE_SHIFT)][(int) (index & PAGE_MASK)] += inc;
+        }
+
+        void resize(long newSize) {
+            final int numPages = numPages(newSize, PageCacheRecycler.DOUBLE_PAGE_SIZE);
+            if (numPages > pages.length) {
+                pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsage.NUM_BYTES_OBJECT_REF));
+            }
+            for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+                pages[i] = newPage();
+            }
+            for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+                releasePage(pages[i]);
+                pages[i] = null;
+            }
+            if (newSize < size && (newSize & PAGE_MASK) != 0) {
+                // growing again must expose zeros, not the values that were cut off
+                Arrays.fill(pages[numPages - 1], (int) (newSize & PAGE_MASK), PageCacheRecycler.DOUBLE_PAGE_SIZE, (double) 0);
+            }
+            size = newSize;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            long sizeInBytes = RamUsage.NUM_BYTES_ARRAY_HEADER + (long) pages.length * RamUsage.NUM_BYTES_OBJECT_REF;
+            for (double[] page : pages) {
+                if (page != null) {
+                    sizeInBytes += RamUsage.NUM_BYTES_ARRAY_HEADER + (long) page.length * RamUsage.NUM_BYTES_DOUBLE;
+                }
+            }
+            return sizeInBytes;
+        }
+
+        @Override
+        protected void doRelease() {
+            for (double[] page : pages) {
+                if (page != null) {
+                    releasePage(page);
+                }
+            }
+            pages = null;
+        }
+    }
+
+    static final class ObjectArrayWrapper<T> extends AbstractArray implements ObjectArray<T> {
+
+        private final Object[] array;
+
+        ObjectArrayWrapper(Object[] array) {
+            super(array.length);
+            this.array = array;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(long index) {
+            assert index >= 0 && index < size;
+            return (T) array[(int) index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T set(long index, T value) {
+            assert index >= 0 && index < size;
+            final T ret = (T) array[(int) index];
+            array[(int) index] = value;
+            return ret;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return RamUsage.NUM_BYTES_ARRAY_HEADER + (long) array.length * RamUsage.NUM_BYTES_OBJECT_REF;
+        }
+
+        @Override
+        protected void doRelease() {
+        }
+    }
+
+    static final class BigObjectArray<T> extends AbstractArray implements ObjectArray<T> {
+
+        private static final int PAGE_SHIFT = Integer.numberOfTrailingZeros(PageCacheRecycler.OBJECT_PAGE_SIZE);
+        private static final int PAGE_MASK = PageCacheRecycler.OBJECT_PAGE_SIZE - 1;
+
+        @Nullable
+        private final PageCacheRecycler recycler;
+        private Object[][] pages;
+
+        BigObjectArray(long size, @Nullable PageCacheRecycler recycler) {
+            super(size);
+            this.recycler = recycler;
+            this.pages = new Object[numPages(size, PageCacheRecycler.OBJECT_PAGE_SIZE)][];
+            for (int i = 0; i < pages.length; ++i) {
+                pages[i] = newPage();
+            }
+        }
+
+        private Object[] newPage() {
+            return recycler == null ? new Object[PageCacheRecycler.OBJECT_PAGE_SIZE] : recycler.objectPage();
+        }
+
+        private void releasePage(Object[] page) {
+            if (recycler != null) {
+                recycler.release(page);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(long index) {
+            assert index >= 0 && index < size;
+            return (T) pages[(int) (index >>> PAGE_SHIFT)][(int) (index & PAGE_MASK)];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T set(long index, T value) {
+            assert index >= 0 && index < size;
+            final Object[] page = pages[(int) (index >>> PAGE_SHIFT)];
+            final int indexInPage = (int) (index & PAGE_MASK);
+            final T ret = (T) page[indexInPage];
+            page[indexInPage] = value;
+            return ret;
+        }
+
+        void resize(long newSize) {
+            final int numPages = numPages(newSize, PageCacheRecycler.OBJECT_PAGE_SIZE);
+            if (numPages > pages.length) {
+                pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsage.NUM_BYTES_OBJECT_REF));
+            }
+            for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+                pages[i] = newPage();
+            }
+            for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+                releasePage(pages[i]);
+                pages[i] = null;
+            }
+            if (newSize < size && (newSize & PAGE_MASK) != 0) {
+                Arrays.fill(pages[numPages - 1], (int) (newSize & PAGE_MASK), PageCacheRecycler.OBJECT_PAGE_SIZE, null);
+            }
+            size = newSize;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            long sizeInBytes = RamUsage.NUM_BYTES_ARRAY_HEADER + (long) pages.length * RamUsage.NUM_BYTES_OBJECT_REF;
+            for (Object[] page : pages) {
+                if (page != null) {
+                    sizeInBytes += RamUsage.NUM_BYTES_ARRAY_HEADER + (long) page.length * RamUsage.NUM_BYTES_OBJECT_REF;
+                }
+            }
+            return sizeInBytes;
+        }
+
+        @Override
+        protected void doRelease() {
+            for (Object[] page : pages) {
+                if (page != null) {
+                    releasePage(page);
+                }
+            }
+            pages = null;
+        }
+    }
+}
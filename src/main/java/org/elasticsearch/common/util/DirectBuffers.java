@@ -0,0 +1,46 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocates direct (off heap) buffers. The memory is released once the buffer gets garbage collected, there
+ * is no explicit release on purpose, a buffer might still be read by an ongoing search when its owner is closed.
+ */
+public final class DirectBuffers {
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * Allocates a direct buffer of the provided size, using the native byte order.
+     */
+    public static ByteBuffer allocate(long sizeInBytes) {
+        if (sizeInBytes > Integer.MAX_VALUE) {
+            throw new ElasticSearchIllegalArgumentException("can't allocate a direct buffer of [" + sizeInBytes + "] bytes, the limit is [" + Integer.MAX_VALUE + "]");
+        }
+        return ByteBuffer.allocateDirect((int) sizeInBytes).order(ByteOrder.nativeOrder());
+    }
+}
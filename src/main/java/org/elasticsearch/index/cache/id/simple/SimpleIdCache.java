@@ -29,6 +29,9 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.UTF8SortedAsUnicodeComparator;
 import org.elasticsearch.common.trove.ExtTObjectIntHasMap;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.ObjectArray;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
@@ -180,7 +183,7 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
                             docsEnum = termsEnum.docs(reader.getLiveDocs(), docsEnum, 0);
                             for (int docId = docsEnum.nextDoc(); docId != DocsEnum.NO_MORE_DOCS; docId = docsEnum.nextDoc()) {
                                 typeBuilder.idToDoc.put(idAsBytes, docId);
-                                typeBuilder.docToId[docId] = idAsBytes;
+                                typeBuilder.docToId.set(docId, idAsBytes);
                             }
                         }
                     }
@@ -219,7 +222,7 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
                                     typeBuilder.parentIdsValues.add(idAsBytes);
                                     added = true;
                                 }
-                                typeBuilder.parentIdsOrdinals[docId] = typeBuilder.t;
+                                typeBuilder.parentIdsOrdinals.set(docId, typeBuilder.t);
                             }
 
                             if (added) {
@@ -302,16 +305,17 @@ public class SimpleIdCache extends AbstractIndexComponent implements IdCache, Se
 
     static class TypeBuilder {
         final ExtTObjectIntHasMap<HashedBytesArray> idToDoc = new ExtTObjectIntHasMap<HashedBytesArray>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
-        final HashedBytesArray[] docToId;
+        final ObjectArray<HashedBytesArray> docToId;
         final ArrayList<HashedBytesArray> parentIdsValues = new ArrayList<HashedBytesArray>();
-        final int[] parentIdsOrdinals;
+        final IntArray parentIdsOrdinals;
         int t = 1;  // current term number (0 indicated null value)
 
         TypeBuilder(IndexReader reader) {
-            parentIdsOrdinals = new int[reader.maxDoc()];
+            // paged, so that big segments don't need huge contiguous arrays, but not recycled since they are cached
+            parentIdsOrdinals = BigArrays.NON_RECYCLING_INSTANCE.newIntArray(reader.maxDoc());
             // the first one indicates null value
             parentIdsValues.add(null);
-            docToId = new HashedBytesArray[reader.maxDoc()];
+            docToId = BigArrays.NON_RECYCLING_INSTANCE.newObjectArray(reader.maxDoc());
         }
 
         /**
@@ -23,6 +23,8 @@ import gnu.trove.impl.hash.TObjectHash;
 import org.elasticsearch.common.RamUsage;
 import org.elasticsearch.common.bytes.HashedBytesArray;
 import org.elasticsearch.common.trove.ExtTObjectIntHasMap;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.ObjectArray;
 import org.elasticsearch.index.cache.id.IdReaderTypeCache;
 
 /**
@@ -34,16 +36,16 @@ public class SimpleIdReaderTypeCache implements IdReaderTypeCache {
 
     private final ExtTObjectIntHasMap<HashedBytesArray> idToDoc;
 
-    private final HashedBytesArray[] docIdToId;
+    private final ObjectArray<HashedBytesArray> docIdToId;
 
     private final HashedBytesArray[] parentIdsValues;
 
-    private final int[] parentIdsOrdinals;
+    private final IntArray parentIdsOrdinals;
 
     private long sizeInBytes = -1;
 
-    public SimpleIdReaderTypeCache(String type, ExtTObjectIntHasMap<HashedBytesArray> idToDoc, HashedBytesArray[] docIdToId,
-                                   HashedBytesArray[] parentIdsValues, int[] parentIdsOrdinals) {
+    public SimpleIdReaderTypeCache(String type, ExtTObjectIntHasMap<HashedBytesArray> idToDoc, ObjectArray<HashedBytesArray> docIdToId,
+                                   HashedBytesArray[] parentIdsValues, IntArray parentIdsOrdinals) {
         this.type = type;
         this.idToDoc = idToDoc;
         this.docIdToId = docIdToId;
@@ -57,7 +59,7 @@ public class SimpleIdReaderTypeCache implements IdReaderTypeCache {
     }
 
     public HashedBytesArray parentIdByDoc(int docId) {
-        return parentIdsValues[parentIdsOrdinals[docId]];
+        return parentIdsValues[parentIdsOrdinals.get(docId)];
     }
 
     public int docById(HashedBytesArray uid) {
@@ -65,7 +67,7 @@ public class SimpleIdReaderTypeCache implements IdReaderTypeCache {
     }
 
     public HashedBytesArray idByDoc(int docId) {
-        return docIdToId[docId];
+        return docIdToId.get(docId);
     }
 
     public long sizeInBytes() {
@@ -97,7 +99,7 @@ public class SimpleIdReaderTypeCache implements IdReaderTypeCache {
         }
 
         // The docIdToId array contains references to idToDoc for this segment or other segments, so we can use OBJECT_REF
-        sizeInBytes += RamUsage.NUM_BYTES_ARRAY_HEADER + (RamUsage.NUM_BYTES_OBJECT_REF * docIdToId.length);
+        sizeInBytes += docIdToId.sizeInBytes();
         for (HashedBytesArray bytesArray : parentIdsValues) {
             if (bytesArray == null) {
                 sizeInBytes += RamUsage.NUM_BYTES_OBJECT_REF;
@@ -105,7 +107,7 @@ public class SimpleIdReaderTypeCache implements IdReaderTypeCache {
                 sizeInBytes += RamUsage.NUM_BYTES_OBJECT_HEADER + (bytesArray.length() + RamUsage.NUM_BYTES_INT);
             }
         }
-        sizeInBytes += RamUsage.NUM_BYTES_ARRAY_HEADER + (RamUsage.NUM_BYTES_INT * parentIdsOrdinals.length);
+        sizeInBytes += parentIdsOrdinals.sizeInBytes();
 
         return sizeInBytes;
     }
@@ -69,6 +69,11 @@ public class PerFieldMappingPostingFormatCodec extends Lucene42Codec {
             // TODO: Make it configurable
             return diskDocValuesFormat;
         }
+        final FieldMappers indexName = mapperService.indexName(field);
+        if (indexName != null && indexName.mapper().fieldDataType() != null && indexName.mapper().fieldDataType().hasDocValues()) {
+            // field data is read from them, keep them on disk
+            return diskDocValuesFormat;
+        }
         return super.getDocValuesFormatForField(field);
     }
 }
@@ -196,6 +196,10 @@ public final class BloomFilterPostingsFormat extends PostingsFormat {
             return filter;
         }
 
+        public Terms getDelegate() {
+            return delegateTerms;
+        }
+
         @Override
         public TermsEnum intersect(CompiledAutomaton compiled,
                                    final BytesRef startTerm) throws IOException {
@@ -31,6 +31,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.CloseableComponent;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lucene.uid.UidLookupStats;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
@@ -78,12 +79,29 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
 
     void delete(DeleteByQuery delete) throws EngineException;
 
+    /**
+     * Executes a batch of create, index and delete operations. Operations on the same uid are executed
+     * in the order they were provided, the order across different uids is not preserved. A failure of a
+     * single operation is recorded on the bulk and does not fail the other operations.
+     */
+    void bulk(Bulk bulk) throws EngineException;
+
     GetResult get(Get get) throws EngineException;
 
     Searcher searcher() throws EngineException;
 
     List<Segment> segments();
 
+    /**
+     * The estimated memory used to track the versions of operations that are not yet visible to searchers.
+     */
+    long versionMapMemorySizeInBytes();
+
+    /**
+     * The lookups of uids in the index done to resolve versions.
+     */
+    UidLookupStats uidLookupStats();
+
     /**
      * Returns <tt>true</tt> if a refresh is really needed.
      */
@@ -364,6 +382,8 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
         Type opType();
 
         Origin origin();
+
+        Term uid();
     }
 
     static interface IndexingOperation extends Operation {
@@ -382,6 +402,8 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
         private long version;
         private VersionType versionType = VersionType.INTERNAL;
         private Origin origin = Origin.PRIMARY;
+        private boolean autoGeneratedId = false;
+        private boolean canHaveDuplicates = false;
 
         private long startTime;
         private long endTime;
@@ -464,6 +486,30 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
             return this.doc.parent();
         }
 
+        /**
+         * Is the id of the document generated, so no other document can have it.
+         */
+        public boolean autoGeneratedId() {
+            return this.autoGeneratedId;
+        }
+
+        public Create autoGeneratedId(boolean autoGeneratedId) {
+            this.autoGeneratedId = autoGeneratedId;
+            return this;
+        }
+
+        /**
+         * Might this operation have already been executed, for example when its request is retried.
+         */
+        public boolean canHaveDuplicates() {
+            return this.canHaveDuplicates;
+        }
+
+        public Create canHaveDuplicates(boolean canHaveDuplicates) {
+            this.canHaveDuplicates = canHaveDuplicates;
+            return this;
+        }
+
         @Override
         public List<Document> docs() {
             return this.doc.docs();
@@ -801,6 +847,35 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
     }
 
 
+    static class Bulk {
+        private final Operation[] ops;
+        private final Exception[] failures;
+
+        /**
+         * @param ops the operations to execute, <tt>null</tt> entries are skipped
+         */
+        public Bulk(Operation[] ops) {
+            this.ops = ops;
+            this.failures = new Exception[ops.length];
+        }
+
+        public Operation[] ops() {
+            return this.ops;
+        }
+
+        /**
+         * The failure of the operation at the provided index, or <tt>null</tt> if it succeeded.
+         */
+        @Nullable
+        public Exception failure(int index) {
+            return failures[index];
+        }
+
+        public void failure(int index, Exception failure) {
+            failures[index] = failure;
+        }
+    }
+
     static class Get {
         private final boolean realtime;
         private final Term uid;
@@ -0,0 +1,95 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine.robin;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.lucene.HashedBytesRef;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link VersionMap} backed by a concurrent hash map, holding a few heap objects per uid.
+ */
+public class ConcurrentVersionMap implements VersionMap {
+
+    // map entry + HashedBytesRef + BytesRef + byte[] header + VersionValue + Translog.Location
+    static final long BASE_RAM_BYTES_PER_ENTRY =
+            (RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_INT + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF) +
+                    (RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_INT + RamUsageEstimator.NUM_BYTES_OBJECT_REF) +
+                    (RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_INT + RamUsageEstimator.NUM_BYTES_OBJECT_REF) +
+                    RamUsageEstimator.NUM_BYTES_ARRAY_HEADER +
+                    (RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_LONG + 1 + RamUsageEstimator.NUM_BYTES_OBJECT_REF) +
+                    (RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_LONG + RamUsageEstimator.NUM_BYTES_INT);
+
+    // we use the hashed variant since we iterate over it and check removal and additions on existing keys
+    private final ConcurrentMap<HashedBytesRef, VersionValue> map = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+
+    private final AtomicLong sizeInBytes = new AtomicLong();
+
+    @Override
+    public VersionValue get(BytesRef uid) {
+        return map.get(new HashedBytesRef(uid));
+    }
+
+    @Override
+    public void put(BytesRef uid, VersionValue value) {
+        if (map.put(new HashedBytesRef(uid), value) == null) {
+            sizeInBytes.addAndGet(BASE_RAM_BYTES_PER_ENTRY + uid.length);
+        }
+    }
+
+    @Override
+    public void remove(BytesRef uid) {
+        if (map.remove(new HashedBytesRef(uid)) != null) {
+            sizeInBytes.addAndGet(-(BASE_RAM_BYTES_PER_ENTRY + uid.length));
+        }
+    }
+
+    @Override
+    public Iterable<BytesRef> uids() {
+        return Iterables.transform(map.keySet(), new Function<HashedBytesRef, BytesRef>() {
+            @Override
+            public BytesRef apply(HashedBytesRef input) {
+                return input.bytes;
+            }
+        });
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        sizeInBytes.set(0);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return sizeInBytes.get();
+    }
+}
@@ -28,21 +28,23 @@ import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.ElasticSearchIllegalStateException;
 import org.elasticsearch.cluster.routing.operation.hash.djb.DjbHashFunction;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Preconditions;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.inject.Inject;
-import org.elasticsearch.common.lucene.HashedBytesRef;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.XFilteredQuery;
+import org.elasticsearch.common.lucene.uid.UidLookupMetrics;
+import org.elasticsearch.common.lucene.uid.UidLookupStats;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
-import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.codec.CodecService;
@@ -68,7 +70,6 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -135,16 +136,23 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
 
 
     // A uid (in the form of BytesRef) to the version map
-    // we use the hashed variant since we iterate over it and check removal and additions on existing keys
-    private final ConcurrentMap<HashedBytesRef, VersionValue> versionMap;
+    private final VersionMap versionMap;
 
     private final Object[] dirtyLocks;
 
+    // incremented each time entries are about to be removed from the version map after a refresh
+    private final AtomicLong versionMapPrunes = new AtomicLong();
+
+    private final UidLookupMetrics uidLookupMetrics = new UidLookupMetrics();
+
+    private final VersionLoader perOperationVersionLoader = new VersionLoader();
+
     private final Object refreshMutex = new Object();
 
     private final ApplySettings applySettings = new ApplySettings();
 
     private volatile boolean failOnMergeFailure;
+    private volatile boolean optimizeAutoGeneratedId;
     private Throwable failedEngine = null;
     private final Object failedEngineMutex = new Object();
     private final CopyOnWriteArrayList<FailedEngineListener> failedEngineListeners = new CopyOnWriteArrayList<FailedEngineListener>();
@@ -184,7 +192,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         this.codecService = codecService;
 
         this.indexConcurrency = indexSettings.getAsInt(INDEX_INDEX_CONCURRENCY, IndexWriterConfig.DEFAULT_MAX_THREAD_STATES);
-        this.versionMap = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+        this.versionMap = newVersionMap(indexSettings.get(INDEX_VERSION_MAP_TYPE, VERSION_MAP_CONCURRENT), indexConcurrency);
         this.dirtyLocks = new Object[indexConcurrency * 50]; // we multiply it to have enough...
         for (int i = 0; i < dirtyLocks.length; i++) {
             dirtyLocks[i] = new Object();
@@ -192,6 +200,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
 
         this.indexSettingsService.addListener(applySettings);
 
+        this.optimizeAutoGeneratedId = indexSettings.getAsBoolean(INDEX_OPTIMIZE_AUTO_GENERATED_ID, true);
         this.failOnMergeFailure = indexSettings.getAsBoolean(INDEX_FAIL_ON_MERGE_FAILURE, true);
         if (failOnMergeFailure) {
             this.mergeScheduler.addFailureListener(new FailEngineOnMergeFailure());
@@ -310,7 +319,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         rwl.readLock().lock();
         try {
             if (get.realtime()) {
-                VersionValue versionValue = versionMap.get(versionKey(get.uid()));
+                VersionValue versionValue = versionMap.get(get.uid().bytes());
                 if (versionValue != null) {
                     if (versionValue.delete()) {
                         return GetResult.NOT_EXISTS;
@@ -318,7 +327,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
                     if (!get.loadSource()) {
                         return new GetResult(true, versionValue.version(), null);
                     }
-                    byte[] data = translog.read(versionValue.translogLocation());
+                    BytesReference data = translog.readBytes(versionValue.translogLocation());
                     if (data != null) {
                         try {
                             Translog.Source source = TranslogStreams.readSource(data);
@@ -333,7 +342,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
             // no version, get the version from the index, we know that we refresh on flush
             Searcher searcher = searcher();
             try {
-                final Versions.DocIdAndVersion docIdAndVersion = Versions.loadDocIdAndVersion(searcher.reader(), get.uid());
+                final Versions.DocIdAndVersion docIdAndVersion = Versions.loadDocIdAndVersion(searcher.reader(), get.uid(), uidLookupMetrics);
                 if (docIdAndVersion != null) {
                     return new GetResult(searcher, docIdAndVersion);
                 }
@@ -375,101 +384,139 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         } finally {
             rwl.readLock().unlock();
         }
+        // outside of the engine locks, so concurrent operations can share a sync
+        translog.syncOperations();
     }
 
     private void innerCreate(Create create, IndexWriter writer) throws IOException {
+        if (canAppendOnly(create)) {
+            // no other operation can touch the same uid, no need to lock
+            innerCreateAppendOnly(create, writer);
+            return;
+        }
         synchronized (dirtyLock(create.uid())) {
-            HashedBytesRef versionKey = versionKey(create.uid());
-            final long currentVersion;
-            VersionValue versionValue = versionMap.get(versionKey);
-            if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(create.uid());
+            innerCreateUnderLock(create, writer, perOperationVersionLoader);
+        }
+    }
+
+    /**
+     * A create of a document with an auto generated id, executed on the primary for the first time, can't
+     * collide with an existing document, so there is no need to look up its uid. Replicas and recovery go
+     * through the regular path, since they might see the same operation twice.
+     */
+    private boolean canAppendOnly(Create create) {
+        return optimizeAutoGeneratedId && create.autoGeneratedId() && !create.canHaveDuplicates()
+                && create.origin() == Operation.Origin.PRIMARY && create.versionType() == VersionType.INTERNAL && create.version() == 0;
+    }
+
+    private void innerCreateAppendOnly(Create create, IndexWriter writer) throws IOException {
+        create.version(1);
+        if (create.docs().size() > 1) {
+            writer.addDocuments(create.docs(), create.analyzer());
+        } else {
+            writer.addDocument(create.docs().get(0), create.analyzer());
+        }
+        Translog.Location translogLocation = translog.add(new Translog.Create(create));
+        // still needed for realtime get until the next refresh
+        versionMap.put(create.uid().bytes(), new VersionValue(1, false, threadPool.estimatedTimeInMillis(), translogLocation));
+
+        indexingService.postCreateUnderLock(create);
+    }
+
+    private void innerCreateUnderLock(Create create, IndexWriter writer, VersionLoader versionLoader) throws IOException {
+        if (canAppendOnly(create)) {
+            innerCreateAppendOnly(create, writer);
+            return;
+        }
+        final long currentVersion;
+        VersionValue versionValue = versionMap.get(create.uid().bytes());
+        if (versionValue == null) {
+            currentVersion = versionLoader.loadCurrentVersion(create.uid());
+        } else {
+            if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
+                currentVersion = -1; // deleted, and GC
             } else {
-                if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
-                    currentVersion = -1; // deleted, and GC
-                } else {
-                    currentVersion = versionValue.version();
-                }
+                currentVersion = versionValue.version();
             }
+        }
 
-            // same logic as index
-            long updatedVersion;
-            if (create.origin() == Operation.Origin.PRIMARY) {
-                if (create.versionType() == VersionType.INTERNAL) { // internal version type
-                    long expectedVersion = create.version();
-                    if (expectedVersion != 0 && currentVersion != -2) { // -2 means we don't have a version, so ignore...
-                        // an explicit version is provided, see if there is a conflict
-                        // if the current version is -1, means we did not find anything, and
-                        // a version is provided, so we do expect to find a doc under that version
-                        // this is important, since we don't allow to preset a version in order to handle deletes
-                        if (currentVersion == -1) {
-                            throw new VersionConflictEngineException(shardId, create.type(), create.id(), -1, expectedVersion);
-                        } else if (expectedVersion != currentVersion) {
-                            throw new VersionConflictEngineException(shardId, create.type(), create.id(), currentVersion, expectedVersion);
-                        }
-                    }
-                    updatedVersion = currentVersion < 0 ? 1 : currentVersion + 1;
-                } else { // external version type
-                    // an external version is provided, just check, if a local version exists, that its higher than it
-                    // the actual version checking is one in an external system, and we just want to not index older versions
-                    if (currentVersion >= 0) { // we can check!, its there
-                        if (currentVersion >= create.version()) {
-                            throw new VersionConflictEngineException(shardId, create.type(), create.id(), currentVersion, create.version());
-                        }
+        // same logic as index
+        long updatedVersion;
+        if (create.origin() == Operation.Origin.PRIMARY) {
+            if (create.versionType() == VersionType.INTERNAL) { // internal version type
+                long expectedVersion = create.version();
+                if (expectedVersion != 0 && currentVersion != -2) { // -2 means we don't have a version, so ignore...
+                    // an explicit version is provided, see if there is a conflict
+                    // if the current version is -1, means we did not find anything, and
+                    // a version is provided, so we do expect to find a doc under that version
+                    // this is important, since we don't allow to preset a version in order to handle deletes
+                    if (currentVersion == -1) {
+                        throw new VersionConflictEngineException(shardId, create.type(), create.id(), -1, expectedVersion);
+                    } else if (expectedVersion != currentVersion) {
+                        throw new VersionConflictEngineException(shardId, create.type(), create.id(), currentVersion, expectedVersion);
                     }
-                    updatedVersion = create.version();
                 }
-            } else { // if (index.origin() == Operation.Origin.REPLICA || index.origin() == Operation.Origin.RECOVERY) {
-                long expectedVersion = create.version();
-                if (currentVersion != -2) { // -2 means we don't have a version, so ignore...
-                    // if it does not exists, and its considered the first index operation (replicas/recovery are 1 of)
-                    // then nothing to check
-                    if (!(currentVersion == -1 && create.version() == 1)) {
-                        // with replicas/recovery, we only check for previous version, we allow to set a future version
-                        if (expectedVersion <= currentVersion) {
-                            if (create.origin() == Operation.Origin.RECOVERY) {
-                                return;
-                            } else {
-                                throw new VersionConflictEngineException(shardId, create.type(), create.id(), currentVersion, expectedVersion);
-                            }
-                        }
+                updatedVersion = currentVersion < 0 ? 1 : currentVersion + 1;
+            } else { // external version type
+                // an external version is provided, just check, if a local version exists, that its higher than it
+                // the actual version checking is one in an external system, and we just want to not index older versions
+                if (currentVersion >= 0) { // we can check!, its there
+                    if (currentVersion >= create.version()) {
+                        throw new VersionConflictEngineException(shardId, create.type(), create.id(), currentVersion, create.version());
                     }
                 }
-                // replicas already hold the "future" version
                 updatedVersion = create.version();
             }
-
-            // if the doc does not exists or it exists but not delete
-            if (versionValue != null) {
-                if (!versionValue.delete()) {
-                    if (create.origin() == Operation.Origin.RECOVERY) {
-                        return;
-                    } else {
-                        throw new DocumentAlreadyExistsException(shardId, create.type(), create.id());
+        } else { // if (index.origin() == Operation.Origin.REPLICA || index.origin() == Operation.Origin.RECOVERY) {
+            long expectedVersion = create.version();
+            if (currentVersion != -2) { // -2 means we don't have a version, so ignore...
+                // if it does not exists, and its considered the first index operation (replicas/recovery are 1 of)
+                // then nothing to check
+                if (!(currentVersion == -1 && create.version() == 1)) {
+                    // with replicas/recovery, we only check for previous version, we allow to set a future version
+                    if (expectedVersion <= currentVersion) {
+                        if (create.origin() == Operation.Origin.RECOVERY) {
+                            return;
+                        } else {
+                            throw new VersionConflictEngineException(shardId, create.type(), create.id(), currentVersion, expectedVersion);
+                        }
                     }
                 }
-            } else if (currentVersion != -1) {
-                // its not deleted, its already there
+            }
+            // replicas already hold the "future" version
+            updatedVersion = create.version();
+        }
+
+        // if the doc does not exists or it exists but not delete
+        if (versionValue != null) {
+            if (!versionValue.delete()) {
                 if (create.origin() == Operation.Origin.RECOVERY) {
                     return;
                 } else {
                     throw new DocumentAlreadyExistsException(shardId, create.type(), create.id());
                 }
             }
-
-            create.version(updatedVersion);
-
-            if (create.docs().size() > 1) {
-                writer.addDocuments(create.docs(), create.analyzer());
+        } else if (currentVersion != -1) {
+            // its not deleted, its already there
+            if (create.origin() == Operation.Origin.RECOVERY) {
+                return;
             } else {
-                writer.addDocument(create.docs().get(0), create.analyzer());
+                throw new DocumentAlreadyExistsException(shardId, create.type(), create.id());
             }
-            Translog.Location translogLocation = translog.add(new Translog.Create(create));
+        }
 
-            versionMap.put(versionKey, new VersionValue(updatedVersion, false, threadPool.estimatedTimeInMillis(), translogLocation));
+        create.version(updatedVersion);
 
-            indexingService.postCreateUnderLock(create);
+        if (create.docs().size() > 1) {
+            writer.addDocuments(create.docs(), create.analyzer());
+        } else {
+            writer.addDocument(create.docs().get(0), create.analyzer());
         }
+        Translog.Location translogLocation = translog.add(new Translog.Create(create));
+
+        versionMap.put(create.uid().bytes(), new VersionValue(updatedVersion, false, threadPool.estimatedTimeInMillis(), translogLocation));
+
+        indexingService.postCreateUnderLock(create);
     }
 
     @Override
@@ -498,91 +545,95 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         } finally {
             rwl.readLock().unlock();
         }
+        translog.syncOperations();
     }
 
     private void innerIndex(Index index, IndexWriter writer) throws IOException {
         synchronized (dirtyLock(index.uid())) {
-            HashedBytesRef versionKey = versionKey(index.uid());
-            final long currentVersion;
-            VersionValue versionValue = versionMap.get(versionKey);
-            if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(index.uid());
+            innerIndexUnderLock(index, writer, perOperationVersionLoader);
+        }
+    }
+
+    private void innerIndexUnderLock(Index index, IndexWriter writer, VersionLoader versionLoader) throws IOException {
+        final long currentVersion;
+        VersionValue versionValue = versionMap.get(index.uid().bytes());
+        if (versionValue == null) {
+            currentVersion = versionLoader.loadCurrentVersion(index.uid());
+        } else {
+            if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
+                currentVersion = -1; // deleted, and GC
             } else {
-                if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
-                    currentVersion = -1; // deleted, and GC
-                } else {
-                    currentVersion = versionValue.version();
-                }
+                currentVersion = versionValue.version();
             }
+        }
 
-            long updatedVersion;
-            if (index.origin() == Operation.Origin.PRIMARY) {
-                if (index.versionType() == VersionType.INTERNAL) { // internal version type
-                    long expectedVersion = index.version();
-                    if (expectedVersion != 0 && currentVersion != -2) { // -2 means we don't have a version, so ignore...
-                        // an explicit version is provided, see if there is a conflict
-                        // if the current version is -1, means we did not find anything, and
-                        // a version is provided, so we do expect to find a doc under that version
-                        // this is important, since we don't allow to preset a version in order to handle deletes
-                        if (currentVersion == -1) {
-                            throw new VersionConflictEngineException(shardId, index.type(), index.id(), -1, expectedVersion);
-                        } else if (expectedVersion != currentVersion) {
-                            throw new VersionConflictEngineException(shardId, index.type(), index.id(), currentVersion, expectedVersion);
-                        }
+        long updatedVersion;
+        if (index.origin() == Operation.Origin.PRIMARY) {
+            if (index.versionType() == VersionType.INTERNAL) { // internal version type
+                long expectedVersion = index.version();
+                if (expectedVersion != 0 && currentVersion != -2) { // -2 means we don't have a version, so ignore...
+                    // an explicit version is provided, see if there is a conflict
+                    // if the current version is -1, means we did not find anything, and
+                    // a version is provided, so we do expect to find a doc under that version
+                    // this is important, since we don't allow to preset a version in order to handle deletes
+                    if (currentVersion == -1) {
+                        throw new VersionConflictEngineException(shardId, index.type(), index.id(), -1, expectedVersion);
+                    } else if (expectedVersion != currentVersion) {
+                        throw new VersionConflictEngineException(shardId, index.type(), index.id(), currentVersion, expectedVersion);
                     }
-                    updatedVersion = currentVersion < 0 ? 1 : currentVersion + 1;
-                } else { // external version type
-                    // an external version is provided, just check, if a local version exists, that its higher than it
-                    // the actual version checking is one in an external system, and we just want to not index older versions
-                    if (currentVersion >= 0) { // we can check!, its there
-                        if (currentVersion >= index.version()) {
-                            throw new VersionConflictEngineException(shardId, index.type(), index.id(), currentVersion, index.version());
-                        }
+                }
+                updatedVersion = currentVersion < 0 ? 1 : currentVersion + 1;
+            } else { // external version type
+                // an external version is provided, just check, if a local version exists, that its higher than it
+                // the actual version checking is one in an external system, and we just want to not index older versions
+                if (currentVersion >= 0) { // we can check!, its there
+                    if (currentVersion >= index.version()) {
+                        throw new VersionConflictEngineException(shardId, index.type(), index.id(), currentVersion, index.version());
                     }
-                    updatedVersion = index.version();
                 }
-            } else { // if (index.origin() == Operation.Origin.REPLICA || index.origin() == Operation.Origin.RECOVERY) {
-                long expectedVersion = index.version();
-                if (currentVersion != -2) { // -2 means we don't have a version, so ignore...
-                    // if it does not exists, and its considered the first index operation (replicas/recovery are 1 of)
-                    // then nothing to check
-                    if (!(currentVersion == -1 && index.version() == 1)) {
-                        // with replicas/recovery, we only check for previous version, we allow to set a future version
-                        if (expectedVersion <= currentVersion) {
-                            if (index.origin() == Operation.Origin.RECOVERY) {
-                                return;
-                            } else {
-                                throw new VersionConflictEngineException(shardId, index.type(), index.id(), currentVersion, expectedVersion);
-                            }
+                updatedVersion = index.version();
+            }
+        } else { // if (index.origin() == Operation.Origin.REPLICA || index.origin() == Operation.Origin.RECOVERY) {
+            long expectedVersion = index.version();
+            if (currentVersion != -2) { // -2 means we don't have a version, so ignore...
+                // if it does not exists, and its considered the first index operation (replicas/recovery are 1 of)
+                // then nothing to check
+                if (!(currentVersion == -1 && index.version() == 1)) {
+                    // with replicas/recovery, we only check for previous version, we allow to set a future version
+                    if (expectedVersion <= currentVersion) {
+                        if (index.origin() == Operation.Origin.RECOVERY) {
+                            return;
+                        } else {
+                            throw new VersionConflictEngineException(shardId, index.type(), index.id(), currentVersion, expectedVersion);
                         }
                     }
                 }
-                // replicas already hold the "future" version
-                updatedVersion = index.version();
             }
+            // replicas already hold the "future" version
+            updatedVersion = index.version();
+        }
 
-            index.version(updatedVersion);
+        index.version(updatedVersion);
 
-            if (currentVersion == -1) {
-                // document does not exists, we can optimize for create
-                if (index.docs().size() > 1) {
-                    writer.addDocuments(index.docs(), index.analyzer());
-                } else {
-                    writer.addDocument(index.docs().get(0), index.analyzer());
-                }
+        if (currentVersion == -1) {
+            // document does not exists, we can optimize for create
+            if (index.docs().size() > 1) {
+                writer.addDocuments(index.docs(), index.analyzer());
             } else {
-                if (index.docs().size() > 1) {
-                    writer.updateDocuments(index.uid(), index.docs(), index.analyzer());
-                } else {
-                    writer.updateDocument(index.uid(), index.docs().get(0), index.analyzer());
-                }
+                writer.addDocument(index.docs().get(0), index.analyzer());
+            }
+        } else {
+            if (index.docs().size() > 1) {
+                writer.updateDocuments(index.uid(), index.docs(), index.analyzer());
+            } else {
+                writer.updateDocument(index.uid(), index.docs().get(0), index.analyzer());
             }
-            Translog.Location translogLocation = translog.add(new Translog.Index(index));
+        }
+        Translog.Location translogLocation = translog.add(new Translog.Index(index));
 
-            versionMap.put(versionKey, new VersionValue(updatedVersion, false, threadPool.estimatedTimeInMillis(), translogLocation));
+        versionMap.put(index.uid().bytes(), new VersionValue(updatedVersion, false, threadPool.estimatedTimeInMillis(), translogLocation));
 
-            indexingService.postIndexUnderLock(index);
-        }
+        indexingService.postIndexUnderLock(index);
     }
 
     @Override
@@ -610,83 +661,183 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         } finally {
             rwl.readLock().unlock();
         }
+        translog.syncOperations();
     }
 
     private void innerDelete(Delete delete, IndexWriter writer) throws IOException {
         synchronized (dirtyLock(delete.uid())) {
-            final long currentVersion;
-            HashedBytesRef versionKey = versionKey(delete.uid());
-            VersionValue versionValue = versionMap.get(versionKey);
-            if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(delete.uid());
+            innerDeleteUnderLock(delete, writer, perOperationVersionLoader);
+        }
+    }
+
+    private void innerDeleteUnderLock(Delete delete, IndexWriter writer, VersionLoader versionLoader) throws IOException {
+        final long currentVersion;
+        VersionValue versionValue = versionMap.get(delete.uid().bytes());
+        if (versionValue == null) {
+            currentVersion = versionLoader.loadCurrentVersion(delete.uid());
+        } else {
+            if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
+                currentVersion = -1; // deleted, and GC
             } else {
-                if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
-                    currentVersion = -1; // deleted, and GC
-                } else {
-                    currentVersion = versionValue.version();
-                }
+                currentVersion = versionValue.version();
             }
+        }
 
-            long updatedVersion;
-            if (delete.origin() == Operation.Origin.PRIMARY) {
-                if (delete.versionType() == VersionType.INTERNAL) { // internal version type
-                    if (delete.version() != 0 && currentVersion != -2) { // -2 means we don't have a version, so ignore...
-                        // an explicit version is provided, see if there is a conflict
-                        // if the current version is -1, means we did not find anything, and
-                        // a version is provided, so we do expect to find a doc under that version
-                        if (currentVersion == -1) {
-                            throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), -1, delete.version());
-                        } else if (delete.version() != currentVersion) {
-                            throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), currentVersion, delete.version());
-                        }
-                    }
-                    updatedVersion = currentVersion < 0 ? 1 : currentVersion + 1;
-                } else { // External
+        long updatedVersion;
+        if (delete.origin() == Operation.Origin.PRIMARY) {
+            if (delete.versionType() == VersionType.INTERNAL) { // internal version type
+                if (delete.version() != 0 && currentVersion != -2) { // -2 means we don't have a version, so ignore...
+                    // an explicit version is provided, see if there is a conflict
+                    // if the current version is -1, means we did not find anything, and
+                    // a version is provided, so we do expect to find a doc under that version
                     if (currentVersion == -1) {
-                        // its an external version, that's fine, we allow it to be set
-                        //throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), -1, delete.version());
-                    } else if (currentVersion >= delete.version()) {
+                        throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), -1, delete.version());
+                    } else if (delete.version() != currentVersion) {
                         throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), currentVersion, delete.version());
                     }
-                    updatedVersion = delete.version();
                 }
-            } else { // if (index.origin() == Operation.Origin.REPLICA || index.origin() == Operation.Origin.RECOVERY) {
-                // on replica, the version is the future value expected (returned from the operation on the primary)
-                if (currentVersion != -2) { // -2 means we don't have a version in the index, ignore
-                    // only check if we have a version for it, otherwise, ignore (see later)
-                    if (currentVersion != -1) {
-                        // with replicas, we only check for previous version, we allow to set a future version
-                        if (delete.version() <= currentVersion) {
-                            if (delete.origin() == Operation.Origin.RECOVERY) {
-                                return;
-                            } else {
-                                throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), currentVersion - 1, delete.version());
-                            }
+                updatedVersion = currentVersion < 0 ? 1 : currentVersion + 1;
+            } else { // External
+                if (currentVersion == -1) {
+                    // its an external version, that's fine, we allow it to be set
+                    //throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), -1, delete.version());
+                } else if (currentVersion >= delete.version()) {
+                    throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), currentVersion, delete.version());
+                }
+                updatedVersion = delete.version();
+            }
+        } else { // if (index.origin() == Operation.Origin.REPLICA || index.origin() == Operation.Origin.RECOVERY) {
+            // on replica, the version is the future value expected (returned from the operation on the primary)
+            if (currentVersion != -2) { // -2 means we don't have a version in the index, ignore
+                // only check if we have a version for it, otherwise, ignore (see later)
+                if (currentVersion != -1) {
+                    // with replicas, we only check for previous version, we allow to set a future version
+                    if (delete.version() <= currentVersion) {
+                        if (delete.origin() == Operation.Origin.RECOVERY) {
+                            return;
+                        } else {
+                            throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), currentVersion - 1, delete.version());
                         }
                     }
                 }
-                // replicas already hold the "future" version
-                updatedVersion = delete.version();
             }
+            // replicas already hold the "future" version
+            updatedVersion = delete.version();
+        }
 
-            if (currentVersion == -1) {
-                // doc does not exists and no prior deletes
-                delete.version(updatedVersion).notFound(true);
-                Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
-                versionMap.put(versionKey, new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
-            } else if (versionValue != null && versionValue.delete()) {
-                // a "delete on delete", in this case, we still increment the version, log it, and return that version
-                delete.version(updatedVersion).notFound(true);
-                Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
-                versionMap.put(versionKey, new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
-            } else {
-                delete.version(updatedVersion);
-                writer.deleteDocuments(delete.uid());
-                Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
-                versionMap.put(versionKey, new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
+        if (currentVersion == -1) {
+            // doc does not exists and no prior deletes
+            delete.version(updatedVersion).notFound(true);
+            Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
+            versionMap.put(delete.uid().bytes(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
+        } else if (versionValue != null && versionValue.delete()) {
+            // a "delete on delete", in this case, we still increment the version, log it, and return that version
+            delete.version(updatedVersion).notFound(true);
+            Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
+            versionMap.put(delete.uid().bytes(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
+        } else {
+            delete.version(updatedVersion);
+            writer.deleteDocuments(delete.uid());
+            Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
+            versionMap.put(delete.uid().bytes(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
+        }
+
+        indexingService.postDeleteUnderLock(delete);
+    }
+
+    @Override
+    public void bulk(Bulk bulk) throws EngineException {
+        rwl.readLock().lock();
+        BulkVersionLoader versionLoader = new BulkVersionLoader();
+        try {
+            IndexWriter writer = this.indexWriter;
+            if (writer == null) {
+                throw new EngineClosedException(shardId, failedEngine);
+            }
+            Operation[] ops = bulk.ops();
+            // group the operations by their dirty lock (a stable counting sort, so operations on the same
+            // uid keep their order), this way each lock is acquired once for all of its operations
+            int[] locks = new int[ops.length];
+            int[] offsets = new int[dirtyLocks.length + 1];
+            for (int i = 0; i < ops.length; i++) {
+                if (ops[i] == null) {
+                    locks[i] = -1;
+                    continue;
+                }
+                locks[i] = dirtyLockIndex(ops[i].uid().bytes());
+                offsets[locks[i] + 1]++;
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+            int[] sorted = new int[offsets[offsets.length - 1]];
+            for (int i = 0; i < ops.length; i++) {
+                if (locks[i] != -1) {
+                    sorted[offsets[locks[i]]++] = i;
+                }
+            }
+
+            int i = 0;
+            while (i < sorted.length) {
+                int lock = locks[sorted[i]];
+                synchronized (dirtyLocks[lock]) {
+                    do {
+                        innerBulkOperation(bulk, sorted[i], writer, versionLoader);
+                        i++;
+                    } while (i < sorted.length && locks[sorted[i]] == lock);
+                }
+            }
+            if (sorted.length > 0) {
+                dirty = true;
+                possibleMergeNeeded = true;
+                flushNeeded = true;
+            }
+        } finally {
+            versionLoader.release();
+            rwl.readLock().unlock();
+        }
+        translog.syncOperations();
+    }
+
+    private void innerBulkOperation(Bulk bulk, int index, IndexWriter writer, VersionLoader versionLoader) {
+        Operation op = bulk.ops()[index];
+        try {
+            switch (op.opType()) {
+                case CREATE:
+                    innerCreateUnderLock((Create) op, writer, versionLoader);
+                    break;
+                case INDEX:
+                    innerIndexUnderLock((Index) op, writer, versionLoader);
+                    break;
+                case DELETE:
+                    innerDeleteUnderLock((Delete) op, writer, versionLoader);
+                    break;
+                default:
+                    throw new ElasticSearchIllegalStateException("operation type [" + op.opType() + "] not supported in bulk");
             }
+        } catch (IOException e) {
+            bulk.failure(index, operationFailedException(op, e));
+        } catch (OutOfMemoryError e) {
+            failEngine(e);
+            bulk.failure(index, operationFailedException(op, e));
+        } catch (IllegalStateException e) {
+            if (e.getMessage().contains("OutOfMemoryError")) {
+                failEngine(e);
+            }
+            bulk.failure(index, operationFailedException(op, e));
+        } catch (Exception e) {
+            bulk.failure(index, e);
+        }
+    }
 
-            indexingService.postDeleteUnderLock(delete);
+    private EngineException operationFailedException(Operation op, Throwable t) {
+        switch (op.opType()) {
+            case CREATE:
+                return new CreateFailedEngineException(shardId, (Create) op, t);
+            case INDEX:
+                return new IndexFailedEngineException(shardId, (Index) op, t);
+            default:
+                return new DeleteFailedEngineException(shardId, (Delete) op, t);
         }
     }
 
@@ -720,6 +871,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         } finally {
             rwl.readLock().unlock();
         }
+        translog.syncOperations();
         //TODO: This is heavy, since we refresh, but we really have to...
         refreshVersioningTable(System.currentTimeMillis());
     }
@@ -952,9 +1104,9 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
     private void refreshVersioningTable(long time) {
         // we need to refresh in order to clear older version values
         refresh(new Refresh(true).force(true));
-        for (Map.Entry<HashedBytesRef, VersionValue> entry : versionMap.entrySet()) {
-            HashedBytesRef uid = entry.getKey();
-            synchronized (dirtyLock(uid.bytes)) { // can we do it without this lock on each value? maybe batch to a set and get the lock once per set?
+        versionMapPrunes.incrementAndGet();
+        for (BytesRef uid : versionMap.uids()) {
+            synchronized (dirtyLock(uid)) { // can we do it without this lock on each value? maybe batch to a set and get the lock once per set?
                 VersionValue versionValue = versionMap.get(uid);
                 if (versionValue == null) {
                     continue;
@@ -1230,6 +1382,16 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         }
     }
 
+    @Override
+    public long versionMapMemorySizeInBytes() {
+        return versionMap.sizeInBytes();
+    }
+
+    @Override
+    public UidLookupStats uidLookupStats() {
+        return uidLookupMetrics.stats();
+    }
+
     @Override
     public void close() throws ElasticSearchException {
         rwl.writeLock().lock();
@@ -1288,17 +1450,26 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         }
     }
 
-    private HashedBytesRef versionKey(Term uid) {
-        return new HashedBytesRef(uid.bytes());
+    private static VersionMap newVersionMap(String type, int concurrencyLevel) {
+        if (VERSION_MAP_CONCURRENT.equals(type)) {
+            return new ConcurrentVersionMap();
+        } else if (VERSION_MAP_SLAB.equals(type)) {
+            return new SlabVersionMap(concurrencyLevel * 4);
+        }
+        throw new ElasticSearchIllegalArgumentException("unknown version map type [" + type + "], must be one of [" + VERSION_MAP_CONCURRENT + ", " + VERSION_MAP_SLAB + "]");
     }
 
     private Object dirtyLock(BytesRef uid) {
+        return dirtyLocks[dirtyLockIndex(uid)];
+    }
+
+    private int dirtyLockIndex(BytesRef uid) {
         int hash = DjbHashFunction.DJB_HASH(uid.bytes, uid.offset, uid.length);
         // abs returns Integer.MIN_VALUE, so we need to protect against it...
         if (hash == Integer.MIN_VALUE) {
             hash = 0;
         }
-        return dirtyLocks[Math.abs(hash) % dirtyLocks.length];
+        return Math.abs(hash) % dirtyLocks.length;
     }
 
     private Object dirtyLock(Term uid) {
@@ -1308,7 +1479,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
     private long loadCurrentVersionFromIndex(Term uid) throws IOException {
         Searcher searcher = searcher();
         try {
-            return Versions.loadVersion(searcher.reader(), uid);
+            return Versions.loadVersion(searcher.reader(), uid, uidLookupMetrics);
         } finally {
             searcher.release();
         }
@@ -1353,6 +1524,11 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
     public static final String INDEX_GC_DELETES = "index.gc_deletes";
     public static final String INDEX_CODEC = "index.codec";
     public static final String INDEX_FAIL_ON_MERGE_FAILURE = "index.fail_on_merge_failure";
+    public static final String INDEX_VERSION_MAP_TYPE = "index.version_map.type";
+    public static final String INDEX_OPTIMIZE_AUTO_GENERATED_ID = "index.optimize_auto_generated_id";
+
+    public static final String VERSION_MAP_CONCURRENT = "concurrent";
+    public static final String VERSION_MAP_SLAB = "slab";
 
     class ApplySettings implements IndexSettingsService.Listener {
         @Override
@@ -1363,6 +1539,12 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
                 RobinEngine.this.gcDeletesInMillis = gcDeletesInMillis;
             }
 
+            boolean optimizeAutoGeneratedId = settings.getAsBoolean(INDEX_OPTIMIZE_AUTO_GENERATED_ID, RobinEngine.this.optimizeAutoGeneratedId);
+            if (optimizeAutoGeneratedId != RobinEngine.this.optimizeAutoGeneratedId) {
+                logger.info("updating {} from [{}] to [{}]", INDEX_OPTIMIZE_AUTO_GENERATED_ID, RobinEngine.this.optimizeAutoGeneratedId, optimizeAutoGeneratedId);
+                RobinEngine.this.optimizeAutoGeneratedId = optimizeAutoGeneratedId;
+            }
+
             int termIndexInterval = settings.getAsInt(INDEX_TERM_INDEX_INTERVAL, RobinEngine.this.termIndexInterval);
             int termIndexDivisor = settings.getAsInt(INDEX_TERM_INDEX_DIVISOR, RobinEngine.this.termIndexDivisor); // IndexReader#DEFAULT_TERMS_INDEX_DIVISOR
             int indexConcurrency = settings.getAsInt(INDEX_INDEX_CONCURRENCY, RobinEngine.this.indexConcurrency);
@@ -1410,6 +1592,44 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         }
     }
 
+    /**
+     * Loads the current version of a uid from the index, acquiring a searcher for each lookup.
+     */
+    class VersionLoader {
+
+        long loadCurrentVersion(Term uid) throws IOException {
+            return loadCurrentVersionFromIndex(uid);
+        }
+    }
+
+    /**
+     * Shares a single searcher across the lookups of a bulk. The searcher is replaced if entries might have been
+     * pruned from the version map since it was acquired, as it might not see the documents of those entries.
+     */
+    class BulkVersionLoader extends VersionLoader {
+
+        private Searcher searcher;
+        private long searcherPrunes;
+
+        @Override
+        long loadCurrentVersion(Term uid) throws IOException {
+            long prunes = versionMapPrunes.get();
+            if (searcher == null || prunes != searcherPrunes) {
+                release();
+                searcherPrunes = prunes;
+                searcher = searcher();
+            }
+            return Versions.loadVersion(searcher.reader(), uid, uidLookupMetrics);
+        }
+
+        void release() {
+            if (searcher != null) {
+                searcher.release();
+                searcher = null;
+            }
+        }
+    }
+
     private SearcherManager buildSearchManager(IndexWriter indexWriter) throws IOException {
         return new SearcherManager(indexWriter, true, searcherFactory);
     }
@@ -1445,36 +1665,6 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         }
     }
 
-    static class VersionValue {
-        private final long version;
-        private final boolean delete;
-        private final long time;
-        private final Translog.Location translogLocation;
-
-        VersionValue(long version, boolean delete, long time, Translog.Location translogLocation) {
-            this.version = version;
-            this.delete = delete;
-            this.time = time;
-            this.translogLocation = translogLocation;
-        }
-
-        public long time() {
-            return this.time;
-        }
-
-        public long version() {
-            return version;
-        }
-
-        public boolean delete() {
-            return delete;
-        }
-
-        public Translog.Location translogLocation() {
-            return this.translogLocation;
-        }
-    }
-
     class RobinSearchFactory extends SearcherFactory {
 
         @Override
@@ -0,0 +1,375 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine.robin;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link VersionMap} that keeps the uid bytes, version, delete flag, time and translog location in
+ * a handful of primitive arrays per segment, using open addressing (linear probing) for lookups.
+ * <p/>
+ * Compared to {@link ConcurrentVersionMap}, an entry does not allocate any long lived heap object, which
+ * keeps millions of short lived (until the next refresh) entries from being promoted and marked one by one
+ * in old gen.
+ */
+public class SlabVersionMap implements VersionMap {
+
+    static final int INITIAL_CAPACITY = 64;
+
+    static final int INITIAL_KEY_BYTES = 1024;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    public SlabVersionMap(int concurrencyLevel) {
+        int size = 1;
+        while (size < concurrencyLevel && size < (1 << 12)) {
+            size <<= 1;
+        }
+        this.segments = new Segment[size];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        this.segmentMask = size - 1;
+    }
+
+    @Override
+    public VersionValue get(BytesRef uid) {
+        int hash = hash(uid);
+        return segmentFor(hash).get(uid, hash);
+    }
+
+    @Override
+    public void put(BytesRef uid, VersionValue value) {
+        int hash = hash(uid);
+        segmentFor(hash).put(uid, hash, value);
+    }
+
+    @Override
+    public void remove(BytesRef uid) {
+        int hash = hash(uid);
+        segmentFor(hash).remove(uid, hash);
+    }
+
+    @Override
+    public Iterable<BytesRef> uids() {
+        List<BytesRef> uids = new ArrayList<BytesRef>(size());
+        for (Segment segment : segments) {
+            segment.copyUidsTo(uids);
+        }
+        return uids;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        long sizeInBytes = 0;
+        for (Segment segment : segments) {
+            sizeInBytes += segment.sizeInBytes;
+        }
+        return sizeInBytes;
+    }
+
+    private Segment segmentFor(int hash) {
+        // the low bits are used to find the slot within the segment
+        return segments[(hash >>> 20) & segmentMask];
+    }
+
+    private static int hash(BytesRef uid) {
+        int h = uid.hashCode();
+        // murmur3 finalizer, the slot is derived from the low bits
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    static final class Segment {
+
+        private static final long RAM_BYTES_PER_SLOT = 4 * RamUsageEstimator.NUM_BYTES_INT + 4 * RamUsageEstimator.NUM_BYTES_LONG + 1;
+
+        volatile int size;
+        volatile long sizeInBytes;
+
+        private int mask;
+        private int threshold;
+
+        private int[] hashes;
+        private int[] keyOffsets;
+        private int[] keyLengths; // -1 marks an empty slot
+        private long[] versions;
+        private long[] times;
+        private boolean[] deletes;
+        private long[] translogIds;
+        private long[] translogLocations;
+        private int[] translogSizes; // -1 marks no translog location
+
+        private byte[] keyBytes;
+        private int keyBytesUsed;
+        private int keyBytesLive;
+
+        Segment() {
+            allocate(INITIAL_CAPACITY);
+            keyBytes = new byte[INITIAL_KEY_BYTES];
+            updateSizeInBytes();
+        }
+
+        synchronized VersionValue get(BytesRef uid, int hash) {
+            int slot = hash & mask;
+            while (keyLengths[slot] != -1) {
+                if (hashes[slot] == hash && keyEquals(slot, uid)) {
+                    Translog.Location location = null;
+                    if (translogSizes[slot] != -1) {
+                        location = new Translog.Location(translogIds[slot], translogLocations[slot], translogSizes[slot]);
+                    }
+                    return new VersionValue(versions[slot], deletes[slot], times[slot], location);
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        synchronized void put(BytesRef uid, int hash, VersionValue value) {
+            int slot = hash & mask;
+            while (keyLengths[slot] != -1) {
+                if (hashes[slot] == hash && keyEquals(slot, uid)) {
+                    setValue(slot, value);
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size + 1 > threshold) {
+                rehash((mask + 1) << 1);
+            } else if (keyBytesUsed + uid.length > keyBytes.length && keyBytesUsed - keyBytesLive >= (keyBytesUsed >>> 1)) {
+                // at least half of the key bytes slab is garbage, compact it instead of growing it
+                rehash(mask + 1);
+            }
+            slot = freeSlot(hash);
+            hashes[slot] = hash;
+            keyOffsets[slot] = appendKey(uid.bytes, uid.offset, uid.length);
+            keyLengths[slot] = uid.length;
+            setValue(slot, value);
+            size++;
+        }
+
+        synchronized void remove(BytesRef uid, int hash) {
+            int slot = hash & mask;
+            while (keyLengths[slot] != -1) {
+                if (hashes[slot] == hash && keyEquals(slot, uid)) {
+                    keyBytesLive -= keyLengths[slot];
+                    keyLengths[slot] = -1;
+                    size--;
+                    shiftBackFrom(slot);
+                    if (size == 0) {
+                        // all the key bytes are garbage, start filling the slab from the beginning
+                        keyBytesUsed = 0;
+                    }
+                    if (mask + 1 > INITIAL_CAPACITY && size < ((mask + 1) >>> 3)) {
+                        rehash((mask + 1) >>> 1);
+                    }
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        synchronized void copyUidsTo(List<BytesRef> uids) {
+            for (int slot = 0; slot <= mask; slot++) {
+                if (keyLengths[slot] != -1) {
+                    BytesRef uid = new BytesRef(keyLengths[slot]);
+                    System.arraycopy(keyBytes, keyOffsets[slot], uid.bytes, 0, keyLengths[slot]);
+                    uid.length = keyLengths[slot];
+                    uids.add(uid);
+                }
+            }
+        }
+
+        synchronized void clear() {
+            allocate(INITIAL_CAPACITY);
+            keyBytes = new byte[INITIAL_KEY_BYTES];
+            keyBytesUsed = 0;
+            keyBytesLive = 0;
+            size = 0;
+            updateSizeInBytes();
+        }
+
+        private void setValue(int slot, VersionValue value) {
+            versions[slot] = value.version();
+            deletes[slot] = value.delete();
+            times[slot] = value.time();
+            Translog.Location location = value.translogLocation();
+            if (location == null) {
+                translogSizes[slot] = -1;
+            } else {
+                translogIds[slot] = location.translogId;
+                translogLocations[slot] = location.translogLocation;
+                translogSizes[slot] = location.size;
+            }
+        }
+
+        private boolean keyEquals(int slot, BytesRef uid) {
+            if (keyLengths[slot] != uid.length) {
+                return false;
+            }
+            int offset = keyOffsets[slot];
+            for (int i = 0; i < uid.length; i++) {
+                if (keyBytes[offset + i] != uid.bytes[uid.offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int freeSlot(int hash) {
+            int slot = hash & mask;
+            while (keyLengths[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Backward shift deletion, moves entries following the emptied slot back so that lookups
+         * never stop early on a hole, without the need for tombstones.
+         */
+        private void shiftBackFrom(int emptied) {
+            int slot = emptied;
+            while (true) {
+                slot = (slot + 1) & mask;
+                if (keyLengths[slot] == -1) {
+                    return;
+                }
+                int ideal = hashes[slot] & mask;
+                // the entry can stay if its ideal slot lies cyclically in (emptied, slot]
+                if (emptied <= slot ? (emptied < ideal && ideal <= slot) : (emptied < ideal || ideal <= slot)) {
+                    continue;
+                }
+                moveSlot(slot, emptied);
+                keyLengths[slot] = -1;
+                emptied = slot;
+            }
+        }
+
+        private void moveSlot(int from, int to) {
+            hashes[to] = hashes[from];
+            keyOffsets[to] = keyOffsets[from];
+            keyLengths[to] = keyLengths[from];
+            versions[to] = versions[from];
+            deletes[to] = deletes[from];
+            times[to] = times[from];
+            translogIds[to] = translogIds[from];
+            translogLocations[to] = translogLocations[from];
+            translogSizes[to] = translogSizes[from];
+        }
+
+        private int appendKey(byte[] bytes, int offset, int length) {
+            if (keyBytesUsed + length > keyBytes.length) {
+                keyBytes = ArrayUtil.grow(keyBytes, keyBytesUsed + length);
+                updateSizeInBytes();
+            }
+            int keyOffset = keyBytesUsed;
+            System.arraycopy(bytes, offset, keyBytes, keyOffset, length);
+            keyBytesUsed += length;
+            keyBytesLive += length;
+            return keyOffset;
+        }
+
+        /**
+         * Rebuilds the table with the provided capacity, compacting the key bytes slab on the way.
+         */
+        private void rehash(int capacity) {
+            int[] oldHashes = hashes;
+            int[] oldKeyOffsets = keyOffsets;
+            int[] oldKeyLengths = keyLengths;
+            long[] oldVersions = versions;
+            long[] oldTimes = times;
+            boolean[] oldDeletes = deletes;
+            long[] oldTranslogIds = translogIds;
+            long[] oldTranslogLocations = translogLocations;
+            int[] oldTranslogSizes = translogSizes;
+            byte[] oldKeyBytes = keyBytes;
+
+            allocate(capacity);
+            keyBytes = new byte[Math.max(INITIAL_KEY_BYTES, ArrayUtil.oversize(keyBytesLive, 1))];
+            keyBytesUsed = 0;
+            keyBytesLive = 0;
+
+            for (int i = 0; i < oldKeyLengths.length; i++) {
+                if (oldKeyLengths[i] == -1) {
+                    continue;
+                }
+                int slot = freeSlot(oldHashes[i]);
+                hashes[slot] = oldHashes[i];
+                keyOffsets[slot] = appendKey(oldKeyBytes, oldKeyOffsets[i], oldKeyLengths[i]);
+                keyLengths[slot] = oldKeyLengths[i];
+                versions[slot] = oldVersions[i];
+                times[slot] = oldTimes[i];
+                deletes[slot] = oldDeletes[i];
+                translogIds[slot] = oldTranslogIds[i];
+                translogLocations[slot] = oldTranslogLocations[i];
+                translogSizes[slot] = oldTranslogSizes[i];
+            }
+            updateSizeInBytes();
+        }
+
+        private void allocate(int capacity) {
+            mask = capacity - 1;
+            threshold = (int) (capacity * 0.75f);
+            hashes = new int[capacity];
+            keyOffsets = new int[capacity];
+            keyLengths = new int[capacity];
+            Arrays.fill(keyLengths, -1);
+            versions = new long[capacity];
+            times = new long[capacity];
+            deletes = new boolean[capacity];
+            translogIds = new long[capacity];
+            translogLocations = new long[capacity];
+            translogSizes = new int[capacity];
+        }
+
+        private void updateSizeInBytes() {
+            sizeInBytes = (mask + 1) * RAM_BYTES_PER_SLOT + 10 * RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + keyBytes.length;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine.robin;
+
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Maps a uid to its latest {@link VersionValue}, until the next refresh makes it visible
+ * to the index searcher. Implementations must be safe for concurrent use, the engine only
+ * guarantees that operations on the same uid are serialized.
+ */
+public interface VersionMap {
+
+    /**
+     * Returns the version value of the uid, or <tt>null</tt> if not mapped.
+     */
+    VersionValue get(BytesRef uid);
+
+    /**
+     * Maps the uid to the provided value. Implementations may hold on to the uid bytes, so they
+     * must not be modified by the caller afterwards.
+     */
+    void put(BytesRef uid, VersionValue value);
+
+    void remove(BytesRef uid);
+
+    /**
+     * A weakly consistent view of the uids in the map, uids added or removed while iterating
+     * may or may not be returned.
+     */
+    Iterable<BytesRef> uids();
+
+    void clear();
+
+    int size();
+
+    /**
+     * The estimated memory used by the map.
+     */
+    long sizeInBytes();
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine.robin;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.translog.Translog;
+
+/**
+ * The latest version information of a uid, kept by the engine until the next refresh.
+ */
+public class VersionValue {
+    private final long version;
+    private final boolean delete;
+    private final long time;
+    private final Translog.Location translogLocation;
+
+    public VersionValue(long version, boolean delete, long time, @Nullable Translog.Location translogLocation) {
+        this.version = version;
+        this.delete = delete;
+        this.time = time;
+        this.translogLocation = translogLocation;
+    }
+
+    public long time() {
+        return this.time;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public boolean delete() {
+        return delete;
+    }
+
+    @Nullable
+    public Translog.Location translogLocation() {
+        return this.translogLocation;
+    }
+}
@@ -72,4 +72,15 @@ public interface AtomicFieldData<Script extends ScriptDocValues> {
         
         BytesValues.WithOrdinals getHashedBytesValues();
     }
+
+    /**
+     * Field data that keeps (some of) its data in direct memory, outside of the java heap.
+     */
+    interface OffHeap<Script extends ScriptDocValues> extends AtomicFieldData<Script> {
+
+        /**
+         * Size (in bytes) of the direct memory used by this field data, included in {@link #getMemorySizeInBytes()}.
+         */
+        long getOffHeapMemorySizeInBytes();
+    }
 }
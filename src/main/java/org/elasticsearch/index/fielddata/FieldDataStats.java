@@ -21,6 +21,7 @@ package org.elasticsearch.index.fielddata;
 
 import gnu.trove.iterator.TObjectLongIterator;
 import gnu.trove.map.hash.TObjectLongHashMap;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -37,6 +38,7 @@ import java.io.IOException;
 public class FieldDataStats implements Streamable, ToXContent {
 
     long memorySize;
+    long offHeapMemorySize;
     long evictions;
     @Nullable
     TObjectLongHashMap<String> fields;
@@ -46,13 +48,19 @@ public class FieldDataStats implements Streamable, ToXContent {
     }
 
     public FieldDataStats(long memorySize, long evictions, @Nullable TObjectLongHashMap<String> fields) {
+        this(memorySize, 0, evictions, fields);
+    }
+
+    public FieldDataStats(long memorySize, long offHeapMemorySize, long evictions, @Nullable TObjectLongHashMap<String> fields) {
         this.memorySize = memorySize;
+        this.offHeapMemorySize = offHeapMemorySize;
         this.evictions = evictions;
         this.fields = fields;
     }
 
     public void add(FieldDataStats stats) {
         this.memorySize += stats.memorySize;
+        this.offHeapMemorySize += stats.offHeapMemorySize;
         this.evictions += stats.evictions;
         if (stats.fields != null) {
             if (fields == null) fields = new TObjectLongHashMap<String>();
@@ -71,6 +79,17 @@ public class FieldDataStats implements Streamable, ToXContent {
         return new ByteSizeValue(memorySize);
     }
 
+    /**
+     * The part of the {@link #getMemorySize()} that lives in direct memory, outside of the heap.
+     */
+    public long getOffHeapMemorySizeInBytes() {
+        return this.offHeapMemorySize;
+    }
+
+    public ByteSizeValue getOffHeapMemorySize() {
+        return new ByteSizeValue(offHeapMemorySize);
+    }
+
     public long getEvictions() {
         return this.evictions;
     }
@@ -89,6 +108,9 @@ public class FieldDataStats implements Streamable, ToXContent {
     @Override
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            offHeapMemorySize = in.readVLong();
+        }
         evictions = in.readVLong();
         if (in.readBoolean()) {
             int size = in.readVInt();
@@ -102,6 +124,9 @@ public class FieldDataStats implements Streamable, ToXContent {
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeVLong(offHeapMemorySize);
+        }
         out.writeVLong(evictions);
         if (fields == null) {
             out.writeBoolean(false);
@@ -121,6 +146,8 @@ public class FieldDataStats implements Streamable, ToXContent {
         builder.startObject(Fields.FIELDDATA);
         builder.field(Fields.MEMORY_SIZE, getMemorySize().toString());
         builder.field(Fields.MEMORY_SIZE_IN_BYTES, memorySize);
+        builder.field(Fields.OFF_HEAP_MEMORY_SIZE, getOffHeapMemorySize().toString());
+        builder.field(Fields.OFF_HEAP_MEMORY_SIZE_IN_BYTES, offHeapMemorySize);
         builder.field(Fields.EVICTIONS, getEvictions());
         if (fields != null) {
             builder.startObject(Fields.FIELDS);
@@ -141,6 +168,8 @@ public class FieldDataStats implements Streamable, ToXContent {
         static final XContentBuilderString FIELDDATA = new XContentBuilderString("fielddata");
         static final XContentBuilderString MEMORY_SIZE = new XContentBuilderString("memory_size");
         static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
+        static final XContentBuilderString OFF_HEAP_MEMORY_SIZE = new XContentBuilderString("off_heap_memory_size");
+        static final XContentBuilderString OFF_HEAP_MEMORY_SIZE_IN_BYTES = new XContentBuilderString("off_heap_memory_size_in_bytes");
         static final XContentBuilderString EVICTIONS = new XContentBuilderString("evictions");
         static final XContentBuilderString FIELDS = new XContentBuilderString("fields");
     }
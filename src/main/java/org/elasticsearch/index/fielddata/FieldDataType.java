@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 
@@ -26,8 +27,36 @@ import org.elasticsearch.common.settings.Settings;
  */
 public class FieldDataType {
 
+    /**
+     * The format reading field data from the doc values written at index time, instead of un-inverting the field.
+     */
+    public static final String DOC_VALUES_FORMAT = "doc_values";
+
+    public static final String LOADING_KEY = "loading";
+
+    /**
+     * When the field data of new segments gets loaded, on first use or by the warmer before the segments are searched.
+     */
+    public static enum Loading {
+        LAZY, EAGER;
+
+        public static Loading parse(String loading, Loading defaultValue) {
+            if (loading == null) {
+                return defaultValue;
+            } else if ("lazy".equals(loading)) {
+                return LAZY;
+            } else if ("eager".equals(loading)) {
+                return EAGER;
+            } else {
+                throw new ElasticSearchIllegalArgumentException("Unknown fielddata loading [" + loading + "], must be one of [lazy, eager]");
+            }
+        }
+    }
+
     private final String type;
     private final Settings settings;
+    private final boolean docValues;
+    private final Loading loading;
 
     public FieldDataType(String type) {
         this(type, ImmutableSettings.Builder.EMPTY_SETTINGS);
@@ -40,6 +69,8 @@ public class FieldDataType {
     public FieldDataType(String type, Settings settings) {
         this.type = type;
         this.settings = settings;
+        this.docValues = DOC_VALUES_FORMAT.equals(settings.get("format"));
+        this.loading = Loading.parse(settings.get(LOADING_KEY), Loading.LAZY);
     }
 
     public String getType() {
@@ -50,6 +81,17 @@ public class FieldDataType {
         return this.settings;
     }
 
+    /**
+     * Should doc values be written for the field, see {@link #DOC_VALUES_FORMAT}.
+     */
+    public boolean hasDocValues() {
+        return this.docValues;
+    }
+
+    public Loading getLoading() {
+        return this.loading;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
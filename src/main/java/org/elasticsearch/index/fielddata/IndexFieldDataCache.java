@@ -25,8 +25,13 @@ import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexReaderContext;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.SegmentReader;
+import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.ShardId;
@@ -34,6 +39,10 @@ import org.elasticsearch.index.shard.ShardUtils;
 import org.elasticsearch.index.shard.service.IndexShard;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * A simple field data cache abstraction on the *index* level.
@@ -42,6 +51,11 @@ public interface IndexFieldDataCache {
 
     <FD extends AtomicFieldData, IFD extends IndexFieldData<FD>> FD load(AtomicReaderContext context, IFD indexFieldData) throws Exception;
 
+    /**
+     * Returns <tt>true</tt> if the field data of the segment is cached, a load still in flight does not count.
+     */
+    boolean isCached(AtomicReaderContext context);
+
     /**
      * Clears all the field data stored cached in on this index.
      */
@@ -123,6 +137,11 @@ public interface IndexFieldDataCache {
             });
         }
 
+        @Override
+        public boolean isCached(AtomicReaderContext context) {
+            return cache.asMap().containsKey(new Key(context.reader().getCoreCacheKey()));
+        }
+
         @Override
         public void clear() {
             cache.invalidateAll();
@@ -181,4 +200,130 @@ public interface IndexFieldDataCache {
             super(indexService, fieldNames, fieldDataType, CacheBuilder.newBuilder().softValues());
         }
     }
+
+    /**
+     * Wraps a cache so that requesting a segment that is not cached yet also loads the other uncached segments
+     * of its top level reader concurrently on the provided executor. Each segment is loaded once, a request
+     * needing a segment that is already being loaded waits for that load to finish.
+     */
+    static class Parallel implements IndexFieldDataCache {
+
+        private final IndexFieldDataCache cache;
+        private final Executor executor;
+        private final ConcurrentMap<Object, LoadTask> loading = ConcurrentCollections.newConcurrentMap();
+
+        public Parallel(IndexFieldDataCache cache, Executor executor) {
+            this.cache = cache;
+            this.executor = executor;
+        }
+
+        @Override
+        public <FD extends AtomicFieldData, IFD extends IndexFieldData<FD>> FD load(AtomicReaderContext context, IFD indexFieldData) throws Exception {
+            if (cache.isCached(context)) {
+                return cache.load(context, indexFieldData);
+            }
+            IndexReaderContext topLevel = ReaderUtil.getTopLevelContext(context);
+            for (AtomicReaderContext leaf : topLevel.leaves()) {
+                if (leaf.ord == context.ord || cache.isCached(leaf)) {
+                    continue;
+                }
+                // the request might release its searcher, or a merge close the segment, before the load runs, so the
+                // load holds a reference on the segment, and the segments already closed are not loaded
+                if (!leaf.reader().tryIncRef()) {
+                    continue;
+                }
+                LoadTask task = newTask(leaf, indexFieldData, true);
+                boolean submitted = false;
+                if (loading.putIfAbsent(task.readerKey, task) == null) {
+                    try {
+                        executor.execute(task);
+                        submitted = true;
+                    } catch (EsRejectedExecutionException e) {
+                        // the segment is loaded by the first request that needs it
+                        loading.remove(task.readerKey, task);
+                    }
+                }
+                if (!submitted) {
+                    leaf.reader().decRef();
+                }
+            }
+
+            LoadTask task = newTask(context, indexFieldData, false);
+            LoadTask existing = loading.putIfAbsent(task.readerKey, task);
+            if (existing != null) {
+                task = existing;
+            }
+            // loads in this thread, unless the load has already been started, in which case we wait for it
+            task.run();
+            try {
+                //noinspection unchecked
+                return (FD) task.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new ElasticSearchException(cause.getMessage(), cause);
+            }
+        }
+
+        /**
+         * @param releaseReader whether the load releases a reference on the segment reader once done, taken when
+         *                      submitting the load
+         */
+        private <FD extends AtomicFieldData, IFD extends IndexFieldData<FD>> LoadTask newTask(final AtomicReaderContext context, final IFD indexFieldData,
+                                                                                            final boolean releaseReader) {
+            return new LoadTask(context.reader().getCoreCacheKey(), new Callable<AtomicFieldData>() {
+                @Override
+                public AtomicFieldData call() throws Exception {
+                    try {
+                        return cache.load(context, indexFieldData);
+                    } finally {
+                        if (releaseReader) {
+                            context.reader().decRef();
+                        }
+                    }
+                }
+            });
+        }
+
+        @Override
+        public boolean isCached(AtomicReaderContext context) {
+            return cache.isCached(context);
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+        }
+
+        @Override
+        public void clear(String fieldName) {
+            cache.clear(fieldName);
+        }
+
+        @Override
+        public void clear(IndexReader reader) {
+            cache.clear(reader);
+        }
+
+        final class LoadTask extends FutureTask<AtomicFieldData> {
+
+            final Object readerKey;
+
+            LoadTask(Object readerKey, Callable<AtomicFieldData> callable) {
+                super(callable);
+                this.readerKey = readerKey;
+            }
+
+            @Override
+            protected void done() {
+                // the wrapped cache holds the result from now on
+                loading.remove(readerKey, this);
+            }
+        }
+    }
 }
@@ -21,7 +21,9 @@ package org.elasticsearch.index.fielddata;
 
 import com.google.common.collect.ImmutableMap;
 import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
@@ -30,11 +32,16 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinals;
 import org.elasticsearch.index.fielddata.plain.*;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardUtils;
+import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.concurrent.ConcurrentMap;
 
@@ -60,6 +67,8 @@ public class IndexFieldDataService extends AbstractIndexComponent {
         buildersByTypeAndFormat = MapBuilder.<Tuple<String, String>, IndexFieldData.Builder>newMapBuilder()
                 .put(Tuple.tuple("string", "paged_bytes"), new PagedBytesIndexFieldData.Builder())
                 .put(Tuple.tuple("string", "fst"), new FSTBytesIndexFieldData.Builder())
+                .put(Tuple.tuple("string", "direct"), new DirectBytesIndexFieldData.Builder())
+                .put(Tuple.tuple("string", FieldDataType.DOC_VALUES_FORMAT), new DocValuesBytesIndexFieldData.Builder())
                 .put(Tuple.tuple("float", "array"), new FloatArrayIndexFieldData.Builder())
                 .put(Tuple.tuple("double", "array"), new DoubleArrayIndexFieldData.Builder())
                 .put(Tuple.tuple("byte", "array"), new ByteArrayIndexFieldData.Builder())
@@ -67,22 +76,41 @@ public class IndexFieldDataService extends AbstractIndexComponent {
                 .put(Tuple.tuple("int", "array"), new IntArrayIndexFieldData.Builder())
                 .put(Tuple.tuple("long", "array"), new LongArrayIndexFieldData.Builder())
                 .put(Tuple.tuple("geo_point", "array"), new GeoPointDoubleArrayIndexFieldData.Builder())
+                .put(Tuple.tuple("float", "direct"), new DirectNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.FLOAT))
+                .put(Tuple.tuple("double", "direct"), new DirectNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.DOUBLE))
+                .put(Tuple.tuple("byte", "direct"), new DirectNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.BYTE))
+                .put(Tuple.tuple("short", "direct"), new DirectNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.SHORT))
+                .put(Tuple.tuple("int", "direct"), new DirectNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.INT))
+                .put(Tuple.tuple("long", "direct"), new DirectNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.LONG))
+                .put(Tuple.tuple("float", FieldDataType.DOC_VALUES_FORMAT), new DocValuesNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.FLOAT))
+                .put(Tuple.tuple("double", FieldDataType.DOC_VALUES_FORMAT), new DocValuesNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.DOUBLE))
+                .put(Tuple.tuple("byte", FieldDataType.DOC_VALUES_FORMAT), new DocValuesNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.BYTE))
+                .put(Tuple.tuple("short", FieldDataType.DOC_VALUES_FORMAT), new DocValuesNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.SHORT))
+                .put(Tuple.tuple("int", FieldDataType.DOC_VALUES_FORMAT), new DocValuesNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.INT))
+                .put(Tuple.tuple("long", FieldDataType.DOC_VALUES_FORMAT), new DocValuesNumericIndexFieldData.Builder(IndexNumericFieldData.NumericType.LONG))
                 .immutableMap();
     }
 
     private final IndicesFieldDataCache indicesFieldDataCache;
+    @Nullable
+    private final ThreadPool threadPool;
+    private final boolean parallelLoading;
     private final ConcurrentMap<String, IndexFieldData> loadedFieldData = ConcurrentCollections.newConcurrentMap();
 
     IndexService indexService;
 
     public IndexFieldDataService(Index index) {
-        this(index, ImmutableSettings.Builder.EMPTY_SETTINGS, new IndicesFieldDataCache(ImmutableSettings.Builder.EMPTY_SETTINGS));
+        this(index, ImmutableSettings.Builder.EMPTY_SETTINGS, new IndicesFieldDataCache(ImmutableSettings.Builder.EMPTY_SETTINGS), null);
     }
 
     @Inject
-    public IndexFieldDataService(Index index, @IndexSettings Settings indexSettings, IndicesFieldDataCache indicesFieldDataCache) {
+    public IndexFieldDataService(Index index, @IndexSettings Settings indexSettings, IndicesFieldDataCache indicesFieldDataCache,
+                                 @Nullable ThreadPool threadPool) {
         super(index, indexSettings);
         this.indicesFieldDataCache = indicesFieldDataCache;
+        this.threadPool = threadPool;
+        // load the segments of a field concurrently on the fielddata thread pool, instead of one by one in the search thread
+        this.parallelLoading = threadPool != null && indexSettings.getAsBoolean("index.fielddata.loading.parallel", true);
     }
 
     // we need to "inject" the index service to not create cyclic dep
@@ -97,6 +125,7 @@ public class IndexFieldDataService extends AbstractIndexComponent {
             }
             loadedFieldData.clear();
         }
+        indicesFieldDataCache.clearGlobalOrdinals(index);
     }
 
     public void clearField(String fieldName) {
@@ -106,6 +135,7 @@ public class IndexFieldDataService extends AbstractIndexComponent {
                 fieldData.clear();
             }
         }
+        indicesFieldDataCache.clearGlobalOrdinals(index, fieldName);
     }
 
     public void clear(IndexReader reader) {
@@ -114,6 +144,32 @@ public class IndexFieldDataService extends AbstractIndexComponent {
         }
     }
 
+    /**
+     * Returns the global ordinals of the field data for the provided top level reader, built lazily
+     * and cached until the reader is closed.
+     */
+    public GlobalOrdinals getGlobalOrdinals(IndexReader reader, IndexFieldData.WithOrdinals<?> indexFieldData) {
+        try {
+            ShardFieldData shardFieldData = null;
+            if (indexService != null && !reader.leaves().isEmpty()) {
+                ShardId shardId = ShardUtils.extractShardId(reader.leaves().get(0).reader());
+                if (shardId != null) {
+                    IndexShard shard = indexService.shard(shardId.id());
+                    if (shard != null) {
+                        shardFieldData = shard.fieldData();
+                    }
+                }
+            }
+            return indicesFieldDataCache.loadGlobalOrdinals(index, reader, indexFieldData, shardFieldData);
+        } catch (Throwable e) {
+            if (e instanceof ElasticSearchException) {
+                throw (ElasticSearchException) e;
+            } else {
+                throw new ElasticSearchException(e.getMessage(), e);
+            }
+        }
+    }
+
     public <IFD extends IndexFieldData> IFD getForField(FieldMapper mapper) {
         return getForField(mapper.names(), mapper.fieldDataType());
     }
@@ -152,6 +208,9 @@ public class IndexFieldDataService extends AbstractIndexComponent {
                     } else {
                         throw new ElasticSearchIllegalArgumentException("cache type not supported [" + cacheType + "] for field [" + fieldNames.fullName() + "]");
                     }
+                    if (parallelLoading && type.getSettings().getAsBoolean("loading.parallel", true)) {
+                        cache = new IndexFieldDataCache.Parallel(cache, threadPool.executor(ThreadPool.Names.FIELD_DATA));
+                    }
 
                     fieldData = builder.build(index, indexSettings, fieldNames, type, cache);
                     loadedFieldData.put(fieldNames.indexName(), fieldData);
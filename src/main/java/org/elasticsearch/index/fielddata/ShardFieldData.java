@@ -40,6 +40,7 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
 
     final CounterMetric evictionsMetric = new CounterMetric();
     final CounterMetric totalMetric = new CounterMetric();
+    final CounterMetric offHeapMetric = new CounterMetric();
 
     final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
 
@@ -60,7 +61,7 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
                 }
             }
         }
-        return new FieldDataStats(totalMetric.count(), evictionsMetric.count(), fieldTotals);
+        return new FieldDataStats(totalMetric.count(), offHeapMetric.count(), evictionsMetric.count(), fieldTotals);
     }
 
     @Override
@@ -68,6 +69,9 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
         long sizeInBytes = fieldData.getMemorySizeInBytes();
 
         totalMetric.inc(sizeInBytes);
+        if (fieldData instanceof AtomicFieldData.OffHeap) {
+            offHeapMetric.inc(((AtomicFieldData.OffHeap) fieldData).getOffHeapMemorySizeInBytes());
+        }
 
         String keyFieldName = fieldNames.indexName();
         CounterMetric total = perFieldTotals.get(keyFieldName);
@@ -83,11 +87,41 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
         }
     }
 
+    /**
+     * Accounts for the global ordinals of the field, built on top of its field data.
+     */
+    public void onGlobalOrdinalsLoad(String indexFieldName, long sizeInBytes) {
+        totalMetric.inc(sizeInBytes);
+        CounterMetric total = perFieldTotals.get(indexFieldName);
+        if (total == null) {
+            total = new CounterMetric();
+            CounterMetric prev = perFieldTotals.putIfAbsent(indexFieldName, total);
+            if (prev != null) {
+                total = prev;
+            }
+        }
+        total.inc(sizeInBytes);
+    }
+
+    public void onGlobalOrdinalsUnload(String indexFieldName, boolean wasEvicted, long sizeInBytes) {
+        if (wasEvicted) {
+            evictionsMetric.inc();
+        }
+        totalMetric.dec(sizeInBytes);
+        CounterMetric total = perFieldTotals.get(indexFieldName);
+        if (total != null) {
+            total.dec(sizeInBytes);
+        }
+    }
+
     @Override
     public void onUnload(FieldMapper.Names fieldNames, FieldDataType fieldDataType, boolean wasEvicted, long sizeInBytes, @Nullable AtomicFieldData fieldData) {
         if (wasEvicted) {
             evictionsMetric.inc();
         }
+        if (fieldData instanceof AtomicFieldData.OffHeap) {
+            offHeapMetric.dec(((AtomicFieldData.OffHeap) fieldData).getOffHeapMemorySizeInBytes());
+        }
         if (sizeInBytes != -1) {
             totalMetric.dec(sizeInBytes);
 
@@ -0,0 +1,270 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.IntsRef;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.common.util.DirectBuffers;
+
+import java.nio.IntBuffer;
+
+/**
+ * Ordinals kept in direct memory. Single valued ordinals are stored as one ordinal per doc, multi valued ones
+ * as a per doc start offset into a list of all the ordinals of all the docs.
+ */
+public class DirectOrdinals implements Ordinals {
+
+    // ordinals with value 0 indicates no value
+    private final IntBuffer ords;
+    // null when single valued, otherwise numDocs + 1 offsets into ords
+    private final IntBuffer offsets;
+    private final int numDocs;
+    private final int numOrds;
+    private final int maxOrd;
+
+    DirectOrdinals(IntBuffer ords, IntBuffer offsets, int numDocs, int numOrds) {
+        this.ords = ords;
+        this.offsets = offsets;
+        this.numDocs = numDocs;
+        this.numOrds = numOrds;
+        this.maxOrd = numOrds + 1;
+    }
+
+    /**
+     * Copies the ordinals of the builder into direct memory.
+     */
+    public static DirectOrdinals build(OrdinalsBuilder builder) {
+        final int numDocs = builder.maxDoc();
+        if (builder.getNumMultiValuesDocs() == 0) {
+            IntBuffer ords = DirectBuffers.allocate((long) numDocs * RamUsage.NUM_BYTES_INT).asIntBuffer();
+            for (int doc = 0; doc < numDocs; doc++) {
+                IntsRef docOrds = builder.docOrds(doc);
+                ords.put(doc, docOrds.length == 0 ? 0 : docOrds.ints[docOrds.offset]);
+            }
+            return new DirectOrdinals(ords, null, numDocs, builder.getNumOrds());
+        }
+        IntBuffer offsets = DirectBuffers.allocate((long) (numDocs + 1) * RamUsage.NUM_BYTES_INT).asIntBuffer();
+        IntBuffer ords = DirectBuffers.allocate((long) builder.getTotalNumOrds() * RamUsage.NUM_BYTES_INT).asIntBuffer();
+        int offset = 0;
+        for (int doc = 0; doc < numDocs; doc++) {
+            offsets.put(doc, offset);
+            IntsRef docOrds = builder.docOrds(doc);
+            for (int i = docOrds.offset; i < docOrds.offset + docOrds.length; i++) {
+                ords.put(offset++, docOrds.ints[i]);
+            }
+        }
+        offsets.put(numDocs, offset);
+        return new DirectOrdinals(ords, offsets, numDocs, builder.getNumOrds());
+    }
+
+    @Override
+    public boolean hasSingleArrayBackingStorage() {
+        return false;
+    }
+
+    @Override
+    public Object getBackingStorage() {
+        return ords;
+    }
+
+    /**
+     * The ordinals live in direct memory, only a few object headers and references are on heap.
+     */
+    @Override
+    public long getMemorySizeInBytes() {
+        return getOffHeapMemorySizeInBytes();
+    }
+
+    public long getOffHeapMemorySizeInBytes() {
+        long size = (long) ords.capacity() * RamUsage.NUM_BYTES_INT;
+        if (offsets != null) {
+            size += (long) offsets.capacity() * RamUsage.NUM_BYTES_INT;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return offsets != null;
+    }
+
+    @Override
+    public int getNumDocs() {
+        return numDocs;
+    }
+
+    @Override
+    public int getNumOrds() {
+        return numOrds;
+    }
+
+    @Override
+    public int getMaxOrd() {
+        return maxOrd;
+    }
+
+    @Override
+    public Docs ordinals() {
+        if (offsets == null) {
+            return new SingleDocs(this, ords);
+        }
+        return new MultiDocs(this, ords, offsets);
+    }
+
+    static abstract class AbstractDocs implements Ordinals.Docs {
+
+        private final DirectOrdinals parent;
+
+        AbstractDocs(DirectOrdinals parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public Ordinals ordinals() {
+            return parent;
+        }
+
+        @Override
+        public int getNumDocs() {
+            return parent.getNumDocs();
+        }
+
+        @Override
+        public int getNumOrds() {
+            return parent.getNumOrds();
+        }
+
+        @Override
+        public int getMaxOrd() {
+            return parent.getMaxOrd();
+        }
+
+        @Override
+        public boolean isMultiValued() {
+            return parent.isMultiValued();
+        }
+    }
+
+    static class SingleDocs extends AbstractDocs {
+
+        private final IntBuffer ords;
+
+        private final IntsRef intsScratch = new IntsRef(1);
+        private final SingleValueIter iter = new SingleValueIter();
+
+        SingleDocs(DirectOrdinals parent, IntBuffer ords) {
+            super(parent);
+            this.ords = ords;
+        }
+
+        @Override
+        public int getOrd(int docId) {
+            return ords.get(docId);
+        }
+
+        @Override
+        public IntsRef getOrds(int docId) {
+            final int ordinal = ords.get(docId);
+            if (ordinal == 0) {
+                intsScratch.length = 0;
+            } else {
+                intsScratch.ints[0] = ordinal;
+                intsScratch.offset = 0;
+                intsScratch.length = 1;
+            }
+            return intsScratch;
+        }
+
+        @Override
+        public Iter getIter(int docId) {
+            return iter.reset(ords.get(docId));
+        }
+    }
+
+    static class MultiDocs extends AbstractDocs {
+
+        private final IntBuffer ords;
+        private final IntBuffer offsets;
+
+        private final IntsRef intsScratch = new IntsRef(8);
+        private final MultiIter iter;
+
+        MultiDocs(DirectOrdinals parent, IntBuffer ords, IntBuffer offsets) {
+            super(parent);
+            this.ords = ords;
+            this.offsets = offsets;
+            this.iter = new MultiIter(ords);
+        }
+
+        @Override
+        public int getOrd(int docId) {
+            int start = offsets.get(docId);
+            if (start == offsets.get(docId + 1)) {
+                return 0;
+            }
+            return ords.get(start);
+        }
+
+        @Override
+        public IntsRef getOrds(int docId) {
+            final int start = offsets.get(docId);
+            final int length = offsets.get(docId + 1) - start;
+            intsScratch.ints = ArrayUtil.grow(intsScratch.ints, length);
+            for (int i = 0; i < length; i++) {
+                intsScratch.ints[i] = ords.get(start + i);
+            }
+            intsScratch.offset = 0;
+            intsScratch.length = length;
+            return intsScratch;
+        }
+
+        @Override
+        public Iter getIter(int docId) {
+            return iter.reset(offsets.get(docId), offsets.get(docId + 1));
+        }
+    }
+
+    static class MultiIter implements Ordinals.Docs.Iter {
+
+        private final IntBuffer ords;
+        private int position;
+        private int end;
+
+        MultiIter(IntBuffer ords) {
+            this.ords = ords;
+        }
+
+        MultiIter reset(int start, int end) {
+            this.position = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int next() {
+            if (position >= end) {
+                return 0;
+            }
+            return ords.get(position++);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.IntsRef;
+import org.elasticsearch.ElasticSearchException;
+
+import java.io.IOException;
+
+/**
+ * Ordinals read from the sorted set doc values of a segment, shifted by one since ordinal <tt>0</tt> indicates
+ * a missing value. Whether a doc has more than one value is not known up front, so these are always multi valued.
+ * <p/>
+ * The reader must not be closed while the ordinals are in use, they should not be cached across searches.
+ */
+public class DocValuesOrdinals implements Ordinals {
+
+    private final AtomicReader reader;
+    private final String field;
+    private final int numOrds;
+
+    public DocValuesOrdinals(AtomicReader reader, String field) {
+        this.reader = reader;
+        this.field = field;
+        long valueCount = values().getValueCount();
+        if (valueCount >= Integer.MAX_VALUE) {
+            throw new ElasticSearchException("too many unique values [" + valueCount + "] in the doc values of [" + field + "]");
+        }
+        this.numOrds = (int) valueCount;
+    }
+
+    /**
+     * Returns true if the field has sorted set doc values in the reader.
+     */
+    public static boolean hasDocValues(AtomicReader reader, String field) {
+        org.apache.lucene.index.FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+        return fieldInfo != null && fieldInfo.getDocValuesType() == org.apache.lucene.index.FieldInfo.DocValuesType.SORTED_SET;
+    }
+
+    private SortedSetDocValues values() {
+        try {
+            SortedSetDocValues values = reader.getSortedSetDocValues(field);
+            return values == null ? SortedSetDocValues.EMPTY : values;
+        } catch (IOException e) {
+            throw new ElasticSearchException("failed to open the doc values of [" + field + "]", e);
+        }
+    }
+
+    @Override
+    public boolean hasSingleArrayBackingStorage() {
+        return false;
+    }
+
+    @Override
+    public Object getBackingStorage() {
+        return null;
+    }
+
+    /**
+     * Doc values are owned (and mostly kept on disk) by the segment.
+     */
+    @Override
+    public long getMemorySizeInBytes() {
+        return 0;
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return true;
+    }
+
+    @Override
+    public int getNumDocs() {
+        return reader.maxDoc();
+    }
+
+    @Override
+    public int getNumOrds() {
+        return numOrds;
+    }
+
+    @Override
+    public int getMaxOrd() {
+        return numOrds + 1;
+    }
+
+    @Override
+    public Docs ordinals() {
+        return new Docs(this, values());
+    }
+
+    /**
+     * Reads the ordinals of a doc all at once, since the underlying doc values might be shared with other
+     * iterations in the same thread.
+     */
+    public static class Docs implements Ordinals.Docs {
+
+        private final DocValuesOrdinals parent;
+        private final SortedSetDocValues values;
+
+        private final IntsRef intsScratch = new IntsRef(8);
+        private final Iter iter = new Iter(intsScratch);
+
+        public Docs(DocValuesOrdinals parent, SortedSetDocValues values) {
+            this.parent = parent;
+            this.values = values;
+        }
+
+        /**
+         * The doc values, note their ordinals are not shifted.
+         */
+        public SortedSetDocValues values() {
+            return values;
+        }
+
+        @Override
+        public Ordinals ordinals() {
+            return parent;
+        }
+
+        @Override
+        public int getNumDocs() {
+            return parent.getNumDocs();
+        }
+
+        @Override
+        public int getNumOrds() {
+            return parent.getNumOrds();
+        }
+
+        @Override
+        public int getMaxOrd() {
+            return parent.getMaxOrd();
+        }
+
+        @Override
+        public boolean isMultiValued() {
+            return true;
+        }
+
+        @Override
+        public int getOrd(int docId) {
+            values.setDocument(docId);
+            long ord = values.nextOrd();
+            return ord == SortedSetDocValues.NO_MORE_ORDS ? 0 : (int) ord + 1;
+        }
+
+        @Override
+        public IntsRef getOrds(int docId) {
+            values.setDocument(docId);
+            int length = 0;
+            for (long ord = values.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = values.nextOrd()) {
+                intsScratch.ints = ArrayUtil.grow(intsScratch.ints, length + 1);
+                intsScratch.ints[length++] = (int) ord + 1;
+            }
+            intsScratch.offset = 0;
+            intsScratch.length = length;
+            return intsScratch;
+        }
+
+        @Override
+        public Iter getIter(int docId) {
+            getOrds(docId);
+            return iter.reset();
+        }
+
+        static class Iter implements Ordinals.Docs.Iter {
+
+            private final IntsRef ords;
+            private int position;
+
+            Iter(IntsRef ords) {
+                this.ords = ords;
+            }
+
+            Iter reset() {
+                position = 0;
+                return this;
+            }
+
+            @Override
+            public int next() {
+                if (position >= ords.length) {
+                    return 0;
+                }
+                return ords.ints[ords.offset + position++];
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+import org.apache.lucene.util.packed.GrowableWriter;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.index.fielddata.BytesValues;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+
+import java.util.List;
+
+/**
+ * Maps the ordinals of each segment of a top level reader to ordinals that are unique across all of its
+ * segments (global ordinals), keeping the term order. Global ordinal <tt>0</tt> indicates a missing value,
+ * as it does for segment ordinals.
+ * <p/>
+ * Term bytes are not copied, a global ordinal is resolved through the first segment that holds the term.
+ */
+public class GlobalOrdinals {
+
+    private final int maxOrd;
+    private final Mapping[] mappings;
+    // per global ordinal, the first segment holding it, and the delta between its ordinal there and the global one
+    private final PackedInts.Reader firstSegments;
+    private final PackedInts.Reader firstSegmentOrdDeltas;
+
+    private long size = -1;
+
+    GlobalOrdinals(int maxOrd, Mapping[] mappings, PackedInts.Reader firstSegments, PackedInts.Reader firstSegmentOrdDeltas) {
+        this.maxOrd = maxOrd;
+        this.mappings = mappings;
+        this.firstSegments = firstSegments;
+        this.firstSegmentOrdDeltas = firstSegmentOrdDeltas;
+    }
+
+    /**
+     * The number of global ordinals, excluding the "0" ordinal indicating a missing value.
+     */
+    public int getNumOrds() {
+        return maxOrd - 1;
+    }
+
+    /**
+     * Returns total unique global ord count; this includes +1 for the null ord (always 0).
+     */
+    public int getMaxOrd() {
+        return maxOrd;
+    }
+
+    /**
+     * The mapping from the ordinals of the segment at the provided position in the top level reader
+     * leaves ({@link AtomicReaderContext#ord}) to global ordinals.
+     */
+    public Mapping segmentMapping(int leafOrd) {
+        return mappings[leafOrd];
+    }
+
+    /**
+     * The position in the top level reader leaves of the first segment holding the global ordinal.
+     */
+    public int firstSegment(int globalOrd) {
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    /**
+     * The ordinal of the global ordinal in its {@link #firstSegment(int)}.
+     */
+    public int firstSegmentOrd(int globalOrd) {
+        return globalOrd - (int) firstSegmentOrdDeltas.get(globalOrd);
+    }
+
+    public long getMemorySizeInBytes() {
+        if (size == -1) {
+            long size = 3 * RamUsage.NUM_BYTES_OBJECT_REF + firstSegments.ramBytesUsed() + firstSegmentOrdDeltas.ramBytesUsed();
+            for (Mapping mapping : mappings) {
+                size += RamUsage.NUM_BYTES_OBJECT_REF + mapping.getMemorySizeInBytes();
+            }
+            this.size = size;
+        }
+        return size;
+    }
+
+    /**
+     * Maps segment ordinals to global ordinals, stored as the (non negative) delta between the two.
+     */
+    public static final class Mapping {
+
+        private final PackedInts.Reader deltas;
+
+        Mapping(PackedInts.Reader deltas) {
+            this.deltas = deltas;
+        }
+
+        public int globalOrd(int segmentOrd) {
+            return segmentOrd + (int) deltas.get(segmentOrd);
+        }
+
+        long getMemorySizeInBytes() {
+            return deltas.ramBytesUsed();
+        }
+    }
+
+    /**
+     * Builds the global ordinals of the field for the provided top level reader, by merging the sorted
+     * terms of all its segments once.
+     */
+    public static GlobalOrdinals build(IndexReader reader, IndexFieldData.WithOrdinals<?> indexFieldData) {
+        List<AtomicReaderContext> leaves = reader.leaves();
+        Mapping[] mappings = new Mapping[leaves.size()];
+        GrowableWriter[] segmentDeltas = new GrowableWriter[leaves.size()];
+        SegmentQueue queue = new SegmentQueue(Math.max(1, leaves.size()));
+        long sumMaxOrd = 1;
+        for (AtomicReaderContext context : leaves) {
+            BytesValues.WithOrdinals values = indexFieldData.load(context).getBytesValues();
+            int segmentMaxOrd = values.ordinals().getMaxOrd();
+            segmentDeltas[context.ord] = new GrowableWriter(1, segmentMaxOrd, PackedInts.FAST);
+            sumMaxOrd += segmentMaxOrd - 1;
+            SegmentCursor cursor = new SegmentCursor(context.ord, values, segmentMaxOrd);
+            if (cursor.next()) {
+                queue.add(cursor);
+            }
+        }
+        if (sumMaxOrd > Integer.MAX_VALUE) {
+            throw new IllegalStateException("too many unique terms [" + sumMaxOrd + "] to build global ordinals for [" + indexFieldData.getFieldNames().fullName() + "]");
+        }
+
+        // upper bounded by the sum of the segments unique terms, the actual global count is only known once merged
+        GrowableWriter firstSegments = new GrowableWriter(1, (int) sumMaxOrd, PackedInts.FAST);
+        GrowableWriter firstSegmentOrdDeltas = new GrowableWriter(1, (int) sumMaxOrd, PackedInts.FAST);
+        BytesRef lastTerm = new BytesRef();
+        int globalOrd = 0;
+        while (queue.size() > 0) {
+            SegmentCursor top = queue.top();
+            if (globalOrd == 0 || !lastTerm.bytesEquals(top.term)) {
+                globalOrd++;
+                lastTerm.copyBytes(top.term);
+                firstSegments.set(globalOrd, top.segment);
+                firstSegmentOrdDeltas.set(globalOrd, globalOrd - top.ord);
+            }
+            segmentDeltas[top.segment].set(top.ord, globalOrd - top.ord);
+            if (top.next()) {
+                queue.updateTop();
+            } else {
+                queue.pop();
+            }
+        }
+
+        for (int i = 0; i < mappings.length; i++) {
+            mappings[i] = new Mapping(segmentDeltas[i].getMutable());
+        }
+        return new GlobalOrdinals(globalOrd + 1, mappings, firstSegments.getMutable(), firstSegmentOrdDeltas.getMutable());
+    }
+
+    static final class SegmentCursor {
+
+        final int segment;
+        final BytesValues.WithOrdinals values;
+        final int maxOrd;
+        final BytesRef term = new BytesRef();
+        int ord;
+
+        SegmentCursor(int segment, BytesValues.WithOrdinals values, int maxOrd) {
+            this.segment = segment;
+            this.values = values;
+            this.maxOrd = maxOrd;
+        }
+
+        boolean next() {
+            if (++ord >= maxOrd) {
+                return false;
+            }
+            values.getValueScratchByOrd(ord, term);
+            return true;
+        }
+    }
+
+    static final class SegmentQueue extends PriorityQueue<SegmentCursor> {
+
+        SegmentQueue(int size) {
+            super(size);
+        }
+
+        @Override
+        protected boolean lessThan(SegmentCursor a, SegmentCursor b) {
+            int cmp = a.term.compareTo(b.term);
+            if (cmp == 0) {
+                return a.segment < b.segment;
+            }
+            return cmp < 0;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.ordinals.DirectOrdinals;
+import org.elasticsearch.index.fielddata.ordinals.Ordinals;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * String field data with the term bytes, their offsets and the ordinals in direct memory. Reading a term
+ * copies its bytes into the provided scratch, so unlike the paged bytes variant, values are not shared.
+ */
+public class DirectBytesAtomicFieldData implements AtomicFieldData.WithOrdinals<ScriptDocValues.Strings>, AtomicFieldData.OffHeap<ScriptDocValues.Strings> {
+
+    // 0 ordinal in values means no value (its null), the bytes of ord are in [termOrdToBytesOffset[ord], termOrdToBytesOffset[ord + 1])
+    private final ByteBuffer bytes;
+    private final IntBuffer termOrdToBytesOffset;
+    private final Ordinals ordinals;
+
+    public DirectBytesAtomicFieldData(ByteBuffer bytes, IntBuffer termOrdToBytesOffset, Ordinals ordinals) {
+        this.bytes = bytes;
+        this.termOrdToBytesOffset = termOrdToBytesOffset;
+        this.ordinals = ordinals;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return ordinals.isMultiValued();
+    }
+
+    @Override
+    public int getNumDocs() {
+        return ordinals.getNumDocs();
+    }
+
+    @Override
+    public boolean isValuesOrdered() {
+        return true;
+    }
+
+    @Override
+    public long getMemorySizeInBytes() {
+        long size = getOffHeapMemorySizeInBytes() + 3 * RamUsage.NUM_BYTES_OBJECT_REF;
+        if (!(ordinals instanceof DirectOrdinals)) {
+            size += ordinals.getMemorySizeInBytes();
+        }
+        return size;
+    }
+
+    @Override
+    public long getOffHeapMemorySizeInBytes() {
+        long size = bytes.capacity() + (long) termOrdToBytesOffset.capacity() * RamUsage.NUM_BYTES_INT;
+        if (ordinals instanceof DirectOrdinals) {
+            size += ((DirectOrdinals) ordinals).getOffHeapMemorySizeInBytes();
+        }
+        return size;
+    }
+
+    @Override
+    public BytesValues getBytesValues() {
+        return ordinals.isMultiValued() ? new BytesValues.Multi(bytes, termOrdToBytesOffset, ordinals.ordinals()) :
+                new BytesValues.Single(bytes, termOrdToBytesOffset, ordinals.ordinals());
+    }
+
+    @Override
+    public BytesValues getHashedBytesValues() {
+        // hashes are computed on the fly, caching them would need as much memory as the offsets
+        return getBytesValues();
+    }
+
+    @Override
+    public ScriptDocValues.Strings getScriptValues() {
+        return new ScriptDocValues.Strings(getBytesValues());
+    }
+
+    static abstract class BytesValues extends org.elasticsearch.index.fielddata.BytesValues.WithOrdinals {
+
+        // a view per (non thread safe) values instance, since relative reads move its position
+        protected final ByteBuffer bytes;
+        protected final IntBuffer termOrdToBytesOffset;
+        protected final Ordinals.Docs ordinals;
+
+        protected final BytesRef scratch = new BytesRef();
+
+        BytesValues(ByteBuffer bytes, IntBuffer termOrdToBytesOffset, Ordinals.Docs ordinals) {
+            super(ordinals);
+            this.bytes = bytes.duplicate();
+            this.termOrdToBytesOffset = termOrdToBytesOffset;
+            this.ordinals = ordinals;
+        }
+
+        @Override
+        public Ordinals.Docs ordinals() {
+            return this.ordinals;
+        }
+
+        @Override
+        public BytesRef getValueScratchByOrd(int ord, BytesRef ret) {
+            final int start = termOrdToBytesOffset.get(ord);
+            final int length = termOrdToBytesOffset.get(ord + 1) - start;
+            if (ret.bytes.length < length) {
+                ret.bytes = new byte[ArrayUtil.oversize(length, 1)];
+            }
+            bytes.position(start);
+            bytes.get(ret.bytes, 0, length);
+            ret.offset = 0;
+            ret.length = length;
+            return ret;
+        }
+
+        static class Single extends BytesValues {
+
+            private final Iter.Single iter;
+
+            Single(ByteBuffer bytes, IntBuffer termOrdToBytesOffset, Ordinals.Docs ordinals) {
+                super(bytes, termOrdToBytesOffset, ordinals);
+                assert !ordinals.isMultiValued();
+                iter = newSingleIter();
+            }
+
+            @Override
+            public Iter getIter(int docId) {
+                int ord = ordinals.getOrd(docId);
+                if (ord == 0) return Iter.Empty.INSTANCE;
+                getValueScratchByOrd(ord, scratch);
+                return iter.reset(scratch, ord);
+            }
+        }
+
+        static class Multi extends BytesValues {
+
+            private final Iter.Multi iter;
+
+            Multi(ByteBuffer bytes, IntBuffer termOrdToBytesOffset, Ordinals.Docs ordinals) {
+                super(bytes, termOrdToBytesOffset, ordinals);
+                assert ordinals.isMultiValued();
+                this.iter = newMultiIter();
+            }
+
+            @Override
+            public Iter getIter(int docId) {
+                return iter.reset(ordinals.getIter(docId));
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.DirectBuffers;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ordinals.DirectOrdinals;
+import org.elasticsearch.index.fielddata.ordinals.EmptyOrdinals;
+import org.elasticsearch.index.fielddata.ordinals.OrdinalsBuilder;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.settings.IndexSettings;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * String field data kept in direct memory (the <tt>direct</tt> format), see {@link DirectBytesAtomicFieldData}.
+ */
+public class DirectBytesIndexFieldData extends AbstractBytesIndexFieldData<DirectBytesAtomicFieldData> {
+
+    public static class Builder implements IndexFieldData.Builder {
+
+        @Override
+        public IndexFieldData<DirectBytesAtomicFieldData> build(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType type, IndexFieldDataCache cache) {
+            return new DirectBytesIndexFieldData(index, indexSettings, fieldNames, type, cache);
+        }
+    }
+
+    public DirectBytesIndexFieldData(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, IndexFieldDataCache cache) {
+        super(index, indexSettings, fieldNames, fieldDataType, cache);
+    }
+
+    @Override
+    public DirectBytesAtomicFieldData loadDirect(AtomicReaderContext context) throws Exception {
+        AtomicReader reader = context.reader();
+
+        Terms terms = reader.terms(getFieldNames().indexName());
+        TermsEnum termsEnum = terms == null ? null : filter(terms, reader);
+        if (termsEnum == null) {
+            IntBuffer termOrdToBytesOffset = DirectBuffers.allocate(2 * RamUsage.NUM_BYTES_INT).asIntBuffer();
+            return new DirectBytesAtomicFieldData(DirectBuffers.allocate(0), termOrdToBytesOffset, new EmptyOrdinals(reader.maxDoc()));
+        }
+
+        // a first pass over the terms sizes the direct buffers, so that the term bytes never go through the heap
+        long numTerms = 0;
+        long numBytes = 0;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            numTerms++;
+            numBytes += term.length;
+        }
+
+        ByteBuffer bytes = DirectBuffers.allocate(numBytes);
+        // 0 is reserved for "unset", and the last offset marks the end of the last term
+        IntBuffer termOrdToBytesOffset = DirectBuffers.allocate((numTerms + 2) * RamUsage.NUM_BYTES_INT).asIntBuffer();
+        termOrdToBytesOffset.put(0, 0);
+        termOrdToBytesOffset.put(1, 0);
+        OrdinalsBuilder builder = new OrdinalsBuilder(terms, reader.maxDoc());
+        try {
+            termsEnum = filter(terms, reader);
+            DocsEnum docsEnum = null;
+            for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+                final int termOrd = builder.nextOrdinal();
+                assert termOrd <= numTerms;
+                bytes.put(term.bytes, term.offset, term.length);
+                termOrdToBytesOffset.put(termOrd + 1, bytes.position());
+                docsEnum = termsEnum.docs(reader.getLiveDocs(), docsEnum, DocsEnum.FLAG_NONE);
+                for (int docId = docsEnum.nextDoc(); docId != DocsEnum.NO_MORE_DOCS; docId = docsEnum.nextDoc()) {
+                    builder.addDoc(docId);
+                }
+            }
+            return new DirectBytesAtomicFieldData(bytes, termOrdToBytesOffset, DirectOrdinals.build(builder));
+        } finally {
+            builder.close();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.AtomicNumericFieldData;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.ordinals.DirectOrdinals;
+import org.elasticsearch.index.fielddata.ordinals.Ordinals;
+
+import java.nio.LongBuffer;
+
+/**
+ * Numeric field data with both the unique values (indexed by ordinal) and the ordinals in direct memory.
+ * Floating point values are stored as their raw long bits.
+ */
+public class DirectNumericAtomicFieldData extends AtomicNumericFieldData implements AtomicFieldData.OffHeap<ScriptDocValues> {
+
+    // 0 ordinal in values means no value
+    private final LongBuffer values;
+    private final DirectOrdinals ordinals;
+    private final boolean isFloat;
+
+    public DirectNumericAtomicFieldData(LongBuffer values, DirectOrdinals ordinals, boolean isFloat) {
+        super(isFloat);
+        this.values = values;
+        this.ordinals = ordinals;
+        this.isFloat = isFloat;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return ordinals.isMultiValued();
+    }
+
+    @Override
+    public boolean isValuesOrdered() {
+        return true;
+    }
+
+    @Override
+    public int getNumDocs() {
+        return ordinals.getNumDocs();
+    }
+
+    @Override
+    public long getMemorySizeInBytes() {
+        return getOffHeapMemorySizeInBytes() + 3 * RamUsage.NUM_BYTES_OBJECT_REF;
+    }
+
+    @Override
+    public long getOffHeapMemorySizeInBytes() {
+        return (long) values.capacity() * RamUsage.NUM_BYTES_LONG + ordinals.getOffHeapMemorySizeInBytes();
+    }
+
+    @Override
+    public org.elasticsearch.index.fielddata.LongValues getLongValues() {
+        if (isFloat) {
+            return new DoubleBitsLongValues(values, ordinals.ordinals());
+        }
+        return new LongValues(values, ordinals.ordinals());
+    }
+
+    @Override
+    public org.elasticsearch.index.fielddata.DoubleValues getDoubleValues() {
+        if (isFloat) {
+            return new DoubleBitsDoubleValues(values, ordinals.ordinals());
+        }
+        return new DoubleValues(values, ordinals.ordinals());
+    }
+
+    static class LongValues extends org.elasticsearch.index.fielddata.LongValues.WithOrdinals {
+
+        private final LongBuffer values;
+
+        LongValues(LongBuffer values, Ordinals.Docs ordinals) {
+            super(ordinals);
+            this.values = values;
+        }
+
+        @Override
+        public long getValueByOrd(int ord) {
+            return values.get(ord);
+        }
+    }
+
+    static class DoubleValues extends org.elasticsearch.index.fielddata.DoubleValues.WithOrdinals {
+
+        private final LongBuffer values;
+
+        DoubleValues(LongBuffer values, Ordinals.Docs ordinals) {
+            super(ordinals);
+            this.values = values;
+        }
+
+        @Override
+        public double getValueByOrd(int ord) {
+            return values.get(ord);
+        }
+    }
+
+    static class DoubleBitsLongValues extends org.elasticsearch.index.fielddata.LongValues.WithOrdinals {
+
+        private final LongBuffer values;
+
+        DoubleBitsLongValues(LongBuffer values, Ordinals.Docs ordinals) {
+            super(ordinals);
+            this.values = values;
+        }
+
+        @Override
+        public long getValueByOrd(int ord) {
+            return (long) Double.longBitsToDouble(values.get(ord));
+        }
+    }
+
+    static class DoubleBitsDoubleValues extends org.elasticsearch.index.fielddata.DoubleValues.WithOrdinals {
+
+        private final LongBuffer values;
+
+        DoubleBitsDoubleValues(LongBuffer values, Ordinals.Docs ordinals) {
+            super(ordinals);
+            this.values = values;
+        }
+
+        @Override
+        public double getValueByOrd(int ord) {
+            return Double.longBitsToDouble(values.get(ord));
+        }
+    }
+}
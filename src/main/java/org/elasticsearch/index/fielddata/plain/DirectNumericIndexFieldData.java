@@ -0,0 +1,158 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import gnu.trove.list.array.TLongArrayList;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.DirectBuffers;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.*;
+import org.elasticsearch.index.fielddata.fieldcomparator.*;
+import org.elasticsearch.index.fielddata.ordinals.DirectOrdinals;
+import org.elasticsearch.index.fielddata.ordinals.OrdinalsBuilder;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.settings.IndexSettings;
+
+import java.nio.LongBuffer;
+
+/**
+ * Numeric field data kept in direct memory (the <tt>direct</tt> format), see {@link DirectNumericAtomicFieldData}.
+ */
+public class DirectNumericIndexFieldData extends AbstractIndexFieldData<AtomicNumericFieldData> implements IndexNumericFieldData<AtomicNumericFieldData> {
+
+    public static class Builder implements IndexFieldData.Builder {
+
+        private final NumericType numericType;
+
+        public Builder(NumericType numericType) {
+            this.numericType = numericType;
+        }
+
+        @Override
+        public IndexFieldData build(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType type, IndexFieldDataCache cache) {
+            return new DirectNumericIndexFieldData(index, indexSettings, fieldNames, type, cache, numericType);
+        }
+    }
+
+    private final NumericType numericType;
+
+    public DirectNumericIndexFieldData(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, IndexFieldDataCache cache, NumericType numericType) {
+        super(index, indexSettings, fieldNames, fieldDataType, cache);
+        this.numericType = numericType;
+    }
+
+    @Override
+    public NumericType getNumericType() {
+        return numericType;
+    }
+
+    @Override
+    public boolean valuesOrdered() {
+        return false;
+    }
+
+    @Override
+    public AtomicNumericFieldData load(AtomicReaderContext context) {
+        try {
+            return cache.load(context, this);
+        } catch (Throwable e) {
+            if (e instanceof ElasticSearchException) {
+                throw (ElasticSearchException) e;
+            } else {
+                throw new ElasticSearchException(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public AtomicNumericFieldData loadDirect(AtomicReaderContext context) throws Exception {
+        AtomicReader reader = context.reader();
+        Terms terms = reader.terms(getFieldNames().indexName());
+        if (terms == null) {
+            return numericType.isFloatingPoint() ? DoubleArrayAtomicFieldData.EMPTY : LongArrayAtomicFieldData.EMPTY;
+        }
+        // the unique values are collected on heap first, their count is only known once the terms are consumed
+        final TLongArrayList values = new TLongArrayList();
+        values.add(0); // first "t" indicates null value
+        OrdinalsBuilder builder = new OrdinalsBuilder(terms, reader.maxDoc());
+        try {
+            final boolean is64Bit = numericType.requiredBits() == 64;
+            TermsEnum termsEnum = is64Bit ? builder.wrapNumeric64Bit(terms.iterator(null)) : builder.wrapNumeric32Bit(terms.iterator(null));
+            BytesRefIterator iter = builder.buildFromTerms(termsEnum, reader.getLiveDocs());
+            BytesRef term;
+            while ((term = iter.next()) != null) {
+                values.add(decode(term));
+            }
+
+            LongBuffer buffer = DirectBuffers.allocate((long) values.size() * RamUsage.NUM_BYTES_LONG).asLongBuffer();
+            for (int i = 0; i < values.size(); i++) {
+                buffer.put(i, values.get(i));
+            }
+            return new DirectNumericAtomicFieldData(buffer, DirectOrdinals.build(builder), numericType.isFloatingPoint());
+        } finally {
+            builder.close();
+        }
+    }
+
+    /**
+     * Decodes a prefix coded term, floating point values are returned as their raw long bits.
+     */
+    private long decode(BytesRef term) {
+        switch (numericType) {
+            case LONG:
+                return NumericUtils.prefixCodedToLong(term);
+            case DOUBLE:
+                return Double.doubleToRawLongBits(NumericUtils.sortableLongToDouble(NumericUtils.prefixCodedToLong(term)));
+            case FLOAT:
+                return Double.doubleToRawLongBits(NumericUtils.sortableIntToFloat(NumericUtils.prefixCodedToInt(term)));
+            default:
+                return NumericUtils.prefixCodedToInt(term);
+        }
+    }
+
+    @Override
+    public XFieldComparatorSource comparatorSource(@Nullable Object missingValue, SortMode sortMode) {
+        switch (numericType) {
+            case BYTE:
+                return new ByteValuesComparatorSource(this, missingValue, sortMode);
+            case SHORT:
+                return new ShortValuesComparatorSource(this, missingValue, sortMode);
+            case INT:
+                return new IntValuesComparatorSource(this, missingValue, sortMode);
+            case FLOAT:
+                return new FloatValuesComparatorSource(this, missingValue, sortMode);
+            case DOUBLE:
+                return new DoubleValuesComparatorSource(this, missingValue, sortMode);
+            default:
+                return new LongValuesComparatorSource(this, missingValue, sortMode);
+        }
+    }
+}
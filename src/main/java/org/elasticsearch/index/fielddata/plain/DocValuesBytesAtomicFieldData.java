@@ -0,0 +1,107 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.ordinals.DocValuesOrdinals;
+
+/**
+ * String field data read from the sorted set doc values of a segment. Nothing is loaded on heap, the values
+ * are looked up (and copied) from the doc values of the segment on each access.
+ */
+public class DocValuesBytesAtomicFieldData implements AtomicFieldData.WithOrdinals<ScriptDocValues.Strings> {
+
+    private final DocValuesOrdinals ordinals;
+
+    public DocValuesBytesAtomicFieldData(AtomicReader reader, String field) {
+        this.ordinals = new DocValuesOrdinals(reader, field);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return ordinals.isMultiValued();
+    }
+
+    @Override
+    public int getNumDocs() {
+        return ordinals.getNumDocs();
+    }
+
+    @Override
+    public boolean isValuesOrdered() {
+        return true;
+    }
+
+    @Override
+    public long getMemorySizeInBytes() {
+        return ordinals.getMemorySizeInBytes();
+    }
+
+    @Override
+    public BytesValues getBytesValues() {
+        return new BytesValues(ordinals.ordinals());
+    }
+
+    @Override
+    public BytesValues getHashedBytesValues() {
+        return getBytesValues();
+    }
+
+    @Override
+    public ScriptDocValues.Strings getScriptValues() {
+        return new ScriptDocValues.Strings(getBytesValues());
+    }
+
+    static class BytesValues extends org.elasticsearch.index.fielddata.BytesValues.WithOrdinals {
+
+        private final SortedSetDocValues values;
+        private final Iter.Multi iter;
+
+        BytesValues(DocValuesOrdinals.Docs ordinals) {
+            super(ordinals);
+            this.values = ordinals.values();
+            this.iter = newMultiIter();
+        }
+
+        @Override
+        public BytesRef getValueScratchByOrd(int ord, BytesRef ret) {
+            if (ord == 0) {
+                ret.length = 0;
+                return ret;
+            }
+            values.lookupOrd(ord - 1, ret);
+            return ret;
+        }
+
+        @Override
+        public Iter getIter(int docId) {
+            return iter.reset(ordinals.getIter(docId));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.ordinals.DocValuesOrdinals;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.settings.IndexSettings;
+
+/**
+ * String field data (the <tt>doc_values</tt> format) read from the sorted set doc values written at index time.
+ * Segments without doc values for the field (indexed before the format was set) are un-inverted and cached
+ * like the <tt>paged_bytes</tt> format.
+ */
+public class DocValuesBytesIndexFieldData extends AbstractBytesIndexFieldData<AtomicFieldData.WithOrdinals<ScriptDocValues.Strings>> {
+
+    public static class Builder implements IndexFieldData.Builder {
+
+        @Override
+        public IndexFieldData build(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType type, IndexFieldDataCache cache) {
+            return new DocValuesBytesIndexFieldData(index, indexSettings, fieldNames, type, cache);
+        }
+    }
+
+    private final PagedBytesIndexFieldData fallback;
+
+    public DocValuesBytesIndexFieldData(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, IndexFieldDataCache cache) {
+        super(index, indexSettings, fieldNames, fieldDataType, cache);
+        this.fallback = new PagedBytesIndexFieldData(index, indexSettings, fieldNames, fieldDataType, cache);
+    }
+
+    @Override
+    public AtomicFieldData.WithOrdinals<ScriptDocValues.Strings> load(AtomicReaderContext context) {
+        if (DocValuesOrdinals.hasDocValues(context.reader(), getFieldNames().indexName())) {
+            // doc values are already owned by the segment, there is nothing to cache
+            return new DocValuesBytesAtomicFieldData(context.reader(), getFieldNames().indexName());
+        }
+        return super.load(context);
+    }
+
+    @Override
+    public AtomicFieldData.WithOrdinals<ScriptDocValues.Strings> loadDirect(AtomicReaderContext context) throws Exception {
+        if (DocValuesOrdinals.hasDocValues(context.reader(), getFieldNames().indexName())) {
+            return new DocValuesBytesAtomicFieldData(context.reader(), getFieldNames().indexName());
+        }
+        return fallback.loadDirect(context);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.fielddata.AtomicNumericFieldData;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
+import org.elasticsearch.index.fielddata.ordinals.DocValuesOrdinals;
+
+/**
+ * Numeric field data read from the sorted set doc values of a segment, which hold the prefix coded
+ * (full precision) terms of the field. Values are decoded on each access.
+ */
+public class DocValuesNumericAtomicFieldData extends AtomicNumericFieldData {
+
+    private final DocValuesOrdinals ordinals;
+    private final NumericType numericType;
+
+    public DocValuesNumericAtomicFieldData(AtomicReader reader, String field, NumericType numericType) {
+        super(numericType.isFloatingPoint());
+        this.ordinals = new DocValuesOrdinals(reader, field);
+        this.numericType = numericType;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return ordinals.isMultiValued();
+    }
+
+    @Override
+    public boolean isValuesOrdered() {
+        return true;
+    }
+
+    @Override
+    public int getNumDocs() {
+        return ordinals.getNumDocs();
+    }
+
+    @Override
+    public long getMemorySizeInBytes() {
+        return ordinals.getMemorySizeInBytes();
+    }
+
+    @Override
+    public org.elasticsearch.index.fielddata.LongValues getLongValues() {
+        return new LongValues(ordinals.ordinals(), numericType);
+    }
+
+    @Override
+    public org.elasticsearch.index.fielddata.DoubleValues getDoubleValues() {
+        return new DoubleValues(ordinals.ordinals(), numericType);
+    }
+
+    static double decodeDouble(SortedSetDocValues values, int ord, BytesRef scratch, NumericType numericType) {
+        if (ord == 0) {
+            return 0;
+        }
+        values.lookupOrd(ord - 1, scratch);
+        switch (numericType) {
+            case DOUBLE:
+                return NumericUtils.sortableLongToDouble(NumericUtils.prefixCodedToLong(scratch));
+            case FLOAT:
+                return NumericUtils.sortableIntToFloat(NumericUtils.prefixCodedToInt(scratch));
+            case LONG:
+                return NumericUtils.prefixCodedToLong(scratch);
+            default:
+                return NumericUtils.prefixCodedToInt(scratch);
+        }
+    }
+
+    static class LongValues extends org.elasticsearch.index.fielddata.LongValues.WithOrdinals {
+
+        private final SortedSetDocValues values;
+        private final NumericType numericType;
+        private final BytesRef scratch = new BytesRef();
+
+        LongValues(DocValuesOrdinals.Docs ordinals, NumericType numericType) {
+            super(ordinals);
+            this.values = ordinals.values();
+            this.numericType = numericType;
+        }
+
+        @Override
+        public long getValueByOrd(int ord) {
+            if (numericType.isFloatingPoint()) {
+                return (long) decodeDouble(values, ord, scratch, numericType);
+            }
+            if (ord == 0) {
+                return 0;
+            }
+            values.lookupOrd(ord - 1, scratch);
+            return numericType == NumericType.LONG ? NumericUtils.prefixCodedToLong(scratch) : NumericUtils.prefixCodedToInt(scratch);
+        }
+    }
+
+    static class DoubleValues extends org.elasticsearch.index.fielddata.DoubleValues.WithOrdinals {
+
+        private final SortedSetDocValues values;
+        private final NumericType numericType;
+        private final BytesRef scratch = new BytesRef();
+
+        DoubleValues(DocValuesOrdinals.Docs ordinals, NumericType numericType) {
+            super(ordinals);
+            this.values = ordinals.values();
+            this.numericType = numericType;
+        }
+
+        @Override
+        public double getValueByOrd(int ord) {
+            return decodeDouble(values, ord, scratch, numericType);
+        }
+    }
+}
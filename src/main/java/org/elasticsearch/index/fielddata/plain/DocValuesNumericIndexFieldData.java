@@ -0,0 +1,133 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.*;
+import org.elasticsearch.index.fielddata.fieldcomparator.*;
+import org.elasticsearch.index.fielddata.ordinals.DocValuesOrdinals;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.settings.IndexSettings;
+
+/**
+ * Numeric field data (the <tt>doc_values</tt> format) read from the sorted set doc values written at index time.
+ * Segments without doc values for the field are un-inverted and cached like the <tt>array</tt> format.
+ */
+public class DocValuesNumericIndexFieldData extends AbstractIndexFieldData<AtomicNumericFieldData> implements IndexNumericFieldData<AtomicNumericFieldData> {
+
+    public static class Builder implements IndexFieldData.Builder {
+
+        private final NumericType numericType;
+
+        public Builder(NumericType numericType) {
+            this.numericType = numericType;
+        }
+
+        @Override
+        public IndexFieldData build(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType type, IndexFieldDataCache cache) {
+            return new DocValuesNumericIndexFieldData(index, indexSettings, fieldNames, type, cache, numericType);
+        }
+    }
+
+    private final NumericType numericType;
+    private final IndexNumericFieldData<? extends AtomicNumericFieldData> fallback;
+
+    public DocValuesNumericIndexFieldData(Index index, @IndexSettings Settings indexSettings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, IndexFieldDataCache cache, NumericType numericType) {
+        super(index, indexSettings, fieldNames, fieldDataType, cache);
+        this.numericType = numericType;
+        switch (numericType) {
+            case BYTE:
+                fallback = new ByteArrayIndexFieldData(index, indexSettings, fieldNames, fieldDataType, cache);
+                break;
+            case SHORT:
+                fallback = new ShortArrayIndexFieldData(index, indexSettings, fieldNames, fieldDataType, cache);
+                break;
+            case INT:
+                fallback = new IntArrayIndexFieldData(index, indexSettings, fieldNames, fieldDataType, cache);
+                break;
+            case FLOAT:
+                fallback = new FloatArrayIndexFieldData(index, indexSettings, fieldNames, fieldDataType, cache);
+                break;
+            case DOUBLE:
+                fallback = new DoubleArrayIndexFieldData(index, indexSettings, fieldNames, fieldDataType, cache);
+                break;
+            default:
+                fallback = new LongArrayIndexFieldData(index, indexSettings, fieldNames, fieldDataType, cache);
+        }
+    }
+
+    @Override
+    public NumericType getNumericType() {
+        return numericType;
+    }
+
+    @Override
+    public boolean valuesOrdered() {
+        return false;
+    }
+
+    @Override
+    public AtomicNumericFieldData load(AtomicReaderContext context) {
+        if (DocValuesOrdinals.hasDocValues(context.reader(), getFieldNames().indexName())) {
+            // doc values are already owned by the segment, there is nothing to cache
+            return new DocValuesNumericAtomicFieldData(context.reader(), getFieldNames().indexName(), numericType);
+        }
+        try {
+            return cache.load(context, this);
+        } catch (Throwable e) {
+            if (e instanceof ElasticSearchException) {
+                throw (ElasticSearchException) e;
+            } else {
+                throw new ElasticSearchException(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public AtomicNumericFieldData loadDirect(AtomicReaderContext context) throws Exception {
+        if (DocValuesOrdinals.hasDocValues(context.reader(), getFieldNames().indexName())) {
+            return new DocValuesNumericAtomicFieldData(context.reader(), getFieldNames().indexName(), numericType);
+        }
+        return fallback.loadDirect(context);
+    }
+
+    @Override
+    public XFieldComparatorSource comparatorSource(@Nullable Object missingValue, SortMode sortMode) {
+        switch (numericType) {
+            case BYTE:
+                return new ByteValuesComparatorSource(this, missingValue, sortMode);
+            case SHORT:
+                return new ShortValuesComparatorSource(this, missingValue, sortMode);
+            case INT:
+                return new IntValuesComparatorSource(this, missingValue, sortMode);
+            case FLOAT:
+                return new FloatValuesComparatorSource(this, missingValue, sortMode);
+            case DOUBLE:
+                return new DoubleValuesComparatorSource(this, missingValue, sortMode);
+            default:
+                return new LongValuesComparatorSource(this, missingValue, sortMode);
+        }
+    }
+}
@@ -187,15 +187,30 @@ public class LongArrayIndexFieldData extends AbstractIndexFieldData<AtomicNumeri
                 long singleValuesArraySize = reader.maxDoc() * RamUsage.NUM_BYTES_LONG + (set == null ? 0 : set.getBits().length * RamUsage.NUM_BYTES_LONG + RamUsage.NUM_BYTES_INT);
                 long uniqueValuesArraySize = values.size() * RamUsage.NUM_BYTES_LONG;
                 long ordinalsSize = build.getMemorySizeInBytes();
-                if (uniqueValuesArraySize + ordinalsSize < singleValuesArraySize) {
-                    return new LongArrayAtomicFieldData.WithOrdinals(values.toArray(new long[values.size()]), reader.maxDoc(), build);
-                }
 
                 long[] sValues = new long[reader.maxDoc()];
                 int maxDoc = reader.maxDoc();
                 for (int i = 0; i < maxDoc; i++) {
                     sValues[i] = values.get(ordinals.getOrd(i));
                 }
+
+                if (fieldDataType.getSettings().getAsBoolean("optimize_type", true)) {
+                    // the range over the whole segment is often too large for a narrower type (think timestamps), but
+                    // the values of neighbouring docs are close or even sorted, which block-wise packing takes advantage of
+                    PackedLongArray packed = pack(sValues, set, uniqueValuesArraySize + ordinalsSize);
+                    if (packed != null) {
+                        if (set == null) {
+                            return new PackedArrayAtomicFieldData.Single(packed, reader.maxDoc());
+                        } else {
+                            return new PackedArrayAtomicFieldData.SingleFixedSet(packed, reader.maxDoc(), set);
+                        }
+                    }
+                }
+
+                if (uniqueValuesArraySize + ordinalsSize < singleValuesArraySize) {
+                    return new LongArrayAtomicFieldData.WithOrdinals(values.toArray(new long[values.size()]), reader.maxDoc(), build);
+                }
+
                 if (set == null) {
                     return new LongArrayAtomicFieldData.Single(sValues, reader.maxDoc());
                 } else {
@@ -210,6 +225,37 @@ public class LongArrayIndexFieldData extends AbstractIndexFieldData<AtomicNumeri
 
     }
 
+    /**
+     * Returns the smallest of the delta and monotonic packings of the values, or <tt>null</tt> if neither is smaller
+     * than the array of values or the provided size of the ordinals based representation.
+     */
+    static PackedLongArray pack(long[] values, @Nullable FixedBitSet set, long ordinalsBasedSize) {
+        if (set != null) {
+            // docs without a value take the value of the previous doc, so that they don't widen the range of their block
+            int firstSet = set.nextSetBit(0);
+            long previous = firstSet == -1 ? 0 : values[firstSet];
+            for (int i = 0; i < values.length; i++) {
+                if (set.get(i)) {
+                    previous = values[i];
+                } else {
+                    values[i] = previous;
+                }
+            }
+        }
+        long bestSize = Math.min(ordinalsBasedSize, RamUsage.NUM_BYTES_ARRAY_HEADER + values.length * RamUsage.NUM_BYTES_LONG);
+        PackedLongArray best = null;
+        PackedLongArray delta = PackedLongArray.delta(values);
+        if (delta.ramBytesUsed() < bestSize) {
+            best = delta;
+            bestSize = delta.ramBytesUsed();
+        }
+        PackedLongArray monotonic = PackedLongArray.monotonic(values);
+        if (monotonic.ramBytesUsed() < bestSize) {
+            best = monotonic;
+        }
+        return best;
+    }
+
     @Override
     public XFieldComparatorSource comparatorSource(@Nullable Object missingValue, SortMode sortMode) {
         return new LongValuesComparatorSource(this, missingValue, sortMode);
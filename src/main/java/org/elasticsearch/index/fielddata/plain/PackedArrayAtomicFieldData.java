@@ -0,0 +1,195 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.index.fielddata.AtomicNumericFieldData;
+
+/**
+ * Single valued long field data, with a value per doc kept in a {@link PackedLongArray}.
+ */
+public abstract class PackedArrayAtomicFieldData extends AtomicNumericFieldData {
+
+    protected final PackedLongArray values;
+    private final int numDocs;
+
+    protected long size = -1;
+
+    public PackedArrayAtomicFieldData(PackedLongArray values, int numDocs) {
+        super(false);
+        this.values = values;
+        this.numDocs = numDocs;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public int getNumDocs() {
+        return numDocs;
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return false;
+    }
+
+    @Override
+    public boolean isValuesOrdered() {
+        return false;
+    }
+
+    /**
+     * A single valued case, where not all values are "set", so we have a FixedBitSet that
+     * indicates which values have an actual value.
+     */
+    public static class SingleFixedSet extends PackedArrayAtomicFieldData {
+
+        private final FixedBitSet set;
+
+        public SingleFixedSet(PackedLongArray values, int numDocs, FixedBitSet set) {
+            super(values, numDocs);
+            this.set = set;
+        }
+
+        @Override
+        public long getMemorySizeInBytes() {
+            if (size == -1) {
+                size = values.ramBytesUsed() + RamUsage.NUM_BYTES_ARRAY_HEADER + (set.getBits().length * RamUsage.NUM_BYTES_LONG);
+            }
+            return size;
+        }
+
+        @Override
+        public LongValues getLongValues() {
+            return new LongValues(values, set);
+        }
+
+        @Override
+        public DoubleValues getDoubleValues() {
+            return new DoubleValues(values, set);
+        }
+
+        static class LongValues extends org.elasticsearch.index.fielddata.LongValues {
+
+            private final PackedLongArray values;
+            private final FixedBitSet set;
+
+            LongValues(PackedLongArray values, FixedBitSet set) {
+                super(false);
+                this.values = values;
+                this.set = set;
+            }
+
+            @Override
+            public boolean hasValue(int docId) {
+                return set.get(docId);
+            }
+
+            @Override
+            public long getValue(int docId) {
+                return values.get(docId);
+            }
+        }
+
+        static class DoubleValues extends org.elasticsearch.index.fielddata.DoubleValues {
+
+            private final PackedLongArray values;
+            private final FixedBitSet set;
+
+            DoubleValues(PackedLongArray values, FixedBitSet set) {
+                super(false);
+                this.values = values;
+                this.set = set;
+            }
+
+            @Override
+            public boolean hasValue(int docId) {
+                return set.get(docId);
+            }
+
+            @Override
+            public double getValue(int docId) {
+                return (double) values.get(docId);
+            }
+        }
+    }
+
+    /**
+     * Assumes all the values are "set", and docId is used as the index to the packed values.
+     */
+    public static class Single extends PackedArrayAtomicFieldData {
+
+        public Single(PackedLongArray values, int numDocs) {
+            super(values, numDocs);
+        }
+
+        @Override
+        public long getMemorySizeInBytes() {
+            if (size == -1) {
+                size = values.ramBytesUsed();
+            }
+            return size;
+        }
+
+        @Override
+        public LongValues getLongValues() {
+            return new LongValues(values);
+        }
+
+        @Override
+        public DoubleValues getDoubleValues() {
+            return new DoubleValues(values);
+        }
+
+        static class LongValues extends org.elasticsearch.index.fielddata.LongValues.Dense {
+
+            private final PackedLongArray values;
+
+            LongValues(PackedLongArray values) {
+                super(false);
+                this.values = values;
+            }
+
+            @Override
+            public long getValue(int docId) {
+                return values.get(docId);
+            }
+        }
+
+        static class DoubleValues extends org.elasticsearch.index.fielddata.DoubleValues.Dense {
+
+            private final PackedLongArray values;
+
+            DoubleValues(PackedLongArray values) {
+                super(false);
+                this.values = values;
+            }
+
+            @Override
+            public double getValue(int docId) {
+                return (double) values.get(docId);
+            }
+        }
+    }
+}
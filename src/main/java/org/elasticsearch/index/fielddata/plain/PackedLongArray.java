@@ -0,0 +1,170 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.plain;
+
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.RamUsage;
+
+/**
+ * A read only array of longs, bit packed in blocks of {@link #BLOCK_SIZE} values. Each block either stores the deltas of
+ * its values from the block minimum (see {@link #delta(long[])}), or, for values that grow mostly linearly like the
+ * timestamps of time based data, the deviations of its values from a line through the block (see {@link #monotonic(long[])}).
+ */
+public abstract class PackedLongArray {
+
+    static final int BLOCK_SHIFT = 10;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    protected final int size;
+    protected final long[] mins;
+    // null when all the values of the block are the same
+    protected final PackedInts.Reader[] blocks;
+
+    PackedLongArray(int size) {
+        this.size = size;
+        int numBlocks = (size + BLOCK_MASK) >>> BLOCK_SHIFT;
+        this.mins = new long[numBlocks];
+        this.blocks = new PackedInts.Reader[numBlocks];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public abstract long get(int index);
+
+    public long ramBytesUsed() {
+        long size = 2 * RamUsage.NUM_BYTES_ARRAY_HEADER + mins.length * (RamUsage.NUM_BYTES_LONG + RamUsage.NUM_BYTES_OBJECT_REF);
+        for (PackedInts.Reader block : blocks) {
+            if (block != null) {
+                size += block.ramBytesUsed();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Packs the values of each block as their deltas from the block minimum.
+     */
+    public static PackedLongArray delta(long[] values) {
+        Delta array = new Delta(values.length);
+        for (int block = 0; block < array.mins.length; block++) {
+            final int start = block << BLOCK_SHIFT;
+            final int end = Math.min(values.length, start + BLOCK_SIZE);
+            long min = Long.MAX_VALUE;
+            for (int i = start; i < end; i++) {
+                min = Math.min(min, values[i]);
+            }
+            long or = 0;
+            for (int i = start; i < end; i++) {
+                or |= values[i] - min;
+            }
+            array.mins[block] = min;
+            if (or != 0) {
+                // the delta of a range wider than Long.MAX_VALUE overflows, in which case all 64 bits are needed
+                PackedInts.Mutable packed = PackedInts.getMutable(end - start, or < 0 ? 64 : PackedInts.bitsRequired(or), PackedInts.COMPACT);
+                for (int i = start; i < end; i++) {
+                    packed.set(i - start, values[i] - min);
+                }
+                array.blocks[block] = packed;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Packs the values of each block as their deviations from the line between the first and the last value of the block.
+     */
+    public static PackedLongArray monotonic(long[] values) {
+        Monotonic array = new Monotonic(values.length);
+        for (int block = 0; block < array.mins.length; block++) {
+            final int start = block << BLOCK_SHIFT;
+            final int end = Math.min(values.length, start + BLOCK_SIZE);
+            final long first = values[start];
+            final float average = end - start == 1 ? 0f : (float) (values[end - 1] - first) / (end - start - 1);
+            long or = 0;
+            for (int i = start; i < end; i++) {
+                or |= zigZagEncode(values[i] - expected(first, average, i - start));
+            }
+            array.mins[block] = first;
+            array.averages[block] = average;
+            if (or != 0) {
+                PackedInts.Mutable packed = PackedInts.getMutable(end - start, or < 0 ? 64 : PackedInts.bitsRequired(or), PackedInts.COMPACT);
+                for (int i = start; i < end; i++) {
+                    packed.set(i - start, zigZagEncode(values[i] - expected(first, average, i - start)));
+                }
+                array.blocks[block] = packed;
+            }
+        }
+        return array;
+    }
+
+    static long expected(long first, float average, int index) {
+        return first + (long) (average * index);
+    }
+
+    static long zigZagEncode(long l) {
+        return (l >> 63) ^ (l << 1);
+    }
+
+    static long zigZagDecode(long l) {
+        return (l >>> 1) ^ -(l & 1);
+    }
+
+    static final class Delta extends PackedLongArray {
+
+        Delta(int size) {
+            super(size);
+        }
+
+        @Override
+        public long get(int index) {
+            final int block = index >>> BLOCK_SHIFT;
+            final PackedInts.Reader packed = blocks[block];
+            return packed == null ? mins[block] : mins[block] + packed.get(index & BLOCK_MASK);
+        }
+    }
+
+    static final class Monotonic extends PackedLongArray {
+
+        private final float[] averages;
+
+        Monotonic(int size) {
+            super(size);
+            this.averages = new float[mins.length];
+        }
+
+        @Override
+        public long get(int index) {
+            final int block = index >>> BLOCK_SHIFT;
+            final int blockIndex = index & BLOCK_MASK;
+            final long expected = expected(mins[block], averages[block], blockIndex);
+            final PackedInts.Reader packed = blocks[block];
+            return packed == null ? expected : expected + zigZagDecode(packed.get(blockIndex));
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return super.ramBytesUsed() + RamUsage.NUM_BYTES_ARRAY_HEADER + averages.length * RamUsage.NUM_BYTES_FLOAT;
+        }
+    }
+}
@@ -19,10 +19,13 @@
 
 package org.elasticsearch.index.indexing;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.lucene.uid.UidLookupStats;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -150,6 +153,10 @@ public class IndexingStats implements Streamable, ToXContent {
     @Nullable
     private Map<String, Stats> typeStats;
 
+    private long versionMapMemorySize;
+
+    private UidLookupStats uidLookupStats = new UidLookupStats();
+
     public IndexingStats() {
         totalStats = new Stats();
     }
@@ -168,6 +175,8 @@ public class IndexingStats implements Streamable, ToXContent {
             return;
         }
         totalStats.add(indexingStats.totalStats);
+        versionMapMemorySize += indexingStats.versionMapMemorySize;
+        uidLookupStats.add(indexingStats.uidLookupStats);
         if (includeTypes && indexingStats.typeStats != null && !indexingStats.typeStats.isEmpty()) {
             if (typeStats == null) {
                 typeStats = new HashMap<String, Stats>(indexingStats.typeStats.size());
@@ -192,10 +201,41 @@ public class IndexingStats implements Streamable, ToXContent {
         return this.typeStats;
     }
 
+    /**
+     * The memory used by the engine to track the versions of operations that are not yet refreshed.
+     */
+    public long getVersionMapMemorySizeInBytes() {
+        return this.versionMapMemorySize;
+    }
+
+    public ByteSizeValue getVersionMapMemorySize() {
+        return new ByteSizeValue(versionMapMemorySize);
+    }
+
+    public IndexingStats versionMapMemorySize(long versionMapMemorySize) {
+        this.versionMapMemorySize = versionMapMemorySize;
+        return this;
+    }
+
+    /**
+     * The lookups of uids in the index done by the engine to resolve versions.
+     */
+    public UidLookupStats getUidLookup() {
+        return this.uidLookupStats;
+    }
+
+    public IndexingStats uidLookup(UidLookupStats uidLookupStats) {
+        this.uidLookupStats = uidLookupStats;
+        return this;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, ToXContent.Params params) throws IOException {
         builder.startObject(Fields.INDEXING);
         totalStats.toXContent(builder, params);
+        builder.field(Fields.VERSION_MAP_MEMORY_SIZE, getVersionMapMemorySize().toString());
+        builder.field(Fields.VERSION_MAP_MEMORY_SIZE_IN_BYTES, versionMapMemorySize);
+        uidLookupStats.toXContent(builder, params);
         if (typeStats != null && !typeStats.isEmpty()) {
             builder.startObject(Fields.TYPES);
             for (Map.Entry<String, Stats> entry : typeStats.entrySet()) {
@@ -220,6 +260,8 @@ public class IndexingStats implements Streamable, ToXContent {
         static final XContentBuilderString DELETE_TIME = new XContentBuilderString("delete_time");
         static final XContentBuilderString DELETE_TIME_IN_MILLIS = new XContentBuilderString("delete_time_in_millis");
         static final XContentBuilderString DELETE_CURRENT = new XContentBuilderString("delete_current");
+        static final XContentBuilderString VERSION_MAP_MEMORY_SIZE = new XContentBuilderString("version_map_memory_size");
+        static final XContentBuilderString VERSION_MAP_MEMORY_SIZE_IN_BYTES = new XContentBuilderString("version_map_memory_size_in_bytes");
     }
 
     public static IndexingStats readIndexingStats(StreamInput in) throws IOException {
@@ -231,6 +273,10 @@ public class IndexingStats implements Streamable, ToXContent {
     @Override
     public void readFrom(StreamInput in) throws IOException {
         totalStats = Stats.readStats(in);
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            versionMapMemorySize = in.readVLong();
+            uidLookupStats = UidLookupStats.readUidLookupStats(in);
+        }
         if (in.readBoolean()) {
             int size = in.readVInt();
             typeStats = new HashMap<String, Stats>(size);
@@ -243,6 +289,10 @@ public class IndexingStats implements Streamable, ToXContent {
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         totalStats.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeVLong(versionMapMemorySize);
+            uidLookupStats.writeTo(out);
+        }
         if (typeStats == null || typeStats.isEmpty()) {
             out.writeBoolean(false);
         } else {
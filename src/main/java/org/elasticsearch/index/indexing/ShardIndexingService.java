@@ -140,6 +140,11 @@ public class ShardIndexingService extends AbstractIndexShardComponent {
         }
     }
 
+    public void failedCreate(Engine.Create create) {
+        totalStats.indexCurrent.dec();
+        typeStats(create.type()).indexCurrent.dec();
+    }
+
     public Engine.Index preIndex(Engine.Index index) {
         totalStats.indexCurrent.inc();
         typeStats(index.type()).indexCurrent.inc();
@@ -23,6 +23,7 @@ import com.google.common.base.Objects;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queries.TermsFilter;
@@ -391,6 +392,9 @@ public abstract class AbstractFieldMapper<T> implements FieldMapper<T>, Mapper {
             }
             if (context.listener().beforeFieldAdded(this, field, context)) {
                 context.doc().add(field);
+                if (fieldDataType != null && fieldDataType.hasDocValues() && !fieldType.tokenized()) {
+                    addDocValue(context, field);
+                }
             }
         } catch (Exception e) {
             throw new MapperParsingException("failed to parse [" + names.fullName() + "]", e);
@@ -399,6 +403,18 @@ public abstract class AbstractFieldMapper<T> implements FieldMapper<T>, Mapper {
 
     protected abstract Field parseCreateField(ParseContext context) throws IOException;
 
+    /**
+     * Adds the value of the field as a sorted set doc value, using the bytes of its indexed term so that
+     * field data read from doc values is the same as the un-inverted one. Tokenized fields have no doc
+     * values, their field data is always un-inverted.
+     */
+    protected void addDocValue(ParseContext context, Field field) {
+        Object value = field.numericValue() != null ? field.numericValue() : field.stringValue();
+        if (value != null) {
+            context.doc().add(new SortedSetDocValuesField(names.indexName(), indexedValueForSearch(value)));
+        }
+    }
+
     /**
      * Derived classes can override it to specify that boost value is set by derived classes.
      */
@@ -22,6 +22,7 @@ package org.elasticsearch.index.mapper.core;
 import org.apache.lucene.analysis.NumericTokenStream;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.Query;
@@ -180,6 +181,21 @@ public abstract class NumberFieldMapper<T extends Number> extends AbstractFieldM
 
     protected abstract Field innerParseCreateField(ParseContext context) throws IOException;
 
+    /**
+     * The number is only kept in the field when it is stored, go through its string representation instead.
+     */
+    @Override
+    protected void addDocValue(ParseContext context, Field field) {
+        if (!(field instanceof CustomNumericField)) {
+            super.addDocValue(context, field);
+            return;
+        }
+        String value = ((CustomNumericField) field).numericAsString();
+        String type = fieldDataType().getType();
+        Number number = "double".equals(type) || "float".equals(type) ? Double.parseDouble(value) : Long.parseLong(value);
+        context.doc().add(new SortedSetDocValuesField(names.indexName(), indexedValueForSearch(number)));
+    }
+
     /**
      * Use the field query created here when matching on numbers.
      */
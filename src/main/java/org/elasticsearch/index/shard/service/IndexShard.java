@@ -46,6 +46,7 @@ import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.shard.IndexShardComponent;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.store.StoreStats;
+import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 
@@ -88,6 +89,8 @@ public interface IndexShard extends IndexShardComponent {
 
     WarmerStats warmerStats();
 
+    TranslogStats translogStats();
+
     FilterCacheStats filterCacheStats();
 
     IdCacheStats idCacheStats();
@@ -108,6 +111,12 @@ public interface IndexShard extends IndexShardComponent {
 
     void delete(Engine.Delete delete) throws ElasticSearchException;
 
+    /**
+     * Executes the prepared create, index and delete operations as a single engine batch. Failures of
+     * single operations are recorded on the bulk.
+     */
+    void bulk(Engine.Bulk bulk) throws ElasticSearchException;
+
     Engine.DeleteByQuery prepareDeleteByQuery(BytesReference querySource, @Nullable String[] filteringAliases, String... types) throws ElasticSearchException;
 
     void deleteByQuery(Engine.DeleteByQuery deleteByQuery) throws ElasticSearchException;
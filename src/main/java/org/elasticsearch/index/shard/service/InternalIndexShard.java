@@ -68,6 +68,7 @@ import org.elasticsearch.index.shard.*;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndicesLifecycle;
@@ -112,9 +113,13 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
     private long checkIndexTook = 0;
     private volatile IndexShardState state;
 
-    private TimeValue refreshInterval;
+    private volatile TimeValue refreshInterval;
+    private volatile boolean adaptiveRefresh;
     private final TimeValue mergeInterval;
 
+    private volatile long lastRefreshTime;
+    private volatile long lastSearcherAccessTime;
+
     private volatile ScheduledFuture refreshScheduledFuture;
     private volatile ScheduledFuture mergeScheduleFuture;
     private volatile ShardRouting shardRouting;
@@ -152,6 +157,10 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         state = IndexShardState.CREATED;
 
         this.refreshInterval = indexSettings.getAsTime("engine.robin.refresh_interval", indexSettings.getAsTime(INDEX_REFRESH_INTERVAL, engine.defaultRefreshInterval()));
+        this.adaptiveRefresh = indexSettings.getAsBoolean(INDEX_REFRESH_ADAPTIVE, false);
+        this.lastRefreshTime = threadPool.estimatedTimeInMillis();
+        // new shards are not search idle, searches may come as soon as they start
+        this.lastSearcherAccessTime = lastRefreshTime;
         this.mergeInterval = indexSettings.getAsTime("index.merge.async_interval", TimeValue.timeValueSeconds(1));
 
         indexSettingsService.addListener(applyRefreshSettings);
@@ -288,6 +297,8 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
             engine.start();
             startScheduledTasksIfNeeded();
             logger.debug("state: [{}]->[{}], reason [{}]", state, IndexShardState.STARTED, reason);
+            // the recovery might have taken a while, the shard is not search idle until searches had a chance to come
+            lastSearcherAccessTime = threadPool.estimatedTimeInMillis();
             state = IndexShardState.STARTED;
         }
         indicesLifecycle.afterIndexShardStarted(this);
@@ -370,6 +381,54 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         indexingService.postDelete(delete);
     }
 
+    @Override
+    public void bulk(Engine.Bulk bulk) throws ElasticSearchException {
+        writeAllowed();
+        Engine.Operation[] ops = bulk.ops();
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i] instanceof Engine.Create) {
+                ops[i] = indexingService.preCreate((Engine.Create) ops[i]);
+            } else if (ops[i] instanceof Engine.Index) {
+                ops[i] = indexingService.preIndex((Engine.Index) ops[i]);
+            } else if (ops[i] instanceof Engine.Delete) {
+                ops[i] = indexingService.preDelete((Engine.Delete) ops[i]);
+            }
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("bulk [{}] operations", ops.length);
+        }
+        try {
+            engine.bulk(bulk);
+        } catch (RuntimeException ex) {
+            for (Engine.Operation op : ops) {
+                failedOperation(op);
+            }
+            throw ex;
+        }
+        long endTime = System.nanoTime();
+        for (int i = 0; i < ops.length; i++) {
+            if (bulk.failure(i) != null) {
+                failedOperation(ops[i]);
+            } else if (ops[i] instanceof Engine.Create) {
+                indexingService.postCreate(((Engine.Create) ops[i]).endTime(endTime));
+            } else if (ops[i] instanceof Engine.Index) {
+                indexingService.postIndex(((Engine.Index) ops[i]).endTime(endTime));
+            } else if (ops[i] instanceof Engine.Delete) {
+                indexingService.postDelete(((Engine.Delete) ops[i]).endTime(endTime));
+            }
+        }
+    }
+
+    private void failedOperation(Engine.Operation op) {
+        if (op instanceof Engine.Create) {
+            indexingService.failedCreate((Engine.Create) op);
+        } else if (op instanceof Engine.Index) {
+            indexingService.failedIndex((Engine.Index) op);
+        } else if (op instanceof Engine.Delete) {
+            indexingService.failedDelete((Engine.Delete) op);
+        }
+    }
+
     @Override
     public Engine.DeleteByQuery prepareDeleteByQuery(BytesReference querySource, @Nullable String[] filteringAliases, String... types) throws ElasticSearchException {
         long startTime = System.nanoTime();
@@ -409,10 +468,42 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
             logger.trace("refresh with {}", refresh);
         }
         long time = System.nanoTime();
+        // changes done before this point are visible once the refresh is done
+        long refreshTime = threadPool.estimatedTimeInMillis();
         engine.refresh(refresh);
+        lastRefreshTime = refreshTime;
         refreshMetric.inc(System.nanoTime() - time);
     }
 
+    /**
+     * The interval of scheduled refreshes, a negative value disables them.
+     */
+    public TimeValue refreshInterval() {
+        return this.refreshInterval;
+    }
+
+    /**
+     * Are the scheduled refreshes of this shard left to the node level
+     * {@link org.elasticsearch.indices.refresh.AdaptiveRefreshController}.
+     */
+    public boolean adaptiveRefresh() {
+        return this.adaptiveRefresh;
+    }
+
+    /**
+     * The (estimated) time, in millis, the last refresh started.
+     */
+    public long lastRefreshTime() {
+        return this.lastRefreshTime;
+    }
+
+    /**
+     * The (estimated) time, in millis, a searcher was last acquired, or <tt>0</tt> if never.
+     */
+    public long lastSearcherAccessTime() {
+        return this.lastSearcherAccessTime;
+    }
+
     @Override
     public RefreshStats refreshStats() {
         return new RefreshStats(refreshMetric.count(), TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()));
@@ -440,7 +531,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
 
     @Override
     public IndexingStats indexingStats(String... types) {
-        return indexingService.stats(types);
+        return indexingService.stats(types).versionMapMemorySize(engine.versionMapMemorySizeInBytes()).uidLookup(engine.uidLookupStats());
     }
 
     @Override
@@ -472,6 +563,11 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         return shardWarmerService.stats();
     }
 
+    @Override
+    public TranslogStats translogStats() {
+        return translog.stats();
+    }
+
     @Override
     public FilterCacheStats filterCacheStats() {
         return shardFilterCache.stats();
@@ -529,6 +625,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
     @Override
     public Engine.Searcher searcher() {
         readAllowed();
+        lastSearcherAccessTime = threadPool.estimatedTimeInMillis();
         return engine.searcher();
     }
 
@@ -592,6 +689,8 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         engine.refresh(new Engine.Refresh(true));
         synchronized (mutex) {
             logger.debug("state: [{}]->[{}], reason [post recovery]", state, IndexShardState.STARTED);
+            // the recovery might have taken a while, the shard is not search idle until searches had a chance to come
+            lastSearcherAccessTime = threadPool.estimatedTimeInMillis();
             state = IndexShardState.STARTED;
         }
         startScheduledTasksIfNeeded();
@@ -685,7 +784,9 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
     }
 
     private void startScheduledTasksIfNeeded() {
-        if (refreshInterval.millis() > 0) {
+        if (adaptiveRefresh) {
+            logger.debug("scheduled refresher left to the adaptive refresh controller");
+        } else if (refreshInterval.millis() > 0) {
             refreshScheduledFuture = threadPool.schedule(refreshInterval, ThreadPool.Names.SAME, new EngineRefresher());
             logger.debug("scheduling refresher every {}", refreshInterval);
         } else {
@@ -711,6 +812,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
     }
 
     public static final String INDEX_REFRESH_INTERVAL = "index.refresh_interval";
+    public static final String INDEX_REFRESH_ADAPTIVE = "index.refresh.adaptive";
 
     private class ApplyRefreshSettings implements IndexSettingsService.Listener {
         @Override
@@ -720,14 +822,22 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
                     return;
                 }
                 TimeValue refreshInterval = settings.getAsTime("engine.robin.refresh_interval", settings.getAsTime(INDEX_REFRESH_INTERVAL, InternalIndexShard.this.refreshInterval));
-                if (!refreshInterval.equals(InternalIndexShard.this.refreshInterval)) {
-                    logger.info("updating refresh_interval from [{}] to [{}]", InternalIndexShard.this.refreshInterval, refreshInterval);
+                boolean adaptiveRefresh = settings.getAsBoolean(INDEX_REFRESH_ADAPTIVE, InternalIndexShard.this.adaptiveRefresh);
+                if (!refreshInterval.equals(InternalIndexShard.this.refreshInterval) || adaptiveRefresh != InternalIndexShard.this.adaptiveRefresh) {
+                    if (!refreshInterval.equals(InternalIndexShard.this.refreshInterval)) {
+                        logger.info("updating refresh_interval from [{}] to [{}]", InternalIndexShard.this.refreshInterval, refreshInterval);
+                    }
+                    if (adaptiveRefresh != InternalIndexShard.this.adaptiveRefresh) {
+                        logger.info("updating {} from [{}] to [{}]", INDEX_REFRESH_ADAPTIVE, InternalIndexShard.this.adaptiveRefresh, adaptiveRefresh);
+                    }
                     if (refreshScheduledFuture != null) {
                         refreshScheduledFuture.cancel(false);
                         refreshScheduledFuture = null;
                     }
                     InternalIndexShard.this.refreshInterval = refreshInterval;
-                    if (refreshInterval.millis() > 0) {
+                    InternalIndexShard.this.adaptiveRefresh = adaptiveRefresh;
+                    // the scheduled refresher only runs once started, the adaptive controller takes over otherwise
+                    if (!adaptiveRefresh && refreshInterval.millis() > 0 && state == IndexShardState.STARTED) {
                         refreshScheduledFuture = threadPool.schedule(refreshInterval, ThreadPool.Names.SAME, new EngineRefresher());
                     }
                 }
@@ -741,7 +851,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
             // we check before if a refresh is needed, if not, we reschedule, otherwise, we fork, refresh, and then reschedule
             if (!engine().refreshNeeded()) {
                 synchronized (mutex) {
-                    if (state != IndexShardState.CLOSED) {
+                    if (state != IndexShardState.CLOSED && !adaptiveRefresh) {
                         refreshScheduledFuture = threadPool.schedule(refreshInterval, ThreadPool.Names.SAME, this);
                     }
                 }
@@ -774,7 +884,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
                         }
                     }
                     synchronized (mutex) {
-                        if (state != IndexShardState.CLOSED) {
+                        if (state != IndexShardState.CLOSED && !adaptiveRefresh) {
                             refreshScheduledFuture = threadPool.schedule(refreshInterval, ThreadPool.Names.SAME, EngineRefresher.this);
                         }
                     }
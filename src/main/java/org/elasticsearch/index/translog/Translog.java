@@ -99,6 +99,12 @@ public interface Translog extends IndexShardComponent, CloseableIndexComponent {
 
     byte[] read(Location location);
 
+    /**
+     * Reads the operation at the location, without copying it when the translog is mapped in memory. Returns
+     * <tt>null</tt> if the location is not part of the translog anymore.
+     */
+    BytesReference readBytes(Location location);
+
     /**
      * Snapshots the current transaction log allowing to safely iterate over the snapshot.
      */
@@ -125,6 +131,15 @@ public interface Translog extends IndexShardComponent, CloseableIndexComponent {
 
     void syncOnEachOperation(boolean syncOnEachOperation);
 
+    /**
+     * Waits for the operations added so far to be synced when syncing on each operation using group
+     * commit, returns right away otherwise. Should be called once the added operations have been applied,
+     * without holding locks, so concurrent writers can share a single sync.
+     */
+    void syncOperations();
+
+    TranslogStats stats();
+
     static class Location {
         public final long translogId;
         public final long translogLocation;
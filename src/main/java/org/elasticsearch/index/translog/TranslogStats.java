@@ -0,0 +1,231 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.metrics.HistogramMetric;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ */
+public class TranslogStats implements Streamable, ToXContent {
+
+    private long operations;
+
+    private long sizeInBytes;
+
+    private long syncs;
+
+    private long syncedOperations;
+
+    private long syncWaitTimeInMillis;
+
+    private long[] syncBatchSizeHistogram = new long[0];
+
+    private long[] syncWaitTimeHistogram = new long[0];
+
+    public TranslogStats() {
+
+    }
+
+    public TranslogStats(long operations, long sizeInBytes, long syncs, long syncedOperations, long syncWaitTimeInMillis,
+                         long[] syncBatchSizeHistogram, long[] syncWaitTimeHistogram) {
+        this.operations = operations;
+        this.sizeInBytes = sizeInBytes;
+        this.syncs = syncs;
+        this.syncedOperations = syncedOperations;
+        this.syncWaitTimeInMillis = syncWaitTimeInMillis;
+        this.syncBatchSizeHistogram = syncBatchSizeHistogram;
+        this.syncWaitTimeHistogram = syncWaitTimeHistogram;
+    }
+
+    public void add(TranslogStats translogStats) {
+        if (translogStats == null) {
+            return;
+        }
+        this.operations += translogStats.operations;
+        this.sizeInBytes += translogStats.sizeInBytes;
+        this.syncs += translogStats.syncs;
+        this.syncedOperations += translogStats.syncedOperations;
+        this.syncWaitTimeInMillis += translogStats.syncWaitTimeInMillis;
+        this.syncBatchSizeHistogram = add(this.syncBatchSizeHistogram, translogStats.syncBatchSizeHistogram);
+        this.syncWaitTimeHistogram = add(this.syncWaitTimeHistogram, translogStats.syncWaitTimeHistogram);
+    }
+
+    private static long[] add(long[] histogram, long[] other) {
+        if (other.length > histogram.length) {
+            long[] tmp = histogram;
+            histogram = other.clone();
+            other = tmp;
+        } else {
+            histogram = histogram.clone();
+        }
+        for (int i = 0; i < other.length; i++) {
+            histogram[i] += other[i];
+        }
+        return histogram;
+    }
+
+    /**
+     * The estimated number of operations in the current translog.
+     */
+    public long operations() {
+        return this.operations;
+    }
+
+    public long sizeInBytes() {
+        return this.sizeInBytes;
+    }
+
+    public ByteSizeValue size() {
+        return new ByteSizeValue(sizeInBytes);
+    }
+
+    /**
+     * The number of group commit syncs executed.
+     */
+    public long syncs() {
+        return this.syncs;
+    }
+
+    /**
+     * The number of operations made durable by group commit syncs, a bulk counts as a single operation.
+     */
+    public long syncedOperations() {
+        return this.syncedOperations;
+    }
+
+    /**
+     * The total time operations waited for a group commit sync (in milliseconds).
+     */
+    public long syncWaitTimeInMillis() {
+        return this.syncWaitTimeInMillis;
+    }
+
+    public TimeValue syncWaitTime() {
+        return new TimeValue(syncWaitTimeInMillis);
+    }
+
+    /**
+     * The number of group commit syncs per batch size, in power of two buckets, see {@link HistogramMetric}.
+     */
+    public long[] syncBatchSizeHistogram() {
+        return this.syncBatchSizeHistogram;
+    }
+
+    /**
+     * The number of operations per time waited for a group commit sync (in milliseconds), in power of two
+     * buckets, see {@link HistogramMetric}.
+     */
+    public long[] syncWaitTimeHistogram() {
+        return this.syncWaitTimeHistogram;
+    }
+
+    public static TranslogStats readTranslogStats(StreamInput in) throws IOException {
+        TranslogStats translogStats = new TranslogStats();
+        translogStats.readFrom(in);
+        return translogStats;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.TRANSLOG);
+        builder.field(Fields.OPERATIONS, operations);
+        builder.field(Fields.SIZE, size().toString());
+        builder.field(Fields.SIZE_IN_BYTES, sizeInBytes);
+        builder.field(Fields.SYNCS, syncs);
+        builder.field(Fields.SYNCED_OPERATIONS, syncedOperations);
+        builder.field(Fields.SYNC_WAIT_TIME, syncWaitTime().toString());
+        builder.field(Fields.SYNC_WAIT_TIME_IN_MILLIS, syncWaitTimeInMillis);
+        histogramToXContent(builder, Fields.SYNC_BATCH_SIZE_HISTOGRAM, syncBatchSizeHistogram);
+        histogramToXContent(builder, Fields.SYNC_WAIT_TIME_HISTOGRAM_IN_MILLIS, syncWaitTimeHistogram);
+        builder.endObject();
+        return builder;
+    }
+
+    private static void histogramToXContent(XContentBuilder builder, XContentBuilderString name, long[] histogram) throws IOException {
+        // keyed by the lowest value of each bucket, empty buckets are omitted
+        builder.startObject(name);
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+                builder.field(Long.toString(HistogramMetric.lowerBound(i)), histogram[i]);
+            }
+        }
+        builder.endObject();
+    }
+
+    static final class Fields {
+        static final XContentBuilderString TRANSLOG = new XContentBuilderString("translog");
+        static final XContentBuilderString OPERATIONS = new XContentBuilderString("operations");
+        static final XContentBuilderString SIZE = new XContentBuilderString("size");
+        static final XContentBuilderString SIZE_IN_BYTES = new XContentBuilderString("size_in_bytes");
+        static final XContentBuilderString SYNCS = new XContentBuilderString("syncs");
+        static final XContentBuilderString SYNCED_OPERATIONS = new XContentBuilderString("synced_operations");
+        static final XContentBuilderString SYNC_WAIT_TIME = new XContentBuilderString("sync_wait_time");
+        static final XContentBuilderString SYNC_WAIT_TIME_IN_MILLIS = new XContentBuilderString("sync_wait_time_in_millis");
+        static final XContentBuilderString SYNC_BATCH_SIZE_HISTOGRAM = new XContentBuilderString("sync_batch_size_histogram");
+        static final XContentBuilderString SYNC_WAIT_TIME_HISTOGRAM_IN_MILLIS = new XContentBuilderString("sync_wait_time_histogram_in_millis");
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        operations = in.readVLong();
+        sizeInBytes = in.readVLong();
+        syncs = in.readVLong();
+        syncedOperations = in.readVLong();
+        syncWaitTimeInMillis = in.readVLong();
+        syncBatchSizeHistogram = readHistogram(in);
+        syncWaitTimeHistogram = readHistogram(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(operations);
+        out.writeVLong(sizeInBytes);
+        out.writeVLong(syncs);
+        out.writeVLong(syncedOperations);
+        out.writeVLong(syncWaitTimeInMillis);
+        writeHistogram(out, syncBatchSizeHistogram);
+        writeHistogram(out, syncWaitTimeHistogram);
+    }
+
+    private static long[] readHistogram(StreamInput in) throws IOException {
+        long[] histogram = new long[in.readVInt()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = in.readVLong();
+        }
+        return histogram;
+    }
+
+    private static void writeHistogram(StreamOutput out, long[] histogram) throws IOException {
+        out.writeVInt(histogram.length);
+        for (long count : histogram) {
+            out.writeVLong(count);
+        }
+    }
+}
@@ -19,19 +19,36 @@
 
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.IOException;
+import java.util.zip.CRC32;
 
 /**
  *
  */
 public class TranslogStreams {
 
+    /**
+     * Marks a framed operation, see {@link #writeFramedTranslogOperation(StreamOutput, byte[], int, int, int)}. Does
+     * not collide with the operation type ids.
+     */
+    static final byte FRAMED = (byte) 0x7F;
+
+    static final byte FRAMED_COMPRESSED = 0x01;
+
     public static Translog.Operation readTranslogOperation(StreamInput in) throws IOException {
-        Translog.Operation.Type type = Translog.Operation.Type.fromId(in.readByte());
+        byte id = in.readByte();
+        if (id == FRAMED) {
+            in = readFramedPayload(in);
+            id = in.readByte();
+        }
+        Translog.Operation.Type type = Translog.Operation.Type.fromId(id);
         Translog.Operation operation;
         switch (type) {
             case CREATE:
@@ -54,9 +71,21 @@ public class TranslogStreams {
     }
 
     public static Translog.Source readSource(byte[] data) throws IOException {
-        BytesStreamInput in = new BytesStreamInput(data, false);
+        return readSource(new BytesStreamInput(data, false));
+    }
+
+    public static Translog.Source readSource(BytesReference data) throws IOException {
+        return readSource(data.streamInput());
+    }
+
+    private static Translog.Source readSource(StreamInput in) throws IOException {
         in.readInt(); // the size header
-        Translog.Operation.Type type = Translog.Operation.Type.fromId(in.readByte());
+        byte id = in.readByte();
+        if (id == FRAMED) {
+            in = readFramedPayload(in);
+            id = in.readByte();
+        }
+        Translog.Operation.Type type = Translog.Operation.Type.fromId(id);
         Translog.Operation operation;
         switch (type) {
             case CREATE:
@@ -81,4 +110,52 @@ public class TranslogStreams {
         out.writeByte(op.opType().id());
         op.writeTo(out);
     }
+
+    /**
+     * Writes an operation serialized with {@link #writeTranslogOperation(StreamOutput, Translog.Operation)} as a
+     * framed record, holding a checksum of its payload. The payload is compressed with the default compressor when
+     * it is at least <tt>compressThreshold</tt> bytes long and compressing it actually saves space.
+     */
+    public static void writeFramedTranslogOperation(StreamOutput out, byte[] data, int offset, int length, int compressThreshold) throws IOException {
+        byte flags = 0;
+        if (length >= compressThreshold) {
+            byte[] compressed = CompressorFactory.defaultCompressor().compress(data, offset, length);
+            if (compressed.length < length) {
+                data = compressed;
+                offset = 0;
+                length = compressed.length;
+                flags |= FRAMED_COMPRESSED;
+            }
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(data, offset, length);
+        out.writeByte(FRAMED);
+        out.writeByte(flags);
+        out.writeVInt(length);
+        out.writeInt((int) checksum.getValue());
+        out.writeBytes(data, offset, length);
+    }
+
+    private static StreamInput readFramedPayload(StreamInput in) throws IOException {
+        byte flags = in.readByte();
+        int length = in.readVInt();
+        int expectedChecksum = in.readInt();
+        BytesReference payload = in.readBytesReference(length);
+        if (!payload.hasArray()) {
+            payload = payload.toBytesArray();
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.array(), payload.arrayOffset(), payload.length());
+        if ((int) checksum.getValue() != expectedChecksum) {
+            throw new IOException("translog operation checksum mismatch, expected [" + expectedChecksum + "], got [" + (int) checksum.getValue() + "]");
+        }
+        if ((flags & FRAMED_COMPRESSED) == 0) {
+            return payload.streamInput();
+        }
+        Compressor compressor = CompressorFactory.compressor(payload);
+        if (compressor == null) {
+            throw new IOException("failed to detect the compression of a translog operation");
+        }
+        return new BytesStreamInput(compressor.uncompress(payload.array(), payload.arrayOffset(), payload.length()), false);
+    }
 }
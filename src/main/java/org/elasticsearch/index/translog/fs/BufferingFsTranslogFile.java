@@ -1,5 +1,7 @@
 package org.elasticsearch.index.translog.fs;
 
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogException;
@@ -103,6 +105,29 @@ public class BufferingFsTranslogFile implements FsTranslogFile {
         return buffer.array();
     }
 
+    @Override
+    public BytesReference readBytes(Translog.Location location) throws IOException {
+        long lastWrittenPosition;
+        rwl.readLock().lock();
+        try {
+            lastWrittenPosition = this.lastWrittenPosition;
+            if (location.translogLocation >= lastWrittenPosition) {
+                byte[] data = new byte[location.size];
+                System.arraycopy(buffer, (int) (location.translogLocation - lastWrittenPosition), data, 0, location.size);
+                return new BytesArray(data);
+            }
+        } finally {
+            rwl.readLock().unlock();
+        }
+        BytesReference bytes = raf.mappedBytes(location.translogLocation, location.size, lastWrittenPosition);
+        if (bytes != null) {
+            return bytes;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(location.size);
+        raf.channel().read(buffer, location.translogLocation);
+        return new BytesArray(buffer.array());
+    }
+
     @Override
     public FsChannelSnapshot snapshot() throws TranslogException {
         rwl.writeLock().lock();
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.translog.fs;
 
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.FileChannelInputStream;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.index.translog.Translog;
@@ -96,6 +97,20 @@ public class FsChannelSnapshot implements Translog.Snapshot {
             if (position > length) {
                 return false;
             }
+            // the snapshot length is sealed, so operations within a single mapped chunk are read without copying them
+            BytesReference opSizeBytes = raf.mappedBytes(position, 4, length);
+            if (opSizeBytes != null) {
+                int opSize = opSizeBytes.streamInput().readInt();
+                BytesReference opBytes = raf.mappedBytes(position + 4, opSize, length);
+                if (opBytes != null) {
+                    lastOperationRead = TranslogStreams.readTranslogOperation(opBytes.streamInput());
+                    position += 4 + opSize;
+                    return true;
+                }
+                if ((position + 4 + opSize) > length) {
+                    return false;
+                }
+            }
             if (cacheBuffer == null) {
                 cacheBuffer = ByteBuffer.allocate(1024);
             }
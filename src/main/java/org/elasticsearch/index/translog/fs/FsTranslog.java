@@ -20,11 +20,15 @@
 package org.elasticsearch.index.translog.fs;
 
 import jsr166y.ThreadLocalRandom;
+import org.apache.lucene.util.Constants;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
+import org.elasticsearch.common.metrics.HistogramMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.env.NodeEnvironment;
@@ -34,11 +38,15 @@ import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogException;
+import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.translog.TranslogStreams;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -50,6 +58,12 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
     public static final String INDEX_TRANSLOG_FS_TYPE = "index.translog.fs.type";
     public static final String INDEX_TRANSLOG_FS_BUFFER_SIZE = "index.translog.fs.buffer_size";
     public static final String INDEX_TRANSLOG_FS_TRANSIENT_BUFFER_SIZE = "index.translog.fs.transient_buffer_size";
+    public static final String INDEX_TRANSLOG_FS_GROUP_COMMIT = "index.translog.fs.group_commit";
+    public static final String INDEX_TRANSLOG_FS_MMAP_CHUNK_SIZE = "index.translog.fs.mmap_chunk_size";
+    public static final String INDEX_TRANSLOG_FS_COMPRESS = "index.translog.fs.compress";
+    public static final String INDEX_TRANSLOG_FS_COMPRESS_THRESHOLD = "index.translog.fs.compress_threshold";
+
+    static final int SYNC_HISTOGRAM_BUCKETS = 16;
 
     class ApplySettings implements IndexSettingsService.Listener {
         @Override
@@ -71,6 +85,30 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
                 logger.info("updating type from [{}] to [{}]", FsTranslog.this.type, type);
                 FsTranslog.this.type = type;
             }
+
+            int mmapChunkSize = (int) settings.getAsBytesSize(INDEX_TRANSLOG_FS_MMAP_CHUNK_SIZE, new ByteSizeValue(FsTranslog.this.mmapChunkSize)).bytes();
+            if (mmapChunkSize != FsTranslog.this.mmapChunkSize) {
+                logger.info("updating mmap_chunk_size from [{}] to [{}]", new ByteSizeValue(FsTranslog.this.mmapChunkSize), new ByteSizeValue(mmapChunkSize));
+                FsTranslog.this.mmapChunkSize = mmapChunkSize;
+            }
+
+            boolean compress = settings.getAsBoolean(INDEX_TRANSLOG_FS_COMPRESS, FsTranslog.this.compress);
+            if (compress != FsTranslog.this.compress) {
+                logger.info("updating compress from [{}] to [{}]", FsTranslog.this.compress, compress);
+                FsTranslog.this.compress = compress;
+            }
+
+            int compressThreshold = (int) settings.getAsBytesSize(INDEX_TRANSLOG_FS_COMPRESS_THRESHOLD, new ByteSizeValue(FsTranslog.this.compressThreshold)).bytes();
+            if (compressThreshold != FsTranslog.this.compressThreshold) {
+                logger.info("updating compress_threshold from [{}] to [{}]", new ByteSizeValue(FsTranslog.this.compressThreshold), new ByteSizeValue(compressThreshold));
+                FsTranslog.this.compressThreshold = compressThreshold;
+            }
+
+            boolean groupCommit = settings.getAsBoolean(INDEX_TRANSLOG_FS_GROUP_COMMIT, FsTranslog.this.groupCommit);
+            if (groupCommit != FsTranslog.this.groupCommit) {
+                logger.info("updating group_commit from [{}] to [{}]", FsTranslog.this.groupCommit, groupCommit);
+                FsTranslog.this.groupCommit = groupCommit;
+            }
         }
     }
 
@@ -84,10 +122,29 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
 
     private FsTranslogFile.Type type;
 
-    private boolean syncOnEachOperation = false;
+    private volatile boolean syncOnEachOperation = false;
+
+    private volatile boolean groupCommit;
+
+    // group commit state, guarded by the group commit lock
+    private final Lock groupCommitLock = new ReentrantLock();
+    private final Condition groupCommitSynced = groupCommitLock.newCondition();
+    private boolean groupCommitSyncing;
+    private long groupCommitSyncsStarted;
+    private long groupCommitSyncsCompleted;
+    private int groupCommitPendingOperations;
+
+    private final MeanMetric syncBatchSize = new MeanMetric();
+    private final MeanMetric syncWaitTime = new MeanMetric();
+    private final HistogramMetric syncBatchSizeHistogram = new HistogramMetric(SYNC_HISTOGRAM_BUCKETS);
+    private final HistogramMetric syncWaitTimeHistogram = new HistogramMetric(SYNC_HISTOGRAM_BUCKETS);
 
     private int bufferSize;
     private int transientBufferSize;
+    private int mmapChunkSize;
+
+    private volatile boolean compress;
+    private volatile int compressThreshold;
 
     private final ApplySettings applySettings = new ApplySettings();
 
@@ -105,6 +162,10 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         this.type = FsTranslogFile.Type.fromString(componentSettings.get("type", FsTranslogFile.Type.BUFFERED.name()));
         this.bufferSize = (int) componentSettings.getAsBytesSize("buffer_size", ByteSizeValue.parseBytesSizeValue("64k")).bytes();
         this.transientBufferSize = (int) componentSettings.getAsBytesSize("transient_buffer_size", ByteSizeValue.parseBytesSizeValue("8k")).bytes();
+        this.groupCommit = componentSettings.getAsBoolean("group_commit", false);
+        this.mmapChunkSize = mmapChunkSize(componentSettings);
+        this.compress = componentSettings.getAsBoolean("compress", false);
+        this.compressThreshold = (int) componentSettings.getAsBytesSize("compress_threshold", ByteSizeValue.parseBytesSizeValue("1kb")).bytes();
 
         indexSettingsService.addListener(applySettings);
     }
@@ -116,6 +177,15 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         FileSystemUtils.mkdirs(location);
 
         this.type = FsTranslogFile.Type.fromString(componentSettings.get("type", FsTranslogFile.Type.BUFFERED.name()));
+        this.groupCommit = componentSettings.getAsBoolean("group_commit", false);
+        this.mmapChunkSize = mmapChunkSize(componentSettings);
+        this.compress = componentSettings.getAsBoolean("compress", false);
+        this.compressThreshold = (int) componentSettings.getAsBytesSize("compress_threshold", ByteSizeValue.parseBytesSizeValue("1kb")).bytes();
+    }
+
+    private static int mmapChunkSize(Settings componentSettings) {
+        // sealed chunks of the translog files are mapped in memory to serve reads, only when we have the address space for it
+        return (int) componentSettings.getAsBytesSize("mmap_chunk_size", new ByteSizeValue(Constants.JRE_IS_64BIT ? 1024 * 1024 : 0)).bytes();
     }
 
     @Override
@@ -227,7 +297,7 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
                 }
             }
             try {
-                newFile = type.create(shardId, id, new RafReference(new File(location, "translog-" + id)), bufferSize);
+                newFile = type.create(shardId, id, new RafReference(new File(location, "translog-" + id), mmapChunkSize), bufferSize);
             } catch (IOException e) {
                 throw new TranslogException(shardId, "failed to create new translog file", e);
             }
@@ -262,7 +332,7 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
                     location = file;
                 }
             }
-            this.trans = type.create(shardId, id, new RafReference(new File(location, "translog-" + id)), transientBufferSize);
+            this.trans = type.create(shardId, id, new RafReference(new File(location, "translog-" + id), mmapChunkSize), transientBufferSize);
         } catch (IOException e) {
             throw new TranslogException(shardId, "failed to create new translog file", e);
         } finally {
@@ -323,6 +393,31 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         }
     }
 
+    @Override
+    public BytesReference readBytes(Location location) {
+        rwl.readLock().lock();
+        try {
+            FsTranslogFile trans = this.trans;
+            if (trans != null && trans.id() == location.translogId) {
+                try {
+                    return trans.readBytes(location);
+                } catch (Exception e) {
+                    // ignore
+                }
+            }
+            if (current.id() == location.translogId) {
+                try {
+                    return current.readBytes(location);
+                } catch (Exception e) {
+                    // ignore
+                }
+            }
+            return null;
+        } finally {
+            rwl.readLock().unlock();
+        }
+    }
+
     @Override
     public Location add(Operation operation) throws TranslogException {
         CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
@@ -330,7 +425,19 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         try {
             BytesStreamOutput out = cachedEntry.bytes();
             out.writeInt(0); // marker for the size...
-            TranslogStreams.writeTranslogOperation(out, operation);
+            if (compress) {
+                CachedStreamOutput.Entry operationEntry = CachedStreamOutput.popEntry();
+                try {
+                    BytesStreamOutput operationOut = operationEntry.bytes();
+                    TranslogStreams.writeTranslogOperation(operationOut, operation);
+                    operationOut.flush();
+                    TranslogStreams.writeFramedTranslogOperation(out, operationOut.bytes().array(), operationOut.bytes().arrayOffset(), operationOut.size(), compressThreshold);
+                } finally {
+                    CachedStreamOutput.pushEntry(operationEntry);
+                }
+            } else {
+                TranslogStreams.writeTranslogOperation(out, operation);
+            }
             out.flush();
 
             int size = out.size();
@@ -338,7 +445,7 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
             out.writeInt(size - 4);
 
             Location location = current.add(out.bytes().array(), out.bytes().arrayOffset(), size);
-            if (syncOnEachOperation) {
+            if (syncOnEachOperation && !groupCommit) {
                 current.sync();
             }
             FsTranslogFile trans = this.trans;
@@ -393,6 +500,68 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         return current1 != null && current1.syncNeeded();
     }
 
+    @Override
+    public void syncOperations() {
+        if (!syncOnEachOperation || !groupCommit) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        int batchSize = 0;
+        groupCommitLock.lock();
+        try {
+            // a sync that already started might have missed our operations, wait for the next one
+            long syncNeeded = groupCommitSyncsStarted + 1;
+            groupCommitPendingOperations++;
+            while (groupCommitSyncsCompleted < syncNeeded) {
+                if (groupCommitSyncing) {
+                    groupCommitSynced.awaitUninterruptibly();
+                    continue;
+                }
+                // lead the sync on behalf of all the pending operations
+                groupCommitSyncing = true;
+                groupCommitSyncsStarted++;
+                batchSize = groupCommitPendingOperations;
+                groupCommitPendingOperations = 0;
+                groupCommitLock.unlock();
+                try {
+                    syncAll();
+                } finally {
+                    groupCommitLock.lock();
+                    groupCommitSyncing = false;
+                    groupCommitSyncsCompleted = groupCommitSyncsStarted;
+                    groupCommitSynced.signalAll();
+                }
+            }
+        } finally {
+            groupCommitLock.unlock();
+        }
+        if (batchSize > 0) {
+            syncBatchSize.inc(batchSize);
+            syncBatchSizeHistogram.inc(batchSize);
+        }
+        long waitTime = System.currentTimeMillis() - startTime;
+        syncWaitTime.inc(waitTime);
+        syncWaitTimeHistogram.inc(waitTime);
+    }
+
+    private void syncAll() {
+        // operations are added to the transient translog as well, sync both
+        FsTranslogFile current1 = this.current;
+        if (current1 != null) {
+            current1.sync();
+        }
+        FsTranslogFile trans1 = this.trans;
+        if (trans1 != null) {
+            trans1.sync();
+        }
+    }
+
+    @Override
+    public TranslogStats stats() {
+        return new TranslogStats(estimatedNumberOfOperations(), translogSizeInBytes(), syncBatchSize.count(), syncBatchSize.sum(),
+                syncWaitTime.sum(), syncBatchSizeHistogram.counts(), syncWaitTimeHistogram.counts());
+    }
+
     @Override
     public void syncOnEachOperation(boolean syncOnEachOperation) {
         this.syncOnEachOperation = syncOnEachOperation;
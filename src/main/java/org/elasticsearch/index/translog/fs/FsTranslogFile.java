@@ -20,6 +20,7 @@
 package org.elasticsearch.index.translog.fs;
 
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogException;
@@ -65,6 +66,11 @@ public interface FsTranslogFile {
 
     byte[] read(Translog.Location location) throws IOException;
 
+    /**
+     * Reads the operation at the location, as a slice of the file mapped in memory when possible.
+     */
+    BytesReference readBytes(Translog.Location location) throws IOException;
+
     void close(boolean delete) throws TranslogException;
 
     FsChannelSnapshot snapshot() throws TranslogException;
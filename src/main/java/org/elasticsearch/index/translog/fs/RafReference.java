@@ -19,11 +19,18 @@
 
 package org.elasticsearch.index.translog.fs;
 
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.ByteBufferBytesReference;
+import org.elasticsearch.common.bytes.BytesReference;
+
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -39,10 +46,23 @@ public class RafReference {
 
     private final AtomicInteger refCount = new AtomicInteger();
 
+    private final int mmapChunkSize;
+
+    private volatile MappedByteBuffer[] mappedChunks = new MappedByteBuffer[0];
+
     public RafReference(File file) throws FileNotFoundException {
+        this(file, 0);
+    }
+
+    /**
+     * @param mmapChunkSize the size of the chunks of the file mapped in memory by {@link #mappedBytes(long, int, long)},
+     *                      <tt>0</tt> to disable memory mapping
+     */
+    public RafReference(File file, int mmapChunkSize) throws FileNotFoundException {
         this.file = file;
         this.raf = new RandomAccessFile(file, "rw");
         this.channel = raf.getChannel();
+        this.mmapChunkSize = mmapChunkSize;
         this.refCount.incrementAndGet();
     }
 
@@ -58,6 +78,62 @@ public class RafReference {
         return this.raf;
     }
 
+    /**
+     * Returns the bytes at the provided position as a slice of a chunk of the file mapped in memory, without
+     * copying them. Only chunks that are fully contained in the sealed part of the file, the first
+     * <tt>sealedLength</tt> bytes that are not going to be truncated anymore, are mapped.
+     * <p/>
+     * <p>Returns <tt>null</tt> if memory mapping is disabled, or the bytes are not within a single sealed chunk, in
+     * which case they should be read from the channel.
+     */
+    @Nullable
+    public BytesReference mappedBytes(long position, int size, long sealedLength) {
+        if (mmapChunkSize <= 0 || size <= 0) {
+            return null;
+        }
+        int chunk = (int) (position / mmapChunkSize);
+        long chunkStart = (long) chunk * mmapChunkSize;
+        if (position + size > chunkStart + mmapChunkSize || chunkStart + mmapChunkSize > sealedLength) {
+            return null;
+        }
+        MappedByteBuffer[] mappedChunks = this.mappedChunks;
+        MappedByteBuffer mappedChunk = chunk < mappedChunks.length ? mappedChunks[chunk] : null;
+        if (mappedChunk == null) {
+            mappedChunk = mapChunk(chunk);
+            if (mappedChunk == null) {
+                return null;
+            }
+        }
+        ByteBuffer slice = mappedChunk.duplicate();
+        slice.position((int) (position - chunkStart));
+        slice.limit((int) (position - chunkStart) + size);
+        return new ByteBufferBytesReference(slice.slice());
+    }
+
+    private synchronized MappedByteBuffer mapChunk(int chunk) {
+        if (refCount.get() <= 0) {
+            return null;
+        }
+        MappedByteBuffer[] mappedChunks = this.mappedChunks;
+        if (chunk < mappedChunks.length && mappedChunks[chunk] != null) {
+            return mappedChunks[chunk];
+        }
+        MappedByteBuffer mappedChunk;
+        try {
+            mappedChunk = channel.map(FileChannel.MapMode.READ_ONLY, (long) chunk * mmapChunkSize, mmapChunkSize);
+        } catch (IOException e) {
+            return null;
+        }
+        if (chunk >= mappedChunks.length) {
+            mappedChunks = Arrays.copyOf(mappedChunks, Math.max(chunk + 1, mappedChunks.length << 1));
+        } else {
+            mappedChunks = mappedChunks.clone();
+        }
+        mappedChunks[chunk] = mappedChunk;
+        this.mappedChunks = mappedChunks;
+        return mappedChunk;
+    }
+
     /**
      * Increases the ref count, and returns <tt>true</tt> if it managed to
      * actually increment it.
@@ -68,6 +144,10 @@ public class RafReference {
 
     public void decreaseRefCount(boolean delete) {
         if (refCount.decrementAndGet() <= 0) {
+            // the mappings are released once the slices handed out are not referenced anymore
+            synchronized (this) {
+                mappedChunks = new MappedByteBuffer[0];
+            }
             try {
                 raf.close();
                 if (delete) {
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.index.translog.fs;
 
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogException;
@@ -74,6 +76,16 @@ public class SimpleFsTranslogFile implements FsTranslogFile {
         return buffer.array();
     }
 
+    @Override
+    public BytesReference readBytes(Translog.Location location) throws IOException {
+        // the location was handed out once its bytes were written, and the file is at least as long as the written bytes
+        BytesReference bytes = raf.mappedBytes(location.translogLocation, location.size, lastWrittenPosition.get());
+        if (bytes != null) {
+            return bytes;
+        }
+        return new BytesArray(read(location));
+    }
+
     public void close(boolean delete) {
         sync();
         raf.decreaseRefCount(delete);
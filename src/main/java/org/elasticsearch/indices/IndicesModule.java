@@ -28,9 +28,13 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.indices.analysis.IndicesAnalysisModule;
 import org.elasticsearch.indices.cache.filter.IndicesFilterCache;
 import org.elasticsearch.indices.cache.filter.terms.IndicesTermsFilterCache;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
+import org.elasticsearch.indices.fielddata.breaker.FieldDataBreaker;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
 import org.elasticsearch.indices.memory.IndexingMemoryController;
+import org.elasticsearch.indices.memory.IndexingPressureController;
+import org.elasticsearch.indices.refresh.AdaptiveRefreshController;
 import org.elasticsearch.indices.query.IndicesQueriesModule;
 import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.indices.recovery.RecoverySource;
@@ -70,9 +74,13 @@ public class IndicesModule extends AbstractModule implements SpawnModules {
         bind(IndicesStore.class).asEagerSingleton();
         bind(IndicesClusterStateService.class).asEagerSingleton();
         bind(IndexingMemoryController.class).asEagerSingleton();
+        bind(IndexingPressureController.class).asEagerSingleton();
+        bind(AdaptiveRefreshController.class).asEagerSingleton();
         bind(IndicesFilterCache.class).asEagerSingleton();
+        bind(FieldDataBreaker.class).asEagerSingleton();
         bind(IndicesFieldDataCache.class).asEagerSingleton();
         bind(IndicesTermsFilterCache.class).asEagerSingleton();
+        bind(IndicesQueryCache.class).asEagerSingleton();
         bind(TransportNodesListShardStoreMetaData.class).asEagerSingleton();
         bind(IndicesTTLService.class).asEagerSingleton();
         bind(IndicesWarmer.class).to(InternalIndicesWarmer.class).asEagerSingleton();
@@ -72,8 +72,10 @@ import org.elasticsearch.index.similarity.SimilarityModule;
 import org.elasticsearch.index.store.IndexStore;
 import org.elasticsearch.index.store.IndexStoreModule;
 import org.elasticsearch.index.store.StoreStats;
+import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.analysis.IndicesAnalysisService;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.indices.store.IndicesStore;
 import org.elasticsearch.plugins.IndexPluginsModule;
@@ -248,6 +250,9 @@ public class InternalIndicesService extends AbstractLifecycleComponent<IndicesSe
                 case FilterCache:
                     stats.filterCache = new FilterCacheStats();
                     break;
+                case Translog:
+                    stats.translog = new TranslogStats();
+                    break;
                 default:
                     throw new IllegalStateException("Unknown Flag: " + flag);
             }
@@ -294,13 +299,16 @@ public class InternalIndicesService extends AbstractLifecycleComponent<IndicesSe
                         case Warmer:
                             stats.warmer.add(indexShard.warmerStats());
                             break;
+                        case Translog:
+                            stats.translog.add(indexShard.translogStats());
+                            break;
                         default:
                             throw new IllegalStateException("Unknown Flag: " + flag);
                     }
                 }
             }
         }
-        return new NodeIndicesStats(stats);
+        return new NodeIndicesStats(stats, injector.getInstance(IndicesQueryCache.class).stats());
     }
 
     /**
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.indices;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.stats.CommonStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -38,6 +39,7 @@ import org.elasticsearch.index.refresh.RefreshStats;
 import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.store.StoreStats;
+import org.elasticsearch.indices.cache.query.QueryCacheStats;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -49,11 +51,18 @@ public class NodeIndicesStats implements Streamable, Serializable, ToXContent {
 
     private CommonStats stats;
 
+    private QueryCacheStats queryCache;
+
     NodeIndicesStats() {
     }
 
     public NodeIndicesStats(CommonStats stats) {
+        this(stats, null);
+    }
+
+    public NodeIndicesStats(CommonStats stats, @Nullable QueryCacheStats queryCache) {
         this.stats = stats;
+        this.queryCache = queryCache;
     }
 
     @Nullable
@@ -111,6 +120,14 @@ public class NodeIndicesStats implements Streamable, Serializable, ToXContent {
         return stats.getIdCache();
     }
 
+    /**
+     * The stats of the node level shard query result cache.
+     */
+    @Nullable
+    public QueryCacheStats getQueryCache() {
+        return queryCache;
+    }
+
     public static NodeIndicesStats readIndicesStats(StreamInput in) throws IOException {
         NodeIndicesStats stats = new NodeIndicesStats();
         stats.readFrom(in);
@@ -120,17 +137,33 @@ public class NodeIndicesStats implements Streamable, Serializable, ToXContent {
     @Override
     public void readFrom(StreamInput in) throws IOException {
         stats = CommonStats.readCommonStats(in);
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            if (in.readBoolean()) {
+                queryCache = QueryCacheStats.readQueryCacheStats(in);
+            }
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         stats.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            if (queryCache == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                queryCache.writeTo(out);
+            }
+        }
     }
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.INDICES);
         stats.toXContent(builder, params);
+        if (queryCache != null) {
+            queryCache.toXContent(builder, params);
+        }
         builder.endObject();
         return builder;
     }
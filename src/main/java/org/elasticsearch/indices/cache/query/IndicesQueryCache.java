@@ -0,0 +1,317 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.indices.cache.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.search.query.QueryPhase;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node level cache of the serialized query phase results of requests that don't return hits, typically counts and
+ * facets only requests sent again and again by dashboards. Entries are keyed on the shard, the version of its reader
+ * and the request source, so a refresh that changes the reader makes them unreachable, and they are cleaned once the
+ * reader is closed.
+ */
+public class IndicesQueryCache extends AbstractComponent implements RemovalListener<IndicesQueryCache.Key, BytesReference> {
+
+    /**
+     * Caching is enabled per index, since requests relying on scripts using random values for example can't be cached.
+     */
+    public static final String INDEX_CACHE_QUERY_ENABLE = "index.cache.query.enable";
+
+    private final ThreadPool threadPool;
+
+    private final Cache<Key, BytesReference> cache;
+
+    private final String size;
+    private final long sizeInBytes;
+    private final TimeValue expire;
+    private final TimeValue cleanInterval;
+
+    private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+
+    private final CounterMetric memorySize = new CounterMetric();
+    private final CounterMetric evictions = new CounterMetric();
+    private final CounterMetric hitCount = new CounterMetric();
+    private final CounterMetric missCount = new CounterMetric();
+
+    private volatile boolean closed;
+
+    @Inject
+    public IndicesQueryCache(Settings settings, ThreadPool threadPool) {
+        super(settings);
+        this.threadPool = threadPool;
+        this.size = componentSettings.get("size", "1%");
+        this.expire = componentSettings.getAsTime("expire", null);
+        this.cleanInterval = componentSettings.getAsTime("clean_interval", TimeValue.timeValueSeconds(60));
+        if (size.endsWith("%")) {
+            double percent = Double.parseDouble(size.substring(0, size.length() - 1));
+            sizeInBytes = (long) ((percent / 100) * JvmInfo.jvmInfo().getMem().getHeapMax().bytes());
+        } else {
+            sizeInBytes = ByteSizeValue.parseBytesSizeValue(size).bytes();
+        }
+
+        CacheBuilder<Key, BytesReference> cacheBuilder = CacheBuilder.newBuilder()
+                .removalListener(this)
+                .maximumWeight(sizeInBytes).weigher(new QueryCacheWeigher());
+        cacheBuilder.concurrencyLevel(16);
+        if (expire != null) {
+            cacheBuilder.expireAfterAccess(expire.millis(), TimeUnit.MILLISECONDS);
+        }
+        cache = cacheBuilder.build();
+        logger.debug("using [node] query cache with size [{}], actual_size [{}], expire [{}], clean_interval [{}]",
+                size, new ByteSizeValue(sizeInBytes), expire, cleanInterval);
+
+        threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, new Reaper());
+    }
+
+    public void close() {
+        closed = true;
+        cache.invalidateAll();
+    }
+
+    public QueryCacheStats stats() {
+        return new QueryCacheStats(memorySize.count(), evictions.count(), hitCount.count(), missCount.count());
+    }
+
+    /**
+     * Can the result of the parsed request be cached. Only results without hits are, and the request must not
+     * depend on the current time. Results of a query phase that timed out are dropped once executed.
+     */
+    public boolean canCache(ShardSearchRequest request, SearchContext context) {
+        if (!context.indexService().settingsService().getSettings().getAsBoolean(INDEX_CACHE_QUERY_ENABLE, false)) {
+            return false;
+        }
+        if (request.scroll() != null || context.nowInMillisUsed()) {
+            return false;
+        }
+        if (context.searchType() != SearchType.COUNT && context.size() != 0) {
+            return false;
+        }
+        return context.searcher().getIndexReader() instanceof DirectoryReader;
+    }
+
+    /**
+     * Executes the query phase of the context, or loads its result from the cache.
+     */
+    public void loadIntoContext(ShardSearchRequest request, final SearchContext context, final QueryPhase queryPhase) throws ElasticSearchException {
+        final DirectoryReader reader = (DirectoryReader) context.searcher().getIndexReader();
+        final boolean[] loaded = new boolean[1];
+        try {
+            final Key key = new Key(context.indexShard(), reader.getVersion(), requestBytes(request));
+            BytesReference value = cache.get(key, new Callable<BytesReference>() {
+                @Override
+                public BytesReference call() throws Exception {
+                    queryPhase.execute(context);
+                    BytesStreamOutput out = new BytesStreamOutput();
+                    context.queryResult().writeTo(out);
+                    BytesReference value = out.bytes();
+                    loaded[0] = true;
+                    // the entries of the reader are cleaned once it is closed, registering the same key again is a no-op
+                    reader.addReaderClosedListener(new CleanupKey(context.indexShard(), reader.getVersion()));
+                    memorySize.inc(weigh(key, value));
+                    return value;
+                }
+            });
+            if (loaded[0]) {
+                missCount.inc();
+                // partial results of a timed out query phase must not be returned to later requests
+                if (context.queryResult().searchTimedOut()) {
+                    cache.invalidate(key);
+                }
+            } else {
+                hitCount.inc();
+                context.queryResult().readFromWithId(context.id(), new BytesStreamInput(value));
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (IOException e) {
+            throw new ElasticSearchException("failed to load the cached query result", e);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        return new ElasticSearchException("failed to execute the query phase", t);
+    }
+
+    private static BytesReference requestBytes(ShardSearchRequest request) throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.writeByte(request.searchType().id());
+        out.writeBytesReference(request.source());
+        out.writeBytesReference(request.extraSource());
+        out.writeStringArrayNullable(request.types());
+        out.writeStringArrayNullable(request.filteringAliases());
+        return out.bytes();
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, BytesReference> notification) {
+        if (notification.getKey() == null || notification.getValue() == null) {
+            return;
+        }
+        memorySize.dec(weigh(notification.getKey(), notification.getValue()));
+        if (notification.wasEvicted()) {
+            evictions.inc();
+        }
+    }
+
+    static int weigh(Key key, BytesReference value) {
+        return key.value.length() + value.length();
+    }
+
+    static class QueryCacheWeigher implements Weigher<Key, BytesReference> {
+
+        @Override
+        public int weigh(Key key, BytesReference value) {
+            return IndicesQueryCache.weigh(key, value);
+        }
+    }
+
+    static class Key {
+        final IndexShard shard;
+        final long readerVersion;
+        final BytesReference value;
+
+        Key(IndexShard shard, long readerVersion, BytesReference value) {
+            this.shard = shard;
+            this.readerVersion = readerVersion;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            Key key = (Key) o;
+            return shard == key.shard && readerVersion == key.readerVersion && value.equals(key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = shard.hashCode();
+            result = 31 * result + (int) (readerVersion ^ (readerVersion >>> 32));
+            result = 31 * result + value.hashCode();
+            return result;
+        }
+    }
+
+    private class CleanupKey implements IndexReader.ReaderClosedListener {
+        final IndexShard shard;
+        final long readerVersion;
+
+        CleanupKey(IndexShard shard, long readerVersion) {
+            this.shard = shard;
+            this.readerVersion = readerVersion;
+        }
+
+        @Override
+        public void onClose(IndexReader reader) {
+            keysToClean.add(this);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            CleanupKey that = (CleanupKey) o;
+            return shard == that.shard && readerVersion == that.readerVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = shard.hashCode();
+            result = 31 * result + (int) (readerVersion ^ (readerVersion >>> 32));
+            return result;
+        }
+    }
+
+    /**
+     * Removes the entries of closed readers, iterating over the whole cache once per clean interval rather than once
+     * per closed reader.
+     */
+    class Reaper implements Runnable {
+
+        @Override
+        public void run() {
+            if (closed) {
+                return;
+            }
+            if (keysToClean.isEmpty()) {
+                threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, this);
+                return;
+            }
+            threadPool.executor(ThreadPool.Names.GENERIC).execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Set<CleanupKey> keys = ConcurrentCollections.newConcurrentSet();
+                        for (Iterator<CleanupKey> it = keysToClean.iterator(); it.hasNext(); ) {
+                            keys.add(it.next());
+                            it.remove();
+                        }
+                        cache.cleanUp();
+                        for (Iterator<Key> it = cache.asMap().keySet().iterator(); it.hasNext(); ) {
+                            Key key = it.next();
+                            if (keys.contains(new CleanupKey(key.shard, key.readerVersion))) {
+                                it.remove();
+                            }
+                        }
+                    } finally {
+                        threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, Reaper.this);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.indices.fielddata.breaker;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+import org.elasticsearch.node.settings.NodeSettingsService;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A node level circuit breaker for field data. Before a segment's field data is un-inverted, its size is estimated
+ * from the terms dictionary and reserved against the limit, failing the load with a {@link CircuitBreakingException}
+ * if the reservation (times the overhead) would not fit. Once loaded, the reservation is adjusted to the actual size
+ * and kept until the field data is unloaded from the cache.
+ */
+public class FieldDataBreaker extends AbstractComponent {
+
+    public static final String FIELDDATA_BREAKER_LIMIT = "indices.fielddata.breaker.limit";
+    public static final String FIELDDATA_BREAKER_OVERHEAD = "indices.fielddata.breaker.overhead";
+
+    // the number of terms used to estimate the average term length of a string field
+    static final int TERMS_SAMPLE_SIZE = 1024;
+
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong tripped = new AtomicLong();
+
+    private volatile String limit;
+    private volatile long limitInBytes;
+    private volatile double overhead;
+
+    @Inject
+    public FieldDataBreaker(Settings settings, NodeSettingsService nodeSettingsService) {
+        this(settings);
+        nodeSettingsService.addListener(new ApplySettings());
+    }
+
+    public FieldDataBreaker(Settings settings) {
+        super(settings);
+        this.limit = componentSettings.get("limit", "80%");
+        this.overhead = componentSettings.getAsDouble("overhead", 1.03);
+        this.limitInBytes = computeLimitInBytes(limit);
+        logger.debug("using limit [{}] [{}], overhead [{}]", limit, new ByteSizeValue(limitInBytes), overhead);
+    }
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            String limit = settings.get(FIELDDATA_BREAKER_LIMIT, FieldDataBreaker.this.limit);
+            if (!limit.equals(FieldDataBreaker.this.limit)) {
+                logger.info("updating [{}] from [{}] to [{}]", FIELDDATA_BREAKER_LIMIT, FieldDataBreaker.this.limit, limit);
+                FieldDataBreaker.this.limitInBytes = computeLimitInBytes(limit);
+                FieldDataBreaker.this.limit = limit;
+            }
+            double overhead = settings.getAsDouble(FIELDDATA_BREAKER_OVERHEAD, FieldDataBreaker.this.overhead);
+            if (overhead != FieldDataBreaker.this.overhead) {
+                logger.info("updating [{}] from [{}] to [{}]", FIELDDATA_BREAKER_OVERHEAD, FieldDataBreaker.this.overhead, overhead);
+                FieldDataBreaker.this.overhead = overhead;
+            }
+        }
+    }
+
+    private static long computeLimitInBytes(String limit) {
+        if (limit.equals("-1")) {
+            return -1;
+        } else if (limit.endsWith("%")) {
+            double percent = Double.parseDouble(limit.substring(0, limit.length() - 1));
+            return (long) ((percent / 100) * JvmInfo.jvmInfo().getMem().getHeapMax().bytes());
+        } else {
+            return ByteSizeValue.parseBytesSizeValue(limit).bytes();
+        }
+    }
+
+    /**
+     * Reserves the estimated bytes of a field data load, or throws a {@link CircuitBreakingException} (counted as a trip)
+     * if they would not fit within the limit.
+     */
+    public void addEstimateBytesAndMaybeBreak(long bytes, String fieldName) throws CircuitBreakingException {
+        while (true) {
+            final long current = used.get();
+            final long newUsed = current + bytes;
+            final long limitInBytes = this.limitInBytes;
+            if (limitInBytes >= 0 && bytes > 0 && (long) (newUsed * overhead) > limitInBytes) {
+                tripped.incrementAndGet();
+                throw new CircuitBreakingException("loading field data of [" + fieldName + "] would use an estimated ["
+                        + new ByteSizeValue(bytes) + "], which together with the [" + new ByteSizeValue(current)
+                        + "] already in use is larger than the limit of [" + new ByteSizeValue(limitInBytes) + "]");
+            }
+            if (used.compareAndSet(current, newUsed)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adjusts the reserved bytes without checking the limit, used to release a reservation (with negative bytes)
+     * or to correct an estimate once the actual size is known.
+     */
+    public void addWithoutBreaking(long bytes) {
+        used.addAndGet(bytes);
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    public FieldDataBreakerStats stats() {
+        return new FieldDataBreakerStats(limitInBytes, used.get(), overhead, tripped.get());
+    }
+
+    /**
+     * Estimates the heap used by un-inverting the field of the segment, based on the statistics of its terms dictionary.
+     * Numeric fields are estimated as an array of values and ordinals per doc. String fields are estimated from the number of
+     * unique terms, their average length (sampled from the first terms) and the number of postings for multi valued fields.
+     */
+    public long estimate(AtomicReader reader, String field, FieldDataType fieldDataType) throws IOException {
+        Terms terms = reader.terms(field);
+        if (terms == null) {
+            return 0;
+        }
+        final long maxDoc = reader.maxDoc();
+        final int valueBytes = numericValueBytes(fieldDataType.getType());
+        if (valueBytes > 0) {
+            // the terms of numeric fields include the lower precision ones, so they can't tell the number of unique values
+            return maxDoc * (valueBytes + RamUsage.NUM_BYTES_INT);
+        }
+
+        long numTerms = terms.size();
+        long termBytes = 0;
+        int sampled = 0;
+        TermsEnum termsEnum = terms.iterator(null);
+        BytesRef term = termsEnum.next();
+        for (; term != null && sampled < TERMS_SAMPLE_SIZE; term = termsEnum.next()) {
+            termBytes += term.length;
+            sampled++;
+        }
+        if (sampled == 0) {
+            return 0;
+        }
+        if (numTerms < 0) {
+            // the terms dictionary doesn't know its size, count the rest of the terms, stopping at the sample would
+            // underestimate large fields, and let them through
+            numTerms = sampled;
+            for (; term != null; term = termsEnum.next()) {
+                numTerms++;
+            }
+        }
+        long estimate = numTerms * (termBytes / sampled + RamUsage.NUM_BYTES_LONG);
+
+        final long sumDocFreq = terms.getSumDocFreq();
+        final int docCount = terms.getDocCount();
+        if (sumDocFreq >= 0 && docCount >= 0 && sumDocFreq > docCount) {
+            // multi valued, an ordinal per posting on top of the per doc offsets
+            estimate += (sumDocFreq + maxDoc) * RamUsage.NUM_BYTES_INT;
+        } else {
+            estimate += maxDoc * RamUsage.NUM_BYTES_INT;
+        }
+        return estimate;
+    }
+
+    private static int numericValueBytes(String type) {
+        if ("long".equals(type) || "double".equals(type)) {
+            return RamUsage.NUM_BYTES_LONG;
+        } else if ("int".equals(type) || "float".equals(type) || "short".equals(type) || "byte".equals(type)) {
+            return RamUsage.NUM_BYTES_INT;
+        } else if ("geo_point".equals(type)) {
+            return 2 * RamUsage.NUM_BYTES_DOUBLE;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.indices.fielddata.breaker;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Node level stats of the {@link FieldDataBreaker}.
+ */
+public class FieldDataBreakerStats implements Streamable, ToXContent {
+
+    private long limitInBytes;
+    private long estimatedInBytes;
+    private double overhead;
+    private long tripped;
+
+    FieldDataBreakerStats() {
+    }
+
+    public FieldDataBreakerStats(long limitInBytes, long estimatedInBytes, double overhead, long tripped) {
+        this.limitInBytes = limitInBytes;
+        this.estimatedInBytes = estimatedInBytes;
+        this.overhead = overhead;
+        this.tripped = tripped;
+    }
+
+    /**
+     * The maximum memory field data may use on the node, <tt>-1</tt> if unbounded.
+     */
+    public ByteSizeValue getLimit() {
+        return new ByteSizeValue(limitInBytes);
+    }
+
+    /**
+     * The memory reserved for the loaded (and loading) field data of the node.
+     */
+    public ByteSizeValue getEstimated() {
+        return new ByteSizeValue(estimatedInBytes);
+    }
+
+    public double getOverhead() {
+        return this.overhead;
+    }
+
+    /**
+     * The number of field data loads rejected by the breaker.
+     */
+    public long getTripped() {
+        return this.tripped;
+    }
+
+    public static FieldDataBreakerStats readFieldDataBreakerStats(StreamInput in) throws IOException {
+        FieldDataBreakerStats stats = new FieldDataBreakerStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        limitInBytes = in.readLong();
+        estimatedInBytes = in.readLong();
+        overhead = in.readDouble();
+        tripped = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeLong(limitInBytes);
+        out.writeLong(estimatedInBytes);
+        out.writeDouble(overhead);
+        out.writeVLong(tripped);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.FIELDDATA_BREAKER);
+        builder.field(Fields.MAXIMUM_SIZE, getLimit().toString());
+        builder.field(Fields.MAXIMUM_SIZE_IN_BYTES, limitInBytes);
+        builder.field(Fields.ESTIMATED_SIZE, getEstimated().toString());
+        builder.field(Fields.ESTIMATED_SIZE_IN_BYTES, estimatedInBytes);
+        builder.field(Fields.OVERHEAD, overhead);
+        builder.field(Fields.TRIPPED, tripped);
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString FIELDDATA_BREAKER = new XContentBuilderString("fielddata_breaker");
+        static final XContentBuilderString MAXIMUM_SIZE = new XContentBuilderString("maximum_size");
+        static final XContentBuilderString MAXIMUM_SIZE_IN_BYTES = new XContentBuilderString("maximum_size_in_bytes");
+        static final XContentBuilderString ESTIMATED_SIZE = new XContentBuilderString("estimated_size");
+        static final XContentBuilderString ESTIMATED_SIZE_IN_BYTES = new XContentBuilderString("estimated_size_in_bytes");
+        static final XContentBuilderString OVERHEAD = new XContentBuilderString("overhead");
+        static final XContentBuilderString TRIPPED = new XContentBuilderString("tripped");
+    }
+}
@@ -23,6 +23,7 @@ import com.google.common.cache.*;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -34,11 +35,14 @@ import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.FieldDataType;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ShardFieldData;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinals;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.indices.fielddata.breaker.FieldDataBreaker;
 import org.elasticsearch.monitor.jvm.JvmInfo;
 
 import java.util.concurrent.Callable;
@@ -50,14 +54,23 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
     Cache<Key, AtomicFieldData> cache;
 
+    // global ordinals are bound to a top level reader, and removed once it gets closed
+    Cache<GlobalOrdinalsKey, GlobalOrdinals> globalOrdinalsCache;
+
     private volatile String size;
     private volatile long sizeInBytes;
     private volatile TimeValue expire;
 
+    private final FieldDataBreaker breaker;
 
-    @Inject
     public IndicesFieldDataCache(Settings settings) {
+        this(settings, new FieldDataBreaker(settings));
+    }
+
+    @Inject
+    public IndicesFieldDataCache(Settings settings, FieldDataBreaker breaker) {
         super(settings);
+        this.breaker = breaker;
         this.size = componentSettings.get("size", "-1");
         this.expire = componentSettings.getAsTime("expire", null);
         computeSizeInBytes();
@@ -77,6 +90,15 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         }
         logger.debug("using size [{}] [{}], expire [{}]", size, new ByteSizeValue(sizeInBytes), expire);
         cache = cacheBuilder.build();
+
+        // the global ordinals are bounded by the same size as the field data they are built on
+        CacheBuilder<GlobalOrdinalsKey, GlobalOrdinals> globalOrdinalsCacheBuilder = CacheBuilder.newBuilder()
+                .removalListener(new GlobalOrdinalsRemovalListener());
+        if (sizeInBytes > 0) {
+            globalOrdinalsCacheBuilder.maximumWeight(sizeInBytes).weigher(new GlobalOrdinalsWeigher());
+        }
+        globalOrdinalsCacheBuilder.concurrencyLevel(16);
+        globalOrdinalsCache = globalOrdinalsCacheBuilder.build();
     }
 
     private void computeSizeInBytes() {
@@ -92,6 +114,65 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
     public void close() {
         cache.invalidateAll();
+        globalOrdinalsCache.invalidateAll();
+    }
+
+    /**
+     * Returns the global ordinals of the field for the provided top level reader, building them on first access. Their
+     * memory is charged to the field data breaker, and reported to the optional shard field data stats.
+     */
+    public GlobalOrdinals loadGlobalOrdinals(Index index, final IndexReader reader, final IndexFieldData.WithOrdinals<?> indexFieldData,
+                                             @Nullable final ShardFieldData shardFieldData) throws Exception {
+        final GlobalOrdinalsKey key = new GlobalOrdinalsKey(index, indexFieldData.getFieldNames().indexName(), reader.getCoreCacheKey());
+        GlobalOrdinals globalOrdinals = globalOrdinalsCache.getIfPresent(key);
+        if (globalOrdinals != null) {
+            return globalOrdinals;
+        }
+        // the closed listener removing the entry never fires if the reader is already closed, so hold it open while
+        // loading, and don't cache anything for a closed reader
+        if (!reader.tryIncRef()) {
+            throw new AlreadyClosedException("reader is closed, can't load global ordinals of [" + key.fieldName + "]");
+        }
+        try {
+            return globalOrdinalsCache.get(key, new Callable<GlobalOrdinals>() {
+                @Override
+                public GlobalOrdinals call() throws Exception {
+                    reader.addReaderClosedListener(new IndexReader.ReaderClosedListener() {
+                        @Override
+                        public void onClose(IndexReader reader) {
+                            globalOrdinalsCache.invalidate(key);
+                        }
+                    });
+                    GlobalOrdinals globalOrdinals = GlobalOrdinals.build(reader, indexFieldData);
+                    long sizeInBytes = globalOrdinals.getMemorySizeInBytes();
+                    breaker.addEstimateBytesAndMaybeBreak(sizeInBytes, indexFieldData.getFieldNames().fullName());
+                    key.sizeInBytes = sizeInBytes;
+                    key.listener = shardFieldData;
+                    if (shardFieldData != null) {
+                        shardFieldData.onGlobalOrdinalsLoad(key.fieldName, sizeInBytes);
+                    }
+                    return globalOrdinals;
+                }
+            });
+        } finally {
+            reader.decRef();
+        }
+    }
+
+    public void clearGlobalOrdinals(Index index) {
+        for (GlobalOrdinalsKey key : globalOrdinalsCache.asMap().keySet()) {
+            if (key.index.equals(index)) {
+                globalOrdinalsCache.invalidate(key);
+            }
+        }
+    }
+
+    public void clearGlobalOrdinals(Index index, String fieldName) {
+        for (GlobalOrdinalsKey key : globalOrdinalsCache.asMap().keySet()) {
+            if (key.index.equals(index) && key.fieldName.equals(fieldName)) {
+                globalOrdinalsCache.invalidate(key);
+            }
+        }
     }
 
     public IndexFieldDataCache buildIndexFieldDataCache(@Nullable IndexService indexService, Index index, FieldMapper.Names fieldNames, FieldDataType fieldDataType) {
@@ -100,6 +181,9 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
     @Override
     public void onRemoval(RemovalNotification<Key, AtomicFieldData> notification) {
+        if (notification.getKey() != null) {
+            breaker.addWithoutBreaking(-notification.getKey().breakerBytes);
+        }
         if (notification.getKey() != null && notification.getKey().listener != null) {
             IndexFieldCache indexCache = notification.getKey().indexCache;
             long sizeInBytes = notification.getKey().sizeInBytes;
@@ -110,6 +194,30 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         }
     }
 
+    class GlobalOrdinalsRemovalListener implements RemovalListener<GlobalOrdinalsKey, GlobalOrdinals> {
+
+        @Override
+        public void onRemoval(RemovalNotification<GlobalOrdinalsKey, GlobalOrdinals> notification) {
+            GlobalOrdinalsKey key = notification.getKey();
+            if (key == null) {
+                return;
+            }
+            breaker.addWithoutBreaking(-key.sizeInBytes);
+            if (key.listener != null) {
+                key.listener.onGlobalOrdinalsUnload(key.fieldName, notification.wasEvicted(), key.sizeInBytes);
+            }
+        }
+    }
+
+    static class GlobalOrdinalsWeigher implements Weigher<GlobalOrdinalsKey, GlobalOrdinals> {
+
+        @Override
+        public int weigh(GlobalOrdinalsKey key, GlobalOrdinals globalOrdinals) {
+            int weight = (int) Math.min(globalOrdinals.getMemorySizeInBytes(), Integer.MAX_VALUE);
+            return weight == 0 ? 1 : weight;
+        }
+    }
+
     public static class FieldDataWeigher implements Weigher<Key, AtomicFieldData> {
 
         @Override
@@ -147,7 +255,19 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
                     if (context.reader() instanceof SegmentReader) {
                         ((SegmentReader) context.reader()).addCoreClosedListener(IndexFieldCache.this);
                     }
-                    AtomicFieldData fieldData = indexFieldData.loadDirect(context);
+                    // reserve the estimated size before loading, so that a single large field can't run the node out of memory
+                    final long estimate = breaker.estimate(context.reader(), fieldNames.indexName(), fieldDataType);
+                    breaker.addEstimateBytesAndMaybeBreak(estimate, fieldNames.fullName());
+                    AtomicFieldData fieldData = null;
+                    try {
+                        fieldData = indexFieldData.loadDirect(context);
+                    } finally {
+                        if (fieldData == null) {
+                            breaker.addWithoutBreaking(-estimate);
+                        }
+                    }
+                    key.breakerBytes = fieldData.getMemorySizeInBytes();
+                    breaker.addWithoutBreaking(key.breakerBytes - estimate);
 
                     if (indexService != null) {
                         ShardId shardId = ShardUtils.extractShardId(context.reader());
@@ -168,6 +288,11 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             });
         }
 
+        @Override
+        public boolean isCached(AtomicReaderContext context) {
+            return cache.asMap().containsKey(new Key(this, context.reader().getCoreCacheKey()));
+        }
+
         @Override
         public void onClose(SegmentReader owner) {
             cache.invalidate(new Key(this, owner.getCoreCacheKey()));
@@ -206,6 +331,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         @Nullable
         public IndexFieldDataCache.Listener listener; // optional stats listener
         long sizeInBytes = -1; // optional size in bytes (we keep it here in case the values are soft references)
+        long breakerBytes; // the bytes reserved with the breaker, released on removal
 
 
         Key(IndexFieldCache indexCache, Object readerKey) {
@@ -229,4 +355,38 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             return result;
         }
     }
+
+    static class GlobalOrdinalsKey {
+        final Index index;
+        final String fieldName;
+        final Object readerKey;
+
+        @Nullable
+        ShardFieldData listener; // optional stats listener
+        long sizeInBytes; // the bytes reserved with the breaker, released on removal
+
+        GlobalOrdinalsKey(Index index, String fieldName, Object readerKey) {
+            this.index = index;
+            this.fieldName = fieldName;
+            this.readerKey = readerKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            GlobalOrdinalsKey key = (GlobalOrdinalsKey) o;
+            if (!index.equals(key.index)) return false;
+            if (!fieldName.equals(key.fieldName)) return false;
+            if (!readerKey.equals(key.readerKey)) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = index.hashCode();
+            result = 31 * result + fieldName.hashCode();
+            result = 31 * result + readerKey.hashCode();
+            return result;
+        }
+    }
 }
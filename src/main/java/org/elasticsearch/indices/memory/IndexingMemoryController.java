@@ -108,6 +108,13 @@ public class IndexingMemoryController extends AbstractLifecycleComponent<Indexin
 
     }
 
+    /**
+     * The total indexing buffer of the node, shared by the active shards.
+     */
+    public ByteSizeValue indexingBufferSize() {
+        return this.indexingBuffer;
+    }
+
     @Override
     protected void doStart() throws ElasticSearchException {
         indicesService.indicesLifecycle().addListener(listener);
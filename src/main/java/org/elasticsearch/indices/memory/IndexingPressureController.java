@@ -0,0 +1,217 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.memory;
+
+import jsr166y.ThreadLocalRandom;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.index.shard.service.InternalIndexShard;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies back pressure to indexing on this node, based on three measures:
+ * <ul>
+ * <li>The bytes of the bulk shard requests currently executing on this node, limited by
+ * <tt>pressure.max_outstanding</tt> (defaults to the node indexing buffer of {@link IndexingMemoryController}).</li>
+ * <li>The bytes of the segments currently being merged, limited by <tt>pressure.max_merge_debt</tt>.</li>
+ * <li>The size of the translogs of the shards, limited by <tt>pressure.max_translog_size</tt>.</li>
+ * </ul>
+ * Once one of them goes above <tt>pressure.throttle_at</tt> of its limit, primary operations are throttled: a share of
+ * them, growing linearly up to all of them when reaching the limit, is rejected. Above the limit, primary operations
+ * are rejected. Operations are never delayed, a delay would hold on to the bulk thread and to the request.
+ * Replica operations are only accounted for, rejecting them would fail the replica.
+ */
+public class IndexingPressureController extends AbstractLifecycleComponent<IndexingPressureController> {
+
+    private final ThreadPool threadPool;
+
+    private final IndicesService indicesService;
+
+    private final long maxOutstandingBytes;
+    private final long maxMergeDebtBytes;
+    private final long maxTranslogBytes;
+    private final double throttleAt;
+    private final TimeValue interval;
+
+    private final AtomicLong outstandingBytes = new AtomicLong();
+    // sampled every interval, summing them up for each request is too costly
+    private volatile long mergeDebtBytes;
+    private volatile long translogBytes;
+
+    private final CounterMetric throttled = new CounterMetric();
+    private final CounterMetric rejectedOutstanding = new CounterMetric();
+    private final CounterMetric rejectedMergeDebt = new CounterMetric();
+    private final CounterMetric rejectedTranslog = new CounterMetric();
+
+    private volatile ScheduledFuture scheduler;
+
+    @Inject
+    public IndexingPressureController(Settings settings, ThreadPool threadPool, IndicesService indicesService, IndexingMemoryController indexingMemoryController) {
+        this(settings, threadPool, indicesService, indexingMemoryController.indexingBufferSize());
+    }
+
+    public IndexingPressureController(Settings settings, ThreadPool threadPool, IndicesService indicesService, ByteSizeValue indexingBufferSize) {
+        super(settings);
+        this.threadPool = threadPool;
+        this.indicesService = indicesService;
+
+        this.maxOutstandingBytes = componentSettings.getAsBytesSize("pressure.max_outstanding", indexingBufferSize).bytes();
+        this.maxMergeDebtBytes = componentSettings.getAsBytesSize("pressure.max_merge_debt", new ByteSizeValue(10, ByteSizeUnit.GB)).bytes();
+        this.maxTranslogBytes = componentSettings.getAsBytesSize("pressure.max_translog_size", new ByteSizeValue(5, ByteSizeUnit.GB)).bytes();
+        this.throttleAt = componentSettings.getAsDouble("pressure.throttle_at", 0.8d);
+        this.interval = componentSettings.getAsTime("pressure.interval", TimeValue.timeValueSeconds(1));
+
+        logger.debug("using max_outstanding [{}], max_merge_debt [{}], max_translog_size [{}], throttle_at [{}]",
+                new ByteSizeValue(maxOutstandingBytes), new ByteSizeValue(maxMergeDebtBytes), new ByteSizeValue(maxTranslogBytes), throttleAt);
+    }
+
+    @Override
+    protected void doStart() throws ElasticSearchException {
+        // its fine to run it on the scheduler thread, no busy work
+        this.scheduler = threadPool.scheduleWithFixedDelay(new ShardsDebtSampler(), interval);
+    }
+
+    @Override
+    protected void doStop() throws ElasticSearchException {
+        if (scheduler != null) {
+            scheduler.cancel(false);
+            scheduler = null;
+        }
+    }
+
+    @Override
+    protected void doClose() throws ElasticSearchException {
+    }
+
+    /**
+     * Accounts for a primary operation of the provided size, rejecting it (with an {@link EsRejectedExecutionException})
+     * when indexing on this node is behind. Each successful call must be followed by a call to {@link #release(long)}.
+     */
+    public void acquirePrimary(long bytes) throws EsRejectedExecutionException {
+        // reserve first, so concurrent operations can't all pass the check and go above the limit together
+        long outstanding = outstandingBytes.addAndGet(bytes);
+        // a single operation larger than the limit is let through when nothing else is executing
+        boolean othersOutstanding = outstanding - bytes > 0;
+        if (maxOutstandingBytes > 0 && outstanding > maxOutstandingBytes && othersOutstanding) {
+            outstandingBytes.addAndGet(-bytes);
+            rejectedOutstanding.inc();
+            throw new EsRejectedExecutionException("rejected indexing of [" + new ByteSizeValue(bytes) + "], outstanding indexing bytes [" +
+                    new ByteSizeValue(outstanding) + "] above the limit of [" + new ByteSizeValue(maxOutstandingBytes) + "]");
+        }
+        long mergeDebt = this.mergeDebtBytes;
+        if (maxMergeDebtBytes > 0 && mergeDebt > maxMergeDebtBytes) {
+            outstandingBytes.addAndGet(-bytes);
+            rejectedMergeDebt.inc();
+            throw new EsRejectedExecutionException("rejected indexing of [" + new ByteSizeValue(bytes) + "], merges are behind with [" +
+                    new ByteSizeValue(mergeDebt) + "] being merged, above the limit of [" + new ByteSizeValue(maxMergeDebtBytes) + "]");
+        }
+        long translog = this.translogBytes;
+        if (maxTranslogBytes > 0 && translog > maxTranslogBytes) {
+            outstandingBytes.addAndGet(-bytes);
+            rejectedTranslog.inc();
+            throw new EsRejectedExecutionException("rejected indexing of [" + new ByteSizeValue(bytes) + "], flushes are behind with [" +
+                    new ByteSizeValue(translog) + "] of translogs, above the limit of [" + new ByteSizeValue(maxTranslogBytes) + "]");
+        }
+
+        double pressure = Math.max(othersOutstanding ? ratio(outstanding, maxOutstandingBytes) : 0,
+                Math.max(ratio(mergeDebt, maxMergeDebtBytes), ratio(translog, maxTranslogBytes)));
+        double throttleRatio = throttleRatio(pressure, throttleAt);
+        if (throttleRatio > 0 && ThreadLocalRandom.current().nextDouble() < throttleRatio) {
+            outstandingBytes.addAndGet(-bytes);
+            throttled.inc();
+            throw new EsRejectedExecutionException("rejected indexing of [" + new ByteSizeValue(bytes) + "], throttling [" +
+                    Math.round(throttleRatio * 100) + "%] of indexing, pressure [" + pressure + "] above [" + throttleAt + "]");
+        }
+    }
+
+    /**
+     * Accounts for a replica operation of the provided size, it must be followed by a call to {@link #release(long)}.
+     */
+    public void acquireReplica(long bytes) {
+        outstandingBytes.addAndGet(bytes);
+    }
+
+    public void release(long bytes) {
+        outstandingBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Updates the sampled bytes being merged and size of the translogs, done every <tt>pressure.interval</tt>.
+     */
+    public void updateDebt(long mergeDebtBytes, long translogBytes) {
+        this.mergeDebtBytes = mergeDebtBytes;
+        this.translogBytes = translogBytes;
+    }
+
+    public IndexingPressureStats stats() {
+        return new IndexingPressureStats(outstandingBytes.get(), mergeDebtBytes, translogBytes, throttled.count(),
+                rejectedOutstanding.count(), rejectedMergeDebt.count(), rejectedTranslog.count());
+    }
+
+    /**
+     * The share of primary operations to reject under the provided pressure (the highest ratio of a measure to
+     * its limit): none up to <tt>throttleAt</tt>, then growing linearly up to all of them at the limit.
+     */
+    public static double throttleRatio(double pressure, double throttleAt) {
+        if (throttleAt >= 1 || pressure <= throttleAt) {
+            return 0;
+        }
+        return Math.min(1, (pressure - throttleAt) / (1 - throttleAt));
+    }
+
+    private static double ratio(long value, long limit) {
+        if (limit <= 0) {
+            return 0;
+        }
+        return ((double) value) / limit;
+    }
+
+    class ShardsDebtSampler implements Runnable {
+        @Override
+        public void run() {
+            long mergeDebtBytes = 0;
+            long translogBytes = 0;
+            for (IndexService indexService : indicesService) {
+                for (IndexShard indexShard : indexService) {
+                    try {
+                        mergeDebtBytes += indexShard.mergeStats().getCurrentSizeInBytes();
+                        translogBytes += ((InternalIndexShard) indexShard).translog().translogSizeInBytes();
+                    } catch (Exception e) {
+                        // the shard is being closed, ignore
+                    }
+                }
+            }
+            updateDebt(mergeDebtBytes, translogBytes);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.memory;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Node level back pressure stats of indexing, see {@link IndexingPressureController}.
+ */
+public class IndexingPressureStats implements Streamable, ToXContent {
+
+    private long outstandingBytes;
+    private long mergeDebtBytes;
+    private long translogBytes;
+
+    private long throttled;
+
+    private long rejectedOutstanding;
+    private long rejectedMergeDebt;
+    private long rejectedTranslog;
+
+    IndexingPressureStats() {
+    }
+
+    public IndexingPressureStats(long outstandingBytes, long mergeDebtBytes, long translogBytes, long throttled,
+                                 long rejectedOutstanding, long rejectedMergeDebt, long rejectedTranslog) {
+        this.outstandingBytes = outstandingBytes;
+        this.mergeDebtBytes = mergeDebtBytes;
+        this.translogBytes = translogBytes;
+        this.throttled = throttled;
+        this.rejectedOutstanding = rejectedOutstanding;
+        this.rejectedMergeDebt = rejectedMergeDebt;
+        this.rejectedTranslog = rejectedTranslog;
+    }
+
+    /**
+     * The bytes of the bulk shard requests currently executing on the node.
+     */
+    public ByteSizeValue getOutstanding() {
+        return new ByteSizeValue(outstandingBytes);
+    }
+
+    /**
+     * The bytes of the segments being merged on the node.
+     */
+    public ByteSizeValue getMergeDebt() {
+        return new ByteSizeValue(mergeDebtBytes);
+    }
+
+    /**
+     * The size of the translogs of the shards on the node.
+     */
+    public ByteSizeValue getTranslogSize() {
+        return new ByteSizeValue(translogBytes);
+    }
+
+    /**
+     * The number of primary operations rejected because of throttling, before reaching a limit.
+     */
+    public long getThrottled() {
+        return this.throttled;
+    }
+
+    /**
+     * The number of primary operations rejected because of too many outstanding indexing bytes.
+     */
+    public long getRejectedOutstanding() {
+        return this.rejectedOutstanding;
+    }
+
+    /**
+     * The number of primary operations rejected because merges are behind.
+     */
+    public long getRejectedMergeDebt() {
+        return this.rejectedMergeDebt;
+    }
+
+    /**
+     * The number of primary operations rejected because flushes are behind.
+     */
+    public long getRejectedTranslog() {
+        return this.rejectedTranslog;
+    }
+
+    public static IndexingPressureStats readIndexingPressureStats(StreamInput in) throws IOException {
+        IndexingPressureStats stats = new IndexingPressureStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        outstandingBytes = in.readVLong();
+        mergeDebtBytes = in.readVLong();
+        translogBytes = in.readVLong();
+        throttled = in.readVLong();
+        rejectedOutstanding = in.readVLong();
+        rejectedMergeDebt = in.readVLong();
+        rejectedTranslog = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(outstandingBytes);
+        out.writeVLong(mergeDebtBytes);
+        out.writeVLong(translogBytes);
+        out.writeVLong(throttled);
+        out.writeVLong(rejectedOutstanding);
+        out.writeVLong(rejectedMergeDebt);
+        out.writeVLong(rejectedTranslog);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.INDEXING_PRESSURE);
+        builder.field(Fields.OUTSTANDING, getOutstanding().toString());
+        builder.field(Fields.OUTSTANDING_IN_BYTES, outstandingBytes);
+        builder.field(Fields.MERGE_DEBT, getMergeDebt().toString());
+        builder.field(Fields.MERGE_DEBT_IN_BYTES, mergeDebtBytes);
+        builder.field(Fields.TRANSLOG_SIZE, getTranslogSize().toString());
+        builder.field(Fields.TRANSLOG_SIZE_IN_BYTES, translogBytes);
+        builder.field(Fields.THROTTLED, throttled);
+        builder.startObject(Fields.REJECTED);
+        builder.field(Fields.OUTSTANDING, rejectedOutstanding);
+        builder.field(Fields.MERGE_DEBT, rejectedMergeDebt);
+        builder.field(Fields.TRANSLOG_SIZE, rejectedTranslog);
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString INDEXING_PRESSURE = new XContentBuilderString("indexing_pressure");
+        static final XContentBuilderString OUTSTANDING = new XContentBuilderString("outstanding");
+        static final XContentBuilderString OUTSTANDING_IN_BYTES = new XContentBuilderString("outstanding_in_bytes");
+        static final XContentBuilderString MERGE_DEBT = new XContentBuilderString("merge_debt");
+        static final XContentBuilderString MERGE_DEBT_IN_BYTES = new XContentBuilderString("merge_debt_in_bytes");
+        static final XContentBuilderString TRANSLOG_SIZE = new XContentBuilderString("translog_size");
+        static final XContentBuilderString TRANSLOG_SIZE_IN_BYTES = new XContentBuilderString("translog_size_in_bytes");
+        static final XContentBuilderString THROTTLED = new XContentBuilderString("throttled");
+        static final XContentBuilderString REJECTED = new XContentBuilderString("rejected");
+    }
+}
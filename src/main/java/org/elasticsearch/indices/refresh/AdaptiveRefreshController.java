@@ -0,0 +1,241 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.refresh;
+
+import com.google.common.collect.Lists;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.EngineClosedException;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.index.shard.service.InternalIndexShard;
+import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Schedules the refreshes of the shards on this node that have <tt>index.refresh.adaptive</tt> set, instead of each
+ * shard refreshing on its own fixed <tt>index.refresh_interval</tt>.
+ * <p/>
+ * Every <tt>check_interval</tt>, the shards that are due are refreshed together in a single task on the refresh
+ * thread pool. A shard is due once its refresh interval passed since its last refresh, except that:
+ * <ul>
+ * <li>A shard with no searcher acquired for <tt>search_idle_after</tt> is not refreshed, its changes are only
+ * made visible once <tt>max_staleness</tt> passed.</li>
+ * <li>While a shard has <tt>merge_backlog</tt> or more ongoing merges, its interval is doubled (up to
+ * <tt>max_staleness</tt>) each time it is due, so new small segments don't pile up on top of the merges.</li>
+ * </ul>
+ * Explicit refreshes (the refresh API, <tt>refresh=true</tt>) are not affected, and no shard goes unrefreshed for
+ * longer than <tt>max_staleness</tt> (or its refresh interval, if larger) while it has pending changes.
+ */
+public class AdaptiveRefreshController extends AbstractLifecycleComponent<AdaptiveRefreshController> {
+
+    private final ThreadPool threadPool;
+
+    private final IndicesService indicesService;
+
+    private final TimeValue checkInterval;
+    private final TimeValue searchIdleAfter;
+    private final TimeValue maxStaleness;
+    private final int mergeBacklog;
+
+    private final Listener listener = new Listener();
+
+    private final ConcurrentMap<ShardId, ShardRefreshStatus> shardsRefreshStatus = ConcurrentCollections.newConcurrentMap();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile ScheduledFuture scheduler;
+
+    @Inject
+    public AdaptiveRefreshController(Settings settings, ThreadPool threadPool, IndicesService indicesService) {
+        super(settings);
+        this.threadPool = threadPool;
+        this.indicesService = indicesService;
+
+        this.checkInterval = componentSettings.getAsTime("check_interval", TimeValue.timeValueMillis(200));
+        this.searchIdleAfter = componentSettings.getAsTime("search_idle_after", TimeValue.timeValueSeconds(30));
+        this.maxStaleness = componentSettings.getAsTime("max_staleness", TimeValue.timeValueSeconds(30));
+        this.mergeBacklog = componentSettings.getAsInt("merge_backlog", 4);
+
+        logger.debug("using check_interval [{}], search_idle_after [{}], max_staleness [{}], merge_backlog [{}]", checkInterval, searchIdleAfter, maxStaleness, mergeBacklog);
+    }
+
+    @Override
+    protected void doStart() throws ElasticSearchException {
+        indicesService.indicesLifecycle().addListener(listener);
+        // its fine to run it on the scheduler thread, the refreshes themselves are forked
+        this.scheduler = threadPool.scheduleWithFixedDelay(new ShardsRefreshChecker(), checkInterval);
+    }
+
+    @Override
+    protected void doStop() throws ElasticSearchException {
+        indicesService.indicesLifecycle().removeListener(listener);
+        if (scheduler != null) {
+            scheduler.cancel(false);
+            scheduler = null;
+        }
+    }
+
+    @Override
+    protected void doClose() throws ElasticSearchException {
+    }
+
+    class ShardsRefreshChecker implements Runnable {
+        @Override
+        public void run() {
+            if (refreshing.get()) {
+                // the previous round is still running, its shards will be checked again on the next round
+                return;
+            }
+            final List<InternalIndexShard> dueShards = Lists.newArrayList();
+            long time = threadPool.estimatedTimeInMillis();
+            for (IndexService indexService : indicesService) {
+                for (IndexShard indexShard : indexService) {
+                    ShardRefreshStatus status = shardsRefreshStatus.get(indexShard.shardId());
+                    if (status == null) { // not added yet
+                        continue;
+                    }
+                    InternalIndexShard shard = (InternalIndexShard) indexShard;
+                    if (shard.state() == IndexShardState.STARTED && refreshDue(shard, status, time)) {
+                        dueShards.add(shard);
+                    }
+                }
+            }
+            if (dueShards.isEmpty() || !refreshing.compareAndSet(false, true)) {
+                return;
+            }
+            threadPool.executor(ThreadPool.Names.REFRESH).execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (InternalIndexShard shard : dueShards) {
+                            refresh(shard);
+                        }
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            });
+        }
+    }
+
+    private boolean refreshDue(InternalIndexShard shard, ShardRefreshStatus status, long time) {
+        long refreshInterval = shard.refreshInterval().millis();
+        if (!shard.adaptiveRefresh() || refreshInterval <= 0) {
+            return false;
+        }
+        long sinceRefresh = time - shard.lastRefreshTime();
+        if (sinceRefresh < refreshInterval) {
+            return false;
+        }
+        try {
+            if (!shard.engine().refreshNeeded()) {
+                status.backoff = 1;
+                return false;
+            }
+        } catch (EngineClosedException e) {
+            return false;
+        }
+        long backoff = status.backoff;
+        if (refreshDue(status, refreshInterval, sinceRefresh, time - shard.lastSearcherAccessTime(), shard.mergeStats().getCurrent())) {
+            return true;
+        }
+        if (status.backoff > backoff && logger.isTraceEnabled()) {
+            logger.trace("[{}][{}] merges are behind, backing off refresh to [{}]", shard.shardId().index().name(), shard.shardId().id(), TimeValue.timeValueMillis(refreshInterval * status.backoff));
+        }
+        return false;
+    }
+
+    /**
+     * Whether a shard with pending changes, whose refresh interval passed since its last refresh, is due for a
+     * refresh. Grows the backoff of the shard while its merges are behind, and resets it once they caught up.
+     */
+    public boolean refreshDue(ShardRefreshStatus status, long refreshInterval, long sinceRefresh, long sinceSearcherAccess, long currentMerges) {
+        long maxStaleness = Math.max(this.maxStaleness.millis(), refreshInterval);
+        if (sinceRefresh >= maxStaleness) {
+            return true;
+        }
+        if (sinceSearcherAccess > searchIdleAfter.millis()) {
+            // nobody is searching this shard, wait for it to get stale enough
+            return false;
+        }
+        if (sinceRefresh < refreshInterval * status.backoff) {
+            return false;
+        }
+        if (currentMerges >= mergeBacklog) {
+            if (refreshInterval * status.backoff < maxStaleness) {
+                status.backoff *= 2;
+                return false;
+            }
+        } else {
+            status.backoff = 1;
+        }
+        return true;
+    }
+
+    private void refresh(InternalIndexShard shard) {
+        try {
+            if (shard.engine().refreshNeeded()) {
+                shard.refresh(new Engine.Refresh(false));
+            }
+        } catch (EngineClosedException e) {
+            // the shard is being closed, ignore
+        } catch (Exception e) {
+            if (shard.state() == IndexShardState.STARTED) {
+                logger.warn("[{}][{}] failed to perform adaptive refresh", e, shard.shardId().index().name(), shard.shardId().id());
+            }
+        }
+    }
+
+    class Listener extends IndicesLifecycle.Listener {
+
+        @Override
+        public void afterIndexShardCreated(IndexShard indexShard) {
+            shardsRefreshStatus.put(indexShard.shardId(), new ShardRefreshStatus());
+        }
+
+        @Override
+        public void afterIndexShardClosed(ShardId shardId) {
+            shardsRefreshStatus.remove(shardId);
+        }
+    }
+
+    public static class ShardRefreshStatus {
+        // the multiplier of the refresh interval, grows while merges are behind
+        volatile long backoff = 1;
+
+        public long backoff() {
+            return backoff;
+        }
+    }
+}
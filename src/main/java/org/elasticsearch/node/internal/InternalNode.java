@@ -26,6 +26,7 @@ import org.elasticsearch.bulk.udp.BulkUdpModule;
 import org.elasticsearch.bulk.udp.BulkUdpService;
 import org.elasticsearch.cache.NodeCache;
 import org.elasticsearch.cache.NodeCacheModule;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.node.NodeClientModule;
 import org.elasticsearch.cluster.ClusterModule;
@@ -65,9 +66,12 @@ import org.elasticsearch.index.search.shape.ShapeModule;
 import org.elasticsearch.indices.IndicesModule;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cache.filter.IndicesFilterCache;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
 import org.elasticsearch.indices.memory.IndexingMemoryController;
+import org.elasticsearch.indices.memory.IndexingPressureController;
+import org.elasticsearch.indices.refresh.AdaptiveRefreshController;
 import org.elasticsearch.indices.ttl.IndicesTTLService;
 import org.elasticsearch.monitor.MonitorModule;
 import org.elasticsearch.monitor.MonitorService;
@@ -195,6 +199,8 @@ public final class InternalNode implements Node {
 
         injector.getInstance(IndicesService.class).start();
         injector.getInstance(IndexingMemoryController.class).start();
+        injector.getInstance(IndexingPressureController.class).start();
+        injector.getInstance(AdaptiveRefreshController.class).start();
         injector.getInstance(IndicesClusterStateService.class).start();
         injector.getInstance(IndicesTTLService.class).start();
         injector.getInstance(RiversManager.class).start();
@@ -238,6 +244,8 @@ public final class InternalNode implements Node {
         injector.getInstance(IndicesClusterStateService.class).stop();
         // we close indices first, so operations won't be allowed on it
         injector.getInstance(IndexingMemoryController.class).stop();
+        injector.getInstance(IndexingPressureController.class).stop();
+        injector.getInstance(AdaptiveRefreshController.class).stop();
         injector.getInstance(IndicesTTLService.class).stop();
         injector.getInstance(IndicesService.class).stop();
         // sleep a bit to let operations finish with indices service
@@ -293,7 +301,10 @@ public final class InternalNode implements Node {
         stopWatch.stop().start("indices");
         injector.getInstance(IndicesFilterCache.class).close();
         injector.getInstance(IndicesFieldDataCache.class).close();
+        injector.getInstance(IndicesQueryCache.class).close();
         injector.getInstance(IndexingMemoryController.class).close();
+        injector.getInstance(IndexingPressureController.class).close();
+        injector.getInstance(AdaptiveRefreshController.class).close();
         injector.getInstance(IndicesTTLService.class).close();
         injector.getInstance(IndicesService.class).close();
         stopWatch.stop().start("routing");
@@ -320,6 +331,7 @@ public final class InternalNode implements Node {
 
         stopWatch.stop().start("node_cache");
         injector.getInstance(NodeCache.class).close();
+        injector.getInstance(PageCacheRecycler.class).close();
 
         stopWatch.stop().start("script");
         injector.getInstance(ScriptService.class).close();
@@ -24,6 +24,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.cluster.node.info.NodeInfo;
 import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.MapBuilder;
@@ -34,6 +35,8 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.http.HttpServer;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.fielddata.breaker.FieldDataBreaker;
+import org.elasticsearch.indices.memory.IndexingPressureController;
 import org.elasticsearch.monitor.MonitorService;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -57,6 +60,12 @@ public class NodeService extends AbstractComponent {
 
     private final PluginsService pluginService;
 
+    private final IndexingPressureController indexingPressureController;
+
+    private final FieldDataBreaker fieldDataBreaker;
+
+    private final PageCacheRecycler pageCacheRecycler;
+
     @Nullable
     private HttpServer httpServer;
 
@@ -70,7 +79,8 @@ public class NodeService extends AbstractComponent {
     @Inject
     public NodeService(Settings settings, ThreadPool threadPool, MonitorService monitorService, Discovery discovery,
                        ClusterService clusterService, TransportService transportService, IndicesService indicesService,
-                       PluginsService pluginService) {
+                       PluginsService pluginService, IndexingPressureController indexingPressureController,
+                       FieldDataBreaker fieldDataBreaker, PageCacheRecycler pageCacheRecycler) {
         super(settings);
         this.threadPool = threadPool;
         this.monitorService = monitorService;
@@ -84,6 +94,9 @@ public class NodeService extends AbstractComponent {
         }
         this.version = Version.CURRENT;
         this.pluginService = pluginService;
+        this.indexingPressureController = indexingPressureController;
+        this.fieldDataBreaker = fieldDataBreaker;
+        this.pageCacheRecycler = pageCacheRecycler;
     }
 
     public void setHttpServer(@Nullable HttpServer httpServer) {
@@ -156,11 +169,14 @@ public class NodeService extends AbstractComponent {
                 monitorService.networkService().stats(),
                 monitorService.fsService().stats(),
                 transportService.stats(),
-                httpServer == null ? null : httpServer.stats()
+                httpServer == null ? null : httpServer.stats(),
+                indexingPressureController.stats(),
+                fieldDataBreaker.stats(),
+                pageCacheRecycler.stats()
         );
     }
 
-    public NodeStats stats(CommonStatsFlags indices, boolean os, boolean process, boolean jvm, boolean threadPool, boolean network, boolean fs, boolean transport, boolean http) {
+    public NodeStats stats(CommonStatsFlags indices, boolean os, boolean process, boolean jvm, boolean threadPool, boolean network, boolean fs, boolean transport, boolean http, boolean indexingPressure, boolean fieldDataBreaker, boolean pageRecycler) {
         // for indices stats we want to include previous allocated shards stats as well (it will
         // only be applied to the sensible ones to use, like refresh/merge/flush/indexing stats)
         return new NodeStats(clusterService.state().nodes().localNode(), System.currentTimeMillis(), hostname,
@@ -172,7 +188,10 @@ public class NodeService extends AbstractComponent {
                 network ? monitorService.networkService().stats() : null,
                 fs ? monitorService.fsService().stats() : null,
                 transport ? transportService.stats() : null,
-                http ? (httpServer == null ? null : httpServer.stats()) : null
+                http ? (httpServer == null ? null : httpServer.stats()) : null,
+                indexingPressure ? indexingPressureController.stats() : null,
+                fieldDataBreaker ? this.fieldDataBreaker.stats() : null,
+                pageRecycler ? pageCacheRecycler.stats() : null
         );
     }
 }
@@ -115,6 +115,24 @@ public class RestNodesStatsAction extends BaseRestHandler {
         controller.registerHandler(RestRequest.Method.GET, "/_nodes/{nodeId}/stats/http", httpHandler);
         controller.registerHandler(RestRequest.Method.GET, "/_nodes/http/stats", httpHandler);
         controller.registerHandler(RestRequest.Method.GET, "/_nodes/{nodeId}/http/stats", httpHandler);
+
+        RestIndexingPressureHandler indexingPressureHandler = new RestIndexingPressureHandler();
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/stats/indexing_pressure", indexingPressureHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/{nodeId}/stats/indexing_pressure", indexingPressureHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/indexing_pressure/stats", indexingPressureHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/{nodeId}/indexing_pressure/stats", indexingPressureHandler);
+
+        RestFieldDataBreakerHandler fieldDataBreakerHandler = new RestFieldDataBreakerHandler();
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/stats/fielddata_breaker", fieldDataBreakerHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/{nodeId}/stats/fielddata_breaker", fieldDataBreakerHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/fielddata_breaker/stats", fieldDataBreakerHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/{nodeId}/fielddata_breaker/stats", fieldDataBreakerHandler);
+
+        RestPageRecyclerHandler pageRecyclerHandler = new RestPageRecyclerHandler();
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/stats/page_recycler", pageRecyclerHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/{nodeId}/stats/page_recycler", pageRecyclerHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/page_recycler/stats", pageRecyclerHandler);
+        controller.registerHandler(RestRequest.Method.GET, "/_nodes/{nodeId}/page_recycler/stats", pageRecyclerHandler);
     }
 
     @Override
@@ -140,6 +158,9 @@ public class RestNodesStatsAction extends BaseRestHandler {
         nodesStatsRequest.fs(request.paramAsBoolean("fs", nodesStatsRequest.fs()));
         nodesStatsRequest.transport(request.paramAsBoolean("transport", nodesStatsRequest.transport()));
         nodesStatsRequest.http(request.paramAsBoolean("http", nodesStatsRequest.http()));
+        nodesStatsRequest.indexingPressure(request.paramAsBoolean("indexing_pressure", nodesStatsRequest.indexingPressure()));
+        nodesStatsRequest.fieldDataBreaker(request.paramAsBoolean("fielddata_breaker", nodesStatsRequest.fieldDataBreaker()));
+        nodesStatsRequest.pageRecycler(request.paramAsBoolean("page_recycler", nodesStatsRequest.pageRecycler()));
         executeNodeStats(request, channel, nodesStatsRequest);
     }
 
@@ -261,4 +282,31 @@ public class RestNodesStatsAction extends BaseRestHandler {
             executeNodeStats(request, channel, nodesStatsRequest);
         }
     }
+
+    class RestIndexingPressureHandler implements RestHandler {
+        @Override
+        public void handleRequest(final RestRequest request, final RestChannel channel) {
+            NodesStatsRequest nodesStatsRequest = new NodesStatsRequest(RestActions.splitNodes(request.param("nodeId")));
+            nodesStatsRequest.clear().indexingPressure(true);
+            executeNodeStats(request, channel, nodesStatsRequest);
+        }
+    }
+
+    class RestFieldDataBreakerHandler implements RestHandler {
+        @Override
+        public void handleRequest(final RestRequest request, final RestChannel channel) {
+            NodesStatsRequest nodesStatsRequest = new NodesStatsRequest(RestActions.splitNodes(request.param("nodeId")));
+            nodesStatsRequest.clear().fieldDataBreaker(true);
+            executeNodeStats(request, channel, nodesStatsRequest);
+        }
+    }
+
+    class RestPageRecyclerHandler implements RestHandler {
+        @Override
+        public void handleRequest(final RestRequest request, final RestChannel channel) {
+            NodesStatsRequest nodesStatsRequest = new NodesStatsRequest(RestActions.splitNodes(request.param("nodeId")));
+            nodesStatsRequest.clear().pageRecycler(true);
+            executeNodeStats(request, channel, nodesStatsRequest);
+        }
+    }
 }
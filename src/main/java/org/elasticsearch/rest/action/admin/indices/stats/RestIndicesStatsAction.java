@@ -78,6 +78,9 @@ public class RestIndicesStatsAction extends BaseRestHandler {
         controller.registerHandler(GET, "/_stats/warmer", new RestWarmerStatsHandler());
         controller.registerHandler(GET, "/{index}/_stats/warmer", new RestWarmerStatsHandler());
 
+        controller.registerHandler(GET, "/_stats/translog", new RestTranslogStatsHandler());
+        controller.registerHandler(GET, "/{index}/_stats/translog", new RestTranslogStatsHandler());
+
         controller.registerHandler(GET, "/_stats/filter_cache", new RestFilterCacheStatsHandler());
         controller.registerHandler(GET, "/{index}/_stats/filter_cache", new RestFilterCacheStatsHandler());
 
@@ -119,6 +122,7 @@ public class RestIndicesStatsAction extends BaseRestHandler {
         indicesStatsRequest.refresh(request.paramAsBoolean("refresh", indicesStatsRequest.refresh()));
         indicesStatsRequest.flush(request.paramAsBoolean("flush", indicesStatsRequest.flush()));
         indicesStatsRequest.warmer(request.paramAsBoolean("warmer", indicesStatsRequest.warmer()));
+        indicesStatsRequest.translog(request.paramAsBoolean("translog", indicesStatsRequest.translog()));
         indicesStatsRequest.filterCache(request.paramAsBoolean("filter_cache", indicesStatsRequest.filterCache()));
         indicesStatsRequest.idCache(request.paramAsBoolean("id_cache", indicesStatsRequest.idCache()));
         indicesStatsRequest.idCache(request.paramAsBoolean("fielddata", indicesStatsRequest.fieldData()));
@@ -465,6 +469,44 @@ public class RestIndicesStatsAction extends BaseRestHandler {
         }
     }
 
+    class RestTranslogStatsHandler implements RestHandler {
+
+        @Override
+        public void handleRequest(final RestRequest request, final RestChannel channel) {
+            IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
+            indicesStatsRequest.listenerThreaded(false);
+            indicesStatsRequest.clear().translog(true);
+            indicesStatsRequest.indices(splitIndices(request.param("index")));
+            indicesStatsRequest.types(splitTypes(request.param("types")));
+
+            client.admin().indices().stats(indicesStatsRequest, new ActionListener<IndicesStatsResponse>() {
+                @Override
+                public void onResponse(IndicesStatsResponse response) {
+                    try {
+                        XContentBuilder builder = RestXContentBuilder.restContentBuilder(request);
+                        builder.startObject();
+                        builder.field("ok", true);
+                        buildBroadcastShardsHeader(builder, response);
+                        response.toXContent(builder, request);
+                        builder.endObject();
+                        channel.sendResponse(new XContentRestResponse(request, OK, builder));
+                    } catch (Throwable e) {
+                        onFailure(e);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    try {
+                        channel.sendResponse(new XContentThrowableRestResponse(request, e));
+                    } catch (IOException e1) {
+                        logger.error("Failed to send failure response", e1);
+                    }
+                }
+            });
+        }
+    }
+
     class RestFilterCacheStatsHandler implements RestHandler {
 
         @Override
@@ -36,6 +36,7 @@ import org.elasticsearch.rest.*;
 import org.elasticsearch.rest.action.support.RestActions;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.sort.SortOrder;
 
 import java.io.IOException;
@@ -208,6 +209,12 @@ public class RestSearchAction extends BaseRestHandler {
             }
             searchSourceBuilder.timeout(request.paramAsTime("timeout", null));
         }
+        if (request.hasParam("terminate_after")) {
+            if (searchSourceBuilder == null) {
+                searchSourceBuilder = new SearchSourceBuilder();
+            }
+            searchSourceBuilder.terminateAfter(request.paramAsInt("terminate_after", SearchContext.DEFAULT_TERMINATE_AFTER));
+        }
 
         String sField = request.param("fields");
         if (sField != null) {
@@ -20,6 +20,7 @@
 package org.elasticsearch.search;
 
 import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.action.search.SearchType;
@@ -31,6 +32,7 @@ import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
 import org.elasticsearch.common.xcontent.XContentFactory;
@@ -38,12 +40,17 @@ import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.search.stats.StatsGroupsParseElement;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.indices.IndicesLifecycle;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.indices.warmer.IndicesWarmer;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.dfs.CachedDfSource;
@@ -70,6 +77,12 @@ import static org.elasticsearch.common.unit.TimeValue.timeValueMinutes;
  */
 public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
+    /**
+     * The number of slices the leaves of a shard are split into, searched concurrently on the search pool when
+     * collecting top docs. <tt>1</tt> (the default) searches them sequentially.
+     */
+    public static final String INDEX_SEARCH_SLICES = "index.search.slices";
+
     private final ThreadPool threadPool;
 
     private final ClusterService clusterService;
@@ -80,10 +93,14 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
     private final ScriptService scriptService;
 
+    private final BigArrays bigArrays;
+
     private final DfsPhase dfsPhase;
 
     private final QueryPhase queryPhase;
 
+    private final IndicesQueryCache queryCache;
+
     private final FetchPhase fetchPhase;
 
 
@@ -102,16 +119,19 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
     @Inject
     public SearchService(Settings settings, ClusterService clusterService, IndicesService indicesService, IndicesLifecycle indicesLifecycle, IndicesWarmer indicesWarmer, ThreadPool threadPool,
-                         ScriptService scriptService, DfsPhase dfsPhase, QueryPhase queryPhase, FetchPhase fetchPhase) {
+                         ScriptService scriptService, BigArrays bigArrays, DfsPhase dfsPhase, QueryPhase queryPhase, FetchPhase fetchPhase,
+                         IndicesQueryCache queryCache) {
         super(settings);
         this.threadPool = threadPool;
         this.clusterService = clusterService;
         this.indicesService = indicesService;
         this.indicesWarmer = indicesWarmer;
         this.scriptService = scriptService;
+        this.bigArrays = bigArrays;
         this.dfsPhase = dfsPhase;
         this.queryPhase = queryPhase;
         this.fetchPhase = fetchPhase;
+        this.queryCache = queryCache;
 
         TimeValue keepAliveInterval = componentSettings.getAsTime("keep_alive_interval", timeValueMinutes(1));
         // we can have 5 minutes here, since we make sure to clean with search requests and when shard/index closes
@@ -127,6 +147,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
         this.keepAliveReaper = threadPool.scheduleWithFixedDelay(new Reaper(), keepAliveInterval);
 
+        this.indicesWarmer.addListener(new FieldDataWarmer());
         this.indicesWarmer.addListener(new SearchWarmer());
     }
 
@@ -236,7 +257,11 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
             context.indexShard().searchService().onPreQueryPhase(context);
             long time = System.nanoTime();
             contextProcessing(context);
-            queryPhase.execute(context);
+            if (queryCache.canCache(request, context)) {
+                queryCache.loadIntoContext(request, context, queryPhase);
+            } else {
+                queryPhase.execute(context);
+            }
             if (context.searchType() == SearchType.COUNT) {
                 freeContext(context.id());
             } else {
@@ -476,7 +501,11 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         SearchShardTarget shardTarget = new SearchShardTarget(clusterService.localNode().id(), request.index(), request.shardId());
 
         Engine.Searcher engineSearcher = searcher == null ? indexShard.searcher() : searcher;
-        SearchContext context = new SearchContext(idGenerator.incrementAndGet(), request, shardTarget, engineSearcher, indexService, indexShard, scriptService);
+        SearchContext context = new SearchContext(idGenerator.incrementAndGet(), request, shardTarget, engineSearcher, indexService, indexShard, scriptService, bigArrays);
+        int slices = indexService.settingsService().getSettings().getAsInt(INDEX_SEARCH_SLICES, 1);
+        if (slices > 1) {
+            context.searcher().searchConcurrently(threadPool.executor(ThreadPool.Names.SEARCH), slices);
+        }
         SearchContext.setCurrent(context);
         try {
             context.scroll(request.scroll());
@@ -629,6 +658,47 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         }
     }
 
+    /**
+     * Loads the field data of the fields mapped with eager loading on the new segments, before they are searched.
+     */
+    class FieldDataWarmer extends IndicesWarmer.Listener {
+
+        @Override
+        public void warm(IndexShard indexShard, IndexMetaData indexMetaData, IndicesWarmer.WarmerContext warmerContext) {
+            IndexService indexService = indicesService.indexService(indexShard.shardId().index().name());
+            if (indexService == null) {
+                return;
+            }
+            Map<String, FieldMapper> warmUp = new HashMap<String, FieldMapper>();
+            for (DocumentMapper docMapper : indexService.mapperService()) {
+                for (FieldMapper fieldMapper : docMapper.mappers()) {
+                    FieldDataType fieldDataType = fieldMapper.fieldDataType();
+                    if (fieldDataType == null || fieldDataType.getLoading() != FieldDataType.Loading.EAGER) {
+                        continue;
+                    }
+                    if (!warmUp.containsKey(fieldMapper.names().indexName())) {
+                        warmUp.put(fieldMapper.names().indexName(), fieldMapper);
+                    }
+                }
+            }
+            for (FieldMapper fieldMapper : warmUp.values()) {
+                try {
+                    long now = System.nanoTime();
+                    IndexFieldData<?> indexFieldData = indexService.fieldData().getForField(fieldMapper);
+                    // segments that were already searched are cached, only the new ones get loaded
+                    for (AtomicReaderContext context : warmerContext.newSearcher().reader().leaves()) {
+                        indexFieldData.load(context);
+                    }
+                    if (indexShard.warmerService().logger().isTraceEnabled()) {
+                        indexShard.warmerService().logger().trace("warmed fielddata for [{}], took [{}]", fieldMapper.names().name(), TimeValue.timeValueNanos(System.nanoTime() - now));
+                    }
+                } catch (Throwable t) {
+                    indexShard.warmerService().logger().warn("failed to warm fielddata for [{}]", t, fieldMapper.names().name());
+                }
+            }
+        }
+    }
+
     class SearchWarmer extends IndicesWarmer.Listener {
 
         @Override
@@ -24,6 +24,7 @@ import com.google.common.collect.Lists;
 import gnu.trove.iterator.TObjectFloatIterator;
 import gnu.trove.map.hash.TObjectFloatHashMap;
 import org.elasticsearch.ElasticSearchGenerationException;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Unicode;
@@ -38,6 +39,7 @@ import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.facet.FacetBuilder;
 import org.elasticsearch.search.highlight.HighlightBuilder;
+import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.rescore.RescoreBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
@@ -95,6 +97,8 @@ public class SearchSourceBuilder implements ToXContent {
 
     private long timeoutInMillis = -1;
 
+    private int terminateAfter = SearchContext.DEFAULT_TERMINATE_AFTER;
+
     private List<String> fieldNames;
     private List<ScriptField> scriptFields;
     private List<PartialField> partialFields;
@@ -299,6 +303,17 @@ public class SearchSourceBuilder implements ToXContent {
         return this;
     }
 
+    /**
+     * An optional number of docs to collect on each shard, after which the query execution terminates early.
+     */
+    public SearchSourceBuilder terminateAfter(int terminateAfter) {
+        if (terminateAfter <= 0) {
+            throw new ElasticSearchIllegalArgumentException("terminateAfter must be > 0");
+        }
+        this.terminateAfter = terminateAfter;
+        return this;
+    }
+
     /**
      * Adds a sort against the given field name and the sort ordering.
      *
@@ -596,6 +611,10 @@ public class SearchSourceBuilder implements ToXContent {
             builder.field("timeout", timeoutInMillis);
         }
 
+        if (terminateAfter != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            builder.field("terminate_after", terminateAfter);
+        }
+
         if (queryBuilder != null) {
             builder.field("query");
             queryBuilder.toXContent(builder, params);
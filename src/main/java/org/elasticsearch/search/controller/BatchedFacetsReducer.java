@@ -0,0 +1,115 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.controller;
+
+import com.google.common.collect.Lists;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.InternalFacet;
+import org.elasticsearch.search.facet.InternalFacets;
+import org.elasticsearch.search.query.QuerySearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces the facets of shard query results as they arrive, instead of once all of them did. The facets of every
+ * batch of results are reduced into a partial result, and removed from the shard results, so that the coordinating
+ * node only holds one batch of shard facets at a time and the reduction overlaps with waiting for slower shards.
+ */
+public class BatchedFacetsReducer {
+
+    private final int batchSize;
+
+    private final List<InternalFacets> pending;
+
+    private List<Facet> partial;
+
+    private boolean hasFacets;
+
+    BatchedFacetsReducer(int batchSize) {
+        if (batchSize < 1) {
+            throw new ElasticSearchIllegalArgumentException("batch size must be at least 1, got [" + batchSize + "]");
+        }
+        this.batchSize = batchSize;
+        this.pending = new ArrayList<InternalFacets>(batchSize + 1);
+    }
+
+    /**
+     * Takes over the facets of the shard result.
+     */
+    public synchronized void add(QuerySearchResult result) {
+        InternalFacets facets = (InternalFacets) result.facets();
+        if (facets == null) {
+            return;
+        }
+        result.facets(null);
+        if (facets.facets() == null || facets.facets().isEmpty()) {
+            return;
+        }
+        hasFacets = true;
+        pending.add(facets);
+        if (pending.size() > batchSize) {
+            // the last facets are left out of the partial reduction, so that the final one never runs on the
+            // partial facets alone, which would skip the trimming of their entries
+            InternalFacets last = pending.remove(pending.size() - 1);
+            partial = reduce(true);
+            pending.clear();
+            pending.add(last);
+        }
+    }
+
+    /**
+     * The final reduction of the facets of all the shard results added so far, <tt>null</tt> if they had no facets.
+     */
+    @Nullable
+    public synchronized InternalFacets reduce() {
+        if (!hasFacets) {
+            return null;
+        }
+        return new InternalFacets(reduce(false));
+    }
+
+    private List<Facet> reduce(boolean partialReduce) {
+        // the order of the facets is the same on all shard results, and on the partial one
+        List<Facet> first = partial != null ? partial : pending.get(0).facets();
+        List<Facet> aggregatedFacets = Lists.newArrayListWithCapacity(first.size());
+        List<Facet> namedFacets = Lists.newArrayList();
+        for (int i = 0; i < first.size(); i++) {
+            String name = first.get(i).getName();
+            namedFacets.clear();
+            if (partial != null) {
+                namedFacets.add(partial.get(i));
+            }
+            for (InternalFacets facets : pending) {
+                for (Facet facet : facets) {
+                    if (name.equals(facet.getName())) {
+                        namedFacets.add(facet);
+                    }
+                }
+            }
+            InternalFacet facet = (InternalFacet) namedFacets.get(0);
+            aggregatedFacets.add(partialReduce ? facet.partialReduce(namedFacets) : facet.reduce(namedFacets));
+        }
+        return aggregatedFacets;
+    }
+}
@@ -25,6 +25,7 @@ import com.google.common.collect.Ordering;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.XMaps;
 import org.elasticsearch.common.component.AbstractComponent;
@@ -73,16 +74,29 @@ public class SearchPhaseController extends AbstractComponent {
 
     private final boolean optimizeSingleShard;
 
+    private final int batchedReduceSize;
+
     @Inject
     public SearchPhaseController(Settings settings) {
         super(settings);
         this.optimizeSingleShard = componentSettings.getAsBoolean("optimize_single_shard", true);
+        this.batchedReduceSize = componentSettings.getAsInt("batched_reduce_size", 64);
+        if (batchedReduceSize < 1) {
+            throw new ElasticSearchIllegalArgumentException("[batched_reduce_size] must be at least 1, got [" + batchedReduceSize + "]");
+        }
     }
 
     public boolean optimizeSingleShard() {
         return optimizeSingleShard;
     }
 
+    /**
+     * A reducer of the facets of the shard query results of a request, fed as they arrive.
+     */
+    public BatchedFacetsReducer newFacetsReducer() {
+        return new BatchedFacetsReducer(batchedReduceSize);
+    }
+
     public AggregatedDfs aggregateDfs(Iterable<DfsSearchResult> results) {
         Map<Term, TermStatistics> termStatistics = XMaps.newNoNullKeysMap();
         Map<String, CollectionStatistics> fieldStatistics = XMaps.newNoNullKeysMap();
@@ -288,6 +302,15 @@ public class SearchPhaseController extends AbstractComponent {
     }
 
     public InternalSearchResponse merge(ShardDoc[] sortedDocs, Map<SearchShardTarget, ? extends QuerySearchResultProvider> queryResults, Map<SearchShardTarget, ? extends FetchSearchResultProvider> fetchResults) {
+        return merge(sortedDocs, queryResults, fetchResults, null);
+    }
+
+    /**
+     * Merges the shard results, the facets being reduced by the provided reducer if the query results were
+     * added to it as they arrived.
+     */
+    public InternalSearchResponse merge(ShardDoc[] sortedDocs, Map<SearchShardTarget, ? extends QuerySearchResultProvider> queryResults,
+                                       Map<SearchShardTarget, ? extends FetchSearchResultProvider> fetchResults, @Nullable BatchedFacetsReducer facetsReducer) {
 
         boolean sorted = false;
         int sortScoreIndex = -1;
@@ -311,7 +334,9 @@ public class SearchPhaseController extends AbstractComponent {
 
         // merge facets
         InternalFacets facets = null;
-        if (!queryResults.isEmpty()) {
+        if (facetsReducer != null) {
+            facets = facetsReducer.reduce();
+        } else if (!queryResults.isEmpty()) {
             // we rely on the fact that the order of facets is the same on all query results
             if (querySearchResult.facets() != null && querySearchResult.facets().facets() != null && !querySearchResult.facets().facets().isEmpty()) {
                 List<Facet> aggregatedFacets = Lists.newArrayList();
@@ -339,10 +364,18 @@ public class SearchPhaseController extends AbstractComponent {
         long totalHits = 0;
         float maxScore = Float.NEGATIVE_INFINITY;
         boolean timedOut = false;
+        Boolean terminatedEarly = null;
         for (QuerySearchResultProvider queryResultProvider : queryResults.values()) {
             if (queryResultProvider.queryResult().searchTimedOut()) {
                 timedOut = true;
             }
+            if (queryResultProvider.queryResult().terminatedEarly() != null) {
+                if (terminatedEarly == null) {
+                    terminatedEarly = queryResultProvider.queryResult().terminatedEarly();
+                } else if (queryResultProvider.queryResult().terminatedEarly()) {
+                    terminatedEarly = true;
+                }
+            }
             totalHits += queryResultProvider.queryResult().topDocs().totalHits;
             if (!Float.isNaN(queryResultProvider.queryResult().topDocs().getMaxScore())) {
                 maxScore = Math.max(maxScore, queryResultProvider.queryResult().topDocs().getMaxScore());
@@ -405,7 +438,7 @@ public class SearchPhaseController extends AbstractComponent {
         }
 
         InternalSearchHits searchHits = new InternalSearchHits(hits.toArray(new InternalSearchHit[hits.size()]), totalHits, maxScore);
-        return new InternalSearchResponse(searchHits, facets, suggest, timedOut);
+        return new InternalSearchResponse(searchHits, facets, suggest, timedOut, terminatedEarly);
     }
     
 }
@@ -0,0 +1,227 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.common.lucene.search.XCollector;
+import org.elasticsearch.index.fielddata.DoubleValues;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.fielddata.LongValues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the matching docs of several {@link FacetExecutor.BatchedCollector}s in blocks. The values of the fields the
+ * facets read are fetched once per block into primitive columns, shared by all the facets reading the same field, and
+ * each facet then aggregates the whole block in a tight loop.
+ */
+public class BatchedFacetCollector extends XCollector {
+
+    public static final int BLOCK_SIZE = 512;
+
+    private final int[] docs = new int[BLOCK_SIZE];
+    private int count;
+
+    private final List<FacetExecutor.BatchedCollector> collectors = new ArrayList<FacetExecutor.BatchedCollector>();
+    private final Map<String, LongColumn> longColumns = new HashMap<String, LongColumn>();
+    private final Map<String, DoubleColumn> doubleColumns = new HashMap<String, DoubleColumn>();
+
+    public void add(FacetExecutor.BatchedCollector collector) {
+        collectors.add(collector);
+        collector.setColumns(this);
+    }
+
+    public boolean isEmpty() {
+        return collectors.isEmpty();
+    }
+
+    /**
+     * Returns the column holding the values of the field as longs, shared with the other facets reading them.
+     */
+    public LongColumn longColumn(IndexNumericFieldData<?> fieldData) {
+        LongColumn column = longColumns.get(fieldData.getFieldNames().indexName());
+        if (column == null) {
+            column = new LongColumn(fieldData);
+            longColumns.put(fieldData.getFieldNames().indexName(), column);
+        }
+        return column;
+    }
+
+    /**
+     * Returns the column holding the values of the field as doubles, shared with the other facets reading them.
+     */
+    public DoubleColumn doubleColumn(IndexNumericFieldData<?> fieldData) {
+        DoubleColumn column = doubleColumns.get(fieldData.getFieldNames().indexName());
+        if (column == null) {
+            column = new DoubleColumn(fieldData);
+            doubleColumns.put(fieldData.getFieldNames().indexName(), column);
+        }
+        return column;
+    }
+
+    @Override
+    public void setScorer(Scorer scorer) throws IOException {
+    }
+
+    @Override
+    public boolean acceptsDocsOutOfOrder() {
+        return true;
+    }
+
+    @Override
+    public void setNextReader(AtomicReaderContext context) throws IOException {
+        flush();
+        for (LongColumn column : longColumns.values()) {
+            column.values = column.fieldData.load(context).getLongValues();
+        }
+        for (DoubleColumn column : doubleColumns.values()) {
+            column.values = column.fieldData.load(context).getDoubleValues();
+        }
+        for (int i = 0; i < collectors.size(); i++) {
+            collectors.get(i).setNextReader(context);
+        }
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        docs[count++] = doc;
+        if (count == BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public void postCollection() {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new FacetPhaseExecutionException("batched", "failed to collect the last block", e);
+        }
+        for (int i = 0; i < collectors.size(); i++) {
+            collectors.get(i).postCollection();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        for (LongColumn column : longColumns.values()) {
+            column.fill(docs, count);
+        }
+        for (DoubleColumn column : doubleColumns.values()) {
+            column.fill(docs, count);
+        }
+        for (int i = 0; i < collectors.size(); i++) {
+            collectors.get(i).collect(docs, count);
+        }
+        count = 0;
+    }
+
+    /**
+     * The long values of a field for the current block: the values of the <tt>i</tt>th doc of the block are
+     * <tt>buffer[offsets[i]]</tt> (inclusive) to <tt>buffer[offsets[i + 1]]</tt> (exclusive).
+     */
+    public static final class LongColumn {
+
+        final IndexNumericFieldData<?> fieldData;
+        LongValues values;
+
+        public final int[] offsets = new int[BLOCK_SIZE + 1];
+        public long[] buffer = new long[BLOCK_SIZE];
+
+        LongColumn(IndexNumericFieldData<?> fieldData) {
+            this.fieldData = fieldData;
+        }
+
+        void fill(int[] docs, int count) {
+            final LongValues values = this.values;
+            int pos = 0;
+            if (!values.isMultiValued()) {
+                long[] buffer = this.buffer;
+                for (int i = 0; i < count; i++) {
+                    offsets[i] = pos;
+                    if (values.hasValue(docs[i])) {
+                        buffer[pos++] = values.getValue(docs[i]);
+                    }
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    offsets[i] = pos;
+                    for (LongValues.Iter iter = values.getIter(docs[i]); iter.hasNext(); ) {
+                        if (pos == buffer.length) {
+                            buffer = ArrayUtil.grow(buffer, pos + 1);
+                        }
+                        buffer[pos++] = iter.next();
+                    }
+                }
+            }
+            offsets[count] = pos;
+        }
+    }
+
+    /**
+     * The double values of a field for the current block, laid out like {@link LongColumn}.
+     */
+    public static final class DoubleColumn {
+
+        final IndexNumericFieldData<?> fieldData;
+        DoubleValues values;
+
+        public final int[] offsets = new int[BLOCK_SIZE + 1];
+        public double[] buffer = new double[BLOCK_SIZE];
+
+        DoubleColumn(IndexNumericFieldData<?> fieldData) {
+            this.fieldData = fieldData;
+        }
+
+        void fill(int[] docs, int count) {
+            final DoubleValues values = this.values;
+            int pos = 0;
+            if (!values.isMultiValued()) {
+                double[] buffer = this.buffer;
+                for (int i = 0; i < count; i++) {
+                    offsets[i] = pos;
+                    if (values.hasValue(docs[i])) {
+                        buffer[pos++] = values.getValue(docs[i]);
+                    }
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    offsets[i] = pos;
+                    for (DoubleValues.Iter iter = values.getIter(docs[i]); iter.hasNext(); ) {
+                        if (pos == buffer.length) {
+                            buffer = ArrayUtil.grow(buffer, pos + 1);
+                        }
+                        buffer[pos++] = iter.next();
+                    }
+                }
+            }
+            offsets[count] = pos;
+        }
+    }
+}
@@ -122,6 +122,24 @@ public abstract class FacetExecutor {
         public abstract void postCollection();
     }
 
+    /**
+     * A {@link Collector} that can also aggregate whole blocks of docs, reading the values of its fields from the
+     * columns of a {@link BatchedFacetCollector} shared with the other facets of the request. Doc by doc collection
+     * is still used when the facet is filtered or executed in post mode. Batched collectors don't get scores.
+     */
+    public static abstract class BatchedCollector extends Collector {
+
+        /**
+         * Looks up the columns the collector reads, called once before the collection starts.
+         */
+        public abstract void setColumns(BatchedFacetCollector columns);
+
+        /**
+         * Collects the first <tt>count</tt> docs of the block, the columns hold the values of these docs.
+         */
+        public abstract void collect(int[] docs, int count) throws IOException;
+    }
+
     /**
      * The mode of the execution.
      */
@@ -22,10 +22,12 @@ package org.elasticsearch.search.facet;
 import com.google.common.collect.Lists;
 import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.inject.multibindings.Multibinder;
+import org.elasticsearch.search.facet.cardinality.CardinalityFacetParser;
 import org.elasticsearch.search.facet.datehistogram.DateHistogramFacetParser;
 import org.elasticsearch.search.facet.filter.FilterFacetParser;
 import org.elasticsearch.search.facet.geodistance.GeoDistanceFacetParser;
 import org.elasticsearch.search.facet.histogram.HistogramFacetParser;
+import org.elasticsearch.search.facet.percentiles.PercentilesFacetParser;
 import org.elasticsearch.search.facet.query.QueryFacetParser;
 import org.elasticsearch.search.facet.range.RangeFacetParser;
 import org.elasticsearch.search.facet.statistical.StatisticalFacetParser;
@@ -51,6 +53,8 @@ public class FacetModule extends AbstractModule {
         processors.add(StatisticalFacetParser.class);
         processors.add(TermsFacetParser.class);
         processors.add(TermsStatsFacetParser.class);
+        processors.add(CardinalityFacetParser.class);
+        processors.add(PercentilesFacetParser.class);
     }
 
     public void addFacetProcessor(Class<? extends FacetParser> facetProcessor) {
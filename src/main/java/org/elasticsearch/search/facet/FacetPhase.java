@@ -62,6 +62,8 @@ public class FacetPhase implements SearchPhase {
     @Override
     public void preProcess(SearchContext context) {
         if (context.facets() != null && context.facets().hasQuery()) {
+            // unfiltered facets that support it share one collector, reading their fields a block of docs at a time
+            BatchedFacetCollector batch = new BatchedFacetCollector();
             for (SearchContextFacets.Entry entry : context.facets().entries()) {
                 if (entry.isGlobal()) {
                     continue;
@@ -72,6 +74,10 @@ public class FacetPhase implements SearchPhase {
                     // FilteredCollector.
                     Collector collector = entry.getFacetExecutor().collector();
 
+                    if (entry.getFilter() == null && collector instanceof FacetExecutor.BatchedCollector) {
+                        batch.add((FacetExecutor.BatchedCollector) collector);
+                        continue;
+                    }
                     if (entry.getFilter() != null) {
                         if (collector instanceof NestedFacetExecutor.Collector) {
                             // We get rootDoc ids as hits in the collect method, so we need to first translate from
@@ -90,6 +96,9 @@ public class FacetPhase implements SearchPhase {
                     throw new ElasticSearchIllegalStateException("what mode?");
                 }
             }
+            if (!batch.isEmpty()) {
+                context.searcher().addMainQueryCollector(batch);
+            }
         }
     }
 
@@ -105,6 +114,7 @@ public class FacetPhase implements SearchPhase {
         }
 
         Map<Filter, List<Collector>> filtersByCollector = null;
+        BatchedFacetCollector globalBatch = null;
         List<ContextDocIdSet> globalDocSets = null;
         for (SearchContextFacets.Entry entry : context.facets().entries()) {
             if (!entry.isGlobal()) {
@@ -152,7 +162,15 @@ public class FacetPhase implements SearchPhase {
                 } else if (entry.getMode() == FacetExecutor.Mode.COLLECTOR) {
                     Filter filter = Queries.MATCH_ALL_FILTER;
                     Collector collector = entry.getFacetExecutor().collector();
-                    if (entry.getFilter() != null) {
+                    if (entry.getFilter() == null && collector instanceof FacetExecutor.BatchedCollector) {
+                        if (globalBatch != null) {
+                            globalBatch.add((FacetExecutor.BatchedCollector) collector);
+                            continue;
+                        }
+                        globalBatch = new BatchedFacetCollector();
+                        globalBatch.add((FacetExecutor.BatchedCollector) collector);
+                        collector = globalBatch;
+                    } else if (entry.getFilter() != null) {
                         if (collector instanceof NestedFacetExecutor.Collector) {
                             collector = new NestedFacetExecutor.Collector((NestedFacetExecutor.Collector) collector, entry.getFilter());
                         } else {
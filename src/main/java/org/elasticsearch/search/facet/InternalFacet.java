@@ -52,6 +52,15 @@ public abstract class InternalFacet implements Facet, Streamable, ToXContent {
 
     public abstract Facet reduce(List<Facet> facets);
 
+    /**
+     * Reduces a batch of shard facets into a partial facet, reduced again later on with the facets of the other
+     * batches. Facets that keep only the top entries of the reduction must keep all of them here, and leave the
+     * trimming to the final {@link #reduce(List)}.
+     */
+    public Facet partialReduce(List<Facet> facets) {
+        return reduce(facets);
+    }
+
     public static interface Stream {
         Facet readFacet(StreamInput in) throws IOException;
     }
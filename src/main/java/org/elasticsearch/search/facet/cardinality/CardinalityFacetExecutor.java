@@ -0,0 +1,182 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet.cardinality;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.index.fielddata.BytesValues;
+import org.elasticsearch.index.fielddata.DoubleValues;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.fielddata.LongValues;
+import org.elasticsearch.index.fielddata.ordinals.Ordinals;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.elasticsearch.search.facet.InternalFacet;
+
+import java.io.IOException;
+
+/**
+ * Feeds the values of a field to a {@link HyperLogLog} sketch. On fields with ordinals, the ordinals seen in a segment
+ * are marked first and each distinct value is only hashed once per segment.
+ */
+public class CardinalityFacetExecutor extends FacetExecutor {
+
+    private final IndexFieldData indexFieldData;
+    private final HyperLogLog sketch;
+
+    public CardinalityFacetExecutor(IndexFieldData indexFieldData, int precision) {
+        this.indexFieldData = indexFieldData;
+        this.sketch = new HyperLogLog(precision);
+    }
+
+    @Override
+    public Collector collector() {
+        if (indexFieldData instanceof IndexNumericFieldData) {
+            if (((IndexNumericFieldData) indexFieldData).getNumericType().isFloatingPoint()) {
+                return new DoubleCollector();
+            }
+            return new LongCollector();
+        }
+        return new BytesCollector();
+    }
+
+    @Override
+    public InternalFacet buildFacet(String facetName) {
+        return new InternalCardinalityFacet(facetName, sketch);
+    }
+
+    class LongCollector extends Collector {
+
+        private LongValues values;
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            values = ((IndexNumericFieldData) indexFieldData).load(context).getLongValues();
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (!values.isMultiValued()) {
+                if (values.hasValue(doc)) {
+                    sketch.addLong(values.getValue(doc));
+                }
+                return;
+            }
+            for (LongValues.Iter iter = values.getIter(doc); iter.hasNext(); ) {
+                sketch.addLong(iter.next());
+            }
+        }
+
+        @Override
+        public void postCollection() {
+        }
+    }
+
+    class DoubleCollector extends Collector {
+
+        private DoubleValues values;
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            values = ((IndexNumericFieldData) indexFieldData).load(context).getDoubleValues();
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (!values.isMultiValued()) {
+                if (values.hasValue(doc)) {
+                    sketch.addDouble(values.getValue(doc));
+                }
+                return;
+            }
+            for (DoubleValues.Iter iter = values.getIter(doc); iter.hasNext(); ) {
+                sketch.addDouble(iter.next());
+            }
+        }
+
+        @Override
+        public void postCollection() {
+        }
+    }
+
+    class BytesCollector extends Collector {
+
+        private final BytesRef scratch = new BytesRef();
+        private BytesValues values;
+        private BytesValues.WithOrdinals ordinalValues;
+        private Ordinals.Docs ordinals;
+        private FixedBitSet visitedOrds;
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            hashVisitedOrds();
+            values = indexFieldData.load(context).getBytesValues();
+            if (values instanceof BytesValues.WithOrdinals) {
+                ordinalValues = (BytesValues.WithOrdinals) values;
+                ordinals = ordinalValues.ordinals();
+                visitedOrds = new FixedBitSet(ordinals.getMaxOrd());
+            } else {
+                ordinalValues = null;
+                ordinals = null;
+            }
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (ordinals != null) {
+                if (!ordinals.isMultiValued()) {
+                    visitedOrds.set(ordinals.getOrd(doc));
+                    return;
+                }
+                Ordinals.Docs.Iter iter = ordinals.getIter(doc);
+                for (int ord = iter.next(); ord != 0; ord = iter.next()) {
+                    visitedOrds.set(ord);
+                }
+                return;
+            }
+            for (BytesValues.Iter iter = values.getIter(doc); iter.hasNext(); ) {
+                sketch.addBytes(iter.next());
+            }
+        }
+
+        @Override
+        public void postCollection() {
+            hashVisitedOrds();
+        }
+
+        private void hashVisitedOrds() {
+            if (ordinals == null) {
+                return;
+            }
+            // ord 0 marks docs without values
+            final int maxOrd = ordinals.getMaxOrd();
+            for (int ord = 1; ord < maxOrd; ord++) {
+                ord = visitedOrds.nextSetBit(ord);
+                if (ord == -1) {
+                    break;
+                }
+                sketch.addBytes(ordinalValues.getValueScratchByOrd(ord, scratch));
+            }
+            ordinals = null;
+        }
+    }
+}
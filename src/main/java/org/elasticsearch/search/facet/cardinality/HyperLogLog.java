@@ -0,0 +1,195 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet.cardinality;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct values it saw, using <tt>2^precision</tt> one byte
+ * registers. The relative error is about <tt>1.04 / sqrt(2^precision)</tt>, 0.8% with the default precision
+ * of 14 (16kb of registers). Two sketches with the same precision are merged by taking the max of each register,
+ * so shard level sketches can be reduced without losing accuracy.
+ */
+public class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new ElasticSearchIllegalArgumentException("precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ", got [" + precision + "]");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public void add(long hash) {
+        final int index = (int) (hash >>> (64 - precision));
+        // the guard bit caps the rank when all the remaining bits are zeros
+        final int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void addLong(long value) {
+        add(mix(value));
+    }
+
+    public void addDouble(double value) {
+        // +0.0 and -0.0 are the same value
+        add(mix(Double.doubleToLongBits(value == 0 ? 0 : value)));
+    }
+
+    public void addBytes(BytesRef bytes) {
+        add(hash(bytes));
+    }
+
+    /**
+     * Merges the registers of the other sketch into this one.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new ElasticSearchIllegalArgumentException("can't merge sketches of precision [" + precision + "] and [" + other.precision + "]");
+        }
+        final byte[] otherRegisters = other.registers;
+        for (int i = 0; i < registers.length; i++) {
+            if (otherRegisters[i] > registers[i]) {
+                registers[i] = otherRegisters[i];
+            }
+        }
+    }
+
+    /**
+     * The estimated number of distinct values.
+     */
+    public long cardinality() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < m; i++) {
+            sum += 1d / (1L << registers[i]);
+            if (registers[i] == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (zeros > 0 && estimate <= 2.5 * m) {
+            // linear counting is a lot more accurate for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * The murmur3 64 bits finalizer, spreading the bits of the value over the whole hash.
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    static long hash(BytesRef bytes) {
+        // 64 bits FNV-1a, finalized so that the leading bits are well distributed
+        long hash = 0xcbf29ce484222325L;
+        final int end = bytes.offset + bytes.length;
+        for (int i = bytes.offset; i < end; i++) {
+            hash ^= bytes.bytes[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    public static HyperLogLog readFrom(StreamInput in) throws IOException {
+        HyperLogLog hll = new HyperLogLog(in.readVInt());
+        byte[] registers = hll.registers;
+        if (in.readBoolean()) {
+            int size = in.readVInt();
+            int index = 0;
+            for (int i = 0; i < size; i++) {
+                index += in.readVInt();
+                registers[index] = in.readByte();
+            }
+        } else {
+            in.readBytes(registers, 0, registers.length);
+        }
+        return hll;
+    }
+
+    /**
+     * Writes the sketch, only the non empty registers and their index deltas if they are few.
+     */
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(precision);
+        int nonEmpty = 0;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != 0) {
+                nonEmpty++;
+            }
+        }
+        // a sparse entry takes from 2 to 4 bytes, it only pays off when most registers are empty
+        boolean sparse = nonEmpty * 3 < registers.length;
+        out.writeBoolean(sparse);
+        if (sparse) {
+            out.writeVInt(nonEmpty);
+            int previous = 0;
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    out.writeVInt(i - previous);
+                    out.writeByte(registers[i]);
+                    previous = i;
+                }
+            }
+        } else {
+            out.writeBytes(registers);
+        }
+    }
+}
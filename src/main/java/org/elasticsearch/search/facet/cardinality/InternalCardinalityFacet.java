@@ -0,0 +1,121 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet.cardinality;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.HashedBytesArray;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.InternalFacet;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Holds the {@link HyperLogLog} sketch of a shard, so that the shard level results can be merged.
+ */
+public class InternalCardinalityFacet extends InternalFacet implements CardinalityFacet {
+
+    private static final BytesReference STREAM_TYPE = new HashedBytesArray("cardinality");
+
+    public static void registerStreams() {
+        Streams.registerStream(STREAM, STREAM_TYPE);
+    }
+
+    static Stream STREAM = new Stream() {
+        @Override
+        public Facet readFacet(StreamInput in) throws IOException {
+            return readCardinalityFacet(in);
+        }
+    };
+
+    @Override
+    public BytesReference streamType() {
+        return STREAM_TYPE;
+    }
+
+    private HyperLogLog sketch;
+
+    private InternalCardinalityFacet() {
+    }
+
+    public InternalCardinalityFacet(String name, HyperLogLog sketch) {
+        super(name);
+        this.sketch = sketch;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public long getCardinality() {
+        return sketch.cardinality();
+    }
+
+    @Override
+    public Facet reduce(List<Facet> facets) {
+        if (facets.size() == 1) {
+            return facets.get(0);
+        }
+        InternalCardinalityFacet first = (InternalCardinalityFacet) facets.get(0);
+        for (int i = 1; i < facets.size(); i++) {
+            first.sketch.merge(((InternalCardinalityFacet) facets.get(i)).sketch);
+        }
+        return first;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString _TYPE = new XContentBuilderString("_type");
+        static final XContentBuilderString CARDINALITY = new XContentBuilderString("cardinality");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(getName());
+        builder.field(Fields._TYPE, CardinalityFacet.TYPE);
+        builder.field(Fields.CARDINALITY, getCardinality());
+        builder.endObject();
+        return builder;
+    }
+
+    public static CardinalityFacet readCardinalityFacet(StreamInput in) throws IOException {
+        InternalCardinalityFacet facet = new InternalCardinalityFacet();
+        facet.readFrom(in);
+        return facet;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        sketch = HyperLogLog.readFrom(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        sketch.writeTo(out);
+    }
+}
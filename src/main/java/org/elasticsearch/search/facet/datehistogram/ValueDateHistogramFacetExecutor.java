@@ -26,6 +26,7 @@ import org.elasticsearch.common.trove.ExtTLongObjectHashMap;
 import org.elasticsearch.index.fielddata.DoubleValues;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 import org.elasticsearch.index.fielddata.LongValues;
+import org.elasticsearch.search.facet.BatchedFacetCollector;
 import org.elasticsearch.search.facet.DoubleFacetAggregatorBase;
 import org.elasticsearch.search.facet.FacetExecutor;
 import org.elasticsearch.search.facet.InternalFacet;
@@ -55,8 +56,8 @@ public class ValueDateHistogramFacetExecutor extends FacetExecutor {
     }
 
     @Override
-    public Collector collector() {
-        return new Collector();
+    public FacetExecutor.Collector collector() {
+        return new BatchedCollector();
     }
 
     @Override
@@ -89,6 +90,64 @@ public class ValueDateHistogramFacetExecutor extends FacetExecutor {
         }
     }
 
+    class BatchedCollector extends FacetExecutor.BatchedCollector {
+
+        private final Collector collector = new Collector();
+        private BatchedFacetCollector.LongColumn keys;
+        private BatchedFacetCollector.DoubleColumn values;
+
+        @Override
+        public void setColumns(BatchedFacetCollector columns) {
+            keys = columns.longColumn(keyIndexFieldData);
+            values = columns.doubleColumn(valueIndexFieldData);
+        }
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            collector.setNextReader(context);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            collector.collect(doc);
+        }
+
+        @Override
+        public void collect(int[] docs, int count) {
+            final int[] keyOffsets = keys.offsets;
+            final long[] keyBuffer = keys.buffer;
+            final int[] valueOffsets = values.offsets;
+            final double[] valueBuffer = values.buffer;
+            for (int i = 0; i < count; i++) {
+                for (int k = keyOffsets[i]; k < keyOffsets[i + 1]; k++) {
+                    final long time = tzRounding.calc(keyBuffer[k]);
+                    InternalFullDateHistogramFacet.FullEntry entry = entries.get(time);
+                    if (entry == null) {
+                        entry = new InternalFullDateHistogramFacet.FullEntry(time, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0);
+                        entries.put(time, entry);
+                    }
+                    entry.count++;
+                    for (int v = valueOffsets[i]; v < valueOffsets[i + 1]; v++) {
+                        final double value = valueBuffer[v];
+                        entry.totalCount++;
+                        entry.total += value;
+                        if (value < entry.min) {
+                            entry.min = value;
+                        }
+                        if (value > entry.max) {
+                            entry.max = value;
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void postCollection() {
+            collector.postCollection();
+        }
+    }
+
     public static class DateHistogramProc extends LongFacetAggregatorBase {
 
         final ExtTLongObjectHashMap<InternalFullDateHistogramFacet.FullEntry> entries;
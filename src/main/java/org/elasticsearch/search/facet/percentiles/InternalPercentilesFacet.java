@@ -0,0 +1,161 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet.percentiles;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.HashedBytesArray;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.InternalFacet;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Holds the {@link TDigest} of a shard, so that the shard level results can be merged.
+ */
+public class InternalPercentilesFacet extends InternalFacet implements PercentilesFacet {
+
+    private static final BytesReference STREAM_TYPE = new HashedBytesArray("percentiles");
+
+    public static void registerStreams() {
+        Streams.registerStream(STREAM, STREAM_TYPE);
+    }
+
+    static Stream STREAM = new Stream() {
+        @Override
+        public Facet readFacet(StreamInput in) throws IOException {
+            return readPercentilesFacet(in);
+        }
+    };
+
+    @Override
+    public BytesReference streamType() {
+        return STREAM_TYPE;
+    }
+
+    private double[] percents;
+    private TDigest digest;
+
+    private InternalPercentilesFacet() {
+    }
+
+    public InternalPercentilesFacet(String name, double[] percents, TDigest digest) {
+        super(name);
+        this.percents = percents;
+        this.digest = digest;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public long getCount() {
+        return digest.count();
+    }
+
+    @Override
+    public double getMin() {
+        return digest.min();
+    }
+
+    @Override
+    public double getMax() {
+        return digest.max();
+    }
+
+    @Override
+    public double[] getPercents() {
+        return percents;
+    }
+
+    @Override
+    public double getPercentile(double percent) {
+        return digest.quantile(percent / 100);
+    }
+
+    @Override
+    public Facet reduce(List<Facet> facets) {
+        if (facets.size() == 1) {
+            return facets.get(0);
+        }
+        InternalPercentilesFacet first = (InternalPercentilesFacet) facets.get(0);
+        for (int i = 1; i < facets.size(); i++) {
+            first.digest.merge(((InternalPercentilesFacet) facets.get(i)).digest);
+        }
+        return first;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString _TYPE = new XContentBuilderString("_type");
+        static final XContentBuilderString COUNT = new XContentBuilderString("count");
+        static final XContentBuilderString MIN = new XContentBuilderString("min");
+        static final XContentBuilderString MAX = new XContentBuilderString("max");
+        static final XContentBuilderString PERCENTILES = new XContentBuilderString("percentiles");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(getName());
+        builder.field(Fields._TYPE, PercentilesFacet.TYPE);
+        builder.field(Fields.COUNT, getCount());
+        builder.field(Fields.MIN, getMin());
+        builder.field(Fields.MAX, getMax());
+        builder.startObject(Fields.PERCENTILES);
+        for (double percent : percents) {
+            builder.field(Double.toString(percent), getPercentile(percent));
+        }
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+
+    public static PercentilesFacet readPercentilesFacet(StreamInput in) throws IOException {
+        InternalPercentilesFacet facet = new InternalPercentilesFacet();
+        facet.readFrom(in);
+        return facet;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        percents = new double[in.readVInt()];
+        for (int i = 0; i < percents.length; i++) {
+            percents[i] = in.readDouble();
+        }
+        digest = TDigest.readFrom(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(percents.length);
+        for (double percent : percents) {
+            out.writeDouble(percent);
+        }
+        digest.writeTo(out);
+    }
+}
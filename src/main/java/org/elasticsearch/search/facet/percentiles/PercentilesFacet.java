@@ -0,0 +1,59 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet.percentiles;
+
+import org.elasticsearch.search.facet.Facet;
+
+/**
+ * Approximate percentiles of the values of a numeric field.
+ */
+public interface PercentilesFacet extends Facet {
+
+    /**
+     * The type of the filter facet.
+     */
+    public static final String TYPE = "percentiles";
+
+    /**
+     * The number of values counted.
+     */
+    long getCount();
+
+    /**
+     * The minimum value.
+     */
+    double getMin();
+
+    /**
+     * The maximum value.
+     */
+    double getMax();
+
+    /**
+     * The requested percents, between <tt>0</tt> and <tt>100</tt>.
+     */
+    double[] getPercents();
+
+    /**
+     * The estimated value below which the provided percent of the values fall.
+     */
+    double getPercentile(double percent);
+}
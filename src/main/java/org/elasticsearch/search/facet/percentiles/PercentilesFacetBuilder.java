@@ -0,0 +1,110 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet.percentiles;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilderException;
+import org.elasticsearch.search.facet.FacetBuilder;
+
+import java.io.IOException;
+
+/**
+ *
+ */
+public class PercentilesFacetBuilder extends FacetBuilder {
+    private String fieldName;
+    private double[] percents;
+    private double compression = -1;
+
+    public PercentilesFacetBuilder(String name) {
+        super(name);
+    }
+
+    /**
+     * The numeric field the percentiles will be computed on.
+     */
+    public PercentilesFacetBuilder field(String field) {
+        this.fieldName = field;
+        return this;
+    }
+
+    /**
+     * The percents to return the percentiles of, defaults to <tt>1, 5, 25, 50, 75, 95, 99</tt>.
+     */
+    public PercentilesFacetBuilder percents(double... percents) {
+        this.percents = percents;
+        return this;
+    }
+
+    /**
+     * Higher values give more accurate percentiles at the cost of more memory per shard, defaults to <tt>100</tt>.
+     */
+    public PercentilesFacetBuilder compression(double compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * Marks the facet to run in a global scope, not bounded by any query.
+     */
+    public PercentilesFacetBuilder global(boolean global) {
+        super.global(global);
+        return this;
+    }
+
+    public PercentilesFacetBuilder facetFilter(FilterBuilder filter) {
+        this.facetFilter = filter;
+        return this;
+    }
+
+    /**
+     * Sets the nested path the facet will execute on. A match (root object) will then cause all the
+     * nested objects matching the path to be computed into the facet.
+     */
+    public PercentilesFacetBuilder nested(String nested) {
+        this.nested = nested;
+        return this;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        if (fieldName == null) {
+            throw new SearchSourceBuilderException("field must be set on percentiles facet for facet [" + name + "]");
+        }
+        builder.startObject(name);
+
+        builder.startObject(PercentilesFacet.TYPE);
+        builder.field("field", fieldName);
+        if (percents != null) {
+            builder.field("percents", percents);
+        }
+        if (compression != -1) {
+            builder.field("compression", compression);
+        }
+        builder.endObject();
+
+        addFilterFacetAndGlobal(builder, params);
+
+        builder.endObject();
+        return builder;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet.percentiles;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.elasticsearch.index.fielddata.DoubleValues;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.elasticsearch.search.facet.InternalFacet;
+
+import java.io.IOException;
+
+/**
+ * Feeds the values of a numeric field, read as doubles, to a {@link TDigest}. Each shard builds its own digest with the
+ * requested compression, and the digests are merged when the facets of the shards are reduced.
+ */
+public class PercentilesFacetExecutor extends FacetExecutor {
+
+    private final IndexNumericFieldData indexFieldData;
+    private final double[] percents;
+    private final TDigest digest;
+
+    public PercentilesFacetExecutor(IndexNumericFieldData indexFieldData, double[] percents, double compression) {
+        this.indexFieldData = indexFieldData;
+        this.percents = percents;
+        this.digest = new TDigest(compression);
+    }
+
+    @Override
+    public Collector collector() {
+        return new Collector();
+    }
+
+    @Override
+    public InternalFacet buildFacet(String facetName) {
+        return new InternalPercentilesFacet(facetName, percents, digest);
+    }
+
+    class Collector extends FacetExecutor.Collector {
+
+        private DoubleValues values;
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            values = indexFieldData.load(context).getDoubleValues();
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (!values.isMultiValued()) {
+                if (values.hasValue(doc)) {
+                    digest.add(values.getValue(doc));
+                }
+                return;
+            }
+            for (DoubleValues.Iter iter = values.getIter(doc); iter.hasNext(); ) {
+                digest.add(iter.next());
+            }
+        }
+
+        @Override
+        public void postCollection() {
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.facet.percentiles;
+
+import org.apache.lucene.util.SorterTemplate;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * A t-digest, summarizing a distribution of values into weighted centroids. Centroids close to the median may grow
+ * large while the ones at the tails stay small (the weight of a centroid is bounded by
+ * <tt>4 * count * q * (1 - q) / compression</tt> where <tt>q</tt> is its quantile), so extreme percentiles stay accurate.
+ * The number of centroids grows with the compression but only logarithmically with the number of values, and
+ * digests are merged by adding the centroids of one to the other.
+ * <p/>
+ * Values are buffered and merged into the centroids in sorted batches.
+ */
+public class TDigest {
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+
+    private double[] means;
+    private long[] weights;
+    private int size;
+
+    private final double[] bufferMeans;
+    private final long[] bufferWeights;
+    private int buffered;
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        if (compression < 1) {
+            throw new ElasticSearchIllegalArgumentException("compression must be at least 1, got [" + compression + "]");
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) * 2;
+        this.means = new double[capacity];
+        this.weights = new long[capacity];
+        this.bufferMeans = new double[capacity * 4];
+        this.bufferWeights = new long[capacity * 4];
+    }
+
+    public double compression() {
+        return compression;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * The number of centroids, once the buffered values are merged.
+     */
+    public int centroids() {
+        compress();
+        return size;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double mean, long weight) {
+        if (mean < min) {
+            min = mean;
+        }
+        if (mean > max) {
+            max = mean;
+        }
+        count += weight;
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        if (++buffered == bufferMeans.length) {
+            compress();
+        }
+    }
+
+    /**
+     * Adds the centroids of the other digest to this one.
+     */
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.size; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        // the extremes of the other digest are not centroids
+        if (other.count > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    /**
+     * The estimated value at the provided quantile, between <tt>0</tt> and <tt>1</tt>.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new ElasticSearchIllegalArgumentException("quantile must be between 0 and 1, got [" + q + "]");
+        }
+        compress();
+        if (size == 0) {
+            return Double.NaN;
+        }
+        if (size == 1) {
+            return means[0];
+        }
+        // the weight of a centroid is spread around its mean, interpolate between the centers of adjacent centroids
+        final double index = q * count;
+        double center = weights[0] / 2.0;
+        if (index < center) {
+            return min + (means[0] - min) * index / center;
+        }
+        for (int i = 0; i < size - 1; i++) {
+            final double nextCenter = center + (weights[i] + weights[i + 1]) / 2.0;
+            if (index <= nextCenter) {
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / (nextCenter - center);
+            }
+            center = nextCenter;
+        }
+        final double lastWeight = weights[size - 1] / 2.0;
+        return means[size - 1] + (max - means[size - 1]) * Math.min(1, (index - center) / lastWeight);
+    }
+
+    /**
+     * Merges the buffered values into the centroids, walking both in the order of their means.
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        new BufferSorter().quickSort(0, buffered - 1);
+
+        final int capacity = size + buffered;
+        final double[] newMeans = new double[Math.max(means.length, capacity)];
+        final long[] newWeights = new long[Math.max(weights.length, capacity)];
+        int newSize = 0;
+
+        double currentMean = 0;
+        long currentWeight = 0;
+        long soFar = 0;
+        int i = 0, j = 0;
+        while (i < size || j < buffered) {
+            final double mean;
+            final long weight;
+            if (j == buffered || (i < size && means[i] <= bufferMeans[j])) {
+                mean = means[i];
+                weight = weights[i++];
+            } else {
+                mean = bufferMeans[j];
+                weight = bufferWeights[j++];
+            }
+            if (currentWeight == 0) {
+                currentMean = mean;
+                currentWeight = weight;
+                continue;
+            }
+            final long proposed = currentWeight + weight;
+            final double q = (soFar + proposed / 2.0) / count;
+            if (proposed <= 4 * count * q * (1 - q) / compression) {
+                currentMean += (mean - currentMean) * weight / proposed;
+                currentWeight = proposed;
+            } else {
+                newMeans[newSize] = currentMean;
+                newWeights[newSize++] = currentWeight;
+                soFar += currentWeight;
+                currentMean = mean;
+                currentWeight = weight;
+            }
+        }
+        newMeans[newSize] = currentMean;
+        newWeights[newSize++] = currentWeight;
+
+        means = newMeans;
+        weights = newWeights;
+        size = newSize;
+        buffered = 0;
+    }
+
+    private class BufferSorter extends SorterTemplate {
+
+        private double pivot;
+
+        @Override
+        protected void swap(int i, int j) {
+            final double mean = bufferMeans[i];
+            bufferMeans[i] = bufferMeans[j];
+            bufferMeans[j] = mean;
+            final long weight = bufferWeights[i];
+            bufferWeights[i] = bufferWeights[j];
+            bufferWeights[j] = weight;
+        }
+
+        @Override
+        protected int compare(int i, int j) {
+            return Double.compare(bufferMeans[i], bufferMeans[j]);
+        }
+
+        @Override
+        protected void setPivot(int i) {
+            pivot = bufferMeans[i];
+        }
+
+        @Override
+        protected int comparePivot(int j) {
+            return Double.compare(pivot, bufferMeans[j]);
+        }
+    }
+
+    public static TDigest readFrom(StreamInput in) throws IOException {
+        TDigest digest = new TDigest(in.readDouble());
+        digest.count = in.readVLong();
+        digest.min = in.readDouble();
+        digest.max = in.readDouble();
+        int size = in.readVInt();
+        if (size > digest.means.length) {
+            digest.means = new double[size];
+            digest.weights = new long[size];
+        }
+        for (int i = 0; i < size; i++) {
+            digest.means[i] = in.readDouble();
+            digest.weights[i] = in.readVLong();
+        }
+        digest.size = size;
+        return digest;
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        compress();
+        out.writeDouble(compression);
+        out.writeVLong(count);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeVInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(means[i]);
+            out.writeVLong(weights[i]);
+        }
+    }
+}
@@ -159,6 +159,15 @@ public class InternalDoubleTermsFacet extends InternalTermsFacet {
 
     @Override
     public Facet reduce(List<Facet> facets) {
+        return reduce(facets, false);
+    }
+
+    @Override
+    public Facet partialReduce(List<Facet> facets) {
+        return reduce(facets, true);
+    }
+
+    private Facet reduce(List<Facet> facets, boolean partial) {
         if (facets.size() == 1) {
             return facets.get(0);
         }
@@ -181,7 +190,7 @@ public class InternalDoubleTermsFacet extends InternalTermsFacet {
             }
         }
 
-        BoundedTreeSet<DoubleEntry> ordered = new BoundedTreeSet<DoubleEntry>(first.comparatorType.comparator(), first.requiredSize);
+        BoundedTreeSet<DoubleEntry> ordered = new BoundedTreeSet<DoubleEntry>(first.comparatorType.comparator(), partial ? Integer.MAX_VALUE : first.requiredSize);
         for (TDoubleIntIterator it = aggregated.iterator(); it.hasNext(); ) {
             it.advance();
             ordered.add(new DoubleEntry(it.key(), it.value()));
@@ -160,6 +160,15 @@ public class InternalLongTermsFacet extends InternalTermsFacet {
 
     @Override
     public Facet reduce(List<Facet> facets) {
+        return reduce(facets, false);
+    }
+
+    @Override
+    public Facet partialReduce(List<Facet> facets) {
+        return reduce(facets, true);
+    }
+
+    private Facet reduce(List<Facet> facets, boolean partial) {
         if (facets.size() == 1) {
             return facets.get(0);
         }
@@ -182,7 +191,7 @@ public class InternalLongTermsFacet extends InternalTermsFacet {
             }
         }
 
-        BoundedTreeSet<LongEntry> ordered = new BoundedTreeSet<LongEntry>(first.comparatorType.comparator(), first.requiredSize);
+        BoundedTreeSet<LongEntry> ordered = new BoundedTreeSet<LongEntry>(first.comparatorType.comparator(), partial ? Integer.MAX_VALUE : first.requiredSize);
         for (TLongIntIterator it = aggregated.iterator(); it.hasNext(); ) {
             it.advance();
             ordered.add(new LongEntry(it.key(), it.value()));
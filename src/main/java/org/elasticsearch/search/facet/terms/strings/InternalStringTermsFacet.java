@@ -169,6 +169,15 @@ public class InternalStringTermsFacet extends InternalTermsFacet {
 
     @Override
     public Facet reduce(List<Facet> facets) {
+        return reduce(facets, false);
+    }
+
+    @Override
+    public Facet partialReduce(List<Facet> facets) {
+        return reduce(facets, true);
+    }
+
+    private Facet reduce(List<Facet> facets, boolean partial) {
         if (facets.size() == 1) {
             return facets.get(0);
         }
@@ -187,7 +196,7 @@ public class InternalStringTermsFacet extends InternalTermsFacet {
                 // the assumption is that if one of the facets is of different type, it should do the
                 // reduction (all the facets we iterated so far most likely represent unmapped fields, if not
                 // class cast exception will be thrown)
-                return termsFacet.reduce(facets);
+                return partial ? termsFacet.partialReduce(facets) : termsFacet.reduce(facets);
             }
 
             if (first == null) {
@@ -199,7 +208,7 @@ public class InternalStringTermsFacet extends InternalTermsFacet {
             }
         }
 
-        BoundedTreeSet<TermEntry> ordered = new BoundedTreeSet<TermEntry>(first.comparatorType.comparator(), first.requiredSize);
+        BoundedTreeSet<TermEntry> ordered = new BoundedTreeSet<TermEntry>(first.comparatorType.comparator(), partial ? Integer.MAX_VALUE : first.requiredSize);
         for (TObjectIntIterator<Text> it = aggregated.iterator(); it.hasNext(); ) {
             it.advance();
             ordered.add(new TermEntry(it.key(), it.value()));
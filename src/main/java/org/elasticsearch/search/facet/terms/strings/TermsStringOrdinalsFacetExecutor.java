@@ -25,27 +25,27 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CharsRef;
 import org.apache.lucene.util.PriorityQueue;
 import org.apache.lucene.util.UnicodeUtil;
-import org.elasticsearch.common.CacheRecycler;
-import org.elasticsearch.common.collect.BoundedTreeSet;
+import org.elasticsearch.common.util.IntArray;
 import org.elasticsearch.index.fielddata.BytesValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinals;
 import org.elasticsearch.index.fielddata.ordinals.Ordinals;
 import org.elasticsearch.index.fielddata.ordinals.Ordinals.Docs.Iter;
 import org.elasticsearch.search.facet.FacetExecutor;
 import org.elasticsearch.search.facet.InternalFacet;
 import org.elasticsearch.search.facet.terms.TermsFacet;
-import org.elasticsearch.search.facet.terms.support.EntryPriorityQueue;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- *
+ * Counts the terms of all segments into a single array of {@link GlobalOrdinals global ordinals}, the
+ * term bytes are only resolved for the top entries (and for the candidates checked against the excluded
+ * terms or the pattern).
  */
 public class TermsStringOrdinalsFacetExecutor extends FacetExecutor {
 
@@ -56,18 +56,18 @@ public class TermsStringOrdinalsFacetExecutor extends FacetExecutor {
     private final int minCount;
     private final ImmutableSet<BytesRef> excluded;
     private final Matcher matcher;
-    final int ordinalsCacheAbove;
 
-    final List<ReaderAggregator> aggregators;
+    private final List<AtomicReaderContext> leaves;
+    private final GlobalOrdinals globalOrdinals;
+    final IntArray counts;
     long missing;
     long total;
 
     public TermsStringOrdinalsFacetExecutor(IndexFieldData.WithOrdinals indexFieldData, int size, TermsFacet.ComparatorType comparatorType, boolean allTerms, SearchContext context,
-                                            ImmutableSet<BytesRef> excluded, Pattern pattern, int ordinalsCacheAbove) {
+                                            ImmutableSet<BytesRef> excluded, Pattern pattern) {
         this.indexFieldData = indexFieldData;
         this.size = size;
         this.comparatorType = comparatorType;
-        this.ordinalsCacheAbove = ordinalsCacheAbove;
 
         if (excluded == null || excluded.isEmpty()) {
             this.excluded = null;
@@ -83,7 +83,9 @@ public class TermsStringOrdinalsFacetExecutor extends FacetExecutor {
             minCount = 0;
         }
 
-        this.aggregators = new ArrayList<ReaderAggregator>(context.searcher().getIndexReader().leaves().size());
+        this.leaves = context.searcher().getIndexReader().leaves();
+        this.globalOrdinals = context.fieldData().getGlobalOrdinals(context.searcher().getIndexReader(), indexFieldData);
+        this.counts = context.bigArrays().newIntArray(globalOrdinals.getMaxOrd());
     }
 
     @Override
@@ -94,80 +96,29 @@ public class TermsStringOrdinalsFacetExecutor extends FacetExecutor {
     @Override
     public InternalFacet buildFacet(String facetName) {
         final CharsRef spare = new CharsRef();
-        AggregatorPriorityQueue queue = new AggregatorPriorityQueue(aggregators.size());
-        for (ReaderAggregator aggregator : aggregators) {
-            if (aggregator.nextPosition()) {
-                queue.add(aggregator);
+        final TermResolver resolver = new TermResolver();
+        final int maxOrd = globalOrdinals.getMaxOrd();
+
+        // we only select global ordinals here, their term order is the term order
+        final int queueSize = Math.min(size, globalOrdinals.getNumOrds());
+        OrdinalPriorityQueue ordered = new OrdinalPriorityQueue(queueSize, comparatorType);
+        OrdinalEntry entry = null;
+        for (int globalOrd = 1; queueSize > 0 && globalOrd < maxOrd; globalOrd++) {
+            int count = counts.get(globalOrd);
+            if (count <= minCount) {
+                continue;
             }
-        }
-
-        // YACK, we repeat the same logic, but once with an optimizer priority queue for smaller sizes
-        if (size < EntryPriorityQueue.LIMIT) {
-            // optimize to use priority size
-            EntryPriorityQueue ordered = new EntryPriorityQueue(size, comparatorType.comparator());
-
-            while (queue.size() > 0) {
-                ReaderAggregator agg = queue.top();
-                BytesRef value = agg.values.makeSafe(agg.current); // we need to makeSafe it, since we end up pushing it... (can we get around this?)
-                int count = 0;
-                do {
-                    count += agg.counts[agg.position];
-                    if (agg.nextPosition()) {
-                        agg = queue.updateTop();
-                    } else {
-                        // we are done with this reader
-                        queue.pop();
-                        agg = queue.top();
-                    }
-                } while (agg != null && value.equals(agg.current));
-
-                if (count > minCount) {
-                    if (excluded != null && excluded.contains(value)) {
-                        continue;
-                    }
-                    if (matcher != null) {
-                        UnicodeUtil.UTF8toUTF16(value, spare);
-                        assert spare.toString().equals(value.utf8ToString());
-                        if (!matcher.reset(spare).matches()) {
-                            continue;
-                        }
-                    }
-                    InternalStringTermsFacet.TermEntry entry = new InternalStringTermsFacet.TermEntry(value, count);
-                    ordered.insertWithOverflow(entry);
-                }
+            if (entry == null) {
+                entry = new OrdinalEntry();
             }
-            InternalStringTermsFacet.TermEntry[] list = new InternalStringTermsFacet.TermEntry[ordered.size()];
-            for (int i = ordered.size() - 1; i >= 0; i--) {
-                list[i] = (InternalStringTermsFacet.TermEntry) ordered.pop();
+            entry.globalOrd = globalOrd;
+            entry.count = count;
+            if (ordered.size() == queueSize && !ordered.lessThan(ordered.top(), entry)) {
+                // not competitive, no need to look at its term
+                continue;
             }
-
-            for (ReaderAggregator aggregator : aggregators) {
-                if (aggregator.counts.length > ordinalsCacheAbove) {
-                    CacheRecycler.pushIntArray(aggregator.counts);
-                }
-            }
-
-            return new InternalStringTermsFacet(facetName, comparatorType, size, Arrays.asList(list), missing, total);
-        }
-
-        BoundedTreeSet<InternalStringTermsFacet.TermEntry> ordered = new BoundedTreeSet<InternalStringTermsFacet.TermEntry>(comparatorType.comparator(), size);
-
-        while (queue.size() > 0) {
-            ReaderAggregator agg = queue.top();
-            BytesRef value = agg.values.makeSafe(agg.current); // we need to makeSafe it, since we end up pushing it... (can we work around that?)
-            int count = 0;
-            do {
-                count += agg.counts[agg.position];
-                if (agg.nextPosition()) {
-                    agg = queue.updateTop();
-                } else {
-                    // we are done with this reader
-                    queue.pop();
-                    agg = queue.top();
-                }
-            } while (agg != null && value.equals(agg.current));
-
-            if (count > minCount) {
+            if (excluded != null || matcher != null) {
+                BytesRef value = resolver.term(globalOrd);
                 if (excluded != null && excluded.contains(value)) {
                     continue;
                 }
@@ -178,113 +129,126 @@ public class TermsStringOrdinalsFacetExecutor extends FacetExecutor {
                         continue;
                     }
                 }
-                InternalStringTermsFacet.TermEntry entry = new InternalStringTermsFacet.TermEntry(value, count);
-                ordered.add(entry);
             }
+            entry = ordered.insertWithOverflow(entry);
         }
 
-
-        for (ReaderAggregator aggregator : aggregators) {
-            if (aggregator.counts.length > ordinalsCacheAbove) {
-                CacheRecycler.pushIntArray(aggregator.counts);
-            }
+        InternalStringTermsFacet.TermEntry[] list = new InternalStringTermsFacet.TermEntry[ordered.size()];
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            OrdinalEntry top = ordered.pop();
+            list[i] = new InternalStringTermsFacet.TermEntry(resolver.safeTerm(top.globalOrd), top.count);
         }
 
-        return new InternalStringTermsFacet(facetName, comparatorType, size, ordered, missing, total);
+        counts.release();
+
+        return new InternalStringTermsFacet(facetName, comparatorType, size, Arrays.asList(list), missing, total);
     }
 
     class Collector extends FacetExecutor.Collector {
 
+        private final IntArray counts = TermsStringOrdinalsFacetExecutor.this.counts;
         private long missing;
         private long total;
-        private BytesValues.WithOrdinals values;
-        private ReaderAggregator current;
+        private GlobalOrdinals.Mapping mapping;
         private Ordinals.Docs ordinals;
 
         @Override
         public void setNextReader(AtomicReaderContext context) throws IOException {
-            if (current != null) {
-                missing += current.counts[0];
-                total += current.total - current.counts[0];
-                if (current.values.ordinals().getNumOrds() > 0) {
-                    aggregators.add(current);
-                }
-            }
-            values = indexFieldData.load(context).getBytesValues();
-            current = new ReaderAggregator(values, ordinalsCacheAbove);
-            ordinals = values.ordinals();
+            ordinals = indexFieldData.load(context).getBytesValues().ordinals();
+            mapping = globalOrdinals.segmentMapping(context.ord);
         }
 
         @Override
         public void collect(int doc) throws IOException {
             Iter iter = ordinals.getIter(doc);
             int ord = iter.next();
-            current.onOrdinal(doc, ord);
-            while((ord = iter.next()) != 0) {
-                current.onOrdinal(doc, ord);
+            if (ord == 0) {
+                missing++;
+                return;
             }
+            do {
+                counts.increment(mapping.globalOrd(ord), 1);
+                total++;
+            } while ((ord = iter.next()) != 0);
         }
 
         @Override
         public void postCollection() {
-            if (current != null) {
-                missing += current.counts[0];
-                total += current.total - current.counts[0];
-                // if we have values for this one, add it
-                if (current.values.ordinals().getNumOrds() > 0) {
-                    aggregators.add(current);
-                }
-                current = null;
-            }
             TermsStringOrdinalsFacetExecutor.this.missing = missing;
             TermsStringOrdinalsFacetExecutor.this.total = total;
         }
     }
 
-    public static final class ReaderAggregator {
-
-        final BytesValues.WithOrdinals values;
-        final int[] counts;
-
-        int position = 0;
-        BytesRef current;
-        int total;
-        private final int maxOrd;
+    /**
+     * Resolves global ordinals to terms, through the field data of the first segment holding them.
+     */
+    final class TermResolver {
 
-        public ReaderAggregator(BytesValues.WithOrdinals values, int ordinalsCacheLimit) {
-            this.values = values;
-            this.maxOrd = values.ordinals().getMaxOrd();
+        private final BytesValues.WithOrdinals[] values = new BytesValues.WithOrdinals[leaves.size()];
 
-            if (maxOrd > ordinalsCacheLimit) {
-                this.counts = CacheRecycler.popIntArray(maxOrd);
-            } else {
-                this.counts = new int[maxOrd];
+        BytesRef term(int globalOrd) {
+            int segment = globalOrdinals.firstSegment(globalOrd);
+            if (values[segment] == null) {
+                values[segment] = indexFieldData.load(leaves.get(segment)).getBytesValues();
             }
+            return values[segment].getValueByOrd(globalOrdinals.firstSegmentOrd(globalOrd));
         }
 
-        final void onOrdinal(int docId, int ordinal) {
-            counts[ordinal]++;
-            total++;
+        BytesRef safeTerm(int globalOrd) {
+            BytesRef term = term(globalOrd);
+            return values[globalOrdinals.firstSegment(globalOrd)].makeSafe(term);
         }
+    }
 
-        public boolean nextPosition() {
-            if (++position >= maxOrd) {
-                return false;
-            }
-            current = values.getValueByOrd(position);
-            return true;
-        }
+    static final class OrdinalEntry {
+        int globalOrd;
+        int count;
     }
 
-    public static class AggregatorPriorityQueue extends PriorityQueue<ReaderAggregator> {
+    /**
+     * Orders the entries like {@link TermsFacet.ComparatorType#comparator()} does, comparing global ordinals
+     * instead of terms, with the entry that ends up last in the facet at the top.
+     */
+    static final class OrdinalPriorityQueue extends PriorityQueue<OrdinalEntry> {
+
+        private final TermsFacet.ComparatorType comparatorType;
 
-        public AggregatorPriorityQueue(int size) {
-            super(size);
+        OrdinalPriorityQueue(int maxSize, TermsFacet.ComparatorType comparatorType) {
+            super(maxSize);
+            this.comparatorType = comparatorType;
         }
 
         @Override
-        protected boolean lessThan(ReaderAggregator a, ReaderAggregator b) {
-            return a.current.compareTo(b.current) < 0;
+        protected boolean lessThan(OrdinalEntry a, OrdinalEntry b) {
+            return compare(a, b) > 0; // reverse, since we reverse again when adding to a list
+        }
+
+        private int compare(OrdinalEntry a, OrdinalEntry b) {
+            switch (comparatorType) {
+                case COUNT:
+                    return compareByCount(a, b);
+                case REVERSE_COUNT:
+                    return -compareByCount(a, b);
+                case TERM:
+                    return compareOrds(a.globalOrd, b.globalOrd);
+                case REVERSE_TERM:
+                    return -compareOrds(a.globalOrd, b.globalOrd);
+                default:
+                    throw new IllegalStateException("unknown comparator type [" + comparatorType + "]");
+            }
+        }
+
+        // higher counts first, then higher terms first, see ComparatorType.COUNT
+        private static int compareByCount(OrdinalEntry a, OrdinalEntry b) {
+            int i = b.count - a.count;
+            if (i == 0) {
+                i = compareOrds(b.globalOrd, a.globalOrd);
+            }
+            return i;
+        }
+
+        private static int compareOrds(int a, int b) {
+            return a < b ? -1 : (a == b ? 0 : 1);
         }
     }
 }
@@ -168,6 +168,15 @@ public class InternalTermsStatsLongFacet extends InternalTermsStatsFacet {
 
     @Override
     public Facet reduce(List<Facet> facets) {
+        return reduce(facets, false);
+    }
+
+    @Override
+    public Facet partialReduce(List<Facet> facets) {
+        return reduce(facets, true);
+    }
+
+    private Facet reduce(List<Facet> facets, boolean partial) {
         if (facets.size() == 1) {
             if (requiredSize == 0) {
                 // we need to sort it here!
@@ -204,7 +213,7 @@ public class InternalTermsStatsLongFacet extends InternalTermsStatsFacet {
         }
 
         // sort
-        if (requiredSize == 0) { // all terms
+        if (requiredSize == 0 || partial) { // all terms, partial reductions are trimmed by the final one
             LongEntry[] entries1 = map.values(new LongEntry[map.size()]);
             Arrays.sort(entries1, comparatorType.comparator());
             CacheRecycler.pushLongObjectMap(map);
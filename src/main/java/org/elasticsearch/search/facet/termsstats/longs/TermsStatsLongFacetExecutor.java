@@ -29,6 +29,7 @@ import org.elasticsearch.index.fielddata.DoubleValues;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 import org.elasticsearch.index.fielddata.LongValues;
 import org.elasticsearch.script.SearchScript;
+import org.elasticsearch.search.facet.BatchedFacetCollector;
 import org.elasticsearch.search.facet.DoubleFacetAggregatorBase;
 import org.elasticsearch.search.facet.FacetExecutor;
 import org.elasticsearch.search.facet.InternalFacet;
@@ -65,7 +66,10 @@ public class TermsStatsLongFacetExecutor extends FacetExecutor {
     }
 
     @Override
-    public Collector collector() {
+    public FacetExecutor.Collector collector() {
+        if (script == null) {
+            return new BatchedCollector();
+        }
         return new Collector();
     }
 
@@ -137,6 +141,70 @@ public class TermsStatsLongFacetExecutor extends FacetExecutor {
         }
     }
 
+    class BatchedCollector extends FacetExecutor.BatchedCollector {
+
+        private final Collector collector = new Collector();
+        private BatchedFacetCollector.LongColumn keys;
+        private BatchedFacetCollector.DoubleColumn values;
+        private long missing;
+
+        @Override
+        public void setColumns(BatchedFacetCollector columns) {
+            keys = columns.longColumn(keyIndexFieldData);
+            values = columns.doubleColumn(valueIndexFieldData);
+        }
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            collector.setNextReader(context);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            collector.collect(doc);
+        }
+
+        @Override
+        public void collect(int[] docs, int count) {
+            final int[] keyOffsets = keys.offsets;
+            final long[] keyBuffer = keys.buffer;
+            final int[] valueOffsets = values.offsets;
+            final double[] valueBuffer = values.buffer;
+            for (int i = 0; i < count; i++) {
+                if (keyOffsets[i] == keyOffsets[i + 1]) {
+                    missing++;
+                    continue;
+                }
+                for (int k = keyOffsets[i]; k < keyOffsets[i + 1]; k++) {
+                    final long key = keyBuffer[k];
+                    InternalTermsStatsLongFacet.LongEntry longEntry = entries.get(key);
+                    if (longEntry == null) {
+                        longEntry = new InternalTermsStatsLongFacet.LongEntry(key, 0, 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+                        entries.put(key, longEntry);
+                    }
+                    longEntry.count++;
+                    for (int v = valueOffsets[i]; v < valueOffsets[i + 1]; v++) {
+                        final double value = valueBuffer[v];
+                        if (value < longEntry.min) {
+                            longEntry.min = value;
+                        }
+                        if (value > longEntry.max) {
+                            longEntry.max = value;
+                        }
+                        longEntry.total += value;
+                        longEntry.totalCount++;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void postCollection() {
+            collector.postCollection();
+            TermsStatsLongFacetExecutor.this.missing += missing;
+        }
+    }
+
     public static class Aggregator extends LongFacetAggregatorBase {
 
         final ExtTLongObjectHashMap<InternalTermsStatsLongFacet.LongEntry> entries;
@@ -173,6 +173,15 @@ public class InternalTermsStatsStringFacet extends InternalTermsStatsFacet {
 
     @Override
     public Facet reduce(List<Facet> facets) {
+        return reduce(facets, false);
+    }
+
+    @Override
+    public Facet partialReduce(List<Facet> facets) {
+        return reduce(facets, true);
+    }
+
+    private Facet reduce(List<Facet> facets, boolean partial) {
         if (facets.size() == 1) {
             if (requiredSize == 0) {
                 // we need to sort it here!
@@ -209,7 +218,7 @@ public class InternalTermsStatsStringFacet extends InternalTermsStatsFacet {
         }
 
         // sort
-        if (requiredSize == 0) { // all terms
+        if (requiredSize == 0 || partial) { // all terms, partial reductions are trimmed by the final one
             StringEntry[] entries1 = map.values().toArray(new StringEntry[map.size()]);
             Arrays.sort(entries1, comparatorType.comparator());
             CacheRecycler.pushHashMap(map);
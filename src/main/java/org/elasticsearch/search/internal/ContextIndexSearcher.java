@@ -21,17 +21,25 @@ package org.elasticsearch.search.internal;
 
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.search.*;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.ElasticSearchInterruptedException;
+import org.elasticsearch.common.lucene.EarlyTerminatingCollector;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
 import org.elasticsearch.common.lucene.MultiCollector;
 import org.elasticsearch.common.lucene.search.FilteredCollector;
 import org.elasticsearch.common.lucene.search.XCollector;
 import org.elasticsearch.common.lucene.search.XFilteredQuery;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.CachedDfSource;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  *
@@ -55,6 +63,9 @@ public class ContextIndexSearcher extends IndexSearcher {
     private boolean enableMainDocIdSetCollector;
     private DocIdSetCollector mainDocIdSetCollector;
 
+    private Executor sliceExecutor;
+    private List<List<AtomicReaderContext>> slices;
+
     public ContextIndexSearcher(SearchContext searchContext, Engine.Searcher searcher) {
         super(searcher.reader());
         this.searchContext = searchContext;
@@ -83,6 +94,46 @@ public class ContextIndexSearcher extends IndexSearcher {
         queryCollectors.add(collector);
     }
 
+    /**
+     * Collects the top docs of the shard in up to <tt>maxSlices</tt> slices of leaves, searched concurrently on the
+     * provided executor and merged. Falls back to searching the leaves sequentially when the collection isn't thread
+     * safe, see {@link #searchSlicesConcurrently()}.
+     */
+    public void searchConcurrently(Executor executor, int maxSlices) {
+        List<List<AtomicReaderContext>> slices = sliceLeaves(leafContexts, maxSlices);
+        if (slices.size() > 1) {
+            this.sliceExecutor = executor;
+            this.slices = slices;
+        }
+    }
+
+    /**
+     * Splits the leaves in up to <tt>maxSlices</tt> slices of contiguous leaves with about the same number of docs.
+     */
+    public static List<List<AtomicReaderContext>> sliceLeaves(List<AtomicReaderContext> leaves, int maxSlices) {
+        long totalDocs = 0;
+        for (AtomicReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        long docsPerSlice = (totalDocs + maxSlices - 1) / maxSlices;
+        List<List<AtomicReaderContext>> slices = new ArrayList<List<AtomicReaderContext>>(maxSlices);
+        List<AtomicReaderContext> slice = new ArrayList<AtomicReaderContext>();
+        long sliceDocs = 0;
+        for (AtomicReaderContext leaf : leaves) {
+            slice.add(leaf);
+            sliceDocs += leaf.reader().maxDoc();
+            if (sliceDocs >= docsPerSlice && slices.size() < maxSlices - 1) {
+                slices.add(slice);
+                slice = new ArrayList<AtomicReaderContext>();
+                sliceDocs = 0;
+            }
+        }
+        if (!slice.isEmpty()) {
+            slices.add(slice);
+        }
+        return slices;
+    }
+
     public DocIdSetCollector mainDocIdSetCollector() {
         return this.mainDocIdSetCollector;
     }
@@ -124,6 +175,137 @@ public class ContextIndexSearcher extends IndexSearcher {
         return super.createNormalizedWeight(query);
     }
 
+    @Override
+    protected TopDocs search(Weight weight, ScoreDoc after, int nDocs) throws IOException {
+        if (!searchSlicesConcurrently()) {
+            return super.search(weight, after, nDocs);
+        }
+        final Weight sliceWeight = weight;
+        final ScoreDoc sliceAfter = after;
+        final int sliceNDocs = nDocs;
+        TopDocs[] sliceTopDocs = searchSlices(new SliceSearch() {
+            @Override
+            public TopDocs search(List<AtomicReaderContext> slice) throws IOException {
+                return ContextIndexSearcher.this.search(slice, sliceWeight, sliceAfter, sliceNDocs);
+            }
+        });
+        return TopDocs.merge(null, nDocs, sliceTopDocs);
+    }
+
+    @Override
+    protected TopFieldDocs search(Weight weight, FieldDoc after, int nDocs, Sort sort, boolean fillFields, boolean doDocScores, boolean doMaxScore) throws IOException {
+        // the sort values are needed to merge the slices
+        if (!fillFields || !searchSlicesConcurrently()) {
+            return super.search(weight, after, nDocs, sort, fillFields, doDocScores, doMaxScore);
+        }
+        final Weight sliceWeight = weight;
+        final FieldDoc sliceAfter = after;
+        final int sliceNDocs = nDocs;
+        final Sort sliceSort = sort;
+        final boolean sliceDoDocScores = doDocScores;
+        final boolean sliceDoMaxScore = doMaxScore;
+        TopDocs[] sliceTopDocs = searchSlices(new SliceSearch() {
+            @Override
+            public TopDocs search(List<AtomicReaderContext> slice) throws IOException {
+                return ContextIndexSearcher.this.search(slice, sliceWeight, sliceAfter, sliceNDocs, sliceSort, true, sliceDoDocScores, sliceDoMaxScore);
+            }
+        });
+        return (TopFieldDocs) TopDocs.merge(sort, nDocs, sliceTopDocs);
+    }
+
+    /**
+     * The slices can only be searched concurrently when the whole collection chain is created per slice. Facet and
+     * doc id set collectors are shared by the main query, and scripts share the per segment state of the lookup.
+     */
+    private boolean searchSlicesConcurrently() {
+        if (slices == null || searchContext.hasLookup()) {
+            return false;
+        }
+        // the number of docs to collect before terminating is per shard, not per slice
+        if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        if (currentState == Stage.MAIN_QUERY && (enableMainDocIdSetCollector || (queryCollectors != null && !queryCollectors.isEmpty()))) {
+            return false;
+        }
+        return true;
+    }
+
+    private static interface SliceSearch {
+
+        TopDocs search(List<AtomicReaderContext> slice) throws IOException;
+    }
+
+    /**
+     * Searches all the slices but the first one on the executor, while the calling thread searches the first slice,
+     * then any slice the executor did not start yet, and waits for the others. All the slices are done when this
+     * method returns, even if one of them failed.
+     */
+    private TopDocs[] searchSlices(final SliceSearch search) throws IOException {
+        List<FutureTask<TopDocs>> tasks = new ArrayList<FutureTask<TopDocs>>(slices.size());
+        for (final List<AtomicReaderContext> slice : slices) {
+            tasks.add(new FutureTask<TopDocs>(new Callable<TopDocs>() {
+                @Override
+                public TopDocs call() throws Exception {
+                    boolean setCurrent = SearchContext.current() == null;
+                    if (setCurrent) {
+                        SearchContext.setCurrent(searchContext);
+                    }
+                    try {
+                        return search.search(slice);
+                    } finally {
+                        if (setCurrent) {
+                            SearchContext.removeCurrent();
+                        }
+                    }
+                }
+            }));
+        }
+        for (int i = 1; i < tasks.size(); i++) {
+            try {
+                sliceExecutor.execute(tasks.get(i));
+            } catch (EsRejectedExecutionException e) {
+                // the slice is searched by the calling thread
+            }
+        }
+        TopDocs[] sliceTopDocs = new TopDocs[tasks.size()];
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (int i = 0; i < tasks.size(); i++) {
+            FutureTask<TopDocs> task = tasks.get(i);
+            // no-op if the executor already started the task
+            task.run();
+            while (true) {
+                try {
+                    sliceTopDocs[i] = task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // keep on waiting, the slice may still be using the searcher
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (failure == null) {
+                throw new ElasticSearchInterruptedException("interrupted while searching slices");
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new ElasticSearchException("failed to search slice", failure);
+        }
+        return sliceTopDocs;
+    }
+
     @Override
     public void search(List<AtomicReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         if (searchContext.timeoutInMillis() != -1) {
@@ -149,16 +331,18 @@ public class ContextIndexSearcher extends IndexSearcher {
         if (searchContext.minimumScore() != null) {
             collector = new MinimumScoreCollector(collector, searchContext.minimumScore());
         }
+        // wraps the whole chain, so that facets see the same docs as the hits
+        if (currentState == Stage.MAIN_QUERY && searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            collector = new EarlyTerminatingCollector(collector, searchContext.terminateAfter());
+        }
 
         // we only compute the doc id set once since within a context, we execute the same query always...
-        if (searchContext.timeoutInMillis() != -1) {
-            try {
-                super.search(leaves, weight, collector);
-            } catch (TimeLimitingCollector.TimeExceededException e) {
-                searchContext.queryResult().searchTimedOut(true);
-            }
-        } else {
+        try {
             super.search(leaves, weight, collector);
+        } catch (TimeLimitingCollector.TimeExceededException e) {
+            searchContext.queryResult().searchTimedOut(true);
+        } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
+            searchContext.queryResult().terminatedEarly(true);
         }
         if (currentState == Stage.MAIN_QUERY) {
             if (enableMainDocIdSetCollector) {
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.search.internal;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -46,6 +48,8 @@ public class InternalSearchResponse implements Streamable, ToXContent {
 
     private boolean timedOut;
 
+    private Boolean terminatedEarly = null;
+
     public static final InternalSearchResponse EMPTY = new InternalSearchResponse(new InternalSearchHits(new InternalSearchHit[0], 0, 0), null, null, false);
 
     private InternalSearchResponse() {
@@ -58,10 +62,20 @@ public class InternalSearchResponse implements Streamable, ToXContent {
         this.timedOut = timedOut;
     }
 
+    public InternalSearchResponse(InternalSearchHits hits, InternalFacets facets, Suggest suggest, boolean timedOut, @Nullable Boolean terminatedEarly) {
+        this(hits, facets, suggest, timedOut);
+        this.terminatedEarly = terminatedEarly;
+    }
+
     public boolean timedOut() {
         return this.timedOut;
     }
 
+    @Nullable
+    public Boolean terminatedEarly() {
+        return this.terminatedEarly;
+    }
+
     public SearchHits hits() {
         return hits;
     }
@@ -102,6 +116,9 @@ public class InternalSearchResponse implements Streamable, ToXContent {
             suggest = Suggest.readSuggest(Suggest.Fields.SUGGEST, in);
         }
         timedOut = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            terminatedEarly = in.readOptionalBoolean();
+        }
     }
 
     @Override
@@ -120,5 +137,8 @@ public class InternalSearchResponse implements Streamable, ToXContent {
             suggest.writeTo(out);
         }
         out.writeBoolean(timedOut);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeOptionalBoolean(terminatedEarly);
+        }
     }
 }
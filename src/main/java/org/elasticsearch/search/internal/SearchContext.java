@@ -34,6 +34,7 @@ import org.elasticsearch.common.lucene.search.XConstantScoreQuery;
 import org.elasticsearch.common.lucene.search.XFilteredQuery;
 import org.elasticsearch.common.lucene.search.function.BoostScoreFunction;
 import org.elasticsearch.common.lucene.search.function.FunctionScoreQuery;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.cache.docset.DocSetCache;
 import org.elasticsearch.index.cache.filter.FilterCache;
@@ -107,6 +108,8 @@ public class SearchContext implements Releasable {
 
     private final ScriptService scriptService;
 
+    private final BigArrays bigArrays;
+
     private final IndexShard indexShard;
 
     private final IndexService indexService;
@@ -124,9 +127,13 @@ public class SearchContext implements Releasable {
 
     private float queryBoost = 1.0f;
 
+    public static final int DEFAULT_TERMINATE_AFTER = 0;
+
     // timeout in millis
     private long timeoutInMillis = -1;
 
+    private int terminateAfter = DEFAULT_TERMINATE_AFTER;
+
 
     private List<String> groupStats;
 
@@ -176,6 +183,8 @@ public class SearchContext implements Releasable {
 
     private boolean queryRewritten;
 
+    private boolean nowInMillisUsed;
+
     private volatile long keepAlive;
 
     private volatile long lastAccessTime;
@@ -184,13 +193,15 @@ public class SearchContext implements Releasable {
 
 
     public SearchContext(long id, ShardSearchRequest request, SearchShardTarget shardTarget,
-                         Engine.Searcher engineSearcher, IndexService indexService, IndexShard indexShard, ScriptService scriptService) {
+                         Engine.Searcher engineSearcher, IndexService indexService, IndexShard indexShard, ScriptService scriptService,
+                         BigArrays bigArrays) {
         this.id = id;
         this.request = request;
         this.searchType = request.searchType();
         this.shardTarget = shardTarget;
         this.engineSearcher = engineSearcher;
         this.scriptService = scriptService;
+        this.bigArrays = bigArrays;
         this.dfsResult = new DfsSearchResult(id, shardTarget);
         this.queryResult = new QuerySearchResult(id, shardTarget);
         this.fetchResult = new FetchSearchResult(id, shardTarget);
@@ -298,9 +309,17 @@ public class SearchContext implements Releasable {
     }
 
     public long nowInMillis() {
+        nowInMillisUsed = true;
         return request.nowInMillis();
     }
 
+    /**
+     * Has the current time been used while parsing the request, in which case its results can't be cached.
+     */
+    public boolean nowInMillisUsed() {
+        return nowInMillisUsed;
+    }
+
     public Scroll scroll() {
         return this.scroll;
     }
@@ -369,6 +388,10 @@ public class SearchContext implements Releasable {
         return this.searcher;
     }
 
+    public IndexService indexService() {
+        return this.indexService;
+    }
+
     public IndexShard indexShard() {
         return this.indexShard;
     }
@@ -393,6 +416,13 @@ public class SearchContext implements Releasable {
         return scriptService;
     }
 
+    /**
+     * Big arrays recycling their pages through the node page recycler, arrays must be released once the request is done.
+     */
+    public BigArrays bigArrays() {
+        return bigArrays;
+    }
+
     public FilterCache filterCache() {
         return indexService.cache().filter();
     }
@@ -417,6 +447,17 @@ public class SearchContext implements Releasable {
         this.timeoutInMillis = timeoutInMillis;
     }
 
+    /**
+     * The number of docs the main query collects on the shard before terminating, <tt>0</tt> for all of them.
+     */
+    public int terminateAfter() {
+        return terminateAfter;
+    }
+
+    public void terminateAfter(int terminateAfter) {
+        this.terminateAfter = terminateAfter;
+    }
+
     public SearchContext minimumScore(float minimumScore) {
         this.minimumScore = minimumScore;
         return this;
@@ -584,6 +625,13 @@ public class SearchContext implements Releasable {
         this.keepAlive = keepAlive;
     }
 
+    /**
+     * Has the lookup been used, by a script for example.
+     */
+    public boolean hasLookup() {
+        return searchLookup != null;
+    }
+
     public SearchLookup lookup() {
         // TODO: The types should take into account the parsing context in QueryParserContext...
         if (searchLookup == null) {
@@ -73,6 +73,8 @@ public class QueryPhase implements SearchPhase {
                 .put("min_score", new MinScoreParseElement())
                 .put("minScore", new MinScoreParseElement())
                 .put("timeout", new TimeoutParseElement())
+                .put("terminate_after", new TerminateAfterParseElement())
+                .put("terminateAfter", new TerminateAfterParseElement())
                 .putAll(facetPhase.parseElements())
                 .putAll(suggestPhase.parseElements())
                 .putAll(rescorePhase.parseElements());
@@ -87,6 +89,9 @@ public class QueryPhase implements SearchPhase {
 
     public void execute(SearchContext searchContext) throws QueryPhaseExecutionException {
         searchContext.queryResult().searchTimedOut(false);
+        if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            searchContext.queryResult().terminatedEarly(false);
+        }
 
         List<SearchContext.Rewrite> rewrites = searchContext.rewrites();
         if (rewrites != null) {
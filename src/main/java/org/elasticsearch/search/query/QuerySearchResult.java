@@ -20,6 +20,7 @@
 package org.elasticsearch.search.query;
 
 import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.SearchShardTarget;
@@ -46,6 +47,7 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
     private InternalFacets facets;
     private Suggest suggest;
     private boolean searchTimedOut;
+    private Boolean terminatedEarly = null;
 
     public QuerySearchResult() {
 
@@ -87,6 +89,17 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
         return searchTimedOut;
     }
 
+    public void terminatedEarly(boolean terminatedEarly) {
+        this.terminatedEarly = terminatedEarly;
+    }
+
+    /**
+     * Did the collection terminate once it got terminate_after docs, <tt>null</tt> if terminate_after was not set.
+     */
+    public Boolean terminatedEarly() {
+        return terminatedEarly;
+    }
+
     public TopDocs topDocs() {
         return topDocs;
     }
@@ -135,6 +148,14 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
         return result;
     }
 
+    /**
+     * Reads a result serialized for another context, typically a cached one, keeping the id of this one.
+     */
+    public void readFromWithId(long id, StreamInput in) throws IOException {
+        readFrom(in);
+        this.id = id;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -150,6 +171,9 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
             suggest = Suggest.readSuggest(Suggest.Fields.SUGGEST, in);
         }
         searchTimedOut = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            terminatedEarly = in.readOptionalBoolean();
+        }
     }
 
     @Override
@@ -173,5 +197,8 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
             suggest.writeTo(out);
         }
         out.writeBoolean(searchTimedOut);
+        if (out.getVersion().onOrAfter(Version.V_1_0_0_Beta1)) {
+            out.writeOptionalBoolean(terminatedEarly);
+        }
     }
 }
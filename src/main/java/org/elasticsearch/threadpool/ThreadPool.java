@@ -64,6 +64,7 @@ public class ThreadPool extends AbstractComponent {
         public static final String GET = "get";
         public static final String INDEX = "index";
         public static final String BULK = "bulk";
+        public static final String BULK_PARSE = "bulk_parse";
         public static final String SEARCH = "search";
         public static final String PERCOLATE = "percolate";
         public static final String MANAGEMENT = "management";
@@ -71,6 +72,7 @@ public class ThreadPool extends AbstractComponent {
         public static final String MERGE = "merge";
         public static final String REFRESH = "refresh";
         public static final String WARMER = "warmer";
+        public static final String FIELD_DATA = "fielddata";
         public static final String SNAPSHOT = "snapshot";
     }
 
@@ -103,6 +105,7 @@ public class ThreadPool extends AbstractComponent {
                 .put(Names.GENERIC, settingsBuilder().put("type", "cached").put("keep_alive", "30s").build())
                 .put(Names.INDEX, settingsBuilder().put("type", "fixed").put("size", availableProcessors).build())
                 .put(Names.BULK, settingsBuilder().put("type", "fixed").put("size", availableProcessors).build())
+                .put(Names.BULK_PARSE, settingsBuilder().put("type", "fixed").put("size", availableProcessors).build())
                 .put(Names.GET, settingsBuilder().put("type", "fixed").put("size", availableProcessors).build())
                 .put(Names.SEARCH, settingsBuilder().put("type", "fixed").put("size", availableProcessors * 3).put("queue_size", 1000).build())
                 .put(Names.PERCOLATE, settingsBuilder().put("type", "fixed").put("size", availableProcessors).build())
@@ -111,6 +114,7 @@ public class ThreadPool extends AbstractComponent {
                 .put(Names.MERGE, settingsBuilder().put("type", "scaling").put("keep_alive", "5m").put("size", halfProcMaxAt5).build())
                 .put(Names.REFRESH, settingsBuilder().put("type", "scaling").put("keep_alive", "5m").put("size", halfProcMaxAt10).build())
                 .put(Names.WARMER, settingsBuilder().put("type", "scaling").put("keep_alive", "5m").put("size", halfProcMaxAt5).build())
+                .put(Names.FIELD_DATA, settingsBuilder().put("type", "scaling").put("keep_alive", "5m").put("size", availableProcessors).build())
                 .put(Names.SNAPSHOT, settingsBuilder().put("type", "scaling").put("keep_alive", "5m").put("size", halfProcMaxAt5).build())
                 .build();
 
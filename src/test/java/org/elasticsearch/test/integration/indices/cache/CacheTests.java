@@ -23,9 +23,12 @@ import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
+import org.elasticsearch.indices.cache.query.QueryCacheStats;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.integration.AbstractNodesTests;
 import org.testng.annotations.AfterClass;
@@ -86,6 +89,58 @@ public class CacheTests extends AbstractNodesTests {
         assertThat(indicesStats.getTotal().getFilterCache().getMemorySizeInBytes(), equalTo(0l));
     }
 
+    @Test
+    public void testQueryCache() {
+        client.admin().indices().prepareDelete().execute().actionGet();
+        client.admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 1)
+                .put(IndicesQueryCache.INDEX_CACHE_QUERY_ENABLE, true)).execute().actionGet();
+        client.prepareIndex("test", "type", "1").setSource("field", "value").execute().actionGet();
+        client.admin().indices().prepareRefresh().execute().actionGet();
+
+        QueryCacheStats stats = client.admin().cluster().prepareNodesStats().setIndices(true).execute().actionGet().getNodes()[0].getIndices().getQueryCache();
+        long hits = stats.getHitCount();
+        long misses = stats.getMissCount();
+
+        SearchResponse searchResponse = client.prepareSearch("test").setSearchType(SearchType.COUNT).setQuery(matchAllQuery()).execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(1l));
+        searchResponse = client.prepareSearch("test").setSearchType(SearchType.COUNT).setQuery(matchAllQuery()).execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(1l));
+
+        stats = client.admin().cluster().prepareNodesStats().setIndices(true).execute().actionGet().getNodes()[0].getIndices().getQueryCache();
+        assertThat(stats.getMissCount(), equalTo(misses + 1));
+        assertThat(stats.getHitCount(), equalTo(hits + 1));
+        assertThat(stats.getMemorySizeInBytes(), greaterThan(0l));
+
+        // requests returning hits are not cached
+        searchResponse = client.prepareSearch("test").setQuery(matchAllQuery()).execute().actionGet();
+        assertThat(searchResponse.getHits().getHits().length, equalTo(1));
+        stats = client.admin().cluster().prepareNodesStats().setIndices(true).execute().actionGet().getNodes()[0].getIndices().getQueryCache();
+        assertThat(stats.getMissCount(), equalTo(misses + 1));
+
+        // a refresh changes the reader, and with it the key
+        client.prepareIndex("test", "type", "2").setSource("field", "value").execute().actionGet();
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        searchResponse = client.prepareSearch("test").setSearchType(SearchType.COUNT).setQuery(matchAllQuery()).execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(2l));
+        stats = client.admin().cluster().prepareNodesStats().setIndices(true).execute().actionGet().getNodes()[0].getIndices().getQueryCache();
+        assertThat(stats.getMissCount(), equalTo(misses + 2));
+        assertThat(stats.getHitCount(), equalTo(hits + 1));
+
+        // timed out results are partial, and are not cached
+        long memorySize = stats.getMemorySizeInBytes();
+        for (int i = 0; i < 2; i++) {
+            searchResponse = client.prepareSearch("test").setSearchType(SearchType.COUNT).setTimeout("10ms")
+                    .setQuery(filteredQuery(matchAllQuery(), FilterBuilders.scriptFilter("Thread.sleep(100); return true;")))
+                    .execute().actionGet();
+            assertThat(searchResponse.isTimedOut(), equalTo(true));
+        }
+        stats = client.admin().cluster().prepareNodesStats().setIndices(true).execute().actionGet().getNodes()[0].getIndices().getQueryCache();
+        assertThat(stats.getMissCount(), equalTo(misses + 4));
+        assertThat(stats.getHitCount(), equalTo(hits + 1));
+        assertThat(stats.getMemorySizeInBytes(), equalTo(memorySize));
+    }
+
     @Test
     public void testFieldDataStats() {
         client.admin().indices().prepareDelete().execute().actionGet();
@@ -19,9 +19,11 @@
 
 package org.elasticsearch.test.integration.indices.wamer;
 
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.warmer.IndexWarmerMissingException;
 import org.elasticsearch.search.warmer.IndexWarmersMetaData;
@@ -29,8 +31,10 @@ import org.elasticsearch.test.integration.AbstractSharedClusterTest;
 import org.hamcrest.Matchers;
 import org.testng.annotations.Test;
 
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 
 /**
  */
@@ -58,6 +62,34 @@ public class SimpleIndicesWarmerTests extends AbstractSharedClusterTest {
         client().prepareIndex("test", "type1", "2").setSource("field", "value2").setRefresh(true).execute().actionGet();
     }
 
+    @Test
+    public void eagerFieldDataWarmer() throws Exception {
+        client().admin().indices().prepareDelete().execute().actionGet();
+
+        client().admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("eager").field("type", "string").field("index", "not_analyzed")
+                        .startObject("fielddata").field("loading", "eager").endObject().endObject()
+                        .startObject("lazy").field("type", "string").field("index", "not_analyzed").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+
+        client().admin().cluster().prepareHealth().setWaitForEvents(Priority.LANGUID).setWaitForGreenStatus().execute().actionGet();
+
+        client().prepareIndex("test", "type1", "1").setSource("eager", "value1", "lazy", "value1").execute().actionGet();
+        client().prepareIndex("test", "type1", "2").setSource("eager", "value2", "lazy", "value2").execute().actionGet();
+        client().admin().indices().prepareRefresh("test").execute().actionGet();
+
+        // loaded by the warmer of the refresh, no search did sort or facet on it
+        IndicesStatsResponse indicesStats = client().admin().indices().prepareStats("test").clear()
+                .setFieldData(true).setFieldDataFields("*").execute().actionGet();
+        FieldDataStats fieldDataStats = indicesStats.getTotal().getFieldData();
+        assertThat(fieldDataStats.getMemorySizeInBytes(), greaterThan(0l));
+        assertThat(fieldDataStats.getFields().get("eager"), greaterThan(0l));
+        assertThat(fieldDataStats.getFields().containsKey("lazy"), equalTo(false));
+    }
+
     @Test
     public void templateWarmer() {
         client().admin().indices().prepareDelete().execute().actionGet();
@@ -0,0 +1,220 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.integration.search.facet;
+
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.search.facet.FacetBuilder;
+import org.elasticsearch.search.facet.cardinality.CardinalityFacet;
+import org.elasticsearch.search.facet.percentiles.PercentilesFacet;
+import org.elasticsearch.test.integration.AbstractSharedClusterTest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.search.facet.FacetBuilders.cardinalityFacet;
+import static org.elasticsearch.search.facet.FacetBuilders.percentilesFacet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Checks the cardinality and percentiles facets against the exact values, reduced over several shards.
+ */
+public class CardinalityAndPercentilesFacetsTests extends AbstractSharedClusterTest {
+
+    private static final int NUM_DOCS = 500;
+
+    @Override
+    public Settings getSettings() {
+        return randomSettingsBuilder()
+                .put("index.number_of_shards", 3)
+                .put("index.number_of_replicas", 0)
+                .build();
+    }
+
+    @Override
+    protected int numberOfNodes() {
+        return 1;
+    }
+
+    private long[] longs;
+    private double[] doubles;
+    private Set<String> strings;
+
+    private void indexDocs() throws Exception {
+        prepareCreate("test").addMapping("type", jsonBuilder().startObject().startObject("type").startObject("properties")
+                .startObject("s").field("type", "string").field("index", "not_analyzed").endObject()
+                .startObject("l").field("type", "long").endObject()
+                .startObject("d").field("type", "double").endObject()
+                .endObject().endObject().endObject()).execute().actionGet();
+        ensureGreen();
+
+        longs = new long[NUM_DOCS];
+        doubles = new double[NUM_DOCS];
+        strings = new HashSet<String>();
+        for (int i = 0; i < NUM_DOCS; i++) {
+            longs[i] = i % 200;
+            doubles[i] = (i % 150) / 4.0;
+            // multi valued, so the ordinals of a doc are iterated
+            String[] values = new String[]{"s" + (i % 97), "t" + (i % 13)};
+            strings.addAll(Arrays.asList(values));
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .array("s", values)
+                    .field("l", longs[i])
+                    .field("d", doubles[i])
+                    .endObject()).execute().actionGet();
+            if (i % 100 == 0) {
+                // several segments per shard
+                client().admin().indices().prepareRefresh().execute().actionGet();
+            }
+        }
+        client().admin().indices().prepareRefresh().execute().actionGet();
+        Arrays.sort(longs);
+        Arrays.sort(doubles);
+    }
+
+    @Test
+    public void testCardinality() throws Exception {
+        indexDocs();
+
+        SearchResponse searchResponse = client().prepareSearch("test")
+                .setSearchType(SearchType.COUNT)
+                .setQuery(matchAllQuery())
+                .addFacet(cardinalityFacet("s").field("s"))
+                .addFacet(cardinalityFacet("l").field("l"))
+                .addFacet(cardinalityFacet("d").field("d"))
+                .addFacet(cardinalityFacet("l_low_precision").field("l").precision(8))
+                .execute().actionGet();
+        assertThat(searchResponse.getFailedShards(), equalTo(0));
+        assertThat(searchResponse.getHits().totalHits(), equalTo((long) NUM_DOCS));
+
+        assertCardinality(searchResponse.getFacets().<CardinalityFacet>facet("s"), strings.size(), 0.02);
+        assertCardinality(searchResponse.getFacets().<CardinalityFacet>facet("l"), 200, 0.02);
+        assertCardinality(searchResponse.getFacets().<CardinalityFacet>facet("d"), 150, 0.02);
+        // 1.04 / sqrt(2^8) is about 6.5% error
+        assertCardinality(searchResponse.getFacets().<CardinalityFacet>facet("l_low_precision"), 200, 0.2);
+
+        Map<String, Object> facets = facetsAsMap(searchResponse);
+        Map<String, Object> facet = (Map<String, Object>) facets.get("l");
+        assertThat((String) facet.get("_type"), equalTo(CardinalityFacet.TYPE));
+        assertThat(((Number) facet.get("cardinality")).longValue(),
+                equalTo(searchResponse.getFacets().<CardinalityFacet>facet("l").getCardinality()));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        indexDocs();
+
+        double[] percents = new double[]{1, 10, 50, 90, 99};
+        SearchResponse searchResponse = client().prepareSearch("test")
+                .setSearchType(SearchType.COUNT)
+                .setQuery(matchAllQuery())
+                .addFacet(percentilesFacet("l").field("l").percents(percents))
+                .addFacet(percentilesFacet("d").field("d").percents(percents).compression(200))
+                .addFacet(percentilesFacet("l_default").field("l"))
+                .execute().actionGet();
+        assertThat(searchResponse.getFailedShards(), equalTo(0));
+
+        PercentilesFacet facet = searchResponse.getFacets().facet("l");
+        assertThat(facet.getCount(), equalTo((long) NUM_DOCS));
+        assertThat(facet.getMin(), equalTo(0d));
+        assertThat(facet.getMax(), equalTo(199d));
+        for (double percent : percents) {
+            // one percent of the range of the values
+            assertThat(facet.getPercentile(percent), closeTo(longs[rank(percent)], 2d));
+        }
+
+        facet = searchResponse.getFacets().facet("d");
+        assertThat(facet.getCount(), equalTo((long) NUM_DOCS));
+        assertThat(facet.getMin(), equalTo(0d));
+        assertThat(facet.getMax(), equalTo(149 / 4.0));
+        for (double percent : percents) {
+            assertThat(facet.getPercentile(percent), closeTo(doubles[rank(percent)], 0.4d));
+        }
+
+        facet = searchResponse.getFacets().facet("l_default");
+        assertThat(facet.getPercents().length, equalTo(7));
+        for (double percent : facet.getPercents()) {
+            assertThat(facet.getPercentile(percent), closeTo(longs[rank(percent)], 2d));
+        }
+
+        Map<String, Object> facets = facetsAsMap(searchResponse);
+        Map<String, Object> facetMap = (Map<String, Object>) facets.get("l");
+        assertThat((String) facetMap.get("_type"), equalTo(PercentilesFacet.TYPE));
+        assertThat(((Number) facetMap.get("count")).longValue(), equalTo((long) NUM_DOCS));
+        Map<String, Object> percentiles = (Map<String, Object>) facetMap.get("percentiles");
+        assertThat(percentiles.size(), equalTo(percents.length));
+        assertThat(((Number) percentiles.get("50.0")).doubleValue(), equalTo(searchResponse.getFacets().<PercentilesFacet>facet("l").getPercentile(50)));
+    }
+
+    @Test
+    public void testValidation() throws Exception {
+        indexDocs();
+
+        assertFails(cardinalityFacet("facet").field("l").precision(3));
+        assertFails(cardinalityFacet("facet").field("l").precision(19));
+        assertFails(cardinalityFacet("facet").field("unknown"));
+        assertFails(percentilesFacet("facet").field("l").percents(50, 101));
+        assertFails(percentilesFacet("facet").field("l").percents(-1));
+        assertFails(percentilesFacet("facet").field("l").compression(0.5));
+        assertFails(percentilesFacet("facet").field("s"));
+        assertFails(percentilesFacet("facet").field("unknown"));
+    }
+
+    private void assertFails(FacetBuilder facet) {
+        try {
+            client().prepareSearch("test")
+                    .setSearchType(SearchType.COUNT)
+                    .setQuery(matchAllQuery())
+                    .addFacet(facet)
+                    .execute().actionGet();
+            assert false : "facet should have been rejected";
+        } catch (SearchPhaseExecutionException e) {
+            // expected
+        }
+    }
+
+    private static void assertCardinality(CardinalityFacet facet, long expected, double relativeError) {
+        assertThat(facet.getType(), equalTo(CardinalityFacet.TYPE));
+        assertThat((double) facet.getCardinality(), closeTo(expected, expected * relativeError));
+    }
+
+    private static int rank(double percent) {
+        return (int) Math.round(percent / 100 * (NUM_DOCS - 1));
+    }
+
+    private static Map<String, Object> facetsAsMap(SearchResponse searchResponse) throws Exception {
+        XContentBuilder builder = jsonBuilder().startObject();
+        searchResponse.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+        return (Map<String, Object>) XContentHelper.convertToMap(builder.bytes(), false).v2().get("facets");
+    }
+}
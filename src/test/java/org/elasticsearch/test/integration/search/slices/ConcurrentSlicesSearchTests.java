@@ -0,0 +1,100 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.integration.search.slices;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.integration.AbstractSharedClusterTest;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class ConcurrentSlicesSearchTests extends AbstractSharedClusterTest {
+
+    @Test
+    public void testSameHitsAsSequentialSearch() throws Exception {
+        for (String index : new String[]{"sliced", "sequential"}) {
+            client().admin().indices().prepareCreate(index).setSettings(ImmutableSettings.settingsBuilder()
+                    .put("index.number_of_shards", 1)
+                    .put("index.number_of_replicas", 0)
+                    .put("index.search.slices", "sliced".equals(index) ? 4 : 1))
+                    .execute().actionGet();
+        }
+        ensureGreen();
+
+        // several segments so that there is something to slice
+        String[] words = new String[]{"quick", "brown", "fox", "lazy", "dog"};
+        for (int segment = 0; segment < 6; segment++) {
+            for (int i = 0; i < 50; i++) {
+                int id = segment * 50 + i;
+                StringBuilder text = new StringBuilder();
+                for (int j = 0; j <= id % 7; j++) {
+                    text.append(words[(id + j * j) % words.length]).append(' ');
+                }
+                for (String index : new String[]{"sliced", "sequential"}) {
+                    client().prepareIndex(index, "type", Integer.toString(id)).setSource(jsonBuilder().startObject()
+                            .field("text", text.toString())
+                            .field("number", (id * 31) % 97)
+                            .endObject()).execute().actionGet();
+                }
+            }
+            refresh();
+        }
+
+        assertSameHits(matchQuery("text", "quick fox dog"), false);
+        assertSameHits(matchQuery("text", "brown"), true);
+        assertSameHits(matchAllQuery(), true);
+    }
+
+    private void assertSameHits(QueryBuilder query, boolean sort) {
+        SearchResponse[] responses = new SearchResponse[2];
+        String[] indices = new String[]{"sliced", "sequential"};
+        for (int i = 0; i < indices.length; i++) {
+            if (sort) {
+                responses[i] = client().prepareSearch(indices[i]).setQuery(query).setSize(40)
+                        .addSort("number", SortOrder.DESC).execute().actionGet();
+            } else {
+                responses[i] = client().prepareSearch(indices[i]).setQuery(query).setSize(40).execute().actionGet();
+            }
+            assertThat(responses[i].getShardFailures().length, equalTo(0));
+        }
+        assertThat(responses[0].getHits().totalHits(), equalTo(responses[1].getHits().totalHits()));
+        SearchHit[] slicedHits = responses[0].getHits().hits();
+        SearchHit[] sequentialHits = responses[1].getHits().hits();
+        assertThat(slicedHits.length, equalTo(sequentialHits.length));
+        for (int i = 0; i < slicedHits.length; i++) {
+            if (sort) {
+                assertThat(slicedHits[i].sortValues()[0], equalTo(sequentialHits[i].sortValues()[0]));
+            } else {
+                assertThat(slicedHits[i].score(), equalTo(sequentialHits[i].score()));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.integration.search.terminate;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.search.facet.terms.TermsFacet;
+import org.elasticsearch.test.integration.AbstractSharedClusterTest;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.search.facet.FacetBuilders.termsFacet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ */
+public class SearchTerminateAfterTests extends AbstractSharedClusterTest {
+
+    @Override
+    public Settings getSettings() {
+        return randomSettingsBuilder()
+                .put("index.number_of_shards", 1)
+                .put("index.number_of_replicas", 0)
+                .build();
+    }
+
+    @Test
+    public void simpleTerminateAfterTest() throws Exception {
+        createIndex("test");
+
+        for (int i = 0; i < 100; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", "value").execute().actionGet();
+        }
+        client().admin().indices().prepareRefresh().execute().actionGet();
+
+        SearchResponse searchResponse = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(100l));
+        assertThat(searchResponse.isTerminatedEarly(), nullValue());
+
+        searchResponse = client().prepareSearch("test")
+                .setSearchType(SearchType.COUNT)
+                .setQuery(matchAllQuery())
+                .setTerminateAfter(10)
+                .execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(10l));
+        assertThat(searchResponse.isTerminatedEarly(), equalTo(true));
+
+        searchResponse = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setTerminateAfter(10)
+                .addFacet(termsFacet("field").field("field"))
+                .execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(10l));
+        assertThat(searchResponse.isTerminatedEarly(), equalTo(true));
+        TermsFacet facet = searchResponse.getFacets().facet("field");
+        assertThat(facet.getEntries().get(0).getCount(), equalTo(10));
+
+        searchResponse = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setTerminateAfter(99)
+                .execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(99l));
+        assertThat(searchResponse.isTerminatedEarly(), equalTo(true));
+
+        // collecting exactly terminate_after docs doesn't terminate early
+        searchResponse = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setTerminateAfter(100)
+                .execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(100l));
+        assertThat(searchResponse.isTerminatedEarly(), equalTo(false));
+
+        searchResponse = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setTerminateAfter(1000)
+                .execute().actionGet();
+        assertThat(searchResponse.getHits().totalHits(), equalTo(100l));
+        assertThat(searchResponse.isTerminatedEarly(), equalTo(false));
+    }
+}
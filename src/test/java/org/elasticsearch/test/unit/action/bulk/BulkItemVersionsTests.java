@@ -0,0 +1,95 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.action.bulk;
+
+import org.elasticsearch.action.bulk.BulkItemRequest;
+import org.elasticsearch.action.bulk.BulkItemVersions;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class BulkItemVersionsTests {
+
+    private long version(BulkItemRequest item) {
+        if (item.request() instanceof IndexRequest) {
+            return ((IndexRequest) item.request()).version();
+        }
+        return ((DeleteRequest) item.request()).version();
+    }
+
+    @Test
+    public void testRestoreAfterEngineBulkFailedHalfway() {
+        BulkItemRequest[] items = new BulkItemRequest[]{
+                new BulkItemRequest(0, new IndexRequest("test", "type", "0")),
+                new BulkItemRequest(1, new IndexRequest("test", "type", "1").version(3)),
+                new BulkItemRequest(2, new DeleteRequest("test", "type", "2").version(5)),
+                new BulkItemRequest(3, new IndexRequest("test", "type", "3")),
+                new BulkItemRequest(4, new DeleteRequest("test", "type", "4")),
+                new BulkItemRequest(5, new UpdateRequest("test", "type", "5")),
+                new BulkItemRequest(6, new IndexRequest("test", "type", "6").version(7)),
+        };
+        BulkItemVersions versions = new BulkItemVersions(items);
+
+        // the engine executed the first five items as a bulk, out of order: item 1 failed with a retryable failure,
+        // while the items before and after it got the versions of the engine
+        ((IndexRequest) items[0].request()).version(1);
+        ((DeleteRequest) items[2].request()).version(6);
+        ((IndexRequest) items[3].request()).version(1);
+        ((DeleteRequest) items[4].request()).version(2);
+
+        versions.restore(items);
+        assertThat(version(items[0]), equalTo(0l));
+        assertThat(version(items[1]), equalTo(3l));
+        assertThat(version(items[2]), equalTo(5l));
+        assertThat(version(items[3]), equalTo(0l));
+        assertThat(version(items[4]), equalTo(0l));
+        assertThat(version(items[6]), equalTo(7l));
+    }
+
+    @Test
+    public void testRestoreTranslatedAndFailedItems() {
+        BulkItemRequest[] items = new BulkItemRequest[]{
+                new BulkItemRequest(0, new IndexRequest("test", "type", "0").version(2)),
+                new BulkItemRequest(1, new UpdateRequest("test", "type", "1")),
+                new BulkItemRequest(2, new IndexRequest("test", "type", "2")),
+        };
+        BulkItemVersions versions = new BulkItemVersions(items);
+
+        // a non retryable failure, the item is removed from the request
+        items[0] = null;
+        // the update was translated to an index request, executed by the engine
+        IndexRequest translated = new IndexRequest("test", "type", "1").version(4);
+        versions.record(1, translated.version());
+        translated.version(5);
+        items[1] = new BulkItemRequest(1, translated);
+        ((IndexRequest) items[2].request()).version(1);
+
+        versions.restore(items);
+        assertThat(version(items[1]), equalTo(4l));
+        assertThat(version(items[2]), equalTo(0l));
+    }
+}
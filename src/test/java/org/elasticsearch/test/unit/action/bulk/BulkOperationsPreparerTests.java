@@ -0,0 +1,169 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.action.bulk;
+
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.action.bulk.BulkOperationsPreparer;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class BulkOperationsPreparerTests {
+
+    private ThreadPool threadPool;
+
+    @AfterMethod
+    public void shutdownThreadPool() {
+        if (threadPool != null) {
+            threadPool.shutdownNow();
+            threadPool = null;
+        }
+    }
+
+    /**
+     * Records the item itself, or a failure for the items in <tt>failing</tt>, like the bulk shard action does.
+     */
+    static class RecordingPreparer implements BulkOperationsPreparer.ItemPreparer {
+
+        final Object[] results;
+        final Thread[] threads;
+        final AtomicIntegerArray prepared;
+        final int failing;
+
+        RecordingPreparer(int size, int failing) {
+            this.results = new Object[size];
+            this.threads = new Thread[size];
+            this.prepared = new AtomicIntegerArray(size);
+            this.failing = failing;
+        }
+
+        @Override
+        public void prepare(int location) {
+            prepared.incrementAndGet(location);
+            threads[location] = Thread.currentThread();
+            try {
+                if (location == failing) {
+                    throw new ElasticSearchIllegalArgumentException("failed to parse [" + location + "]");
+                }
+                results[location] = "item" + location;
+            } catch (Exception e) {
+                results[location] = e;
+            }
+        }
+
+        void assertPreparedInOrder(int from, int to) {
+            for (int i = 0; i < results.length; i++) {
+                if (i < from || i >= to) {
+                    assertThat(prepared.get(i), equalTo(0));
+                    assertThat(results[i], nullValue());
+                    continue;
+                }
+                assertThat(prepared.get(i), equalTo(1));
+                if (i == failing) {
+                    assertThat(results[i], instanceOf(ElasticSearchIllegalArgumentException.class));
+                    assertThat(((Exception) results[i]).getMessage(), equalTo("failed to parse [" + i + "]"));
+                } else {
+                    assertThat(results[i], equalTo((Object) ("item" + i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSmallRangeOnCallingThread() {
+        threadPool = new ThreadPool(settingsBuilder().put("threadpool.bulk_parse.size", 4).build(), null);
+        BulkOperationsPreparer preparer = new BulkOperationsPreparer(threadPool, 4, 8);
+        RecordingPreparer items = new RecordingPreparer(20, -1);
+        // not enough items for two batches
+        preparer.prepare(5, 20, items);
+        items.assertPreparedInOrder(5, 20);
+        for (int i = 5; i < 20; i++) {
+            assertThat(items.threads[i], sameInstance(Thread.currentThread()));
+        }
+    }
+
+    @Test
+    public void testSeveralBatchesPerWorker() {
+        threadPool = new ThreadPool(settingsBuilder().put("threadpool.bulk_parse.size", 3).build(), null);
+        BulkOperationsPreparer preparer = new BulkOperationsPreparer(threadPool, 4, 2);
+        for (int round = 0; round < 10; round++) {
+            RecordingPreparer items = new RecordingPreparer(1000, -1);
+            preparer.prepare(10, 1000, items);
+            items.assertPreparedInOrder(10, 1000);
+        }
+    }
+
+    @Test
+    public void testSaturatedPoolPreparesOnCallingThread() throws Exception {
+        threadPool = new ThreadPool(settingsBuilder()
+                .put("threadpool.bulk_parse.size", 1)
+                .put("threadpool.bulk_parse.queue_size", 1)
+                .build(), null);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Executor executor = threadPool.executor(ThreadPool.Names.BULK_PARSE);
+        // one running, one queued, so every worker gets rejected
+        executor.execute(blocker);
+        started.await();
+        executor.execute(blocker);
+        try {
+            BulkOperationsPreparer preparer = new BulkOperationsPreparer(threadPool, 4, 1);
+            RecordingPreparer items = new RecordingPreparer(100, -1);
+            preparer.prepare(0, 100, items);
+            items.assertPreparedInOrder(0, 100);
+            for (int i = 0; i < 100; i++) {
+                assertThat(items.threads[i], sameInstance(Thread.currentThread()));
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testFailureOfOneItem() {
+        threadPool = new ThreadPool(settingsBuilder().put("threadpool.bulk_parse.size", 3).build(), null);
+        BulkOperationsPreparer preparer = new BulkOperationsPreparer(threadPool, 4, 2);
+        RecordingPreparer items = new RecordingPreparer(200, 57);
+        preparer.prepare(0, 200, items);
+        items.assertPreparedInOrder(0, 200);
+    }
+}
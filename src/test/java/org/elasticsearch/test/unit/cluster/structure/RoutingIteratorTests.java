@@ -26,10 +26,13 @@ import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.routing.*;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.routing.allocation.decider.AwarenessAllocationDecider;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.cluster.routing.operation.hash.djb.DjbHashFunction;
 import org.elasticsearch.cluster.routing.operation.plain.PlainOperationRouting;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.test.unit.cluster.routing.allocation.RoutingAllocationTests;
 import org.testng.annotations.Test;
 
@@ -362,4 +365,79 @@ public class RoutingIteratorTests {
         assertThat(shardIterators.iterator().next().shardId().id(), equalTo(0));
         assertThat(shardIterators.iterator().next().nextOrNull().currentNodeId(), equalTo("node1"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAdaptiveReplicaSelection() {
+        AllocationService strategy = new AllocationService(settingsBuilder()
+                .put("cluster.routing.allocation.concurrent_recoveries", 10)
+                .build());
+
+        MetaData metaData = newMetaDataBuilder()
+                .put(newIndexMetaDataBuilder("test").numberOfShards(5).numberOfReplicas(1))
+                .build();
+
+        RoutingTable routingTable = routingTable()
+                .addAsNew(metaData.index("test"))
+                .build();
+
+        ClusterState clusterState = newClusterStateBuilder().metaData(metaData).routingTable(routingTable).build();
+
+        clusterState = newClusterStateBuilder().state(clusterState).nodes(newNodesBuilder()
+                .put(RoutingAllocationTests.newNode("node1"))
+                .put(RoutingAllocationTests.newNode("node2"))
+                .localNodeId("node1")
+        ).build();
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
+
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
+
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
+
+        Settings settings = settingsBuilder().put(PlainOperationRouting.CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION, true).build();
+        ResponseCollectorService collector = new ResponseCollectorService(settings);
+        PlainOperationRouting operationRouting = new PlainOperationRouting(settings, new DjbHashFunction(), new AwarenessAllocationDecider(),
+                new NodeSettingsService(settings), collector);
+
+        // without statistics, the copies are used round robin
+        String firstRoundNodeId = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, null).iterator().next().nextOrNull().currentNodeId();
+        String secondRoundNodeId = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, null).iterator().next().nextOrNull().currentNodeId();
+        assertThat(secondRoundNodeId, not(equalTo(firstRoundNodeId)));
+
+        for (int i = 0; i < 5; i++) {
+            collector.onRequestSent("node1");
+            collector.onResponseReceived("node1", 100000000);
+            collector.onRequestSent("node2");
+            collector.onResponseReceived("node2", 1000000);
+        }
+        assertThat(collector.rank("node1"), greaterThan(collector.rank("node2")));
+
+        for (int i = 0; i < 3; i++) {
+            GroupShardsIterator shardIterators = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, null);
+            assertThat(shardIterators.size(), equalTo(5));
+            for (ShardIterator shardIterator : shardIterators) {
+                assertThat(shardIterator.size(), equalTo(2));
+                assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node2"));
+                assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node1"));
+            }
+        }
+
+        // a preference still wins
+        GroupShardsIterator shardIterators = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, "_shards:0;_prefer_node:node1");
+        assertThat(shardIterators.iterator().next().nextOrNull().currentNodeId(), equalTo("node1"));
+
+        // gets are not ranked, only the response times of searches are collected
+        firstRoundNodeId = operationRouting.getShards(clusterState, "test", 0, null).nextOrNull().currentNodeId();
+        secondRoundNodeId = operationRouting.getShards(clusterState, "test", 0, null).nextOrNull().currentNodeId();
+        assertThat(secondRoundNodeId, not(equalTo(firstRoundNodeId)));
+
+        // a node without responses yet ranks first until it has outstanding requests, then as the slowest node
+        assertThat(collector.rank("node3"), equalTo(0d));
+        collector.onRequestSent("node3");
+        assertThat(collector.rank("node3"), greaterThan(collector.rank("node1")));
+        collector.onResponseReceived("node3", 1000000);
+        assertThat(collector.rank("node3"), lessThan(collector.rank("node1")));
+    }
+}
@@ -27,6 +27,8 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.PayloadAttribute;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.lucene42.Lucene42Codec;
 import org.apache.lucene.document.*;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.index.*;
@@ -37,7 +39,10 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.MockDirectoryWrapper;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.uid.UidLookupMetrics;
+import org.elasticsearch.common.lucene.uid.UidLookupStats;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.codec.postingsformat.ElasticSearch090PostingsFormat;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.merge.policy.IndexUpgraderMergePolicy;
 import org.hamcrest.MatcherAssert;
@@ -101,6 +106,85 @@ public class VersionsTests {
         assertThat(Versions.loadDocIdAndVersion(directoryReader, new Term(UidFieldMapper.NAME, "1")), nullValue());
     }
 
+    @Test
+    public void testLookupMetrics() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        for (int i = 0; i < 2; i++) {
+            Document doc = new Document();
+            doc.add(new Field(UidFieldMapper.NAME, Integer.toString(i), UidFieldMapper.Defaults.FIELD_TYPE));
+            doc.add(new NumericDocValuesField(UidFieldMapper.VERSION, i + 1));
+            writer.addDocument(doc);
+            // one segment per document
+            writer.commit();
+        }
+        DirectoryReader directoryReader = DirectoryReader.open(writer, true);
+        assertThat(directoryReader.leaves().size(), equalTo(2));
+
+        UidLookupMetrics metrics = new UidLookupMetrics();
+        // the last segment is checked first
+        assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "1"), metrics), equalTo(2l));
+        assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "0"), metrics), equalTo(1l));
+        assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "2"), metrics), equalTo(Versions.NOT_FOUND));
+        // the cached enums must not leak state from one lookup to the next
+        assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "1"), metrics), equalTo(2l));
+
+        UidLookupStats stats = metrics.stats();
+        assertThat(stats.lookups(), equalTo(6l));
+        assertThat(stats.found(), equalTo(3l));
+        // the default postings format has no bloom filter
+        assertThat(stats.filtered(), equalTo(0l));
+        assertThat(stats.falsePositives(), equalTo(0l));
+        directoryReader.close();
+        writer.close();
+    }
+
+    @Test
+    public void testLookupMetricsWithBloomFilter() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER);
+        // the default postings format puts a bloom filter on the _uid field
+        config.setCodec(new Lucene42Codec() {
+            @Override
+            public PostingsFormat getPostingsFormatForField(String field) {
+                return new ElasticSearch090PostingsFormat();
+            }
+        });
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), config);
+        for (int i = 0; i < 2; i++) {
+            Document doc = new Document();
+            doc.add(new Field(UidFieldMapper.NAME, Integer.toString(i), UidFieldMapper.Defaults.FIELD_TYPE));
+            doc.add(new NumericDocValuesField(UidFieldMapper.VERSION, i + 1));
+            writer.addDocument(doc);
+            // one segment per document
+            writer.commit();
+        }
+        DirectoryReader directoryReader = DirectoryReader.open(writer, true);
+        assertThat(directoryReader.leaves().size(), equalTo(2));
+
+        UidLookupMetrics metrics = new UidLookupMetrics();
+        // found in the last segment, the filter lets it through
+        assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "1"), metrics), equalTo(2l));
+        UidLookupStats stats = metrics.stats();
+        assertThat(stats.lookups(), equalTo(1l));
+        assertThat(stats.found(), equalTo(1l));
+        assertThat(stats.filtered(), equalTo(0l));
+        assertThat(stats.falsePositives(), equalTo(0l));
+
+        // missing ids are checked against the filter of each segment, without seeking the terms dictionary
+        int missing = 100;
+        for (int i = 0; i < missing; i++) {
+            assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "missing_" + i), metrics), equalTo(Versions.NOT_FOUND));
+        }
+        stats = metrics.stats();
+        assertThat(stats.lookups(), equalTo(1l + 2 * missing));
+        assertThat(stats.found(), equalTo(1l));
+        // a false positive goes on to the terms dictionary, and isn't found there
+        assertThat(stats.filtered() + stats.falsePositives(), equalTo(2l * missing));
+        assertThat(stats.filtered(), greaterThan(stats.falsePositives()));
+
+        directoryReader.close();
+        writer.close();
+    }
+
     @Test
     public void testNestedDocuments() throws IOException {
         IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
@@ -0,0 +1,160 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.common.util;
+
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for {@link BigArrays}
+ */
+public class BigArraysTests {
+
+    private static PageCacheRecycler recycler() {
+        return new PageCacheRecycler(ImmutableSettings.settingsBuilder().put("cache.recycler.page.limit.heap", "10mb").build());
+    }
+
+    @Test
+    public void testIntArrayAcrossPages() {
+        BigArrays bigArrays = new BigArrays(recycler());
+        final int size = PageCacheRecycler.INT_PAGE_SIZE * 3 + 17;
+        IntArray array = bigArrays.newIntArray(size);
+        assertThat(array.size(), equalTo((long) size));
+        for (int i = 0; i < size; i++) {
+            assertThat(array.get(i), equalTo(0));
+            assertThat(array.set(i, i), equalTo(0));
+        }
+        for (int i = 0; i < size; i++) {
+            assertThat(array.increment(i, 3), equalTo(i + 3));
+            assertThat(array.get(i), equalTo(i + 3));
+        }
+        assertThat(array.sizeInBytes(), greaterThanOrEqualTo(4L * size));
+        array.release();
+    }
+
+    @Test
+    public void testLongAndDoubleArrays() {
+        BigArrays bigArrays = new BigArrays(recycler());
+        final int size = PageCacheRecycler.LONG_PAGE_SIZE * 2 + 1;
+        LongArray longs = bigArrays.newLongArray(size);
+        DoubleArray doubles = bigArrays.newDoubleArray(size);
+        for (int i = 0; i < size; i++) {
+            longs.set(i, Long.MAX_VALUE - i);
+            doubles.increment(i, i / 2d);
+        }
+        for (int i = 0; i < size; i++) {
+            assertThat(longs.get(i), equalTo(Long.MAX_VALUE - i));
+            assertThat(doubles.get(i), equalTo(i / 2d));
+        }
+        longs.release();
+        doubles.release();
+    }
+
+    @Test
+    public void testObjectArray() {
+        BigArrays bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
+        final int size = PageCacheRecycler.OBJECT_PAGE_SIZE + 5;
+        ObjectArray<String> array = bigArrays.newObjectArray(size);
+        for (int i = 0; i < size; i++) {
+            assertThat(array.get(i), nullValue());
+            array.set(i, Integer.toString(i));
+        }
+        array = bigArrays.resize(array, 3);
+        assertThat(array.size(), equalTo(3L));
+        assertThat(array.get(2), equalTo("2"));
+        array = bigArrays.grow(array, size);
+        assertThat(array.size(), greaterThanOrEqualTo((long) size));
+        assertThat(array.get(1), equalTo("1"));
+        assertThat(array.get(3), nullValue());
+        assertThat(array.get(size - 1), nullValue());
+    }
+
+    @Test
+    public void testGrowAndShrink() {
+        BigArrays bigArrays = new BigArrays(recycler());
+        IntArray array = bigArrays.newIntArray(10);
+        for (int i = 0; i < 10; i++) {
+            array.set(i, i + 1);
+        }
+        assertThat(bigArrays.grow(array, 5), sameInstance(array));
+
+        final int bigSize = PageCacheRecycler.INT_PAGE_SIZE * 2 + 3;
+        array = bigArrays.grow(array, bigSize);
+        assertThat(array.size(), greaterThanOrEqualTo((long) bigSize));
+        for (int i = 0; i < 10; i++) {
+            assertThat(array.get(i), equalTo(i + 1));
+        }
+        for (long i = 10; i < array.size(); i++) {
+            array.set(i, 42);
+        }
+
+        // values cut off by shrinking must come back as zeros
+        final long shrunk = PageCacheRecycler.INT_PAGE_SIZE + 7;
+        array = bigArrays.resize(array, shrunk);
+        assertThat(array.size(), equalTo(shrunk));
+        array = bigArrays.resize(array, bigSize);
+        assertThat(array.get(shrunk - 1), equalTo(42));
+        for (long i = shrunk; i < bigSize; i++) {
+            assertThat(array.get(i), equalTo(0));
+        }
+        array.release();
+    }
+
+    @Test
+    public void testPagesAreRecycled() {
+        PageCacheRecycler recycler = recycler();
+        BigArrays bigArrays = new BigArrays(recycler);
+        LongArray array = bigArrays.newLongArray(PageCacheRecycler.LONG_PAGE_SIZE * 4);
+        assertThat(recycler.stats().getAllocated(), equalTo(4L));
+        array.set(0, 7);
+        array.release();
+        assertThat(recycler.stats().getPooled(), equalTo(4L));
+
+        array = bigArrays.newLongArray(PageCacheRecycler.LONG_PAGE_SIZE * 2);
+        assertThat(recycler.stats().getRecycled(), equalTo(2L));
+        assertThat(recycler.stats().getPooled(), equalTo(2L));
+        // recycled pages are cleared
+        assertThat(array.get(0), equalTo(0L));
+        array.release();
+
+        recycler.close();
+        assertThat(recycler.stats().getPooled(), equalTo(0L));
+    }
+
+    @Test
+    public void testSmallArraysAreNotRecycled() {
+        PageCacheRecycler recycler = recycler();
+        BigArrays bigArrays = new BigArrays(recycler);
+        IntArray array = bigArrays.newIntArray(100);
+        array.release();
+        assertThat(recycler.stats().getAllocated(), equalTo(0L));
+        assertThat(recycler.stats().getPooled(), equalTo(0L));
+    }
+}
@@ -874,6 +874,35 @@ public abstract class AbstractSimpleEngineTests {
         }
     }
 
+    @Test
+    public void testCreateAutoGeneratedId() {
+        ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
+        Engine.Create create = new Engine.Create(null, newUid("1"), doc).autoGeneratedId(true);
+        engine.create(create);
+        assertThat(create.version(), equalTo(1l));
+
+        // skipping the uid lookup must not break realtime get
+        Engine.GetResult getResult = engine.get(new Engine.Get(true, newUid("1")));
+        assertThat(getResult.exists(), equalTo(true));
+        assertThat(getResult.version(), equalTo(1l));
+        getResult.release();
+
+        engine.refresh(new Engine.Refresh(true));
+
+        // a retry of the same request still checks for the existing document
+        create = new Engine.Create(null, newUid("1"), doc).autoGeneratedId(true).canHaveDuplicates(true);
+        try {
+            engine.create(create);
+            assert false;
+        } catch (DocumentAlreadyExistsException e) {
+            // all is well
+        }
+
+        Engine.Searcher searchResult = engine.searcher();
+        MatcherAssert.assertThat(searchResult, EngineSearcherTotalHitsMatcher.engineSearcherTotalHits(1));
+        searchResult.release();
+    }
+
     @Test
     public void testVersioningCreateExistsExceptionWithFlush() {
         ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
@@ -973,6 +1002,45 @@ public abstract class AbstractSimpleEngineTests {
         }
     }
 
+    @Test
+    public void testBulk() {
+        ParsedDocument doc1 = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
+        ParsedDocument doc2 = testParsedDocument("2", "2", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_2, false);
+        engine.index(new Engine.Index(null, newUid("2"), doc2));
+
+        Engine.Bulk bulk = new Engine.Bulk(new Engine.Operation[]{
+                new Engine.Create(null, newUid("1"), doc1),
+                new Engine.Index(null, newUid("2"), doc2),
+                new Engine.Index(null, newUid("1"), doc1),
+                new Engine.Create(null, newUid("2"), doc2),
+                null,
+                new Engine.Index(null, newUid("2"), doc2).version(1l),
+                new Engine.Delete("test", "1", newUid("1")),
+                new Engine.Delete("test", "3", newUid("3"))
+        });
+        engine.bulk(bulk);
+
+        assertThat(bulk.failure(0), nullValue());
+        assertThat(((Engine.Create) bulk.ops()[0]).version(), equalTo(1l));
+        assertThat(bulk.failure(1), nullValue());
+        assertThat(((Engine.Index) bulk.ops()[1]).version(), equalTo(2l));
+        assertThat(bulk.failure(2), nullValue());
+        assertThat(((Engine.Index) bulk.ops()[2]).version(), equalTo(2l));
+        assertThat(bulk.failure(3), instanceOf(DocumentAlreadyExistsException.class));
+        assertThat(bulk.failure(4), nullValue());
+        assertThat(bulk.failure(5), instanceOf(VersionConflictEngineException.class));
+        assertThat(bulk.failure(6), nullValue());
+        assertThat(((Engine.Delete) bulk.ops()[6]).version(), equalTo(3l));
+        assertThat(((Engine.Delete) bulk.ops()[6]).notFound(), equalTo(false));
+        assertThat(bulk.failure(7), nullValue());
+        assertThat(((Engine.Delete) bulk.ops()[7]).notFound(), equalTo(true));
+
+        engine.refresh(new Engine.Refresh(true));
+        Engine.Searcher searcher = engine.searcher();
+        MatcherAssert.assertThat(searcher, EngineSearcherTotalHitsMatcher.engineSearcherTotalHits(1));
+        searcher.release();
+    }
+
     protected Term newUid(String id) {
         return new Term("_uid", id);
     }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.engine.robin;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.engine.robin.SlabVersionMap;
+import org.elasticsearch.index.engine.robin.VersionValue;
+import org.elasticsearch.index.translog.Translog;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class SlabVersionMapTests {
+
+    @Test
+    public void testPutGetRemove() {
+        SlabVersionMap map = new SlabVersionMap(4);
+        assertThat(map.get(new BytesRef("1")), nullValue());
+
+        map.put(new BytesRef("1"), new VersionValue(1, false, 10, new Translog.Location(1, 2, 3)));
+        map.put(new BytesRef("2"), new VersionValue(5, true, 20, null));
+        assertThat(map.size(), equalTo(2));
+
+        VersionValue value = map.get(new BytesRef("1"));
+        assertThat(value.version(), equalTo(1l));
+        assertThat(value.delete(), equalTo(false));
+        assertThat(value.time(), equalTo(10l));
+        assertThat(value.translogLocation().translogId, equalTo(1l));
+        assertThat(value.translogLocation().translogLocation, equalTo(2l));
+        assertThat(value.translogLocation().size, equalTo(3));
+
+        value = map.get(new BytesRef("2"));
+        assertThat(value.version(), equalTo(5l));
+        assertThat(value.delete(), equalTo(true));
+        assertThat(value.translogLocation(), nullValue());
+
+        map.put(new BytesRef("1"), new VersionValue(2, true, 30, null));
+        assertThat(map.size(), equalTo(2));
+        assertThat(map.get(new BytesRef("1")).version(), equalTo(2l));
+        assertThat(map.get(new BytesRef("1")).delete(), equalTo(true));
+
+        map.remove(new BytesRef("1"));
+        assertThat(map.get(new BytesRef("1")), nullValue());
+        assertThat(map.get(new BytesRef("2")), notNullValue());
+        assertThat(map.size(), equalTo(1));
+
+        map.clear();
+        assertThat(map.size(), equalTo(0));
+        assertThat(map.get(new BytesRef("2")), nullValue());
+    }
+
+    @Test
+    public void testRandomAgainstHashMap() {
+        Random random = new Random();
+        SlabVersionMap map = new SlabVersionMap(2);
+        Map<String, Long> expected = new HashMap<String, Long>();
+        for (int i = 0; i < 100000; i++) {
+            String uid = "type#" + random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                map.remove(new BytesRef(uid));
+                expected.remove(uid);
+            } else {
+                map.put(new BytesRef(uid), new VersionValue(i, false, i, new Translog.Location(1, i, 10)));
+                expected.put(uid, (long) i);
+            }
+        }
+        assertThat(map.size(), equalTo(expected.size()));
+        for (int i = 0; i < 5000; i++) {
+            String uid = "type#" + i;
+            VersionValue value = map.get(new BytesRef(uid));
+            if (expected.containsKey(uid)) {
+                assertThat(value, notNullValue());
+                assertThat(value.version(), equalTo(expected.get(uid)));
+                assertThat(value.translogLocation().translogLocation, equalTo(expected.get(uid)));
+            } else {
+                assertThat(value, nullValue());
+            }
+        }
+        Set<String> uids = new HashSet<String>();
+        for (BytesRef uid : map.uids()) {
+            uids.add(uid.utf8ToString());
+        }
+        assertThat(uids, equalTo(expected.keySet()));
+    }
+
+    @Test
+    public void testShrinksWhenEmptied() {
+        SlabVersionMap map = new SlabVersionMap(1);
+        long initialSize = map.sizeInBytes();
+        for (int i = 0; i < 10000; i++) {
+            map.put(new BytesRef(Integer.toString(i)), new VersionValue(1, false, 0, null));
+        }
+        assertThat(map.sizeInBytes(), greaterThan(initialSize));
+        for (int i = 0; i < 10000; i++) {
+            map.remove(new BytesRef(Integer.toString(i)));
+        }
+        assertThat(map.size(), equalTo(0));
+        assertThat(map.sizeInBytes(), equalTo(initialSize));
+    }
+}
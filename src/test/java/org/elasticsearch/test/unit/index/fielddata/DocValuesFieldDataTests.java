@@ -0,0 +1,194 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.index.fielddata;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.fielddata.*;
+import org.elasticsearch.index.fielddata.fieldcomparator.SortMode;
+import org.elasticsearch.index.fielddata.plain.DocValuesBytesAtomicFieldData;
+import org.elasticsearch.index.fielddata.plain.DocValuesNumericAtomicFieldData;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class DocValuesFieldDataTests extends AbstractFieldDataTests {
+
+    private String type = "string";
+
+    @Override
+    protected FieldDataType getFieldDataType() {
+        return new FieldDataType(type, ImmutableSettings.builder().put("format", FieldDataType.DOC_VALUES_FORMAT));
+    }
+
+    private void addStrings(String... values) throws Exception {
+        Document d = new Document();
+        for (String value : values) {
+            d.add(new StringField("value", value, Field.Store.NO));
+            d.add(new SortedSetDocValuesField("value", new BytesRef(value)));
+        }
+        writer.addDocument(d);
+    }
+
+    private void addLongs(long... values) throws Exception {
+        Document d = new Document();
+        for (long value : values) {
+            BytesRef bytes = new BytesRef();
+            NumericUtils.longToPrefixCoded(value, 0, bytes);
+            d.add(new SortedSetDocValuesField("value", bytes));
+        }
+        writer.addDocument(d);
+    }
+
+    @Test
+    public void testStrings() throws Exception {
+        addStrings("2");
+        addStrings();
+        addStrings("3", "1");
+        IndexFieldData indexFieldData = getForField("value");
+        AtomicReaderContext readerContext = refreshReader();
+        AtomicFieldData fieldData = indexFieldData.load(readerContext);
+        assertThat(fieldData, instanceOf(DocValuesBytesAtomicFieldData.class));
+        assertThat(fieldData.getNumDocs(), equalTo(3));
+
+        BytesValues.WithOrdinals bytesValues = ((AtomicFieldData.WithOrdinals) fieldData).getBytesValues();
+        assertThat(bytesValues.ordinals().getNumOrds(), equalTo(3));
+        assertThat(bytesValues.hasValue(0), equalTo(true));
+        assertThat(bytesValues.hasValue(1), equalTo(false));
+        assertThat(bytesValues.hasValue(2), equalTo(true));
+        assertThat(bytesValues.getValue(0), equalTo(new BytesRef("2")));
+        assertThat(bytesValues.getValue(2), equalTo(new BytesRef("1")));
+
+        BytesValues.Iter iter = bytesValues.getIter(2);
+        assertThat(iter.hasNext(), equalTo(true));
+        assertThat(iter.next(), equalTo(new BytesRef("1")));
+        assertThat(iter.hasNext(), equalTo(true));
+        assertThat(iter.next(), equalTo(new BytesRef("3")));
+        assertThat(iter.hasNext(), equalTo(false));
+        assertThat(bytesValues.getIter(1).hasNext(), equalTo(false));
+
+        IndexSearcher searcher = new IndexSearcher(readerContext.reader());
+        TopFieldDocs topDocs = searcher.search(new MatchAllDocsQuery(), 10,
+                new Sort(new SortField("value", indexFieldData.comparatorSource(null, SortMode.MIN))));
+        assertThat(topDocs.totalHits, equalTo(3));
+        assertThat(topDocs.scoreDocs[0].doc, equalTo(1));
+        assertThat(topDocs.scoreDocs[1].doc, equalTo(2));
+        assertThat(topDocs.scoreDocs[2].doc, equalTo(0));
+    }
+
+    @Test
+    public void testLongs() throws Exception {
+        type = "long";
+        addLongs(-5);
+        addLongs(7, 3);
+        addLongs();
+        IndexNumericFieldData indexFieldData = getForField("value");
+        AtomicNumericFieldData fieldData = indexFieldData.load(refreshReader());
+        assertThat(fieldData, instanceOf(DocValuesNumericAtomicFieldData.class));
+
+        LongValues longValues = fieldData.getLongValues();
+        assertThat(longValues.getValue(0), equalTo(-5l));
+        assertThat(longValues.getValue(1), equalTo(3l));
+        assertThat(longValues.hasValue(2), equalTo(false));
+        LongValues.Iter iter = longValues.getIter(1);
+        assertThat(iter.next(), equalTo(3l));
+        assertThat(iter.next(), equalTo(7l));
+        assertThat(iter.hasNext(), equalTo(false));
+
+        DoubleValues doubleValues = fieldData.getDoubleValues();
+        assertThat(doubleValues.getValue(0), equalTo(-5d));
+    }
+
+    @Test
+    public void testFallbackWithoutDocValues() throws Exception {
+        Document d = new Document();
+        d.add(new StringField("value", "1", Field.Store.NO));
+        writer.addDocument(d);
+        IndexFieldData indexFieldData = getForField("value");
+        AtomicFieldData fieldData = indexFieldData.load(refreshReader());
+        assertThat(fieldData, not(instanceOf(DocValuesBytesAtomicFieldData.class)));
+        assertThat(fieldData.getBytesValues().getValue(0), equalTo(new BytesRef("1")));
+    }
+
+    @Test
+    public void testWrittenByMappers() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+                .startObject("string").field("type", "string").field("index", "not_analyzed")
+                .startObject("fielddata").field("format", FieldDataType.DOC_VALUES_FORMAT).endObject().endObject()
+                .startObject("long").field("type", "long")
+                .startObject("fielddata").field("format", FieldDataType.DOC_VALUES_FORMAT).endObject().endObject()
+                .startObject("double").field("type", "double")
+                .startObject("fielddata").field("format", FieldDataType.DOC_VALUES_FORMAT).endObject().endObject()
+                .endObject().endObject().endObject().string();
+        DocumentMapper mapper = MapperTests.newParser().parse(mapping);
+
+        ParsedDocument doc = mapper.parse("type", "1", XContentFactory.jsonBuilder().startObject()
+                .array("string", "b", "a")
+                .array("long", 3, -2)
+                .field("double", 1.5)
+                .endObject().bytes());
+        writer.addDocument(doc.rootDoc());
+        doc = mapper.parse("type", "2", XContentFactory.jsonBuilder().startObject()
+                .endObject().bytes());
+        writer.addDocument(doc.rootDoc());
+        AtomicReaderContext readerContext = refreshReader();
+
+        IndexFieldData stringFieldData = ifdService.getForField(mapper.mappers().smartNameFieldMapper("string"));
+        AtomicFieldData fieldData = stringFieldData.load(readerContext);
+        assertThat(fieldData, instanceOf(DocValuesBytesAtomicFieldData.class));
+        BytesValues bytesValues = fieldData.getBytesValues();
+        BytesValues.Iter bytesIter = bytesValues.getIter(0);
+        assertThat(bytesIter.next(), equalTo(new BytesRef("a")));
+        assertThat(bytesIter.next(), equalTo(new BytesRef("b")));
+        assertThat(bytesIter.hasNext(), equalTo(false));
+        assertThat(bytesValues.hasValue(1), equalTo(false));
+
+        IndexNumericFieldData longFieldData = ifdService.getForField(mapper.mappers().smartNameFieldMapper("long"));
+        AtomicNumericFieldData numericFieldData = longFieldData.load(readerContext);
+        assertThat(numericFieldData, instanceOf(DocValuesNumericAtomicFieldData.class));
+        LongValues.Iter longIter = numericFieldData.getLongValues().getIter(0);
+        assertThat(longIter.next(), equalTo(-2l));
+        assertThat(longIter.next(), equalTo(3l));
+        assertThat(longIter.hasNext(), equalTo(false));
+        assertThat(numericFieldData.getLongValues().hasValue(1), equalTo(false));
+
+        IndexNumericFieldData doubleFieldData = ifdService.getForField(mapper.mappers().smartNameFieldMapper("double"));
+        numericFieldData = doubleFieldData.load(readerContext);
+        assertThat(numericFieldData, instanceOf(DocValuesNumericAtomicFieldData.class));
+        assertThat(numericFieldData.getDoubleValues().getValue(0), equalTo(1.5d));
+        assertThat(numericFieldData.getDoubleValues().hasValue(1), equalTo(false));
+    }
+}
@@ -31,6 +31,7 @@ import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.ByteArrayAtomicFieldData;
 import org.elasticsearch.index.fielddata.plain.IntArrayAtomicFieldData;
 import org.elasticsearch.index.fielddata.plain.LongArrayAtomicFieldData;
+import org.elasticsearch.index.fielddata.plain.PackedArrayAtomicFieldData;
 import org.elasticsearch.index.fielddata.plain.ShortArrayAtomicFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.joda.time.DateTimeZone;
@@ -39,6 +40,7 @@ import org.testng.annotations.Test;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 
 /**
  */
@@ -126,6 +128,34 @@ public class LongFieldDataTests extends NumericFieldDataTests {
         assertThat(fieldData.getLongValues().getValue(1), equalTo((long) Integer.MIN_VALUE - 1l));
     }
 
+    @Test
+    public void testOptimizeTypePacked() throws Exception {
+        // timestamps, a second apart with some jitter, and a doc without a value every now and then
+        final long base = 1370000000000l;
+        final int numDocs = 5000;
+        for (int i = 0; i < numDocs; i++) {
+            Document d = new Document();
+            d.add(new StringField("_id", Integer.toString(i), Field.Store.NO));
+            if (i % 100 != 42) {
+                d.add(new LongField("value", base + i * 1000l + (i * 7) % 13, Field.Store.NO));
+            }
+            writer.addDocument(d);
+        }
+
+        IndexNumericFieldData indexFieldData = ifdService.getForField(new FieldMapper.Names("value"), new FieldDataType("long"));
+        AtomicNumericFieldData fieldData = indexFieldData.load(refreshReader());
+        assertThat(fieldData, instanceOf(PackedArrayAtomicFieldData.class));
+        assertThat(fieldData.getMemorySizeInBytes(), lessThan(numDocs * 8l / 3));
+        for (int i = 0; i < numDocs; i++) {
+            if (i % 100 != 42) {
+                assertThat(fieldData.getLongValues().hasValue(i), equalTo(true));
+                assertThat(fieldData.getLongValues().getValue(i), equalTo(base + i * 1000l + (i * 7) % 13));
+            } else {
+                assertThat(fieldData.getLongValues().hasValue(i), equalTo(false));
+            }
+        }
+    }
+
     @Test
     public void testDateScripts() throws Exception {
         fillSingleValueAllSet();
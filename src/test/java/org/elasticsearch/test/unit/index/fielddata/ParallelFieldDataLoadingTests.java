@@ -0,0 +1,259 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.index.fielddata;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.plain.PagedBytesIndexFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class ParallelFieldDataLoadingTests {
+
+    private static final int NUM_SEGMENTS = 6;
+
+    private ExecutorService executor;
+    private IndexWriter writer;
+    private DirectoryReader reader;
+    private RecordingCache recording;
+    private IndexFieldDataCache cache;
+    private IndexFieldData<?> ifd;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer(Lucene.VERSION))
+                .setMergePolicy(NoMergePolicy.COMPOUND_FILES));
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            Document d = new Document();
+            d.add(new StringField("value", Integer.toString(i), Field.Store.NO));
+            writer.addDocument(d);
+            writer.commit();
+        }
+        reader = DirectoryReader.open(writer, true);
+        assertThat(reader.leaves().size(), equalTo(NUM_SEGMENTS));
+
+        FieldMapper.Names names = new FieldMapper.Names("value");
+        FieldDataType type = new FieldDataType("string");
+        recording = new RecordingCache(new IndexFieldDataCache.Resident(null, names, type));
+        cache = new IndexFieldDataCache.Parallel(recording, executor);
+        ifd = new PagedBytesIndexFieldData.Builder().build(new Index("test"), ImmutableSettings.Builder.EMPTY_SETTINGS, names, type, cache);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        reader.close();
+        writer.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLoadingOneSegmentLoadsTheOthers() throws Exception {
+        AtomicReaderContext first = reader.leaves().get(0);
+        assertThat(cache.isCached(first), equalTo(false));
+        assertThat(ifd.load(first).getBytesValues().getValue(0).utf8ToString(), equalTo("0"));
+        assertThat(cache.isCached(first), equalTo(true));
+
+        for (AtomicReaderContext leaf : reader.leaves()) {
+            long timeout = System.currentTimeMillis() + 10000;
+            while (!cache.isCached(leaf) && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertThat(cache.isCached(leaf), equalTo(true));
+            assertThat(ifd.load(leaf).getBytesValues().getValue(0).utf8ToString(), equalTo(Integer.toString(leaf.ord)));
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsShareLoads() throws Exception {
+        final int numRequests = 8;
+        final AtomicFieldData[][] loaded = new AtomicFieldData[numRequests][NUM_SEGMENTS];
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] requests = new Thread[numRequests];
+        for (int i = 0; i < numRequests; i++) {
+            final int request = i;
+            requests[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (AtomicReaderContext leaf : reader.leaves()) {
+                            loaded[request][leaf.ord] = ifd.load(leaf);
+                        }
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            };
+            requests[i].start();
+        }
+        start.countDown();
+        for (Thread request : requests) {
+            request.join();
+        }
+        assertThat(failure.get(), nullValue());
+        for (int i = 1; i < numRequests; i++) {
+            for (int segment = 0; segment < NUM_SEGMENTS; segment++) {
+                assertThat(loaded[i][segment], sameInstance(loaded[0][segment]));
+            }
+        }
+    }
+
+    @Test
+    public void testLeavesLoadInParallel() throws Exception {
+        // each load waits for two others to run at the same time, loads one after the other would time out
+        recording.concurrentLoads = new CountDownLatch(3);
+        for (AtomicReaderContext leaf : reader.leaves()) {
+            ifd.load(leaf);
+        }
+        assertThat(recording.maxConcurrentLoads.get(), greaterThanOrEqualTo(3));
+        for (AtomicReaderContext leaf : reader.leaves()) {
+            assertThat(recording.loads.get(leaf.ord), equalTo(1));
+        }
+    }
+
+    @Test
+    public void testClosedLeavesAreNotLoaded() throws Exception {
+        // not a near real time reader, the writer would keep its segments open
+        DirectoryReader reader = DirectoryReader.open(writer.getDirectory());
+        List<AtomicReaderContext> leaves = reader.leaves();
+        assertThat(leaves.size(), equalTo(NUM_SEGMENTS));
+        AtomicReaderContext first = leaves.get(0);
+        // keep the first segment open while the other ones are closed along with the top level reader
+        first.reader().incRef();
+        try {
+            reader.close();
+            for (AtomicReaderContext leaf : leaves) {
+                if (leaf.ord != first.ord) {
+                    assertThat(leaf.reader().getRefCount(), equalTo(0));
+                }
+            }
+
+            assertThat(ifd.load(first).getBytesValues().getValue(0).utf8ToString(), equalTo("0"));
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), equalTo(true));
+            assertThat(recording.loads.get(first.ord), equalTo(1));
+            for (AtomicReaderContext leaf : leaves) {
+                if (leaf.ord != first.ord) {
+                    assertThat(recording.loads.get(leaf.ord), equalTo(0));
+                    assertThat(cache.isCached(leaf), equalTo(false));
+                }
+            }
+            assertThat(first.reader().getRefCount(), equalTo(1));
+        } finally {
+            first.reader().decRef();
+        }
+    }
+
+    /**
+     * Counts the loads of each segment, and optionally waits for several of them to run at the same time.
+     */
+    static class RecordingCache implements IndexFieldDataCache {
+
+        final IndexFieldDataCache cache;
+        final AtomicIntegerArray loads = new AtomicIntegerArray(NUM_SEGMENTS);
+        final AtomicInteger currentLoads = new AtomicInteger();
+        final AtomicInteger maxConcurrentLoads = new AtomicInteger();
+        volatile CountDownLatch concurrentLoads;
+
+        RecordingCache(IndexFieldDataCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public <FD extends AtomicFieldData, IFD extends IndexFieldData<FD>> FD load(AtomicReaderContext context, IFD indexFieldData) throws Exception {
+            if (cache.isCached(context)) {
+                return cache.load(context, indexFieldData);
+            }
+            loads.incrementAndGet(context.ord);
+            int current = currentLoads.incrementAndGet();
+            try {
+                while (true) {
+                    int max = maxConcurrentLoads.get();
+                    if (current <= max || maxConcurrentLoads.compareAndSet(max, current)) {
+                        break;
+                    }
+                }
+                CountDownLatch latch = concurrentLoads;
+                if (latch != null) {
+                    latch.countDown();
+                    latch.await(10, TimeUnit.SECONDS);
+                }
+                return cache.load(context, indexFieldData);
+            } finally {
+                currentLoads.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean isCached(AtomicReaderContext context) {
+            return cache.isCached(context);
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+        }
+
+        @Override
+        public void clear(String fieldName) {
+            cache.clear(fieldName);
+        }
+
+        @Override
+        public void clear(IndexReader reader) {
+            cache.clear(reader);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.index.fielddata.ordinals;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.BytesValues;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.ShardFieldData;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinals;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.fielddata.breaker.FieldDataBreaker;
+import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class GlobalOrdinalsTests {
+
+    @Test
+    public void testGlobalOrdinals() throws Exception {
+        IndexFieldDataService ifdService = new IndexFieldDataService(new Index("test"));
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer(Lucene.VERSION))
+                .setMergePolicy(NoMergePolicy.COMPOUND_FILES));
+        String[][] segments = new String[][]{{"b", "d"}, {"a", "d", "e"}, {}, {"c", "e"}};
+        for (String[] terms : segments) {
+            Document d = new Document();
+            for (String term : terms) {
+                d.add(new StringField("value", term, Field.Store.NO));
+            }
+            writer.addDocument(d);
+            writer.commit();
+        }
+
+        DirectoryReader reader = DirectoryReader.open(writer, true);
+        assertThat(reader.leaves().size(), equalTo(4));
+        IndexFieldData.WithOrdinals<?> ifd = ifdService.getForField(new FieldMapper.Names("value"), new FieldDataType("string"));
+        GlobalOrdinals globalOrdinals = ifdService.getGlobalOrdinals(reader, ifd);
+
+        assertThat(globalOrdinals.getNumOrds(), equalTo(5));
+        assertThat(globalOrdinals.getMaxOrd(), equalTo(6));
+        assertThat(globalOrdinals.getMemorySizeInBytes(), greaterThan(0l));
+        String[] expected = new String[]{null, "a", "b", "c", "d", "e"};
+        for (AtomicReaderContext context : reader.leaves()) {
+            BytesValues.WithOrdinals values = ifd.load(context).getBytesValues();
+            GlobalOrdinals.Mapping mapping = globalOrdinals.segmentMapping(context.ord);
+            assertThat(mapping.globalOrd(0), equalTo(0));
+            for (int ord = 1; ord < values.ordinals().getMaxOrd(); ord++) {
+                int globalOrd = mapping.globalOrd(ord);
+                assertThat(values.getValueByOrd(ord).utf8ToString(), equalTo(expected[globalOrd]));
+            }
+        }
+        for (int globalOrd = 1; globalOrd < globalOrdinals.getMaxOrd(); globalOrd++) {
+            AtomicReaderContext context = reader.leaves().get(globalOrdinals.firstSegment(globalOrd));
+            BytesRef term = ifd.load(context).getBytesValues().getValueByOrd(globalOrdinals.firstSegmentOrd(globalOrd));
+            assertThat(term.utf8ToString(), equalTo(expected[globalOrd]));
+        }
+        // "d" first shows up in the first segment, "e" in the second one
+        assertThat(globalOrdinals.firstSegment(4), equalTo(0));
+        assertThat(globalOrdinals.firstSegment(5), equalTo(1));
+
+        // cached until the reader is closed
+        assertThat(ifdService.getGlobalOrdinals(reader, ifd), sameInstance(globalOrdinals));
+        reader.close();
+        reader = DirectoryReader.open(writer, true);
+        assertThat(ifdService.getGlobalOrdinals(reader, ifd), not(sameInstance(globalOrdinals)));
+
+        reader.close();
+        writer.close();
+        ifdService.clear();
+    }
+
+    @Test
+    public void testGlobalOrdinalsAccounting() throws Exception {
+        Index index = new Index("test");
+        FieldDataBreaker breaker = new FieldDataBreaker(ImmutableSettings.settingsBuilder()
+                .put(FieldDataBreaker.FIELDDATA_BREAKER_OVERHEAD, 1.0)
+                .build());
+        IndicesFieldDataCache indicesFieldDataCache = new IndicesFieldDataCache(ImmutableSettings.Builder.EMPTY_SETTINGS, breaker);
+        IndexFieldDataService ifdService = new IndexFieldDataService(index, ImmutableSettings.Builder.EMPTY_SETTINGS, indicesFieldDataCache, null);
+        ShardFieldData shardFieldData = new ShardFieldData(new ShardId(index, 0), ImmutableSettings.Builder.EMPTY_SETTINGS);
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer(Lucene.VERSION))
+                .setMergePolicy(NoMergePolicy.COMPOUND_FILES));
+        for (String term : new String[]{"a", "b", "c"}) {
+            Document d = new Document();
+            d.add(new StringField("value", term, Field.Store.NO));
+            writer.addDocument(d);
+            writer.commit();
+        }
+
+        DirectoryReader reader = DirectoryReader.open(writer, true);
+        IndexFieldData.WithOrdinals<?> ifd = ifdService.getForField(new FieldMapper.Names("value"), new FieldDataType("string"));
+        for (AtomicReaderContext context : reader.leaves()) {
+            ifd.load(context);
+        }
+        long fieldDataBytes = breaker.getUsed();
+
+        GlobalOrdinals globalOrdinals = indicesFieldDataCache.loadGlobalOrdinals(index, reader, ifd, shardFieldData);
+        long globalOrdinalsBytes = globalOrdinals.getMemorySizeInBytes();
+        assertThat(globalOrdinalsBytes, greaterThan(0l));
+        assertThat(breaker.getUsed(), equalTo(fieldDataBytes + globalOrdinalsBytes));
+        assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(globalOrdinalsBytes));
+        assertThat(shardFieldData.stats("value").getFields().get("value"), equalTo(globalOrdinalsBytes));
+
+        // a cache hit is not charged twice
+        assertThat(indicesFieldDataCache.loadGlobalOrdinals(index, reader, ifd, shardFieldData), sameInstance(globalOrdinals));
+        assertThat(breaker.getUsed(), equalTo(fieldDataBytes + globalOrdinalsBytes));
+
+        // released once the reader gets closed
+        reader.close();
+        assertThat(breaker.getUsed(), equalTo(fieldDataBytes));
+        assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(0l));
+
+        // nothing gets cached for a closed reader
+        try {
+            indicesFieldDataCache.loadGlobalOrdinals(index, reader, ifd, shardFieldData);
+            assert false : "reader is closed";
+        } catch (AlreadyClosedException e) {
+            // expected
+        }
+        assertThat(breaker.getUsed(), equalTo(fieldDataBytes));
+
+        writer.close();
+        ifdService.clear();
+    }
+}
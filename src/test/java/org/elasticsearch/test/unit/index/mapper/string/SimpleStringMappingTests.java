@@ -20,7 +20,10 @@
 package org.elasticsearch.test.unit.index.mapper.string;
 
 import org.apache.lucene.index.FieldInfo;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.fielddata.FieldDataType;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.test.unit.index.mapper.MapperTests;
@@ -207,4 +210,23 @@ public class SimpleStringMappingTests {
         assertThat(doc.rootDoc().getField("field6").fieldType().storeTermVectorPayloads(), equalTo(true));
     }
 
+    @Test
+    public void testFieldDataLoading() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties")
+                .startObject("field1").field("type", "string").field("index", "not_analyzed").endObject()
+                .startObject("field2").field("type", "string").field("index", "not_analyzed").startObject("fielddata").field("loading", "eager").endObject().endObject()
+                .endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper defaultMapper = MapperTests.newParser().parse(mapping);
+
+        assertThat(defaultMapper.mappers().smartNameFieldMapper("field1").fieldDataType().getLoading(), equalTo(FieldDataType.Loading.LAZY));
+        assertThat(defaultMapper.mappers().smartNameFieldMapper("field2").fieldDataType().getLoading(), equalTo(FieldDataType.Loading.EAGER));
+    }
+
+    @Test(expectedExceptions = ElasticSearchIllegalArgumentException.class)
+    public void testUnknownFieldDataLoading() {
+        new FieldDataType("string", ImmutableSettings.builder().put(FieldDataType.LOADING_KEY, "sometimes"));
+    }
 }
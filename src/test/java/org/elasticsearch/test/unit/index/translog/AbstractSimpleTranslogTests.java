@@ -73,6 +73,22 @@ public abstract class AbstractSimpleTranslogTests {
         assertThat(TranslogStreams.readSource(translog.read(loc3)).source.toBytesArray(), equalTo(new BytesArray(new byte[]{3})));
     }
 
+    @Test
+    public void testReadBytes() throws IOException {
+        Translog.Location[] locations = new Translog.Location[100];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = translog.add(new Translog.Index("test", Integer.toString(i), new byte[]{(byte) i, 1, 2, 3}));
+        }
+        translog.sync();
+        for (int i = 0; i < locations.length; i++) {
+            assertThat(TranslogStreams.readSource(translog.readBytes(locations[i])).source.toBytesArray(), equalTo(new BytesArray(new byte[]{(byte) i, 1, 2, 3})));
+        }
+
+        Translog.Snapshot snapshot = translog.snapshot();
+        MatcherAssert.assertThat(snapshot, TranslogSizeMatcher.translogSize(locations.length));
+        snapshot.release();
+    }
+
     @Test
     public void testTransientTranslog() {
         Translog.Snapshot snapshot = translog.snapshot();
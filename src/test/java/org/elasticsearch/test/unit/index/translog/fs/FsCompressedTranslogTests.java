@@ -0,0 +1,92 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.translog.fs;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogStreams;
+import org.elasticsearch.index.translog.fs.FsTranslog;
+import org.elasticsearch.index.translog.fs.FsTranslogFile;
+import org.elasticsearch.test.unit.index.translog.AbstractSimpleTranslogTests;
+import org.elasticsearch.test.unit.index.translog.TranslogSizeMatcher;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ *
+ */
+public class FsCompressedTranslogTests extends AbstractSimpleTranslogTests {
+
+    @Override
+    protected Translog create() {
+        return new FsTranslog(shardId,
+                ImmutableSettings.settingsBuilder()
+                        .put("index.translog.fs.type", FsTranslogFile.Type.BUFFERED.name())
+                        .put("index.translog.fs.compress", true)
+                        .put("index.translog.fs.compress_threshold", "0b")
+                        .build(),
+                new File("data/fs-translog"));
+    }
+
+    @AfterClass
+    public void cleanup() {
+        FileSystemUtils.deleteRecursively(new File("data/fs-translog"), true);
+    }
+
+    @Test
+    public void testCompressedOperations() throws IOException {
+        byte[] source = new byte[64 * 1024];
+        Arrays.fill(source, (byte) 'a');
+        Translog.Location location1 = translog.add(new Translog.Index("test", "1", source));
+        Translog.Location location2 = translog.add(new Translog.Create("test", "2", source));
+        assertThat(location1.size, lessThan(source.length));
+        assertThat(translog.translogSizeInBytes(), lessThan((long) source.length));
+
+        assertThat(TranslogStreams.readSource(translog.read(location1)).source.toBytesArray(), equalTo(new BytesArray(source)));
+        assertThat(TranslogStreams.readSource(translog.readBytes(location2)).source.toBytesArray(), equalTo(new BytesArray(source)));
+
+        Translog.Snapshot snapshot = translog.snapshot();
+        assertThat(snapshot, TranslogSizeMatcher.translogSize(2));
+        snapshot.release();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testChecksumMismatch() throws IOException {
+        BytesStreamOutput operation = new BytesStreamOutput();
+        TranslogStreams.writeTranslogOperation(operation, new Translog.Index("test", "1", new byte[]{1, 2, 3}));
+        BytesStreamOutput out = new BytesStreamOutput();
+        TranslogStreams.writeFramedTranslogOperation(out, operation.bytes().array(), operation.bytes().arrayOffset(), operation.size(), Integer.MAX_VALUE);
+        byte[] framed = out.bytes().toBytes();
+        framed[framed.length - 1]++;
+        TranslogStreams.readTranslogOperation(new BytesStreamInput(framed, false));
+    }
+}
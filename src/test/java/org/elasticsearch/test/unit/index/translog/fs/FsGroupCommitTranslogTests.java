@@ -0,0 +1,109 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.translog.fs;
+
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.fs.FsTranslog;
+import org.elasticsearch.index.translog.fs.FsTranslogFile;
+import org.elasticsearch.test.unit.index.translog.AbstractSimpleTranslogTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class FsGroupCommitTranslogTests extends AbstractSimpleTranslogTests {
+
+    @Override
+    protected Translog create() {
+        Translog translog = new FsTranslog(shardId,
+                ImmutableSettings.settingsBuilder()
+                        .put("index.translog.fs.type", FsTranslogFile.Type.SIMPLE.name())
+                        .put("index.translog.fs.group_commit", true)
+                        .build(),
+                new File("data/fs-translog"));
+        translog.syncOnEachOperation(true);
+        return translog;
+    }
+
+    @AfterClass
+    public void cleanup() {
+        FileSystemUtils.deleteRecursively(new File("data/fs-translog"), true);
+    }
+
+    @Test
+    public void testConcurrentSyncOperations() throws Exception {
+        final int numberOfThreads = 8;
+        final int numberOfOperations = 100;
+        final CyclicBarrier barrier = new CyclicBarrier(numberOfThreads);
+        final CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for (int t = 0; t < numberOfThreads; t++) {
+            final int threadId = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                        for (int i = 0; i < numberOfOperations; i++) {
+                            translog.add(new Translog.Index("test", threadId + "_" + i, new byte[]{1}));
+                            translog.syncOperations();
+                        }
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        latch.await();
+        assertThat(failure.get(), nullValue());
+        assertThat(translog.syncNeeded(), equalTo(false));
+
+        TranslogStats stats = translog.stats();
+        assertThat(stats.operations(), equalTo((long) numberOfThreads * numberOfOperations));
+        assertThat(stats.syncedOperations(), equalTo((long) numberOfThreads * numberOfOperations));
+        assertThat(stats.syncs(), greaterThan(0l));
+        assertThat(stats.syncs(), lessThanOrEqualTo(stats.syncedOperations()));
+
+        long syncs = 0;
+        for (long count : stats.syncBatchSizeHistogram()) {
+            syncs += count;
+        }
+        assertThat(syncs, equalTo(stats.syncs()));
+        long waits = 0;
+        for (long count : stats.syncWaitTimeHistogram()) {
+            waits += count;
+        }
+        assertThat(waits, equalTo((long) numberOfThreads * numberOfOperations));
+    }
+}
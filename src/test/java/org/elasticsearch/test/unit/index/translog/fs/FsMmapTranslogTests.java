@@ -0,0 +1,51 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.translog.fs;
+
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.fs.FsTranslog;
+import org.elasticsearch.index.translog.fs.FsTranslogFile;
+import org.elasticsearch.test.unit.index.translog.AbstractSimpleTranslogTests;
+import org.testng.annotations.AfterClass;
+
+import java.io.File;
+
+/**
+ * Uses tiny mapped chunks, so most of the reads go through memory mapped slices.
+ */
+public class FsMmapTranslogTests extends AbstractSimpleTranslogTests {
+
+    @Override
+    protected Translog create() {
+        return new FsTranslog(shardId,
+                ImmutableSettings.settingsBuilder()
+                        .put("index.translog.fs.type", FsTranslogFile.Type.BUFFERED.name())
+                        .put("index.translog.fs.mmap_chunk_size", "256b")
+                        .build(),
+                new File("data/fs-translog"));
+    }
+
+    @AfterClass
+    public void cleanup() {
+        FileSystemUtils.deleteRecursively(new File("data/fs-translog"), true);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.indices.fielddata.breaker;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.FilterAtomicReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SlowCompositeReaderWrapper;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.indices.fielddata.breaker.CircuitBreakingException;
+import org.elasticsearch.indices.fielddata.breaker.FieldDataBreaker;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class FieldDataBreakerTests {
+
+    private FieldDataBreaker breaker(String limit) {
+        return new FieldDataBreaker(ImmutableSettings.settingsBuilder()
+                .put(FieldDataBreaker.FIELDDATA_BREAKER_LIMIT, limit)
+                .put(FieldDataBreaker.FIELDDATA_BREAKER_OVERHEAD, 1.0)
+                .build());
+    }
+
+    @Test
+    public void testBreaksAboveLimit() {
+        FieldDataBreaker breaker = breaker("100b");
+        breaker.addEstimateBytesAndMaybeBreak(60, "field");
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(50, "field");
+            assert false : "should have tripped";
+        } catch (CircuitBreakingException e) {
+            // expected
+        }
+        assertThat(breaker.getUsed(), equalTo(60l));
+        assertThat(breaker.stats().getTripped(), equalTo(1l));
+
+        breaker.addWithoutBreaking(-60);
+        breaker.addEstimateBytesAndMaybeBreak(100, "field");
+        assertThat(breaker.getUsed(), equalTo(100l));
+    }
+
+    @Test
+    public void testUnbounded() {
+        FieldDataBreaker breaker = breaker("-1");
+        breaker.addEstimateBytesAndMaybeBreak(Long.MAX_VALUE / 2, "field");
+        assertThat(breaker.stats().getTripped(), equalTo(0l));
+    }
+
+    @Test
+    public void testEstimate() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer(Lucene.VERSION)));
+        for (int i = 0; i < 100; i++) {
+            Document d = new Document();
+            d.add(new StringField("value", "value_" + i, Field.Store.NO));
+            writer.addDocument(d);
+        }
+        AtomicReader reader = new SlowCompositeReaderWrapper(DirectoryReader.open(writer, true));
+        try {
+            FieldDataBreaker breaker = breaker("-1");
+            long estimate = breaker.estimate(reader, "value", new FieldDataType("string"));
+            // at least the term bytes and an ordinal per doc
+            assertThat(estimate, greaterThanOrEqualTo(100l * ("value_".length() + 1 + 4)));
+            assertThat(breaker.estimate(reader, "missing", new FieldDataType("string")), equalTo(0l));
+        } finally {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testEstimateWithUnknownNumberOfTerms() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer(Lucene.VERSION)));
+        // more terms than the sampled ones
+        for (int i = 0; i < 5000; i++) {
+            Document d = new Document();
+            d.add(new StringField("value", "value_" + i, Field.Store.NO));
+            writer.addDocument(d);
+        }
+        AtomicReader reader = new SlowCompositeReaderWrapper(DirectoryReader.open(writer, true));
+        try {
+            FieldDataBreaker breaker = breaker("-1");
+            long estimate = breaker.estimate(reader, "value", new FieldDataType("string"));
+            // the terms are all counted when the terms dictionary doesn't know its size
+            long unknownSizeEstimate = breaker.estimate(new UnknownTermsSizeReader(reader), "value", new FieldDataType("string"));
+            assertThat(unknownSizeEstimate, equalTo(estimate));
+        } finally {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    static class UnknownTermsSizeReader extends FilterAtomicReader {
+
+        UnknownTermsSizeReader(AtomicReader in) {
+            super(in);
+        }
+
+        @Override
+        public Fields fields() throws IOException {
+            return new FilterFields(super.fields()) {
+                @Override
+                public Terms terms(String field) throws IOException {
+                    Terms terms = super.terms(field);
+                    if (terms == null) {
+                        return null;
+                    }
+                    return new FilterTerms(terms) {
+                        @Override
+                        public long size() throws IOException {
+                            return -1;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
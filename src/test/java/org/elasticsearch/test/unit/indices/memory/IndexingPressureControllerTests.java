@@ -0,0 +1,152 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.indices.memory;
+
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.indices.memory.IndexingPressureController;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.testng.Assert.fail;
+
+/**
+ */
+public class IndexingPressureControllerTests {
+
+    private IndexingPressureController controller(double throttleAt) {
+        return new IndexingPressureController(ImmutableSettings.settingsBuilder()
+                .put("indices.memory.pressure.max_outstanding", "100b")
+                .put("indices.memory.pressure.max_merge_debt", "100b")
+                .put("indices.memory.pressure.max_translog_size", "100b")
+                .put("indices.memory.pressure.throttle_at", throttleAt)
+                .build(), null, null, new ByteSizeValue(100));
+    }
+
+    @Test
+    public void testAcquireAndRelease() {
+        IndexingPressureController controller = controller(1);
+        controller.acquirePrimary(10);
+        controller.acquireReplica(20);
+        controller.acquirePrimary(30);
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(60l));
+        controller.release(30);
+        controller.release(20);
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(10l));
+        controller.release(10);
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(0l));
+    }
+
+    @Test
+    public void testRejectOutstanding() {
+        IndexingPressureController controller = controller(1);
+        controller.acquirePrimary(80);
+        try {
+            controller.acquirePrimary(30);
+            fail("should be rejected");
+        } catch (EsRejectedExecutionException e) {
+            // expected
+        }
+        // the rejected operation is not accounted for
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(80l));
+        assertThat(controller.stats().getRejectedOutstanding(), equalTo(1l));
+        controller.acquirePrimary(20);
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(100l));
+        // replicas are never rejected
+        controller.acquireReplica(50);
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(150l));
+        controller.release(50);
+        controller.release(20);
+        controller.release(80);
+
+        // a single operation above the limit goes through when nothing else is executing
+        controller.acquirePrimary(150);
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(150l));
+        assertThat(controller.stats().getRejectedOutstanding(), equalTo(1l));
+    }
+
+    @Test
+    public void testRejectMergeDebtAndTranslog() {
+        IndexingPressureController controller = controller(1);
+        controller.updateDebt(101, 0);
+        try {
+            controller.acquirePrimary(10);
+            fail("should be rejected");
+        } catch (EsRejectedExecutionException e) {
+            // expected
+        }
+        assertThat(controller.stats().getRejectedMergeDebt(), equalTo(1l));
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(0l));
+
+        controller.updateDebt(0, 101);
+        try {
+            controller.acquirePrimary(10);
+            fail("should be rejected");
+        } catch (EsRejectedExecutionException e) {
+            // expected
+        }
+        assertThat(controller.stats().getRejectedTranslog(), equalTo(1l));
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(0l));
+
+        controller.updateDebt(100, 100);
+        controller.acquirePrimary(10);
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(10l));
+    }
+
+    @Test
+    public void testThrottle() {
+        IndexingPressureController controller = controller(0.5);
+        controller.updateDebt(40, 40);
+        controller.acquirePrimary(10);
+        controller.release(10);
+        assertThat(controller.stats().getThrottled(), equalTo(0l));
+
+        // at the limit, all primary operations are throttled
+        controller.updateDebt(100, 0);
+        for (int i = 0; i < 10; i++) {
+            try {
+                controller.acquirePrimary(10);
+                fail("should be throttled");
+            } catch (EsRejectedExecutionException e) {
+                // expected
+            }
+        }
+        assertThat(controller.stats().getThrottled(), equalTo(10l));
+        assertThat(controller.stats().getRejectedMergeDebt(), equalTo(0l));
+        assertThat(controller.stats().getOutstanding().bytes(), equalTo(0l));
+    }
+
+    @Test
+    public void testThrottleRatio() {
+        assertThat(IndexingPressureController.throttleRatio(0, 0.8), equalTo(0d));
+        assertThat(IndexingPressureController.throttleRatio(0.8, 0.8), equalTo(0d));
+        assertThat(IndexingPressureController.throttleRatio(0.9, 0.8), closeTo(0.5, 0.0001));
+        assertThat(IndexingPressureController.throttleRatio(0.95, 0.8), closeTo(0.75, 0.0001));
+        assertThat(IndexingPressureController.throttleRatio(1, 0.8), equalTo(1d));
+        assertThat(IndexingPressureController.throttleRatio(2, 0.8), equalTo(1d));
+        // throttling disabled
+        assertThat(IndexingPressureController.throttleRatio(1, 1), equalTo(0d));
+        assertThat(IndexingPressureController.throttleRatio(1.5, 1), equalTo(0d));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.indices.refresh;
+
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.indices.refresh.AdaptiveRefreshController;
+import org.elasticsearch.indices.refresh.AdaptiveRefreshController.ShardRefreshStatus;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class AdaptiveRefreshControllerTests {
+
+    private AdaptiveRefreshController controller() {
+        return new AdaptiveRefreshController(ImmutableSettings.settingsBuilder()
+                .put("indices.refresh.search_idle_after", "10s")
+                .put("indices.refresh.max_staleness", "30s")
+                .put("indices.refresh.merge_backlog", 4)
+                .build(), null, null);
+    }
+
+    @Test
+    public void testSearchedShardRefreshesOnItsInterval() {
+        AdaptiveRefreshController controller = controller();
+        ShardRefreshStatus status = new ShardRefreshStatus();
+        assertThat(controller.refreshDue(status, 1000, 1000, 0, 0), equalTo(true));
+        assertThat(controller.refreshDue(status, 1000, 1000, 10000, 0), equalTo(true));
+        assertThat(status.backoff(), equalTo(1l));
+    }
+
+    @Test
+    public void testSearchIdleShardWaitsForMaxStaleness() {
+        AdaptiveRefreshController controller = controller();
+        ShardRefreshStatus status = new ShardRefreshStatus();
+        assertThat(controller.refreshDue(status, 1000, 1000, 10001, 0), equalTo(false));
+        assertThat(controller.refreshDue(status, 1000, 29999, 40000, 0), equalTo(false));
+        assertThat(controller.refreshDue(status, 1000, 30000, 40000, 0), equalTo(true));
+    }
+
+    @Test
+    public void testMaxStalenessIsAtLeastTheRefreshInterval() {
+        AdaptiveRefreshController controller = controller();
+        ShardRefreshStatus status = new ShardRefreshStatus();
+        // an interval larger than max_staleness is kept even when search idle
+        assertThat(controller.refreshDue(status, 60000, 60000, 100000, 0), equalTo(true));
+        // and max_staleness still applies while merges are behind
+        assertThat(controller.refreshDue(status, 60000, 60000, 0, 10), equalTo(true));
+    }
+
+    @Test
+    public void testMergeBacklogDoublesTheInterval() {
+        AdaptiveRefreshController controller = controller();
+        ShardRefreshStatus status = new ShardRefreshStatus();
+        // below the backlog, refreshed on the interval
+        assertThat(controller.refreshDue(status, 1000, 1000, 0, 3), equalTo(true));
+        assertThat(status.backoff(), equalTo(1l));
+
+        // the backoff doubles each time the shard is due while merges are behind
+        assertThat(controller.refreshDue(status, 1000, 1000, 0, 4), equalTo(false));
+        assertThat(status.backoff(), equalTo(2l));
+        assertThat(controller.refreshDue(status, 1000, 1999, 0, 4), equalTo(false));
+        assertThat(status.backoff(), equalTo(2l));
+        assertThat(controller.refreshDue(status, 1000, 2000, 0, 4), equalTo(false));
+        assertThat(status.backoff(), equalTo(4l));
+        assertThat(controller.refreshDue(status, 1000, 4000, 0, 4), equalTo(false));
+        assertThat(status.backoff(), equalTo(8l));
+        assertThat(controller.refreshDue(status, 1000, 8000, 0, 4), equalTo(false));
+        assertThat(status.backoff(), equalTo(16l));
+        assertThat(controller.refreshDue(status, 1000, 16000, 0, 4), equalTo(false));
+        assertThat(status.backoff(), equalTo(32l));
+
+        // up to max_staleness
+        assertThat(controller.refreshDue(status, 1000, 29999, 0, 4), equalTo(false));
+        assertThat(controller.refreshDue(status, 1000, 30000, 0, 4), equalTo(true));
+        assertThat(status.backoff(), equalTo(32l));
+    }
+
+    @Test
+    public void testBackoffResetsOnceMergesCaughtUp() {
+        AdaptiveRefreshController controller = controller();
+        ShardRefreshStatus status = new ShardRefreshStatus();
+        assertThat(controller.refreshDue(status, 1000, 1000, 0, 4), equalTo(false));
+        assertThat(controller.refreshDue(status, 1000, 2000, 0, 4), equalTo(false));
+        assertThat(status.backoff(), equalTo(4l));
+
+        // the current backoff is waited for, then the shard is refreshed and the backoff reset
+        assertThat(controller.refreshDue(status, 1000, 3999, 0, 0), equalTo(false));
+        assertThat(controller.refreshDue(status, 1000, 4000, 0, 0), equalTo(true));
+        assertThat(status.backoff(), equalTo(1l));
+        assertThat(controller.refreshDue(status, 1000, 1000, 0, 0), equalTo(true));
+    }
+}
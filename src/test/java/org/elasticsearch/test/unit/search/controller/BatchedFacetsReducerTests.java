@@ -0,0 +1,170 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.search.controller;
+
+import com.google.common.collect.Lists;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.controller.BatchedFacetsReducer;
+import org.elasticsearch.search.controller.SearchPhaseController;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.InternalFacets;
+import org.elasticsearch.search.facet.cardinality.CardinalityFacet;
+import org.elasticsearch.search.facet.cardinality.HyperLogLog;
+import org.elasticsearch.search.facet.cardinality.InternalCardinalityFacet;
+import org.elasticsearch.search.facet.percentiles.InternalPercentilesFacet;
+import org.elasticsearch.search.facet.percentiles.PercentilesFacet;
+import org.elasticsearch.search.facet.percentiles.TDigest;
+import org.elasticsearch.search.facet.statistical.InternalStatisticalFacet;
+import org.elasticsearch.search.facet.statistical.StatisticalFacet;
+import org.elasticsearch.search.facet.terms.TermsFacet;
+import org.elasticsearch.search.facet.terms.strings.InternalStringTermsFacet;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ */
+public class BatchedFacetsReducerTests {
+
+    @Test
+    public void testPartialReductionsKeepAllTerms() {
+        SearchPhaseController controller = new SearchPhaseController(ImmutableSettings.settingsBuilder()
+                .put("search.controller.batched_reduce_size", 2).build());
+        BatchedFacetsReducer reducer = controller.newFacetsReducer();
+
+        QuerySearchResult result = shardResult(0, new InternalStringTermsFacet.TermEntry("a", 3), new InternalStringTermsFacet.TermEntry("b", 2));
+        reducer.add(result);
+        assertThat(result.facets(), nullValue());
+        reducer.add(shardResult(1, new InternalStringTermsFacet.TermEntry("a", 3), new InternalStringTermsFacet.TermEntry("b", 2)));
+        // "b" is not in the top term of the first batch, but it is overall
+        reducer.add(shardResult(2, new InternalStringTermsFacet.TermEntry("b", 5)));
+
+        InternalFacets facets = reducer.reduce();
+        TermsFacet facet = facets.facet("facet");
+        assertThat(facet.getEntries().size(), equalTo(1));
+        assertThat(facet.getEntries().get(0).getTerm().string(), equalTo("b"));
+        assertThat(facet.getEntries().get(0).getCount(), equalTo(9));
+        assertThat(facet.getTotalCount(), equalTo(15l));
+    }
+
+    @Test
+    public void testNoFacets() {
+        BatchedFacetsReducer reducer = new SearchPhaseController(ImmutableSettings.EMPTY).newFacetsReducer();
+        reducer.add(new QuerySearchResult(1, new SearchShardTarget("node", "index", 0)));
+        assertThat(reducer.reduce(), nullValue());
+    }
+
+    @Test
+    public void testMultipleBatchesMatchSinglePass() {
+        int numShards = 10;
+        InternalFacets singlePass = reduce(new SearchPhaseController(ImmutableSettings.EMPTY), numShards);
+        for (int batchSize = 1; batchSize <= 3; batchSize++) {
+            InternalFacets batched = reduce(new SearchPhaseController(ImmutableSettings.settingsBuilder()
+                    .put("search.controller.batched_reduce_size", batchSize).build()), numShards);
+
+            StatisticalFacet expectedStats = singlePass.facet("stats");
+            StatisticalFacet stats = batched.facet("stats");
+            assertThat(stats.getCount(), equalTo(expectedStats.getCount()));
+            assertThat(stats.getMin(), equalTo(expectedStats.getMin()));
+            assertThat(stats.getMax(), equalTo(expectedStats.getMax()));
+            assertThat(stats.getTotal(), equalTo(expectedStats.getTotal()));
+            assertThat(stats.getSumOfSquares(), equalTo(expectedStats.getSumOfSquares()));
+
+            // the registers of the sketches are merged with max, whatever the order
+            CardinalityFacet expectedCardinality = singlePass.facet("cardinality");
+            CardinalityFacet cardinality = batched.facet("cardinality");
+            assertThat(cardinality.getCardinality(), equalTo(expectedCardinality.getCardinality()));
+
+            // merging the digests in another order may move the centroids a bit
+            PercentilesFacet expectedPercentiles = singlePass.facet("percentiles");
+            PercentilesFacet percentiles = batched.facet("percentiles");
+            assertThat(percentiles.getCount(), equalTo(expectedPercentiles.getCount()));
+            assertThat(percentiles.getMin(), equalTo(expectedPercentiles.getMin()));
+            assertThat(percentiles.getMax(), equalTo(expectedPercentiles.getMax()));
+            for (double percent : expectedPercentiles.getPercents()) {
+                assertThat(percentiles.getPercentile(percent), closeTo(expectedPercentiles.getPercentile(percent), 10));
+            }
+        }
+    }
+
+    @Test(expectedExceptions = ElasticSearchIllegalArgumentException.class)
+    public void testBatchedReduceSizeMustBePositive() {
+        new SearchPhaseController(ImmutableSettings.settingsBuilder()
+                .put("search.controller.batched_reduce_size", 0).build());
+    }
+
+    private static InternalFacets reduce(SearchPhaseController controller, int numShards) {
+        BatchedFacetsReducer reducer = controller.newFacetsReducer();
+        for (int shardId = 0; shardId < numShards; shardId++) {
+            reducer.add(numericShardResult(shardId));
+        }
+        return reducer.reduce();
+    }
+
+    /**
+     * The statistical, cardinality and percentiles facets of the same random values, the same for a given shard.
+     */
+    private static QuerySearchResult numericShardResult(int shardId) {
+        Random random = new Random(shardId);
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double total = 0;
+        double sumOfSquares = 0;
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        TDigest digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+        int count = 100 + random.nextInt(100);
+        for (int i = 0; i < count; i++) {
+            // whole values, so the sums are exact whatever the order
+            long value = random.nextInt(1000);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            total += value;
+            sumOfSquares += value * value;
+            sketch.addLong(value);
+            digest.add(value);
+        }
+        QuerySearchResult result = new QuerySearchResult(shardId, new SearchShardTarget("node", "index", shardId));
+        result.facets(new InternalFacets(Lists.<Facet>newArrayList(
+                new InternalStatisticalFacet("stats", min, max, total, sumOfSquares, count),
+                new InternalCardinalityFacet("cardinality", sketch),
+                new InternalPercentilesFacet("percentiles", new double[]{1, 25, 50, 75, 99}, digest))));
+        return result;
+    }
+
+    private static QuerySearchResult shardResult(int shardId, InternalStringTermsFacet.TermEntry... entries) {
+        long total = 0;
+        for (InternalStringTermsFacet.TermEntry entry : entries) {
+            total += entry.getCount();
+        }
+        QuerySearchResult result = new QuerySearchResult(shardId, new SearchShardTarget("node", "index", shardId));
+        Facet facet = new InternalStringTermsFacet("facet", TermsFacet.ComparatorType.COUNT, 1, Lists.newArrayList(entries), 0, total);
+        result.facets(new InternalFacets(Lists.<Facet>newArrayList(facet)));
+        return result;
+    }
+}
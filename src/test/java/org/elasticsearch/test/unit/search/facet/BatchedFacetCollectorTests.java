@@ -0,0 +1,173 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.search.facet;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleField;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SlowCompositeReaderWrapper;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.search.facet.BatchedFacetCollector;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ */
+public class BatchedFacetCollectorTests {
+
+    @Test
+    public void testColumnsAcrossBlocks() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer(Lucene.VERSION)));
+        int numDocs = BatchedFacetCollector.BLOCK_SIZE * 2 + 17;
+        long expectedKeySum = 0;
+        double expectedValueSum = 0;
+        int expectedKeyCount = 0;
+        int expectedMissing = 0;
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            if (i % 5 == 0) {
+                expectedMissing++;
+            } else {
+                doc.add(new LongField("key", i, Field.Store.NO));
+                expectedKeySum += i;
+                expectedKeyCount++;
+                if (i % 7 == 0) {
+                    doc.add(new LongField("key", -i, Field.Store.NO));
+                    expectedKeySum -= i;
+                    expectedKeyCount++;
+                }
+            }
+            doc.add(new DoubleField("value", i / 2d, Field.Store.NO));
+            expectedValueSum += i / 2d;
+            writer.addDocument(doc);
+        }
+        writer.forceMerge(1);
+        AtomicReaderContext context = new SlowCompositeReaderWrapper(DirectoryReader.open(writer, true)).getContext();
+
+        IndexFieldDataService ifdService = new IndexFieldDataService(new Index("test"));
+        IndexNumericFieldData keys = ifdService.getForField(new FieldMapper.Names("key"), new FieldDataType("long"));
+        IndexNumericFieldData values = ifdService.getForField(new FieldMapper.Names("value"), new FieldDataType("double"));
+
+        BatchedFacetCollector batch = new BatchedFacetCollector();
+        SummingCollector first = new SummingCollector(keys, values);
+        SummingCollector second = new SummingCollector(keys, values);
+        batch.add(first);
+        batch.add(second);
+        assertThat(first.keys, sameInstance(second.keys));
+
+        batch.setNextReader(context);
+        for (int i = 0; i < numDocs; i++) {
+            batch.collect(i);
+        }
+        batch.postCollection();
+
+        for (SummingCollector collector : new SummingCollector[]{first, second}) {
+            assertThat(collector.docCount, equalTo(numDocs));
+            assertThat(collector.blocks, equalTo(3));
+            assertThat(collector.keySum, equalTo(expectedKeySum));
+            assertThat(collector.keyCount, equalTo(expectedKeyCount));
+            assertThat(collector.missing, equalTo(expectedMissing));
+            assertThat(collector.valueSum, equalTo(expectedValueSum));
+            assertThat(collector.postCollection, equalTo(true));
+        }
+
+        context.reader().close();
+        writer.close();
+        ifdService.clear();
+    }
+
+    static class SummingCollector extends FacetExecutor.BatchedCollector {
+
+        final IndexNumericFieldData keyFieldData;
+        final IndexNumericFieldData valueFieldData;
+        BatchedFacetCollector.LongColumn keys;
+        BatchedFacetCollector.DoubleColumn values;
+
+        int blocks;
+        int docCount;
+        int keyCount;
+        int missing;
+        long keySum;
+        double valueSum;
+        boolean postCollection;
+
+        SummingCollector(IndexNumericFieldData keyFieldData, IndexNumericFieldData valueFieldData) {
+            this.keyFieldData = keyFieldData;
+            this.valueFieldData = valueFieldData;
+        }
+
+        @Override
+        public void setColumns(BatchedFacetCollector columns) {
+            keys = columns.longColumn(keyFieldData);
+            values = columns.doubleColumn(valueFieldData);
+        }
+
+        @Override
+        public void collect(int[] docs, int count) {
+            blocks++;
+            docCount += count;
+            for (int i = 0; i < count; i++) {
+                if (keys.offsets[i] == keys.offsets[i + 1]) {
+                    missing++;
+                }
+                for (int k = keys.offsets[i]; k < keys.offsets[i + 1]; k++) {
+                    keySum += keys.buffer[k];
+                    keyCount++;
+                }
+                for (int v = values.offsets[i]; v < values.offsets[i + 1]; v++) {
+                    valueSum += values.buffer[v];
+                }
+            }
+        }
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void postCollection() {
+            postCollection = true;
+        }
+    }
+}
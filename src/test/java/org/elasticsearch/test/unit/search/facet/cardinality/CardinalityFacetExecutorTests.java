@@ -0,0 +1,234 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.search.facet.cardinality;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.BytesValues;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.fieldcomparator.SortMode;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.search.facet.FacetExecutor;
+import org.elasticsearch.search.facet.cardinality.CardinalityFacet;
+import org.elasticsearch.search.facet.cardinality.CardinalityFacetExecutor;
+import org.elasticsearch.search.facet.cardinality.HyperLogLog;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class CardinalityFacetExecutorTests {
+
+    @Test
+    public void testOrdinalsAndPlainValuesAgree() throws Exception {
+        IndexFieldDataService ifdService = new IndexFieldDataService(new Index("test"));
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer(Lucene.VERSION)));
+        Set<String> distinct = new HashSet<String>();
+        for (int i = 0; i < 300; i++) {
+            Document d = new Document();
+            // some docs without values, some with several
+            for (int j = 0; j < i % 3; j++) {
+                String value = Integer.toString((i * 7 + j) % 120);
+                d.add(new StringField("value", value, Field.Store.NO));
+                distinct.add(value);
+            }
+            writer.addDocument(d);
+            if (i % 50 == 0) {
+                writer.commit();
+            }
+        }
+
+        DirectoryReader reader = DirectoryReader.open(writer, true);
+        assertThat(reader.leaves().size(), greaterThan(1));
+        IndexFieldData<?> ifd = ifdService.getForField(new FieldMapper.Names("value"), new FieldDataType("string"));
+
+        // the field data of strings has ordinals, so the ordinals seen in each segment are hashed once
+        long withOrdinals = cardinality(new CardinalityFacetExecutor(ifd, HyperLogLog.DEFAULT_PRECISION), reader);
+        // without ordinals, each value of each doc is hashed
+        long plain = cardinality(new CardinalityFacetExecutor(new NoOrdinalsIndexFieldData(ifd), HyperLogLog.DEFAULT_PRECISION), reader);
+
+        // the same values end up in the sketch, whatever the path
+        assertThat(plain, equalTo(withOrdinals));
+        assertThat((double) withOrdinals, closeTo(distinct.size(), distinct.size() * 0.02));
+
+        reader.close();
+        writer.close();
+        ifdService.clear();
+    }
+
+    private static long cardinality(CardinalityFacetExecutor executor, IndexReader reader) throws Exception {
+        FacetExecutor.Collector collector = executor.collector();
+        for (AtomicReaderContext context : reader.leaves()) {
+            collector.setNextReader(context);
+            for (int doc = 0; doc < context.reader().maxDoc(); doc++) {
+                collector.collect(doc);
+            }
+        }
+        collector.postCollection();
+        return ((CardinalityFacet) executor.buildFacet("facet")).getCardinality();
+    }
+
+    /**
+     * Hides the ordinals of the wrapped field data.
+     */
+    static class NoOrdinalsIndexFieldData implements IndexFieldData<AtomicFieldData> {
+
+        private final IndexFieldData<?> in;
+
+        NoOrdinalsIndexFieldData(IndexFieldData<?> in) {
+            this.in = in;
+        }
+
+        @Override
+        public Index index() {
+            return in.index();
+        }
+
+        @Override
+        public FieldMapper.Names getFieldNames() {
+            return in.getFieldNames();
+        }
+
+        @Override
+        public boolean valuesOrdered() {
+            return in.valuesOrdered();
+        }
+
+        @Override
+        public AtomicFieldData load(AtomicReaderContext context) {
+            return new NoOrdinalsAtomicFieldData(in.load(context));
+        }
+
+        @Override
+        public AtomicFieldData loadDirect(AtomicReaderContext context) throws Exception {
+            return new NoOrdinalsAtomicFieldData(in.loadDirect(context));
+        }
+
+        @Override
+        public XFieldComparatorSource comparatorSource(Object missingValue, SortMode sortMode) {
+            return in.comparatorSource(missingValue, sortMode);
+        }
+
+        @Override
+        public void clear() {
+            in.clear();
+        }
+
+        @Override
+        public void clear(IndexReader reader) {
+            in.clear(reader);
+        }
+    }
+
+    static class NoOrdinalsAtomicFieldData implements AtomicFieldData<ScriptDocValues> {
+
+        private final AtomicFieldData<?> in;
+
+        NoOrdinalsAtomicFieldData(AtomicFieldData<?> in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean isMultiValued() {
+            return in.isMultiValued();
+        }
+
+        @Override
+        public boolean isValuesOrdered() {
+            return in.isValuesOrdered();
+        }
+
+        @Override
+        public int getNumDocs() {
+            return in.getNumDocs();
+        }
+
+        @Override
+        public long getMemorySizeInBytes() {
+            return in.getMemorySizeInBytes();
+        }
+
+        @Override
+        public BytesValues getBytesValues() {
+            return new NoOrdinalsBytesValues(in.getBytesValues());
+        }
+
+        @Override
+        public BytesValues getHashedBytesValues() {
+            return new NoOrdinalsBytesValues(in.getHashedBytesValues());
+        }
+
+        @Override
+        public ScriptDocValues getScriptValues() {
+            return in.getScriptValues();
+        }
+
+        @Override
+        public void close() {
+            in.close();
+        }
+    }
+
+    static class NoOrdinalsBytesValues extends BytesValues {
+
+        private final BytesValues in;
+
+        NoOrdinalsBytesValues(BytesValues in) {
+            super(in.isMultiValued());
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasValue(int docId) {
+            return in.hasValue(docId);
+        }
+
+        @Override
+        public BytesRef getValueScratch(int docId, BytesRef ret) {
+            return in.getValueScratch(docId, ret);
+        }
+
+        @Override
+        public Iter getIter(int docId) {
+            return in.getIter(docId);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.search.facet.cardinality;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.search.facet.cardinality.HyperLogLog;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class HyperLogLogTests {
+
+    @Test
+    public void testSmallCardinalities() {
+        HyperLogLog hll = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        assertThat(hll.cardinality(), equalTo(0l));
+        for (int i = 0; i < 3; i++) {
+            for (int value = 0; value < 100; value++) {
+                hll.addLong(value);
+            }
+        }
+        assertThat(hll.cardinality(), equalTo(100l));
+    }
+
+    @Test
+    public void testAccuracy() {
+        Random random = new Random(42);
+        HyperLogLog hll = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        int cardinality = 1000000;
+        for (int i = 0; i < cardinality; i++) {
+            long value = random.nextLong();
+            hll.addLong(value);
+            if (i % 3 == 0) {
+                hll.addLong(value);
+            }
+        }
+        assertThat(relativeError(hll.cardinality(), cardinality), lessThan(0.03));
+    }
+
+    @Test
+    public void testMergeIsLikeAddingAll() throws Exception {
+        HyperLogLog all = new HyperLogLog(12);
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (int i = 0; i < 50000; i++) {
+            BytesRef value = new BytesRef("value_" + i);
+            all.addBytes(value);
+            (i % 2 == 0 ? first : second).addBytes(value);
+            if (i % 5 == 0) {
+                // overlapping values
+                first.addBytes(value);
+                second.addBytes(value);
+            }
+        }
+        first.merge(second);
+        assertThat(first.cardinality(), equalTo(all.cardinality()));
+        assertThat(relativeError(all.cardinality(), 50000), lessThan(0.06));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        for (int numValues : new int[]{0, 10, 100000}) {
+            HyperLogLog hll = new HyperLogLog(10);
+            for (int i = 0; i < numValues; i++) {
+                hll.addDouble(i * 1.5);
+            }
+            BytesStreamOutput out = new BytesStreamOutput();
+            hll.writeTo(out);
+            if (numValues <= 10) {
+                // sparse
+                assertThat(out.bytes().length(), lessThan(64));
+            }
+            HyperLogLog read = HyperLogLog.readFrom(new BytesStreamInput(out.bytes().toBytes(), false));
+            assertThat(read.precision(), equalTo(10));
+            assertThat(read.cardinality(), equalTo(hll.cardinality()));
+        }
+    }
+
+    @Test(expectedExceptions = Exception.class)
+    public void testMergeDifferentPrecisions() {
+        new HyperLogLog(10).merge(new HyperLogLog(11));
+    }
+
+    private static double relativeError(long estimate, long actual) {
+        return Math.abs(estimate - actual) / (double) actual;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.test.unit.search.facet.percentiles;
+
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.search.facet.percentiles.TDigest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class TDigestTests {
+
+    @Test
+    public void testEmpty() {
+        TDigest digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+        assertThat(digest.count(), equalTo(0l));
+        assertThat(Double.isNaN(digest.quantile(0.5)), equalTo(true));
+    }
+
+    @Test
+    public void testUniform() {
+        Random random = new Random(7);
+        TDigest digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+        int numValues = 100000;
+        for (int i = 0; i < numValues; i++) {
+            digest.add(random.nextDouble() * 1000);
+        }
+        assertThat(digest.count(), equalTo((long) numValues));
+        assertThat(digest.centroids(), lessThan(numValues / 100));
+        assertThat(digest.quantile(0), equalTo(digest.min()));
+        assertThat(digest.quantile(1), equalTo(digest.max()));
+        for (double q : new double[]{0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99}) {
+            assertThat(digest.quantile(q), closeTo(q * 1000, 10));
+        }
+    }
+
+    @Test
+    public void testMergeOfSkewedShards() throws Exception {
+        Random random = new Random(11);
+        double[] values = new double[60000];
+        TDigest[] shards = new TDigest[3];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new TDigest(TDigest.DEFAULT_COMPRESSION);
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian());
+            // each shard holds a different part of the distribution
+            shards[Math.min(2, (int) values[i])].add(values[i]);
+        }
+        Arrays.sort(values);
+
+        TDigest merged = readWritten(shards[0]);
+        merged.merge(readWritten(shards[1]));
+        merged.merge(readWritten(shards[2]));
+        assertThat(merged.count(), equalTo((long) values.length));
+        assertThat(merged.min(), equalTo(values[0]));
+        assertThat(merged.max(), equalTo(values[values.length - 1]));
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99}) {
+            double actual = values[(int) (q * values.length)];
+            assertThat(merged.quantile(q), closeTo(actual, actual * 0.05));
+        }
+    }
+
+    private static TDigest readWritten(TDigest digest) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        digest.writeTo(out);
+        return TDigest.readFrom(new BytesStreamInput(out.bytes().toBytes(), false));
+    }
+}